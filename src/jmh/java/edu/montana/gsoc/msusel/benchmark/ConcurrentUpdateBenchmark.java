@@ -0,0 +1,209 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import edu.montana.gsoc.msusel.ChangeSet;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+import edu.montana.gsoc.msusel.util.CodeTreeUtils;
+
+/**
+ * Stress benchmarks for many threads adding and updating files of a single
+ * tree at once, as parallel analyzers do. Each thread works on files of its
+ * own, so with the tree in concurrent mode ({@code concurrent=true}) the
+ * throughput should grow with the number of threads, while without it every
+ * update is serialized. Runs on all available processors by default; pass
+ * e.g. {@code -Djmh.args="-t 1"}, then 2, 4, ... to chart the scaling.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class ConcurrentUpdateBenchmark {
+
+    /**
+     * Number of distinct files each thread cycles through, a power of two
+     */
+    static final int FILES = 256;
+
+    /**
+     * Whether the tree is in concurrent mode
+     */
+    @Param({ "false", "true" })
+    public boolean concurrent;
+
+    /**
+     * The tree under test, rebuilt for every iteration
+     */
+    CodeTree      tree;
+    /**
+     * Utilities operating on the tree under test
+     */
+    CodeTreeUtils utils;
+
+    /**
+     * Creates an empty tree.
+     */
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        tree = new CodeTree();
+        tree.setProject("project");
+        if (concurrent)
+            tree.enableConcurrency();
+        utils = tree.getUtils();
+    }
+
+    /**
+     * Adds a file, or updates one added before, with a changed metric value.
+     *
+     * @param worker
+     *            State of the calling thread
+     * @return The changes made
+     */
+    @Benchmark
+    public ChangeSet updateFile(Worker worker)
+    {
+        return utils.updateFile(worker.nextFile());
+    }
+
+    /**
+     * Adds a new type, with one method, to the file of the calling thread.
+     * Outside concurrent mode the tree offers no protection for direct
+     * modification, so the calls are serialized on the tree.
+     *
+     * @param worker
+     *            State of the calling thread
+     * @return true if the type was added
+     */
+    @Benchmark
+    public boolean addType(Worker worker)
+    {
+        if (concurrent)
+            return worker.addType();
+
+        synchronized (tree)
+        {
+            return worker.addType();
+        }
+    }
+
+    /**
+     * The files and counters of a single thread.
+     *
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    @State(Scope.Thread)
+    public static class Worker {
+
+        /**
+         * Index of the thread
+         */
+        int      thread;
+        /**
+         * Number of files produced or types added so far
+         */
+        int      count;
+        /**
+         * The file this thread adds types to
+         */
+        FileNode file;
+
+        /**
+         * Adds the file of this thread to the tree of the iteration.
+         *
+         * @param bench
+         *            The benchmark holding the tree
+         * @param params
+         *            Parameters of the calling thread
+         */
+        @Setup(Level.Iteration)
+        public void setUp(ConcurrentUpdateBenchmark bench, ThreadParams params)
+        {
+            thread = params.getThreadIndex();
+            count = 0;
+            file = FileNode.builder("src/t" + thread + ".java").parent("project").length(Integer.MAX_VALUE).create();
+            bench.utils.updateFile(file);
+        }
+
+        /**
+         * @return The next file of this thread, holding one type with one
+         *         method and a metric value differing from that of the file
+         *         produced before
+         */
+        FileNode nextFile()
+        {
+            int i = count++ & (FILES - 1);
+            String type = "pkg" + thread + ".T" + i;
+
+            return FileNode.builder("src/t" + thread + "/T" + i + ".java").parent("project").length(20)
+                    .type(TypeNode.builder("T" + i, type).range(1, 20).metric("LOC", (double) count)
+                            .method(MethodNode.builder("run", type + "#run").range(2, 10).create()).create())
+                    .create();
+        }
+
+        /**
+         * Adds a new type to the file of this thread.
+         *
+         * @return true if the type was added
+         */
+        boolean addType()
+        {
+            int i = count++;
+            String qid = "pkg" + thread + ".A" + i;
+            TypeNode type = TypeNode.builder("A" + i, qid).range(i * 10 + 1, i * 10 + 9).create();
+            type.addMethod(MethodNode.builder("run", qid + "#run").range(i * 10 + 2, i * 10 + 8).create());
+
+            return file.addType(type);
+        }
+    }
+}
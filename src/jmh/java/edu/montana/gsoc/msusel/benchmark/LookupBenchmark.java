@@ -0,0 +1,172 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * Benchmarks for the identifier based queries of {@code CodeTreeUtils} and
+ * for merging trees.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LookupBenchmark {
+
+    /**
+     * State holding a second tree, a deep copy of the one in
+     * {@link TreeState}, to merge into it. Built only for the merge benchmark.
+     */
+    @State(Scope.Benchmark)
+    public static class MergeState {
+
+        /**
+         * The tree merged into the tree under test
+         */
+        CodeTree other;
+
+        /**
+         * Copies the tree to merge.
+         *
+         * @param state
+         *            State holding the tree under test
+         * @throws CloneNotSupportedException
+         *             Never
+         */
+        @Setup(Level.Trial)
+        public void setUp(TreeState state) throws CloneNotSupportedException
+        {
+            other = new CodeTree();
+            other.setProject(state.tree.getProject().clone());
+        }
+    }
+
+    /**
+     * Looks up a type by qualified identifier.
+     *
+     * @param state
+     *            Tree under test
+     * @return The type found
+     */
+    @Benchmark
+    public TypeNode findType(TreeState state)
+    {
+        return state.utils.findType(state.typeIds[state.next()]);
+    }
+
+    /**
+     * Looks up a file by qualified identifier.
+     *
+     * @param state
+     *            Tree under test
+     * @return The file found
+     */
+    @Benchmark
+    public FileNode findFile(TreeState state)
+    {
+        return state.utils.findFile(state.fileIds[state.next()]);
+    }
+
+    /**
+     * Looks up a method by qualified identifier.
+     *
+     * @param state
+     *            Tree under test
+     * @return The method found
+     */
+    @Benchmark
+    public MethodNode findMethod(TreeState state)
+    {
+        return state.utils.findMethod(state.methodIds[state.next()]);
+    }
+
+    /**
+     * Looks up the parent of a method.
+     *
+     * @param state
+     *            Tree under test
+     * @return The parent found
+     */
+    @Benchmark
+    public INode findParent(TreeState state)
+    {
+        return state.utils.findParent(state.methods[state.next()]);
+    }
+
+    /**
+     * Extracts the tree from the root down to, and including, a type.
+     *
+     * @param state
+     *            Tree under test
+     * @return The extracted tree
+     */
+    @Benchmark
+    public CodeTree extractTree(TreeState state)
+    {
+        return state.utils.extractTree(state.types[state.next()]);
+    }
+
+    /**
+     * Merges a copy of the tree under test into it. Since the trees are
+     * equal, repeated merges leave the tree under test unchanged.
+     *
+     * @param state
+     *            Tree under test
+     * @param merge
+     *            Tree to merge
+     * @return The tree under test
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CodeTree merge(TreeState state, MergeState merge)
+    {
+        state.utils.merge(merge.other);
+        return state.tree;
+    }
+}
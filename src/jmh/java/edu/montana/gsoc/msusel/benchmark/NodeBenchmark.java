@@ -0,0 +1,104 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * Benchmarks for cloning and for the metrics attached to nodes.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NodeBenchmark {
+
+    /**
+     * Metrics read and written, all present on every generated type
+     */
+    private static final String[] METRICS = { "LOC", "NOM", "NOF", "CYCLO" };
+
+    /**
+     * Deep clones the root project.
+     *
+     * @param state
+     *            Tree under test
+     * @return The clone
+     * @throws CloneNotSupportedException
+     *             Never
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ProjectNode cloneProject(TreeState state) throws CloneNotSupportedException
+    {
+        return state.tree.getProject().clone();
+    }
+
+    /**
+     * Adds, or overwrites, a metric of a type.
+     *
+     * @param state
+     *            Tree under test
+     * @return The type
+     */
+    @Benchmark
+    public TypeNode addMetric(TreeState state)
+    {
+        int index = state.next();
+        TypeNode type = state.types[index];
+        type.addMetric(METRICS[index & 3], (double) index);
+        return type;
+    }
+
+    /**
+     * Reads a metric of a type.
+     *
+     * @param state
+     *            Tree under test
+     * @return The metric value
+     */
+    @Benchmark
+    public Double getMetric(TreeState state)
+    {
+        int index = state.next();
+        return state.types[index].getMetric(METRICS[index & 3]);
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.generator.GeneratorSpec;
+import edu.montana.gsoc.msusel.generator.TreeGenerator;
+import edu.montana.gsoc.msusel.store.NodeStore;
+import edu.montana.gsoc.msusel.store.StoredNode;
+import edu.montana.gsoc.msusel.util.CodeTreeUtils;
+import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+
+/**
+ * Compares a tree of on-heap nodes ({@code store=heap}) with the same tree
+ * copied into an off-heap {@link NodeStore} ({@code store=offheap}), holding
+ * only one of them live. {@link #fullGc()} measures the pause of a full
+ * collection, which grows with the on-heap tree and should stay flat with the
+ * off-heap one; the other benchmarks measure the price paid for it when
+ * reading the tree. Add {@code -Djmh.args="-prof gc"} to also report the
+ * allocation rate and collection counts of each benchmark.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NodeStoreBenchmark {
+
+    /**
+     * Number of sampled identifiers, a power of two
+     */
+    static final int SAMPLES = 1024;
+
+    /**
+     * Where the nodes are kept
+     */
+    @Param({ "heap", "offheap" })
+    public String         store;
+    /**
+     * Approximate number of nodes in the tree
+     */
+    @Param({ "100000", "1000000" })
+    public int            nodes;
+
+    /**
+     * The on-heap tree, or null when benchmarking the store
+     */
+    private CodeTree      tree;
+    /**
+     * Utilities operating on the on-heap tree
+     */
+    private CodeTreeUtils utils;
+    /**
+     * The off-heap store, or null when benchmarking the tree
+     */
+    private NodeStore     nodeStore;
+    /**
+     * Flyweight reused by every lookup in the store
+     */
+    private StoredNode    flyweight;
+    /**
+     * Registry id of the metric summed by traversals
+     */
+    private int           loc;
+    /**
+     * Sampled method identifiers
+     */
+    private String[]      methodIds = new String[SAMPLES];
+    /**
+     * Position of the next sample
+     */
+    private int           cursor;
+
+    /**
+     * Builds the tree, keeping it on the heap or copying it off-heap, and
+     * draws the sample.
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        CodeTree generated = new TreeGenerator(GeneratorSpec.ofSize(nodes, TreeState.SEED)).generate();
+        loc = MetricNameRegistry.getInstance().keyOrRegister("LOC").getId();
+
+        List<String> all = Lists.newArrayList();
+        generated.getUtils().methods().forEach(method -> all.add(method.getQIdentifier()));
+        Random rand = new Random(TreeState.SEED);
+        for (int i = 0; i < SAMPLES; i++)
+        {
+            methodIds[i] = all.get(rand.nextInt(all.size()));
+        }
+
+        if ("heap".equals(store))
+        {
+            tree = generated;
+            utils = tree.getUtils();
+        }
+        else
+        {
+            nodeStore = NodeStore.copyOf(generated);
+            flyweight = nodeStore.flyweight();
+        }
+        System.gc();
+    }
+
+    /**
+     * Runs a full collection with the tree live.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void fullGc()
+    {
+        System.gc();
+    }
+
+    /**
+     * Sums a metric over every node of the tree.
+     *
+     * @return The sum
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double traverse()
+    {
+        if (tree != null)
+            return sum(tree.getProject());
+
+        double sum = 0;
+        for (int id = 0; id < nodeStore.size(); id++)
+        {
+            double value = nodeStore.getMetric(id, loc);
+            if (!Double.isNaN(value))
+                sum += value;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Finds a method by its qualified identifier and reads its first line.
+     *
+     * @return The first line of the method
+     */
+    @Benchmark
+    public int findMethod()
+    {
+        String qid = methodIds[cursor++ & (SAMPLES - 1)];
+        if (tree != null)
+            return utils.findMethod(qid).getStart();
+
+        return flyweight.moveTo(nodeStore.find(qid)).getStart();
+    }
+
+    /**
+     * @param node
+     *            A node of the on-heap tree
+     * @return The sum of the metric over the node and its children
+     */
+    private double sum(AbstractNode node)
+    {
+        double value = node.getMetric(loc);
+        double sum = Double.isNaN(value) ? 0 : value;
+        for (AbstractNode child : node.getChildren())
+        {
+            sum += sum(child);
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.json.CodeTreeReader;
+
+/**
+ * Benchmarks for writing and reading whole trees, as JSON and as binary
+ * snapshots.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializationBenchmark {
+
+    /**
+     * State holding the serialized forms of the tree under test.
+     */
+    @State(Scope.Benchmark)
+    public static class Serialized {
+
+        /**
+         * The tree as JSON
+         */
+        String json;
+        /**
+         * The tree as UTF-8 encoded JSON
+         */
+        byte[] jsonBytes;
+        /**
+         * The tree as a binary snapshot
+         */
+        byte[] snapshot;
+
+        /**
+         * Serializes the tree under test.
+         *
+         * @param state
+         *            Tree under test
+         * @throws IOException
+         *             If the snapshot could not be written
+         */
+        @Setup
+        public void setUp(TreeState state) throws IOException
+        {
+            json = state.tree.toJSON();
+            jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            state.tree.save(out);
+            snapshot = out.toByteArray();
+        }
+    }
+
+    /**
+     * Writes the tree as JSON.
+     *
+     * @param state
+     *            Tree under test
+     * @return The JSON
+     * @throws IOException
+     *             Never
+     */
+    @Benchmark
+    public StringWriter toJSON(TreeState state) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        state.tree.toJSON(out);
+        return out;
+    }
+
+    /**
+     * Reads the tree from JSON through the shared Gson instance.
+     *
+     * @param data
+     *            Serialized tree
+     * @return The tree read
+     */
+    @Benchmark
+    public CodeTree createFromJson(Serialized data)
+    {
+        return CodeTree.createFromJson(data.json);
+    }
+
+    /**
+     * Reads the tree from JSON with the streaming reader.
+     *
+     * @param data
+     *            Serialized tree
+     * @return The tree read
+     * @throws IOException
+     *             Never
+     */
+    @Benchmark
+    public CodeTree readJson(Serialized data) throws IOException
+    {
+        return new CodeTreeReader().read(new ByteArrayInputStream(data.jsonBytes));
+    }
+
+    /**
+     * Writes the tree as a binary snapshot.
+     *
+     * @param state
+     *            Tree under test
+     * @return The snapshot
+     * @throws IOException
+     *             Never
+     */
+    @Benchmark
+    public ByteArrayOutputStream save(TreeState state) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        state.tree.save(out);
+        return out;
+    }
+
+    /**
+     * Reads the tree from a binary snapshot.
+     *
+     * @param data
+     *            Serialized tree
+     * @return The tree read
+     * @throws IOException
+     *             Never
+     */
+    @Benchmark
+    public CodeTree load(Serialized data) throws IOException
+    {
+        return CodeTree.load(new ByteArrayInputStream(data.snapshot));
+    }
+}
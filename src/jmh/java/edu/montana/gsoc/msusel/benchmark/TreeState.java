@@ -0,0 +1,151 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.benchmark;
+
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.collect.Lists;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.generator.GeneratorSpec;
+import edu.montana.gsoc.msusel.generator.TreeGenerator;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+import edu.montana.gsoc.msusel.util.CodeTreeUtils;
+
+/**
+ * Benchmark state holding a tree of the size given by the {@code nodes}
+ * parameter, generated by {@link TreeGenerator} from
+ * {@link GeneratorSpec#ofSize(int, long)}, together with a fixed, randomly
+ * drawn sample of identifiers, nodes and lines to query it with. Benchmarks
+ * cycle through the sample so that no single lookup can be constant folded or
+ * stay hot in cache.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+@State(Scope.Benchmark)
+public class TreeState {
+
+    /**
+     * Number of sampled queries, a power of two
+     */
+    static final int SAMPLES = 1024;
+    /**
+     * Seed of the generated tree and of the sample
+     */
+    static final long SEED = 42L;
+
+    /**
+     * Approximate number of nodes in the tree
+     */
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int nodes;
+
+    /**
+     * The tree under test
+     */
+    CodeTree tree;
+    /**
+     * Utilities operating on the tree under test
+     */
+    CodeTreeUtils utils;
+    /**
+     * Sampled file identifiers
+     */
+    String[] fileIds = new String[SAMPLES];
+    /**
+     * Sampled type identifiers
+     */
+    String[] typeIds = new String[SAMPLES];
+    /**
+     * Sampled method identifiers
+     */
+    String[] methodIds = new String[SAMPLES];
+    /**
+     * Sampled files
+     */
+    FileNode[] files = new FileNode[SAMPLES];
+    /**
+     * Sampled types
+     */
+    TypeNode[] types = new TypeNode[SAMPLES];
+    /**
+     * Sampled methods
+     */
+    MethodNode[] methods = new MethodNode[SAMPLES];
+    /**
+     * Sampled lines, each within the range of the file or type at the same
+     * index
+     */
+    int[] lines = new int[SAMPLES];
+    /**
+     * Position of the next sample
+     */
+    private int cursor;
+
+    /**
+     * Builds the tree and draws the sample.
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        tree = new TreeGenerator(GeneratorSpec.ofSize(nodes, SEED)).generate();
+        utils = tree.getUtils();
+
+        List<MethodNode> all = Lists.newArrayList(utils.methods());
+        Random rand = new Random(SEED);
+        for (int i = 0; i < SAMPLES; i++)
+        {
+            methods[i] = all.get(rand.nextInt(all.size()));
+            types[i] = utils.findType(methods[i].getParentID());
+            files[i] = utils.findFile(types[i].getParentID());
+
+            fileIds[i] = files[i].getQIdentifier();
+            typeIds[i] = types[i].getQIdentifier();
+            methodIds[i] = methods[i].getQIdentifier();
+            lines[i] = types[i].getStart() + rand.nextInt(types[i].getEnd() - types[i].getStart() + 1);
+        }
+    }
+
+    /**
+     * Advances to the next sample.
+     *
+     * @return Index of the next sample
+     */
+    int next()
+    {
+        return cursor++ & (SAMPLES - 1);
+    }
+}
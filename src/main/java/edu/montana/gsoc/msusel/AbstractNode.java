@@ -25,20 +25,33 @@
  */
 package edu.montana.gsoc.msusel;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.log4j.Logger;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
 
 import edu.montana.gsoc.msusel.node.CodeNode;
-import edu.montana.gsoc.msusel.relations.Relationship;
+import edu.montana.gsoc.msusel.util.MetricKey;
 import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+import edu.montana.gsoc.msusel.util.MetricValues;
+import edu.montana.gsoc.msusel.util.NodeIndex;
+import edu.montana.gsoc.msusel.util.Symbol;
+import edu.montana.gsoc.msusel.util.SymbolTable;
+import edu.montana.gsoc.msusel.version.VersionNode;
 
 /**
  * @author Isaac Griffith
@@ -47,33 +60,69 @@ import edu.montana.gsoc.msusel.util.MetricNameRegistry;
 public abstract class AbstractNode implements INode {
 
 	/**
-	 * Data structure for recording metric values
+	 * Data structure for recording metric values, keyed by metric id
 	 */
 	@Expose
-	protected Map<String, Double> metrics;
+	@JsonAdapter(MetricValues.Adapter.class)
+	protected MetricValues metrics;
 	/**
 	 * Unique qualified identifier for this entity
 	 */
 	@Expose
-	protected String qIdentifier;
+	@SerializedName("qIdentifier")
+	@JsonAdapter(Symbol.Adapter.class)
+	protected Symbol symbol;
 	/**
 	 * Simple name of this entity
 	 */
 	@Expose
 	protected String name;
-	/**
-	 * Relationships between this entity and others
-	 */
-	protected List<Relationship> outRelations;
 	/**
 	 * The unique qualified identifier of a parent entity
 	 */
 	@Expose
-	protected String parentID;
+	@SerializedName("parentID")
+	@JsonAdapter(Symbol.Adapter.class)
+	protected Symbol parentSymbol;
 	/**
 	 * Logger used to output events associated with CodeNodes
 	 */
-	protected Logger LOG = Logger.getLogger(CodeNode.class);
+	protected static final Logger LOG = Logger.getLogger(CodeNode.class);
+	/**
+	 * Index of the tree this node is currently attached to, or null if this
+	 * node is not part of a tree
+	 */
+	protected transient NodeIndex index;
+	/**
+	 * The node which contains this node, or null if this node has not been
+	 * added to another
+	 */
+	protected transient AbstractNode parent;
+	/**
+	 * Columnar metric store this node's metrics are mirrored into, or null
+	 */
+	transient MetricColumns columns;
+	/**
+	 * Ordinal of this node among the nodes of its kind in the columnar store,
+	 * or -1 if it is not part of one
+	 */
+	transient int ordinal = -1;
+	/**
+	 * Id of this node within the tree it is attached to, or -1 if it is not
+	 * attached to one
+	 */
+	private transient int id = -1;
+	/**
+	 * Cached fingerprint of the subtree rooted at this node, or 0 if it has
+	 * not been computed since this node or one of its children last changed
+	 */
+	private transient volatile long fingerprint;
+	/**
+	 * Cached immutable version of the subtree rooted at this node, or null if
+	 * it has not been captured since this node or one of its children last
+	 * changed
+	 */
+	private transient volatile VersionNode frozen;
 
 	/**
 	 * Constructs a new AbstractNode with the given qualified identifier and
@@ -88,10 +137,27 @@ public abstract class AbstractNode implements INode {
 		if (qIdentifier == null || qIdentifier.isEmpty() || name == null || name.isEmpty())
 			throw new IllegalArgumentException("Name and QIdentifier can be neither null nor empty.");
 
-		this.qIdentifier = qIdentifier;
+		this.symbol = Symbol.parse(qIdentifier, name);
+		this.name = name;
+		metrics = new MetricValues();
+	}
+
+	/**
+	 * Constructs a new AbstractNode with the given symbol for its qualified
+	 * identifier and name
+	 * 
+	 * @param symbol
+	 *            Symbol for the Qualified Identifier
+	 * @param name
+	 *            The Name
+	 */
+	protected AbstractNode(Symbol symbol, String name) {
+		if (symbol == null || name == null || name.isEmpty())
+			throw new IllegalArgumentException("Name and QIdentifier can be neither null nor empty.");
+
+		this.symbol = symbol;
 		this.name = name;
-		metrics = Maps.newHashMap();
-		outRelations = Lists.newArrayList();
+		metrics = new MetricValues();
 	}
 
 	/**
@@ -105,14 +171,33 @@ public abstract class AbstractNode implements INode {
 	 */
 	@Override
 	public void addMetric(String name, Double value) {
-		if (name == null || name.isEmpty() || value == null || Double.isNaN(value) || Double.isInfinite(value))
+		if (name == null || name.isEmpty() || value == null)
 			return;
 
-		String metric = MetricNameRegistry.getInstance().lookup(name);
+		addMetric(MetricNameRegistry.getInstance().id(name), value);
+	}
 
-		if (metric != null) {
-			metrics.put(metric, value);
-		}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addMetric(int id, double value) {
+		if (id < 0 || Double.isNaN(value) || Double.isInfinite(value))
+			return;
+
+		metrics.put(id, value);
+		if (columns != null)
+			columns.set(this, id, value);
+		contentChanged();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addMetric(MetricKey key, double value) {
+		if (key != null)
+			addMetric(key.getId(), value);
 	}
 
 	/**
@@ -120,15 +205,33 @@ public abstract class AbstractNode implements INode {
 	 */
 	@Override
 	public void incrementMetric(String name, Double increment) {
-		if (name == null || name.isEmpty() || increment == null || Double.isNaN(increment)
-				|| Double.isInfinite(increment))
+		if (name == null || name.isEmpty() || increment == null)
 			return;
 
-		if (metrics.containsKey(MetricNameRegistry.getInstance().lookup(name)))
-			metrics.put(MetricNameRegistry.getInstance().lookup(name),
-					metrics.get(MetricNameRegistry.getInstance().lookup(name)) + increment);
-		else
-			metrics.put(MetricNameRegistry.getInstance().lookup(name), increment);
+		incrementMetric(MetricNameRegistry.getInstance().id(name), increment);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void incrementMetric(int id, double increment) {
+		if (id < 0 || Double.isNaN(increment) || Double.isInfinite(increment))
+			return;
+
+		metrics.add(id, increment);
+		if (columns != null)
+			columns.set(this, id, metrics.get(id));
+		contentChanged();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void incrementMetric(MetricKey key, double increment) {
+		if (key != null)
+			incrementMetric(key.getId(), increment);
 	}
 
 	/**
@@ -142,7 +245,23 @@ public abstract class AbstractNode implements INode {
 			return -1.0;
 		}
 
-		return metrics.get(MetricNameRegistry.getInstance().lookup(metric));
+		return metrics.get(MetricNameRegistry.getInstance().id(metric));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getMetric(int id) {
+		return metrics.get(id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getMetric(MetricKey key) {
+		return key == null ? Double.NaN : metrics.get(key.getId());
 	}
 
 	/**
@@ -150,7 +269,23 @@ public abstract class AbstractNode implements INode {
 	 */
 	@Override
 	public boolean hasMetric(String metric) {
-		return metrics.containsKey(MetricNameRegistry.getInstance().lookup(metric));
+		return metrics.has(MetricNameRegistry.getInstance().id(metric));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasMetric(int id) {
+		return metrics.has(id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasMetric(MetricKey key) {
+		return key != null && metrics.has(key.getId());
 	}
 
 	/**
@@ -158,7 +293,23 @@ public abstract class AbstractNode implements INode {
 	 */
 	@Override
 	public String getQIdentifier() {
-		return qIdentifier;
+		return symbol.toString();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Symbol getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getId() {
+		return id;
 	}
 
 	/**
@@ -175,6 +326,7 @@ public abstract class AbstractNode implements INode {
 	 */
 	protected void setName(String name) {
 		this.name = name;
+		contentChanged();
 	}
 
 	/**
@@ -194,8 +346,8 @@ public abstract class AbstractNode implements INode {
 	 *            The other node in which to copy metrics from.
 	 */
 	protected void copyMetrics(INode other) {
-		for (String key : getMetricNames()) {
-			other.addMetric(key, getMetric(key));
+		for (int i = 0; i < metrics.size(); i++) {
+			other.addMetric(metrics.idAt(i), metrics.valueAt(i));
 		}
 	}
 
@@ -204,7 +356,7 @@ public abstract class AbstractNode implements INode {
 	 */
 	@Override
 	public Set<String> getMetricNames() {
-		return metrics.keySet();
+		return metrics.names();
 	}
 
 	/**
@@ -222,7 +374,7 @@ public abstract class AbstractNode implements INode {
 	 */
 	@Override
 	public String getParentID() {
-		return parentID;
+		return parentSymbol == null ? null : parentSymbol.toString();
 	}
 
 	/**
@@ -231,11 +383,35 @@ public abstract class AbstractNode implements INode {
 	@Override
 	public void setParentID(String id) {
 		if (id == null)
-			parentID = id;
-		else if (id.isEmpty() || id.equals(this.qIdentifier))
+			parentSymbol = null;
+		else if (id.isEmpty() || symbol.matches(id))
 			throw new IllegalArgumentException("Parent ID cannot be same as this id or empty");
 		else
-			parentID = id;
+			parentSymbol = Symbol.parse(id);
+	}
+
+	/**
+	 * @return The symbol for the identifier of the parent entity, or null if
+	 *         none has been set
+	 */
+	public Symbol getParentSymbol() {
+		return parentSymbol;
+	}
+
+	/**
+	 * Sets the identifier of the parent entity to that of the given symbol,
+	 * which containers pass their own symbol to.
+	 * 
+	 * @param parent
+	 *            Symbol for the identifier of the parent entity, or null
+	 * @throws IllegalArgumentException
+	 *             if the symbol is equal to that of this node
+	 */
+	public void setParentSymbol(Symbol parent) {
+		if (parent != null && parent.equals(symbol))
+			throw new IllegalArgumentException("Parent ID cannot be same as this id or empty");
+
+		parentSymbol = parent;
 	}
 
 	/**
@@ -243,6 +419,612 @@ public abstract class AbstractNode implements INode {
 	 */
 	@Override
 	public boolean hasParent() {
-		return parentID != null;
+		return parentSymbol != null;
+	}
+
+	/**
+	 * @return The nodes directly contained by this node. Nodes which are only
+	 *         referenced by this node, rather than contained, are not included.
+	 */
+	protected Iterable<? extends AbstractNode> children() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * @return A read-only view of the nodes directly contained by this node.
+	 */
+	public Iterable<AbstractNode> getChildren() {
+		return Iterables.unmodifiableIterable(children());
+	}
+
+	/**
+	 * Registers this node and all of its children with the given index,
+	 * removing them from any other index they were previously registered
+	 * with. Nodes new to the index are assigned an id.
+	 * 
+	 * @param index
+	 *            The index of the tree this node is being attached to
+	 */
+	void attach(NodeIndex index) {
+		if (this.index != null && this.index != index)
+			detach();
+
+		if (index != null) {
+			if (index.isConcurrent())
+				makeConcurrent();
+			shareSymbols(index.getSymbols());
+			if (this.index != index)
+				id = index.getIds().register(this);
+			index.add(this);
+		}
+		this.index = index;
+
+		for (AbstractNode child : children()) {
+			child.attach(index);
+		}
+	}
+
+	/**
+	 * Moves the symbols of this node onto those shared through the symbol
+	 * table of the tree it is being attached to. If the identifier of this
+	 * node extends that of its parent node, the symbol of the parent node
+	 * itself is interned as the prefix.
+	 * 
+	 * @param symbols
+	 *            Symbol table of the tree
+	 */
+	private void shareSymbols(SymbolTable symbols) {
+		Symbol prefix = symbol.getParent();
+		if (parent != null && prefix != null && prefix.equals(parent.symbol))
+			symbols.share(symbol, parent.symbol);
+		else
+			symbols.share(symbol);
+
+		if (parent != null && parentSymbol != null && parentSymbol.equals(parent.symbol))
+			parentSymbol = parent.symbol;
+	}
+
+	/**
+	 * Replaces the collections holding the children of this node with
+	 * thread-safe ones. Called when this node is attached to a tree in
+	 * concurrent mode, before it becomes reachable through the index of that
+	 * tree. Subclasses holding children override this; it must be cheap to
+	 * call again on a node which is already concurrent.
+	 */
+	protected void makeConcurrent() {
+	}
+
+	/**
+	 * Prepares a node which is about to be added as a child of this node. If
+	 * this node belongs to a tree in concurrent mode, the collections of the
+	 * child and of everything it contains are made thread-safe before the
+	 * child can be reached by other threads through the collections of this
+	 * node. Containers which may be modified by several threads at once, such
+	 * as projects and namespaces, call this before publishing a child.
+	 * 
+	 * @param child
+	 *            The child about to be added
+	 */
+	protected void prepare(AbstractNode child) {
+		if (child != null && index != null && index.isConcurrent()) {
+			child.makeConcurrent();
+			for (AbstractNode grandchild : child.children()) {
+				prepare(grandchild);
+			}
+		}
+	}
+
+	/**
+	 * Returns the given map, or a new modifiable map if it is the shared empty
+	 * map that nodes use until their first child of a kind is added.
+	 * 
+	 * @param map
+	 *            Map holding children of a node
+	 * @return A modifiable map holding the same entries
+	 */
+	protected static <K, V> Map<K, V> modifiable(Map<K, V> map) {
+		return map == Collections.emptyMap() ? Maps.newHashMap() : map;
+	}
+
+	/**
+	 * Returns a concurrent map with the contents of the given map, or the map
+	 * itself if it already is concurrent.
+	 * 
+	 * @param map
+	 *            Map holding children of a node
+	 * @return A concurrent map holding the same entries
+	 */
+	protected static <K, V> Map<K, V> concurrent(Map<K, V> map) {
+		if (map instanceof ConcurrentMap)
+			return map;
+
+		Map<K, V> copy = Maps.newConcurrentMap();
+		copy.putAll(map);
+		return copy;
+	}
+
+	/**
+	 * Removes this node and all of its children from the index they are
+	 * registered with, releasing their ids.
+	 */
+	void detach() {
+		detach(Collections.emptySet());
+	}
+
+	/**
+	 * Removes this node and all of its children from the index they are
+	 * registered with, releasing their ids, except for the given nodes and
+	 * their children, which keep their ids.
+	 * 
+	 * @param kept
+	 *            Nodes to be left in the index
+	 */
+	void detach(Set<AbstractNode> kept) {
+		if (kept.contains(this))
+			return;
+
+		if (index != null) {
+			index.remove(this);
+			index.getRelations().removeNode(id);
+			index.getIds().release(id, this);
+		}
+		index = null;
+		id = -1;
+
+		for (AbstractNode child : children()) {
+			child.detach(kept);
+		}
+	}
+
+	/**
+	 * Records this node as the container of the given child and notifies the
+	 * index of the tree this node belongs to, if any, that the child has been
+	 * added.
+	 * 
+	 * @param child
+	 *            The newly added child
+	 */
+	protected void adopt(AbstractNode child) {
+		if (child == null)
+			return;
+
+		child.parent = this;
+		if (index != null)
+			child.attach(index);
+		if (columns != null)
+			columns.add(child);
+		childrenChanged();
+	}
+
+	/**
+	 * Clears this node as the container of the given child and notifies the
+	 * index of the tree this node belongs to, if any, that the child has been
+	 * removed.
+	 * 
+	 * @param child
+	 *            The removed child
+	 */
+	protected void disown(AbstractNode child) {
+		if (child == null)
+			return;
+
+		if (child.parent == this)
+			child.parent = null;
+		if (child.index != null && child.index == index)
+			child.detach();
+		if (child.columns != null && child.columns == columns)
+			columns.remove(child);
+		childrenChanged();
+	}
+
+	/**
+	 * Removes the given child from the collection of this node holding it, as
+	 * the remove methods of the kind of this node do. Subclasses holding
+	 * children override this.
+	 *
+	 * @param child
+	 *            The child to be removed
+	 * @return true if the child was contained by this node and has been
+	 *         removed, false otherwise
+	 */
+	protected boolean removeChild(AbstractNode child) {
+		return false;
+	}
+
+	/**
+	 * Removes the given child from the given map of children of this node,
+	 * clearing its parent identifier and releasing it from the tree.
+	 *
+	 * @param map
+	 *            Map holding children of this node, keyed by their symbol
+	 * @param child
+	 *            The child to be removed
+	 * @return true if the map held the child and it has been removed, false
+	 *         otherwise
+	 */
+	protected final boolean removeChild(Map<Symbol, ? extends AbstractNode> map, AbstractNode child) {
+		if (map.get(child.symbol) != child)
+			return false;
+
+		map.remove(child.symbol);
+		child.setParentSymbol(null);
+		disown(child);
+		return true;
+	}
+
+	/**
+	 * Takes the given node out of the node containing it, if any, so that it
+	 * can be moved into another node. Merges take the nodes which are new to
+	 * the node being merged into out of the tree being merged, so that the
+	 * index, ids and children of that tree never refer to nodes which have
+	 * moved on.
+	 *
+	 * @param node
+	 *            The node to be moved
+	 * @return The node
+	 */
+	protected static <T extends AbstractNode> T take(T node) {
+		if (node.parent != null)
+			node.parent.removeChild(node);
+
+		return node;
+	}
+
+	/**
+	 * Called whenever a node contained, directly or indirectly, by this node is
+	 * added, removed or moved to different lines. Nodes caching information
+	 * about their children override this to invalidate it, and must call the
+	 * super implementation so that the cached fingerprint is cleared and
+	 * containing nodes are notified as well.
+	 */
+	protected void childrenChanged() {
+		fingerprint = 0;
+		frozen = null;
+		notifyParent();
+	}
+
+	/**
+	 * Called whenever the content of this node itself, such as its metrics,
+	 * identifiers or lines, has changed. Clears the cached fingerprint and
+	 * version of this node and of the nodes containing it. As a cached
+	 * fingerprint or version implies the same for all contained nodes, the
+	 * walk stops at the first container without either. Unlike
+	 * {@link #childrenChanged()} this leaves other information cached by the
+	 * containers intact.
+	 */
+	protected void contentChanged() {
+		fingerprint = 0;
+		frozen = null;
+		for (AbstractNode node = parent; node != null
+				&& (node.fingerprint != 0 || node.frozen != null); node = node.parent) {
+			node.fingerprint = 0;
+			node.frozen = null;
+		}
+	}
+
+	/**
+	 * Notifies the container of this node, if any, that this node has changed.
+	 */
+	protected void notifyParent() {
+		if (parent != null)
+			parent.childrenChanged();
+	}
+
+	/**
+	 * Computes a fingerprint of this node and everything it contains, in the
+	 * manner of a Merkle tree. Two subtrees with equal fingerprints are, with
+	 * overwhelming probability, equal in content, which allows merges and
+	 * comparisons to skip them without inspecting their nodes. The fingerprint
+	 * does not depend on the order in which children are stored. It is cached
+	 * until this node, or any node it contains, changes.
+	 * 
+	 * @return The fingerprint of the subtree rooted at this node
+	 */
+	public long getFingerprint() {
+		long hash = fingerprint;
+		if (hash == 0) {
+			long children = 0;
+			for (AbstractNode child : children()) {
+				children += mix(child.getFingerprint());
+			}
+
+			hash = combine(contentHash(), children);
+			fingerprint = hash;
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Captures an immutable version of this node and everything it contains.
+	 * The version is cached until this node, or any node it contains, changes,
+	 * so capturing again only copies those nodes on the paths to changes made
+	 * since, sharing all other subtrees with the previous version. Must not be
+	 * called while the tree is being modified.
+	 * 
+	 * @return The immutable version of the subtree rooted at this node
+	 */
+	public VersionNode freeze() {
+		VersionNode node = frozen;
+		if (node == null) {
+			List<VersionNode> children = Lists.newArrayList();
+			for (AbstractNode child : children()) {
+				children.add(child.freeze());
+			}
+
+			VersionNode.Builder builder = VersionNode.builder(getType(), symbol, name).parent(parentSymbol)
+					.metrics(metrics).contentHash(contentHash());
+			node = freeze(builder).create(children);
+			if (fingerprint == 0)
+				fingerprint = node.getFingerprint();
+			frozen = node;
+		}
+
+		return node;
+	}
+
+	/**
+	 * Adds the content specific to the kind of this node to the given builder
+	 * of its immutable version. Subclasses holding additional content must
+	 * call the super implementation.
+	 * 
+	 * @param builder
+	 *            Builder of the immutable version of this node
+	 * @return The builder
+	 */
+	protected VersionNode.Builder freeze(VersionNode.Builder builder) {
+		return builder;
+	}
+
+	/**
+	 * Compares the content of this node and everything it contains with that
+	 * of the given node. Subtrees whose fingerprints differ are told apart
+	 * without being walked. Subtrees with equal fingerprints are then compared
+	 * node by node, so that a collision of fingerprints cannot make subtrees of
+	 * differing content equal.
+	 * 
+	 * @param other
+	 *            The node to compare with
+	 * @return true if the given node is of the same kind as this node and its
+	 *         subtree has the same content, false otherwise
+	 */
+	public boolean contentEquals(INode other) {
+		if (other == this)
+			return true;
+		if (other == null || other.getClass() != getClass())
+			return false;
+
+		AbstractNode node = (AbstractNode) other;
+		if (getFingerprint() != node.getFingerprint())
+			return false;
+
+		return sameContent(node) && sameChildren(node);
+	}
+
+	/**
+	 * Compares the content of this node alone, excluding its children, with
+	 * that of the given node of the same kind. Covers the same content as
+	 * {@link #contentHash()}, and subclasses overriding one must override the
+	 * other.
+	 * 
+	 * @param other
+	 *            The node to compare with
+	 * @return true if the content of both nodes is equal, false otherwise
+	 */
+	protected boolean sameContent(AbstractNode other) {
+		return symbol.equals(other.symbol) && name.equals(other.name) && sameMetrics(other);
+	}
+
+	/**
+	 * @param other
+	 *            The node to compare with
+	 * @return true if both nodes hold the same metric values, false otherwise
+	 */
+	protected final boolean sameMetrics(AbstractNode other) {
+		if (metrics.size() != other.metrics.size())
+			return false;
+
+		for (int i = 0; i < metrics.size(); i++) {
+			if (metrics.idAt(i) != other.metrics.idAt(i)
+					|| Double.compare(metrics.valueAt(i), other.metrics.valueAt(i)) != 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return Key under which this node is matched with the children of
+	 *         another node when comparing content, its symbol unless the
+	 *         identifier of this kind of node is not part of its content
+	 */
+	protected Object contentKey() {
+		return symbol;
+	}
+
+	/**
+	 * Matches each child of this node with a child of the given node having
+	 * the same key and content.
+	 * 
+	 * @param other
+	 *            The node to compare with
+	 * @return true if the children of both nodes can be paired up by content,
+	 *         false otherwise
+	 */
+	private boolean sameChildren(AbstractNode other) {
+		ListMultimap<Object, AbstractNode> theirs = ArrayListMultimap.create();
+		for (AbstractNode child : other.children()) {
+			theirs.put(child.contentKey(), child);
+		}
+
+		for (AbstractNode child : children()) {
+			Iterator<AbstractNode> candidates = theirs.get(child.contentKey()).iterator();
+			boolean matched = false;
+			while (!matched && candidates.hasNext()) {
+				if (child.contentEquals(candidates.next())) {
+					candidates.remove();
+					matched = true;
+				}
+			}
+			if (!matched)
+				return false;
+		}
+
+		return theirs.isEmpty();
+	}
+
+	/**
+	 * Hashes the content of this node alone, excluding its children. Subclasses
+	 * holding additional content must combine it with the super
+	 * implementation.
+	 * 
+	 * @return Hash of the kind, identifiers and metrics of this node
+	 */
+	protected long contentHash() {
+		long hash = combine(getType().hashCode(), symbol.hashCode());
+		hash = combine(hash, name.hashCode());
+
+		return combine(hash, metricsHash());
+	}
+
+	/**
+	 * @return Hash of the metric values of this node
+	 */
+	protected final long metricsHash() {
+		long hash = metrics.size();
+		for (int i = 0; i < metrics.size(); i++) {
+			hash = combine(hash, metrics.idAt(i));
+			hash = combine(hash, Double.doubleToLongBits(metrics.valueAt(i)));
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Scrambles the bits of the given value so that small differences in the
+	 * input spread over the whole result. Public so that other
+	 * representations of a tree can compute matching fingerprints.
+	 * 
+	 * @param value
+	 *            The value to scramble
+	 * @return The scrambled value
+	 */
+	public static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+
+		return value;
+	}
+
+	/**
+	 * @param hash
+	 *            The hash accumulated so far
+	 * @param value
+	 *            The value to add
+	 * @return A hash of the given value combined with the given hash
+	 */
+	public static long combine(long hash, long value) {
+		return mix(hash * 31 + value);
+	}
+
+	/**
+	 * Merges the given node, which must describe the same entity as this node,
+	 * into this node. Subtrees of the given node whose fingerprints match the
+	 * corresponding subtree of this node are skipped entirely, and only those
+	 * metrics whose values differ are copied. Children of the given node which
+	 * are new to this node are moved out of the given node rather than copied.
+	 *
+	 * @param other
+	 *            The node to merge into this node
+	 * @return The changes made to this node and its children, empty if the
+	 *         given node is null or not of the same kind as this node
+	 */
+	public ChangeSet merge(INode other) {
+		ChangeSet changes = new ChangeSet();
+		if (other != null && other != this && other.getClass() == getClass())
+			mergeInto(this, (AbstractNode) other, changes);
+
+		return changes;
+	}
+
+	/**
+	 * Merges the source node into the target node, both of the same kind,
+	 * unless their subtrees already share the same fingerprint.
+	 * 
+	 * @param target
+	 *            The node being updated
+	 * @param source
+	 *            The node providing the new content
+	 * @param changes
+	 *            The change set to record changes in
+	 */
+	protected static void mergeInto(AbstractNode target, AbstractNode source, ChangeSet changes) {
+		if (target.getFingerprint() == source.getFingerprint())
+			return;
+
+		boolean modified = target.mergeContent(source);
+		modified |= target.mergeMetrics(source, changes);
+		if (modified) {
+			target.contentChanged();
+			changes.recordModified(target);
+		}
+
+		target.mergeChildren(source, changes);
+	}
+
+	/**
+	 * Copies the content specific to the kind of this node, but neither its
+	 * metrics nor its children, from the given node of the same kind.
+	 * Subclasses holding additional content must call the super
+	 * implementation.
+	 * 
+	 * @param other
+	 *            The node providing the new content
+	 * @return true if the content of this node changed, false otherwise
+	 */
+	protected boolean mergeContent(AbstractNode other) {
+		return false;
+	}
+
+	/**
+	 * Merges the children of the given node of the same kind into the
+	 * children of this node, recording additions and removals in the given
+	 * change set.
+	 * 
+	 * @param other
+	 *            The node providing the new children
+	 * @param changes
+	 *            The change set to record changes in
+	 */
+	protected void mergeChildren(AbstractNode other, ChangeSet changes) {
+	}
+
+	/**
+	 * Copies those metric values of the given node which differ from the
+	 * values of this node. Metrics measured only on this node are kept.
+	 * 
+	 * @param other
+	 *            The node providing the new metric values
+	 * @param changes
+	 *            The change set to record metric deltas in
+	 * @return true if any metric value changed, false otherwise
+	 */
+	private boolean mergeMetrics(AbstractNode other, ChangeSet changes) {
+		boolean changed = false;
+		for (int i = 0; i < other.metrics.size(); i++) {
+			int id = other.metrics.idAt(i);
+			double value = other.metrics.valueAt(i);
+			double old = metrics.get(id);
+			if (Double.compare(old, value) != 0) {
+				addMetric(id, value);
+				changes.recordMetric(this, id, old, value);
+				changed = true;
+			}
+		}
+
+		return changed;
 	}
 }
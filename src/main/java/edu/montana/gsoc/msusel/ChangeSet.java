@@ -0,0 +1,267 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+
+/**
+ * The structured result of merging one tree, or part of a tree, into another.
+ * A change set records the nodes which were added to or removed from the
+ * target tree, the nodes whose own content (line range, flags, imports,
+ * metrics, etc.) was modified, and a delta for each metric value which
+ * changed. Added and removed nodes are recorded at the root of the affected
+ * subtree only, their contents are implied. Nodes whose subtrees were found
+ * unchanged are not recorded at all.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class ChangeSet {
+
+    /**
+     * Nodes added to the target, in the order they were added
+     */
+    private final List<INode>       added    = Lists.newArrayList();
+    /**
+     * Nodes removed from the target, in the order they were removed
+     */
+    private final List<INode>       removed  = Lists.newArrayList();
+    /**
+     * Nodes of the target whose own content was modified, containers before
+     * the nodes they contain
+     */
+    private final List<INode>       modified = Lists.newArrayList();
+    /**
+     * Changes to individual metric values of the nodes of the target
+     */
+    private final List<MetricDelta> deltas   = Lists.newArrayList();
+
+    /**
+     * @return The nodes added to the target tree
+     */
+    public List<INode> getAdded()
+    {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * @return The nodes removed from the target tree
+     */
+    public List<INode> getRemoved()
+    {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * @return The nodes of the target tree whose own content was modified
+     */
+    public List<INode> getModified()
+    {
+        return Collections.unmodifiableList(modified);
+    }
+
+    /**
+     * @return The metric values of the target tree which were added or changed
+     */
+    public List<MetricDelta> getMetricDeltas()
+    {
+        return Collections.unmodifiableList(deltas);
+    }
+
+    /**
+     * @return true if the merge left the target tree unchanged, false otherwise
+     */
+    public boolean isEmpty()
+    {
+        return added.isEmpty() && removed.isEmpty() && modified.isEmpty() && deltas.isEmpty();
+    }
+
+    /**
+     * Records that the given node, and everything it contains, was added.
+     * 
+     * @param node
+     *            The added node
+     */
+    public void recordAdded(INode node)
+    {
+        if (node != null)
+            added.add(node);
+    }
+
+    /**
+     * Records that the given node, and everything it contains, was removed.
+     * 
+     * @param node
+     *            The removed node
+     */
+    public void recordRemoved(INode node)
+    {
+        if (node != null)
+            removed.add(node);
+    }
+
+    /**
+     * Records that the content of the given node was modified.
+     * 
+     * @param node
+     *            The modified node
+     */
+    public void recordModified(INode node)
+    {
+        if (node != null)
+            modified.add(node);
+    }
+
+    /**
+     * Records that a metric value of the given node was added or changed.
+     * 
+     * @param node
+     *            The node the metric was measured on
+     * @param id
+     *            Metric id, as assigned by the MetricNameRegistry
+     * @param oldValue
+     *            The previous value, NaN if the metric was not measured
+     * @param newValue
+     *            The new value
+     */
+    public void recordMetric(INode node, int id, double oldValue, double newValue)
+    {
+        if (node != null)
+            deltas.add(new MetricDelta(node.getQIdentifier(), MetricNameRegistry.getInstance().name(id), oldValue,
+                    newValue));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return "ChangeSet [added=" + added.size() + ", removed=" + removed.size() + ", modified=" + modified.size()
+                + ", metricDeltas=" + deltas.size() + "]";
+    }
+
+    /**
+     * A change to a single metric value of a single node.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    public static class MetricDelta {
+
+        /**
+         * Qualified identifier of the node the metric was measured on
+         */
+        private final String qIdentifier;
+        /**
+         * Name of the metric
+         */
+        private final String metric;
+        /**
+         * The previous value, NaN if the metric was not measured
+         */
+        private final double oldValue;
+        /**
+         * The new value
+         */
+        private final double newValue;
+
+        /**
+         * Constructs a new MetricDelta
+         * 
+         * @param qIdentifier
+         *            Qualified identifier of the node
+         * @param metric
+         *            Name of the metric
+         * @param oldValue
+         *            The previous value, NaN if the metric was not measured
+         * @param newValue
+         *            The new value
+         */
+        private MetricDelta(String qIdentifier, String metric, double oldValue, double newValue)
+        {
+            this.qIdentifier = qIdentifier;
+            this.metric = metric;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        /**
+         * @return Qualified identifier of the node the metric was measured on
+         */
+        public String getQIdentifier()
+        {
+            return qIdentifier;
+        }
+
+        /**
+         * @return Name of the metric
+         */
+        public String getMetric()
+        {
+            return metric;
+        }
+
+        /**
+         * @return The previous value, NaN if the metric was not measured
+         */
+        public double getOldValue()
+        {
+            return oldValue;
+        }
+
+        /**
+         * @return The new value
+         */
+        public double getNewValue()
+        {
+            return newValue;
+        }
+
+        /**
+         * @return The difference between the new and the previous value, where
+         *         a metric which was not measured counts as 0
+         */
+        public double getDelta()
+        {
+            return Double.isNaN(oldValue) ? newValue : newValue - oldValue;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString()
+        {
+            return qIdentifier + " " + metric + ": " + oldValue + " -> " + newValue;
+        }
+    }
+}
@@ -25,23 +25,24 @@
  */
 package edu.montana.gsoc.msusel;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
 import com.google.gson.annotations.Expose;
 
-import edu.montana.gsoc.msusel.json.FieldNodeDeserializer;
-import edu.montana.gsoc.msusel.json.FileNodeDeserializer;
-import edu.montana.gsoc.msusel.json.MethodNodeDeserializer;
-import edu.montana.gsoc.msusel.json.ModuleNodeDeserializer;
-import edu.montana.gsoc.msusel.json.ProjectNodeDeserializer;
-import edu.montana.gsoc.msusel.json.TypeNodeDeserializer;
-import edu.montana.gsoc.msusel.node.FieldNode;
-import edu.montana.gsoc.msusel.node.FileNode;
-import edu.montana.gsoc.msusel.node.MethodNode;
-import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.json.CodeTreeWriter;
+import edu.montana.gsoc.msusel.json.NodeAdapters;
 import edu.montana.gsoc.msusel.node.ProjectNode;
-import edu.montana.gsoc.msusel.node.TypeNode;
+import edu.montana.gsoc.msusel.relations.RelationGraph;
+import edu.montana.gsoc.msusel.snapshot.SnapshotReader;
+import edu.montana.gsoc.msusel.snapshot.SnapshotWriter;
 import edu.montana.gsoc.msusel.util.CodeTreeUtils;
+import edu.montana.gsoc.msusel.util.NodeIndex;
+import edu.montana.gsoc.msusel.version.TreeVersion;
 
 /**
  * A data structure used to represent a model of a software system (both
@@ -62,6 +63,19 @@ public class CodeTree {
      * The CodeTreeUtils for this CodeTree
      */
     private CodeTreeUtils utils;
+    /**
+     * Index of all nodes contained in this CodeTree, created along with the
+     * project
+     */
+    private transient NodeIndex index;
+    /**
+     * Columnar copy of the metrics of all nodes, created on first use
+     */
+    private transient MetricColumns columns;
+    /**
+     * The most recently published immutable version of this tree, may be null
+     */
+    private transient volatile TreeVersion published;
 
     /**
      * Constructs a new empty CodeTree
@@ -94,7 +108,7 @@ public class CodeTree {
         if (key == null || key.isEmpty())
             throw new IllegalArgumentException("Project key cannot be null or empty.");
 
-        project = ProjectNode.builder(key).create();
+        attach(ProjectNode.builder(key).create());
     }
 
     /**
@@ -109,9 +123,171 @@ public class CodeTree {
         if (pn == null)
             return;
 
+        attach(pn);
+    }
+
+    /**
+     * Replaces the root project with the one provided, moving the index over
+     * to the new root. Nodes of the new root which are already part of this
+     * tree keep their ids; the ids of the other nodes of the old root are
+     * released and handed out to the remaining nodes of the new root.
+     * 
+     * @param pn
+     *            new root.
+     */
+    private void attach(ProjectNode pn)
+    {
+        AbstractNode root = pn;
+        if (index == null)
+        {
+            index = new NodeIndex();
+        }
+        else if (project != null)
+        {
+            ((AbstractNode) project).detach(indexed(root, Sets.newIdentityHashSet()));
+        }
+        root.attach(index);
+        if (columns != null)
+        {
+            if (project != null)
+                columns.remove(project);
+            columns.add(pn);
+        }
+
         project = pn;
     }
 
+    /**
+     * @return The index of all nodes contained in this CodeTree.
+     */
+    public NodeIndex getIndex()
+    {
+        if (index == null)
+        {
+            index = new NodeIndex();
+
+            AbstractNode root = project;
+            if (root != null)
+                root.attach(index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Retrieves the columnar metric store of this tree, creating it on first
+     * use. Once created, the store is kept consistent with the metrics and
+     * structure of the tree.
+     * 
+     * @return The columnar metric store of all nodes in this CodeTree.
+     */
+    public MetricColumns getColumns()
+    {
+        if (columns == null)
+        {
+            columns = new MetricColumns();
+            if (project != null)
+                columns.add(project);
+        }
+
+        return columns;
+    }
+
+    /**
+     * Switches this tree to concurrent mode, in which several threads may add
+     * and update files at once. The index and the children of every node,
+     * present and future, are held in concurrent maps, and
+     * {@link CodeTreeUtils#updateFile(FileNode)} only serializes updates of the
+     * same file rather than all updates. Threads modifying the tree directly
+     * must still not modify the same file at the same time. Fingerprints and
+     * published versions should only be taken while no thread is modifying the
+     * tree. The mode cannot be switched off again, and must be enabled
+     * before other threads start using the tree.
+     */
+    public void enableConcurrency()
+    {
+        NodeIndex idx = getIndex();
+        if (idx.isConcurrent())
+            return;
+
+        idx.makeConcurrent();
+        if (project != null)
+            makeConcurrent(project);
+
+        getUtils();
+    }
+
+    /**
+     * Collects the given node and the nodes it contains which are registered
+     * with the index of this tree.
+     * 
+     * @param node
+     *            The node
+     * @param nodes
+     *            Set the nodes are added to
+     * @return The given set
+     */
+    private Set<AbstractNode> indexed(AbstractNode node, Set<AbstractNode> nodes)
+    {
+        if (node.index == index && nodes.add(node))
+        {
+            for (AbstractNode child : node.children())
+            {
+                indexed(child, nodes);
+            }
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Switches the given node and all nodes it contains to concurrent maps.
+     * 
+     * @param node
+     *            The node
+     */
+    private static void makeConcurrent(AbstractNode node)
+    {
+        node.makeConcurrent();
+        for (AbstractNode child : node.children())
+        {
+            makeConcurrent(child);
+        }
+    }
+
+    /**
+     * Looks up a node of this tree by its id. Ids are dense, so data kept per
+     * node can be held in arrays of length
+     * {@code getIndex().getIds().bound()} indexed by {@link INode#getId()}.
+     * 
+     * @param id
+     *            Id of the node
+     * @return The node with the given id, or null if there is none
+     */
+    public INode getNode(int id)
+    {
+        return getIndex().getNode(id);
+    }
+
+    /**
+     * Retrieves the relationships between the nodes of this tree. The
+     * relationships of a node are dropped when it is removed from the tree.
+     * 
+     * @return The relationship graph of this tree
+     */
+    public RelationGraph getRelations()
+    {
+        return getIndex().getRelations();
+    }
+
+    /**
+     * @return true if this tree is in concurrent mode, false otherwise
+     */
+    public boolean isConcurrent()
+    {
+        return index != null && index.isConcurrent();
+    }
+
     /**
      * Deserializes a CodeTree object from a given JSON string.
      * 
@@ -125,15 +301,7 @@ public class CodeTree {
         if (json == null || json.isEmpty())
             return null;
 
-        GsonBuilder gb = new GsonBuilder();
-        gb.registerTypeAdapter(FileNode.class, new FileNodeDeserializer());
-        gb.registerTypeAdapter(TypeNode.class, new TypeNodeDeserializer());
-        gb.registerTypeAdapter(FieldNode.class, new FieldNodeDeserializer());
-        gb.registerTypeAdapter(MethodNode.class, new MethodNodeDeserializer());
-        gb.registerTypeAdapter(ProjectNode.class, new ProjectNodeDeserializer());
-        gb.registerTypeAdapter(ModuleNode.class, new ModuleNodeDeserializer());
-        Gson g = gb.create();
-        return g.fromJson(json, CodeTree.class);
+        return NodeAdapters.gson().fromJson(json, CodeTree.class);
     }
 
     /**
@@ -141,24 +309,106 @@ public class CodeTree {
      */
     public String toJSON()
     {
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().setPrettyPrinting().create();
-        return gson.toJson(this);
+        return new CodeTreeWriter(true).toJson(this);
+    }
+
+    /**
+     * Serializes this code tree and its contents as compact JSON directly to
+     * the given writer, without building the document in memory.
+     * 
+     * @param out
+     *            The writer, which is flushed but not closed
+     * @throws IOException
+     *             if the writer fails
+     */
+    public void toJSON(Writer out) throws IOException
+    {
+        new CodeTreeWriter().write(this, out);
     }
 
     /**
-     * {@inheritDoc}
+     * Saves this code tree and its contents to the given stream in the binary
+     * snapshot format.
+     * 
+     * @param out
+     *            The stream, which is flushed but not closed
+     * @throws IOException
+     *             if the stream fails
+     */
+    public void save(OutputStream out) throws IOException
+    {
+        new SnapshotWriter().write(this, out);
+    }
+
+    /**
+     * Loads a code tree from a binary snapshot previously written by
+     * {@link #save(OutputStream)}.
+     * 
+     * @param in
+     *            The stream, which is not closed
+     * @return A newly instantiated CodeTree read from the snapshot
+     * @throws IOException
+     *             if the stream fails, or does not hold a supported snapshot
+     */
+    public static CodeTree load(InputStream in) throws IOException
+    {
+        return new SnapshotReader().read(in);
+    }
+
+    /**
+     * Captures an immutable version of this tree and makes it the published
+     * version. Only the nodes on the paths to changes made since the previous
+     * publication are copied, all other subtrees are shared with the previous
+     * version. Must be called by the thread modifying the tree, once the tree
+     * is in a consistent state.
+     * 
+     * @return The newly published version
+     */
+    public TreeVersion publish()
+    {
+        TreeVersion version = new TreeVersion(project == null ? null : project.freeze());
+        published = version;
+
+        return version;
+    }
+
+    /**
+     * @return The most recently published version of this tree, or null if no
+     *         version has been published. Readers holding this version are
+     *         not affected by later changes to the tree.
+     */
+    public TreeVersion getVersion()
+    {
+        return published;
+    }
+
+    /**
+     * @return The fingerprint of the content of this tree, suitable as a key
+     *         when caching trees, or 0 if this tree has no project. See
+     *         {@link AbstractNode#getFingerprint()}.
+     */
+    public long getFingerprint()
+    {
+        return project == null ? 0 : project.getFingerprint();
+    }
+
+    /**
+     * {@inheritDoc} The hash code depends only on the identifier of the root
+     * project, so it stays the same while the nodes of this tree are edited.
+     * Trees whose project is replaced must not be used as keys while they are
+     * stored in hashed collections; use {@link #getFingerprint()} to key trees
+     * by content.
      */
     @Override
     public int hashCode()
     {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((project == null) ? 0 : project.hashCode());
-        return result;
+        return project == null ? 0 : project.getSymbol().hashCode();
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc} Two trees are equal when their projects have the same
+     * content. Differing fingerprints tell trees apart quickly; equal
+     * fingerprints are confirmed by comparing the trees node by node.
      */
     @Override
     public boolean equals(Object obj)
@@ -167,10 +417,6 @@ public class CodeTree {
         {
             return true;
         }
-        if (obj == null)
-        {
-            return false;
-        }
         if (!(obj instanceof CodeTree))
         {
             return false;
@@ -178,16 +424,9 @@ public class CodeTree {
         CodeTree other = (CodeTree) obj;
         if (project == null)
         {
-            if (other.project != null)
-            {
-                return false;
-            }
-        }
-        else if (!project.equals(other.project))
-        {
-            return false;
+            return other.project == null;
         }
-        return true;
+        return project.contentEquals(other.project);
     }
 
     /**
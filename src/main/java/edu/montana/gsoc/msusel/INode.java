@@ -30,6 +30,9 @@ import java.util.Set;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import edu.montana.gsoc.msusel.util.MetricKey;
+import edu.montana.gsoc.msusel.util.Symbol;
+
 /**
  * Interface defining the base methods of all Nodes representing both code and
  * structure of a software system.
@@ -54,6 +57,27 @@ public interface INode {
      */
     void addMetric(String name, Double value);
 
+    /**
+     * Adds a measurement value for the metric with the given registry id to
+     * this Node
+     * 
+     * @param id
+     *            Metric id, as assigned by the MetricNameRegistry
+     * @param value
+     *            Measurement Value
+     */
+    void addMetric(int id, double value);
+
+    /**
+     * Adds a measurement value for the metric with the given key to this Node
+     * 
+     * @param key
+     *            Metric key, as returned by the MetricNameRegistry
+     * @param value
+     *            Measurement Value
+     */
+    void addMetric(MetricKey key, double value);
+
     /**
      * Increments a measurement value for the named metric by the given
      * increment value
@@ -65,6 +89,28 @@ public interface INode {
      */
     void incrementMetric(String name, Double increment);
 
+    /**
+     * Increments a measurement value for the metric with the given registry id
+     * by the given increment value
+     * 
+     * @param id
+     *            Metric id, as assigned by the MetricNameRegistry
+     * @param increment
+     *            Increment value
+     */
+    void incrementMetric(int id, double increment);
+
+    /**
+     * Increments a measurement value for the metric with the given key by the
+     * given increment value
+     * 
+     * @param key
+     *            Metric key, as returned by the MetricNameRegistry
+     * @param increment
+     *            Increment value
+     */
+    void incrementMetric(MetricKey key, double increment);
+
     /**
      * Retrieves the stored measurement value of the named metric, if such a
      * value exists.
@@ -76,6 +122,28 @@ public interface INode {
      */
     Double getMetric(String metric);
 
+    /**
+     * Retrieves the stored measurement value of the metric with the given
+     * registry id, if such a value exists.
+     * 
+     * @param id
+     *            Metric id, as assigned by the MetricNameRegistry
+     * @return Measurement value, or NaN if no such metric has been measured
+     *         for this node.
+     */
+    double getMetric(int id);
+
+    /**
+     * Retrieves the stored measurement value of the metric with the given key,
+     * if such a value exists.
+     * 
+     * @param key
+     *            Metric key, as returned by the MetricNameRegistry
+     * @return Measurement value, or NaN if no such metric has been measured
+     *         for this node.
+     */
+    double getMetric(MetricKey key);
+
     /**
      * Checks whether this node has a recorded measurement value for the named
      * metric.
@@ -87,11 +155,46 @@ public interface INode {
      */
     boolean hasMetric(String metric);
 
+    /**
+     * Checks whether this node has a recorded measurement value for the metric
+     * with the given registry id.
+     * 
+     * @param id
+     *            Metric id, as assigned by the MetricNameRegistry
+     * @return true if a value has been recorded for the metric, false
+     *         otherwise.
+     */
+    boolean hasMetric(int id);
+
+    /**
+     * Checks whether this node has a recorded measurement value for the metric
+     * with the given key.
+     * 
+     * @param key
+     *            Metric key, as returned by the MetricNameRegistry
+     * @return true if a value has been recorded for the metric, false
+     *         otherwise.
+     */
+    boolean hasMetric(MetricKey key);
+
     /**
      * @return the Qualified Identifier of this node
      */
     String getQIdentifier();
 
+    /**
+     * @return The symbol for the qualified identifier of this node, which
+     *         {@link #getQIdentifier()} spells out
+     */
+    Symbol getSymbol();
+
+    /**
+     * @return The dense id of this node within the tree it is attached to, or
+     *         -1 if it is not attached to a tree. The id does not change while
+     *         the node stays in the tree, even if its identifier does.
+     */
+    int getId();
+
     /**
      * @return the name of this node
      */
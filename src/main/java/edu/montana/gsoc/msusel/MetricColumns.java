@@ -0,0 +1,619 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import edu.montana.gsoc.msusel.util.MetricKey;
+import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+
+/**
+ * A tree-wide, column oriented copy of the metrics of every node in a
+ * {@link CodeTree}. Nodes are grouped by kind (their class) and each node is
+ * assigned a dense ordinal within its kind. For every kind and metric a
+ * primitive column holds the value of each node at its ordinal, with NaN
+ * marking nodes which carry no value. Whole-column operations such as
+ * aggregates, percentiles, histograms, top-N and correlations thereby become
+ * scans over a single array.
+ * <p>
+ * Nodes keep the store up to date themselves: values added or incremented
+ * through {@link INode} are written through to their column, and nodes added
+ * to or removed from the tree join or leave the store along with their
+ * children. Updates from the nodes are serialized on the store, so that
+ * trees in concurrent mode may keep one, but whole-column reads must not
+ * overlap with modifications of the tree.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MetricColumns {
+
+    /**
+     * The nodes and columns of each kind of node
+     */
+    private final Map<Class<?>, Kind> kinds = Maps.newHashMap();
+
+    /**
+     * Constructs a new empty MetricColumns. Use {@link CodeTree#getColumns()}
+     * to obtain the store of a tree.
+     */
+    MetricColumns()
+    {
+    }
+
+    /**
+     * Adds the given node and all of its children to this store, copying
+     * their current metric values into the columns.
+     * 
+     * @param node
+     *            The node to add
+     */
+    synchronized void add(AbstractNode node)
+    {
+        if (node.columns != this)
+        {
+            if (node.columns != null)
+                node.columns.remove(node);
+
+            Kind kind = kinds.computeIfAbsent(node.getClass(), k -> new Kind());
+            node.ordinal = kind.allocate(node);
+            node.columns = this;
+            for (int i = 0; i < node.metrics.size(); i++)
+            {
+                kind.set(node.ordinal, node.metrics.idAt(i), node.metrics.valueAt(i));
+            }
+        }
+
+        for (AbstractNode child : node.children())
+        {
+            add(child);
+        }
+    }
+
+    /**
+     * Removes the given node and all of its children from this store.
+     * 
+     * @param node
+     *            The node to remove
+     */
+    synchronized void remove(AbstractNode node)
+    {
+        if (node.columns == this)
+        {
+            kinds.get(node.getClass()).release(node.ordinal);
+            node.ordinal = -1;
+            node.columns = null;
+        }
+
+        for (AbstractNode child : node.children())
+        {
+            remove(child);
+        }
+    }
+
+    /**
+     * Records a changed metric value of a node in this store.
+     * 
+     * @param node
+     *            The node
+     * @param id
+     *            The metric id
+     * @param value
+     *            The new value
+     */
+    synchronized void set(AbstractNode node, int id, double value)
+    {
+        kinds.get(node.getClass()).set(node.ordinal, id, value);
+    }
+
+    /**
+     * Retrieves the column of the given metric for the given kind of node.
+     * 
+     * @param kind
+     *            The kind of node
+     * @param metric
+     *            Name of the metric
+     * @return The column, which is empty if no such metric is known
+     */
+    public Column column(Class<? extends INode> kind, String metric)
+    {
+        return column(kind, MetricNameRegistry.getInstance().key(metric));
+    }
+
+    /**
+     * Retrieves the column of the given metric for the given kind of node.
+     * 
+     * @param kind
+     *            The kind of node
+     * @param key
+     *            Key of the metric
+     * @return The column, which is empty if the key is null
+     */
+    public synchronized Column column(Class<? extends INode> kind, MetricKey key)
+    {
+        Kind k = kinds.computeIfAbsent(kind, c -> new Kind());
+
+        return new Column(k, key == null ? -1 : key.getId());
+    }
+
+    /**
+     * @param kind
+     *            The kind of node
+     * @return The number of nodes of the given kind in this store
+     */
+    public synchronized int size(Class<? extends INode> kind)
+    {
+        Kind k = kinds.get(kind);
+        return k == null ? 0 : k.count;
+    }
+
+    /**
+     * The nodes of one kind along with their metric columns.
+     */
+    private static final class Kind {
+
+        /**
+         * The node at each ordinal, null for released ordinals
+         */
+        AbstractNode[] nodes   = new AbstractNode[16];
+        /**
+         * The column of each metric id, null until a value is first set
+         */
+        double[][]     columns = new double[0][];
+        /**
+         * One past the highest ordinal ever allocated
+         */
+        int            limit;
+        /**
+         * The number of nodes currently holding an ordinal
+         */
+        int            count;
+        /**
+         * Released ordinals available for reuse
+         */
+        int[]          free    = new int[0];
+        /**
+         * The number of released ordinals
+         */
+        int            freeCount;
+
+        /**
+         * Assigns an ordinal to the given node, reusing a released one if
+         * possible.
+         * 
+         * @param node
+         *            The node
+         * @return The ordinal
+         */
+        int allocate(AbstractNode node)
+        {
+            int ordinal;
+            if (freeCount > 0)
+            {
+                ordinal = free[--freeCount];
+            }
+            else
+            {
+                ordinal = limit++;
+                if (ordinal == nodes.length)
+                    grow(nodes.length + (nodes.length >> 1));
+            }
+
+            nodes[ordinal] = node;
+            count++;
+            return ordinal;
+        }
+
+        /**
+         * Releases the given ordinal, clearing its values in every column.
+         * 
+         * @param ordinal
+         *            The ordinal
+         */
+        void release(int ordinal)
+        {
+            nodes[ordinal] = null;
+            for (double[] column : columns)
+            {
+                if (column != null)
+                    column[ordinal] = Double.NaN;
+            }
+
+            if (freeCount == free.length)
+                free = Arrays.copyOf(free, Math.max(8, freeCount * 2));
+            free[freeCount++] = ordinal;
+            count--;
+        }
+
+        /**
+         * Sets the value of a metric for the node with the given ordinal.
+         * 
+         * @param ordinal
+         *            The ordinal
+         * @param id
+         *            The metric id
+         * @param value
+         *            The value
+         */
+        void set(int ordinal, int id, double value)
+        {
+            if (id < 0)
+                return;
+
+            if (id >= columns.length)
+                columns = Arrays.copyOf(columns, Math.max(id + 1, columns.length * 2));
+            if (columns[id] == null)
+            {
+                columns[id] = new double[nodes.length];
+                Arrays.fill(columns[id], Double.NaN);
+            }
+
+            columns[id][ordinal] = value;
+        }
+
+        /**
+         * @param id
+         *            The metric id
+         * @return The column of the given metric, or null if no value has
+         *         been set for it
+         */
+        double[] column(int id)
+        {
+            return id < 0 || id >= columns.length ? null : columns[id];
+        }
+
+        /**
+         * Grows the node array and every column to the given capacity.
+         * 
+         * @param capacity
+         *            The new capacity
+         */
+        private void grow(int capacity)
+        {
+            nodes = Arrays.copyOf(nodes, capacity);
+            for (int i = 0; i < columns.length; i++)
+            {
+                if (columns[i] != null)
+                {
+                    int old = columns[i].length;
+                    columns[i] = Arrays.copyOf(columns[i], capacity);
+                    Arrays.fill(columns[i], old, capacity, Double.NaN);
+                }
+            }
+        }
+    }
+
+    /**
+     * A live, read-only view of the values of one metric across all nodes of
+     * one kind. Every operation is a scan over the underlying primitive
+     * column, skipping nodes without a value.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    public static final class Column {
+
+        /**
+         * The kind of node viewed
+         */
+        private final Kind kind;
+        /**
+         * The metric id viewed
+         */
+        private final int  id;
+
+        /**
+         * Constructs a new Column
+         * 
+         * @param kind
+         *            The kind of node viewed
+         * @param id
+         *            The metric id viewed
+         */
+        private Column(Kind kind, int id)
+        {
+            this.kind = kind;
+            this.id = id;
+        }
+
+        /**
+         * @return The number of nodes with a value
+         */
+        public int count()
+        {
+            double[] column = kind.column(id);
+            int count = 0;
+            for (int i = 0; column != null && i < kind.limit; i++)
+            {
+                if (!Double.isNaN(column[i]))
+                    count++;
+            }
+
+            return count;
+        }
+
+        /**
+         * @return The total of all values, or 0 if there are none
+         */
+        public double sum()
+        {
+            double[] column = kind.column(id);
+            double sum = 0;
+            for (int i = 0; column != null && i < kind.limit; i++)
+            {
+                if (!Double.isNaN(column[i]))
+                    sum += column[i];
+            }
+
+            return sum;
+        }
+
+        /**
+         * @return The mean of all values, or NaN if there are none
+         */
+        public double mean()
+        {
+            int count = count();
+            return count == 0 ? Double.NaN : sum() / count;
+        }
+
+        /**
+         * @return The smallest value, or NaN if there are none
+         */
+        public double min()
+        {
+            double[] column = kind.column(id);
+            double min = Double.NaN;
+            for (int i = 0; column != null && i < kind.limit; i++)
+            {
+                if (column[i] < min || (Double.isNaN(min) && !Double.isNaN(column[i])))
+                    min = column[i];
+            }
+
+            return min;
+        }
+
+        /**
+         * @return The largest value, or NaN if there are none
+         */
+        public double max()
+        {
+            double[] column = kind.column(id);
+            double max = Double.NaN;
+            for (int i = 0; column != null && i < kind.limit; i++)
+            {
+                if (column[i] > max || (Double.isNaN(max) && !Double.isNaN(column[i])))
+                    max = column[i];
+            }
+
+            return max;
+        }
+
+        /**
+         * @return A copy of all values, in ordinal order
+         */
+        public double[] values()
+        {
+            double[] column = kind.column(id);
+            double[] values = new double[count()];
+            for (int i = 0, j = 0; column != null && i < kind.limit; i++)
+            {
+                if (!Double.isNaN(column[i]))
+                    values[j++] = column[i];
+            }
+
+            return values;
+        }
+
+        /**
+         * Computes the given percentile of the values using the nearest-rank
+         * method, selecting the value in linear time.
+         * 
+         * @param p
+         *            The percentile, between 0 and 100
+         * @return The smallest value such that at least p percent of the values
+         *         are less than or equal to it, or NaN if there are none
+         * @throws IllegalArgumentException
+         *             if p is outside of [0, 100]
+         */
+        public double percentile(double p)
+        {
+            if (p < 0 || p > 100)
+                throw new IllegalArgumentException("Percentile must be between 0 and 100");
+
+            double[] values = values();
+            if (values.length == 0)
+                return Double.NaN;
+
+            int rank = Math.max(0, (int) Math.ceil(p / 100.0 * values.length) - 1);
+            return select(values, rank);
+        }
+
+        /**
+         * Counts the values falling into each of the given number of equal
+         * width bins spanning the range from the smallest to the largest
+         * value. The largest value falls into the last bin.
+         * 
+         * @param bins
+         *            The number of bins
+         * @return The count of each bin
+         * @throws IllegalArgumentException
+         *             if bins is less than 1
+         */
+        public long[] histogram(int bins)
+        {
+            if (bins < 1)
+                throw new IllegalArgumentException("There must be at least one bin");
+
+            long[] counts = new long[bins];
+            double[] column = kind.column(id);
+            double min = min();
+            double width = (max() - min) / bins;
+            for (int i = 0; column != null && i < kind.limit; i++)
+            {
+                if (Double.isNaN(column[i]))
+                    continue;
+
+                int bin = width > 0 ? (int) ((column[i] - min) / width) : 0;
+                counts[Math.min(bin, bins - 1)]++;
+            }
+
+            return counts;
+        }
+
+        /**
+         * Finds the nodes with the largest values.
+         * 
+         * @param n
+         *            The number of nodes
+         * @return Up to n nodes, ordered from largest to smallest value
+         */
+        public List<INode> top(int n)
+        {
+            double[] column = kind.column(id);
+            if (n <= 0 || column == null)
+                return Lists.newArrayList();
+
+            PriorityQueue<Integer> heap = new PriorityQueue<>(n, (a, b) -> Double.compare(column[a], column[b]));
+            for (int i = 0; i < kind.limit; i++)
+            {
+                if (Double.isNaN(column[i]))
+                    continue;
+
+                if (heap.size() < n)
+                {
+                    heap.add(i);
+                }
+                else if (column[i] > column[heap.peek()])
+                {
+                    heap.poll();
+                    heap.add(i);
+                }
+            }
+
+            INode[] top = new INode[heap.size()];
+            for (int i = top.length - 1; i >= 0; i--)
+            {
+                top[i] = kind.nodes[heap.poll()];
+            }
+
+            return Lists.newArrayList(top);
+        }
+
+        /**
+         * Computes the Pearson correlation of this column with another column
+         * of the same kind of node, over the nodes which have values in both.
+         * 
+         * @param other
+         *            The other column
+         * @return The correlation coefficient, or NaN if fewer than two nodes
+         *         have both values or either column is constant
+         * @throws IllegalArgumentException
+         *             if the other column views a different kind of node
+         */
+        public double correlation(Column other)
+        {
+            if (other.kind != kind)
+                throw new IllegalArgumentException("Columns must view the same kind of node");
+
+            double[] xs = kind.column(id);
+            double[] ys = kind.column(other.id);
+            if (xs == null || ys == null)
+                return Double.NaN;
+
+            long n = 0;
+            double sx = 0, sy = 0, sxx = 0, syy = 0, sxy = 0;
+            for (int i = 0; i < kind.limit; i++)
+            {
+                double x = xs[i];
+                double y = ys[i];
+                if (Double.isNaN(x) || Double.isNaN(y))
+                    continue;
+
+                n++;
+                sx += x;
+                sy += y;
+                sxx += x * x;
+                syy += y * y;
+                sxy += x * y;
+            }
+
+            double cov = n * sxy - sx * sy;
+            double var = (n * sxx - sx * sx) * (n * syy - sy * sy);
+            return n < 2 || var <= 0 ? Double.NaN : cov / Math.sqrt(var);
+        }
+
+        /**
+         * Selects the value which would be at the given position were the
+         * array sorted, partially reordering the array.
+         * 
+         * @param values
+         *            The values
+         * @param k
+         *            The position
+         * @return The selected value
+         */
+        private static double select(double[] values, int k)
+        {
+            int lo = 0;
+            int hi = values.length - 1;
+            while (lo < hi)
+            {
+                double pivot = values[(lo + hi) >>> 1];
+                int i = lo;
+                int j = hi;
+                while (i <= j)
+                {
+                    while (values[i] < pivot)
+                        i++;
+                    while (values[j] > pivot)
+                        j--;
+                    if (i <= j)
+                    {
+                        double tmp = values[i];
+                        values[i++] = values[j];
+                        values[j--] = tmp;
+                    }
+                }
+
+                if (k <= j)
+                    hi = j;
+                else if (k >= i)
+                    lo = i;
+                else
+                    return values[k];
+            }
+
+            return values[k];
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * A lazy view of all nodes of a given kind contained beneath (and including)
+ * a root node. The view does not copy the tree, instead each iteration or
+ * stream walks the live tree, only descending into those nodes which could
+ * contain nodes of the requested kind. Parallel streams split the walk across
+ * subprojects, modules, files, and types.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.0
+ * @param <T>
+ *            The kind of node in this view
+ */
+public class NodeView<T extends INode> implements Iterable<T> {
+
+    /**
+     * The node at which the walk begins, may be null
+     */
+    private final AbstractNode root;
+    /**
+     * The kind of node selected by this view
+     */
+    private final Class<T>     kind;
+
+    /**
+     * Constructs a new view of the nodes of the given kind contained in the
+     * given root.
+     * 
+     * @param root
+     *            Node at which the walk begins, if null the view is empty
+     * @param kind
+     *            The kind of node to select
+     */
+    public NodeView(AbstractNode root, Class<T> kind)
+    {
+        if (kind == null)
+            throw new IllegalArgumentException("Kind cannot be null.");
+
+        this.root = root;
+        this.kind = kind;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<T> iterator()
+    {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Spliterator<T> spliterator()
+    {
+        ArrayDeque<AbstractNode> pending = new ArrayDeque<>();
+        if (root != null)
+            pending.add(root);
+
+        return new TreeSpliterator<>(kind, pending, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return A sequential stream over the nodes of this view
+     */
+    public Stream<T> stream()
+    {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * @return A parallel stream over the nodes of this view
+     */
+    public Stream<T> parallelStream()
+    {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * @return true if this view contains no nodes, false otherwise
+     */
+    public boolean isEmpty()
+    {
+        return !spliterator().tryAdvance(node -> {
+        });
+    }
+
+    /**
+     * Determines whether a node could contain, directly or indirectly, nodes of
+     * the given kind.
+     * 
+     * @param node
+     *            The possible container
+     * @param kind
+     *            The kind of node being searched for
+     * @return true if the node may contain nodes of the given kind, false
+     *         otherwise.
+     */
+    static boolean mayContain(AbstractNode node, Class<?> kind)
+    {
+        if (node instanceof NamespaceNode)
+            return kind.isAssignableFrom(NamespaceNode.class);
+        if (NamespaceNode.class.isAssignableFrom(kind))
+            return node instanceof ProjectNode || node instanceof ModuleNode;
+        if (node instanceof ProjectNode)
+            return true;
+
+        return level(node.getClass()) < level(kind);
+    }
+
+    /**
+     * @param kind
+     *            A kind of node
+     * @return The depth at which the given kind of node sits in the
+     *         containment hierarchy, or Integer.MAX_VALUE if the kind is not
+     *         specific to one level.
+     */
+    private static int level(Class<?> kind)
+    {
+        if (ProjectNode.class.isAssignableFrom(kind))
+            return 0;
+        if (ModuleNode.class.isAssignableFrom(kind))
+            return 1;
+        if (FileNode.class.isAssignableFrom(kind))
+            return 2;
+        if (TypeNode.class.isAssignableFrom(kind))
+            return 3;
+        if (MethodNode.class.isAssignableFrom(kind) || FieldNode.class.isAssignableFrom(kind))
+            return 4;
+        if (StatementNode.class.isAssignableFrom(kind))
+            return 5;
+
+        return Integer.MAX_VALUE;
+    }
+}
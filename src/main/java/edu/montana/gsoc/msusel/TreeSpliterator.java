@@ -0,0 +1,175 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel;
+
+import java.util.ArrayDeque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator which lazily walks the containment tree below a set of pending
+ * nodes, yielding those nodes of a requested kind. Splitting hands half of the
+ * pending subtrees to the new spliterator, expanding a lone container first
+ * when necessary, so that work is distributed across subprojects, modules,
+ * files and types.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.0
+ * @param <T>
+ *            The kind of node yielded
+ */
+class TreeSpliterator<T extends INode> implements Spliterator<T> {
+
+    /**
+     * The kind of node yielded
+     */
+    private final Class<T>                 kind;
+    /**
+     * Nodes which have yet to be visited, the walk proceeds from the tail
+     * while splits are taken from the head
+     */
+    private final ArrayDeque<AbstractNode> pending;
+    /**
+     * Estimate of the remaining number of nodes, halved on each split
+     */
+    private long                           estimate;
+
+    /**
+     * Constructs a new TreeSpliterator
+     * 
+     * @param kind
+     *            Kind of node to yield
+     * @param pending
+     *            Nodes from which the walk begins
+     * @param estimate
+     *            Estimated number of nodes to be yielded
+     */
+    TreeSpliterator(Class<T> kind, ArrayDeque<AbstractNode> pending, long estimate)
+    {
+        this.kind = kind;
+        this.pending = pending;
+        this.estimate = estimate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action)
+    {
+        while (!pending.isEmpty())
+        {
+            AbstractNode node = pending.pollLast();
+            expand(node);
+
+            if (kind.isInstance(node))
+            {
+                action.accept(kind.cast(node));
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachRemaining(Consumer<? super T> action)
+    {
+        while (!pending.isEmpty())
+        {
+            AbstractNode node = pending.pollLast();
+            expand(node);
+
+            if (kind.isInstance(node))
+                action.accept(kind.cast(node));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Spliterator<T> trySplit()
+    {
+        while (pending.size() == 1 && !kind.isInstance(pending.peekFirst()))
+        {
+            expand(pending.pollFirst());
+        }
+
+        int size = pending.size();
+        if (size < 2)
+            return null;
+
+        ArrayDeque<AbstractNode> prefix = new ArrayDeque<>(size / 2);
+        for (int i = 0; i < size / 2; i++)
+        {
+            prefix.addLast(pending.pollFirst());
+        }
+
+        estimate >>>= 1;
+        return new TreeSpliterator<>(kind, prefix, estimate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long estimateSize()
+    {
+        return pending.isEmpty() ? 0 : estimate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int characteristics()
+    {
+        return NONNULL | DISTINCT;
+    }
+
+    /**
+     * Adds the children of the given node which are, or may contain, nodes of
+     * the kind being walked for to the pending nodes.
+     * 
+     * @param node
+     *            Node to expand
+     */
+    private void expand(AbstractNode node)
+    {
+        if (!NodeView.mayContain(node, kind))
+            return;
+
+        for (AbstractNode child : node.children())
+        {
+            if (kind.isInstance(child) || NodeView.mayContain(child, kind))
+                pending.addLast(child);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.diff;
+
+import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.node.CodeNode;
+
+/**
+ * A single difference between two versions of a CodeTree. Each record refers
+ * to the node of the earlier version, the node of the later version, or both,
+ * depending on its kind. Records are immutable.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class DiffRecord {
+
+    /**
+     * The kinds of differences reported
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    public enum Kind {
+        /**
+         * The node only exists in the later version
+         */
+        ADDED,
+        /**
+         * The node only exists in the earlier version
+         */
+        REMOVED,
+        /**
+         * The node is contained by a different parent in the later version
+         */
+        MOVED,
+        /**
+         * The qualified identifier of a method changed along with its
+         * parameters
+         */
+        RENAMED,
+        /**
+         * The start or end line of the node changed
+         */
+        RANGE_CHANGED,
+        /**
+         * A metric value of the node was added, removed or changed
+         */
+        METRIC_CHANGED
+    }
+
+    /**
+     * The kind of difference
+     */
+    private final Kind   kind;
+    /**
+     * The node in the earlier version, null if added
+     */
+    private final INode  before;
+    /**
+     * The node in the later version, null if removed
+     */
+    private final INode  after;
+    /**
+     * Name of the changed metric, null unless the kind is METRIC_CHANGED
+     */
+    private final String metric;
+    /**
+     * Metric value in the earlier version, NaN if not measured
+     */
+    private final double oldValue;
+    /**
+     * Metric value in the later version, NaN if not measured
+     */
+    private final double newValue;
+
+    /**
+     * Constructs a new DiffRecord
+     * 
+     * @param kind
+     *            The kind of difference
+     * @param before
+     *            The node in the earlier version, null if added
+     * @param after
+     *            The node in the later version, null if removed
+     * @param metric
+     *            Name of the changed metric, if any
+     * @param oldValue
+     *            Metric value in the earlier version
+     * @param newValue
+     *            Metric value in the later version
+     */
+    DiffRecord(Kind kind, INode before, INode after, String metric, double oldValue, double newValue)
+    {
+        this.kind = kind;
+        this.before = before;
+        this.after = after;
+        this.metric = metric;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    /**
+     * Constructs a new DiffRecord not concerning a metric
+     * 
+     * @param kind
+     *            The kind of difference
+     * @param before
+     *            The node in the earlier version, null if added
+     * @param after
+     *            The node in the later version, null if removed
+     */
+    DiffRecord(Kind kind, INode before, INode after)
+    {
+        this(kind, before, after, null, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * @return The kind of difference
+     */
+    public Kind getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * @return The node in the earlier version, null if the node was added
+     */
+    public INode getBefore()
+    {
+        return before;
+    }
+
+    /**
+     * @return The node in the later version, null if the node was removed
+     */
+    public INode getAfter()
+    {
+        return after;
+    }
+
+    /**
+     * @return The type of the node, one of the constants of INodeType
+     */
+    public String getNodeType()
+    {
+        return after != null ? after.getType() : before.getType();
+    }
+
+    /**
+     * @return The qualified identifier of the node in the later version, or in
+     *         the earlier version if it was removed
+     */
+    public String getQIdentifier()
+    {
+        return after != null ? after.getQIdentifier() : before.getQIdentifier();
+    }
+
+    /**
+     * @return Name of the changed metric, null unless the kind is
+     *         METRIC_CHANGED
+     */
+    public String getMetric()
+    {
+        return metric;
+    }
+
+    /**
+     * @return Metric value in the earlier version, NaN if not measured
+     */
+    public double getOldValue()
+    {
+        return oldValue;
+    }
+
+    /**
+     * @return Metric value in the later version, NaN if not measured
+     */
+    public double getNewValue()
+    {
+        return newValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append(kind).append(" ").append(getNodeType()).append(" ").append(getQIdentifier());
+
+        switch (kind)
+        {
+        case MOVED:
+            builder.append(": ").append(before.getParentID()).append(" -> ").append(after.getParentID());
+            break;
+        case RENAMED:
+            builder.append(": was ").append(before.getQIdentifier());
+            break;
+        case RANGE_CHANGED:
+            CodeNode from = (CodeNode) before;
+            CodeNode to = (CodeNode) after;
+            builder.append(": ").append(from.getStart()).append("-").append(from.getEnd()).append(" -> ")
+                    .append(to.getStart()).append("-").append(to.getEnd());
+            break;
+        case METRIC_CHANGED:
+            builder.append(": ").append(metric).append(" ").append(oldValue).append(" -> ").append(newValue);
+            break;
+        default:
+            break;
+        }
+
+        return builder.toString();
+    }
+}
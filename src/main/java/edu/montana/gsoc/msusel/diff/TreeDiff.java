@@ -0,0 +1,352 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.diff;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.diff.DiffRecord.Kind;
+import edu.montana.gsoc.msusel.node.CodeNode;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.INodeType;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+import edu.montana.gsoc.msusel.util.NodeIndex;
+import edu.montana.gsoc.msusel.util.Symbol;
+
+/**
+ * Computes the structural differences between two versions of a CodeTree and
+ * streams them to a consumer as {@link DiffRecord}s. Nodes are paired by their
+ * qualified identifiers using the node indexes of the two trees, so no nested
+ * scans are needed and nodes moved to a different parent are paired as well.
+ * Subtrees whose fingerprints match in both versions are skipped without being
+ * walked. Beyond the trees themselves, only the identifiers of renamed methods
+ * are retained while diffing.
+ * <p>
+ * A method whose parameters change also changes its qualified identifier. A
+ * method only found in the later version is therefore paired with a method of
+ * the same type and simple name which is only found in the earlier version,
+ * and reported as renamed. Where several overloads qualify, the one starting
+ * on the same line is chosen, if any.
+ * <p>
+ * Every added or removed project, module, namespace, file, type, method and
+ * field is reported, not just the roots of added or removed subtrees.
+ * Statements are not reported, as their identifiers are not stable across
+ * analyses; their effect shows in the line ranges and metrics of their
+ * methods.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class TreeDiff {
+
+    /**
+     * The earlier version
+     */
+    private final CodeTree    before;
+    /**
+     * The later version
+     */
+    private final CodeTree    after;
+    /**
+     * Index of the earlier version
+     */
+    private final NodeIndex   beforeIndex;
+    /**
+     * Index of the later version
+     */
+    private final NodeIndex   afterIndex;
+    /**
+     * Symbols for the qualified identifiers of the earlier version's methods
+     * which were paired with a renamed method of the later version
+     */
+    private final Set<Symbol> renamed = Sets.newHashSet();
+
+    /**
+     * Constructs a new TreeDiff between the two given trees.
+     * 
+     * @param before
+     *            The earlier version
+     * @param after
+     *            The later version
+     * @throws IllegalArgumentException
+     *             if either tree is null
+     */
+    public TreeDiff(CodeTree before, CodeTree after)
+    {
+        if (before == null || after == null)
+            throw new IllegalArgumentException("Trees to diff cannot be null.");
+
+        this.before = before;
+        this.after = after;
+        this.beforeIndex = before.getIndex();
+        this.afterIndex = after.getIndex();
+    }
+
+    /**
+     * Streams the differences between the two trees to the given consumer.
+     * Records of added, moved, renamed and changed nodes are produced first,
+     * in the order of a walk of the later version, followed by records of
+     * removed nodes, in the order of a walk of the earlier version.
+     * 
+     * @param consumer
+     *            The consumer of the diff records
+     */
+    public void diff(Consumer<? super DiffRecord> consumer)
+    {
+        renamed.clear();
+
+        if (after.getProject() != null)
+            visitAfter(after.getProject(), null, consumer);
+        if (before.getProject() != null)
+            visitBefore(before.getProject(), null, consumer);
+    }
+
+    /**
+     * @return All differences between the two trees, in the order they are
+     *         streamed by {@link #diff(Consumer)}
+     */
+    public List<DiffRecord> toList()
+    {
+        List<DiffRecord> records = Lists.newArrayList();
+        diff(records::add);
+
+        return records;
+    }
+
+    /**
+     * Reports the differences of the given node of the later version, and of
+     * the nodes it contains.
+     * 
+     * @param node
+     *            Node of the later version
+     * @param fields
+     *            Fields of the earlier version's counterpart of the type
+     *            containing the node, keyed by symbol, or null
+     *            if the node is not a field
+     * @param consumer
+     *            The consumer of the diff records
+     */
+    private void visitAfter(AbstractNode node, Map<Symbol, FieldNode> fields, Consumer<? super DiffRecord> consumer)
+    {
+        if (node instanceof StatementNode)
+            return;
+
+        AbstractNode old = fields != null ? fields.get(node.getSymbol()) : counterpart(beforeIndex, node);
+        if (old == null && node instanceof MethodNode)
+        {
+            old = renamedFrom((MethodNode) node);
+            if (old != null)
+            {
+                renamed.add(old.getSymbol());
+                consumer.accept(new DiffRecord(Kind.RENAMED, old, node));
+            }
+        }
+
+        if (old == null)
+        {
+            consumer.accept(new DiffRecord(Kind.ADDED, null, node));
+        }
+        else
+        {
+            if (!Objects.equals(old.getParentSymbol(), node.getParentSymbol()))
+                consumer.accept(new DiffRecord(Kind.MOVED, old, node));
+
+            if (old.getFingerprint() == node.getFingerprint())
+                return;
+
+            if (node instanceof CodeNode)
+            {
+                CodeNode from = (CodeNode) old;
+                CodeNode to = (CodeNode) node;
+                if (from.getStart() != to.getStart() || from.getEnd() != to.getEnd())
+                    consumer.accept(new DiffRecord(Kind.RANGE_CHANGED, old, node));
+            }
+
+            diffMetrics(old, node, consumer);
+        }
+
+        Map<Symbol, FieldNode> typeFields = node instanceof TypeNode ? fields((TypeNode) old) : null;
+        for (AbstractNode child : node.getChildren())
+        {
+            visitAfter(child, child instanceof FieldNode ? typeFields : null, consumer);
+        }
+    }
+
+    /**
+     * Reports the given node of the earlier version, and the nodes it
+     * contains, if they were removed.
+     * 
+     * @param node
+     *            Node of the earlier version
+     * @param fields
+     *            Fields of the later version's counterpart of the type
+     *            containing the node, keyed by symbol, or null
+     *            if the node is not a field
+     * @param consumer
+     *            The consumer of the diff records
+     */
+    private void visitBefore(AbstractNode node, Map<Symbol, FieldNode> fields, Consumer<? super DiffRecord> consumer)
+    {
+        if (node instanceof StatementNode)
+            return;
+
+        AbstractNode current = fields != null ? fields.get(node.getSymbol()) : counterpart(afterIndex, node);
+        if (current == null && !renamed.contains(node.getSymbol()))
+            consumer.accept(new DiffRecord(Kind.REMOVED, node, null));
+        else if (current != null && current.getFingerprint() == node.getFingerprint())
+            return;
+
+        Map<Symbol, FieldNode> typeFields = node instanceof TypeNode ? fields((TypeNode) current) : null;
+        for (AbstractNode child : node.getChildren())
+        {
+            visitBefore(child, child instanceof FieldNode ? typeFields : null, consumer);
+        }
+    }
+
+    /**
+     * Reports the metric values which differ between the two versions of a
+     * node.
+     * 
+     * @param old
+     *            The node in the earlier version
+     * @param node
+     *            The node in the later version
+     * @param consumer
+     *            The consumer of the diff records
+     */
+    private void diffMetrics(AbstractNode old, AbstractNode node, Consumer<? super DiffRecord> consumer)
+    {
+        MetricNameRegistry registry = MetricNameRegistry.getInstance();
+
+        Set<String> names = node.getMetricNames();
+        for (String name : names)
+        {
+            int id = registry.id(name);
+            double oldValue = old.getMetric(id);
+            double newValue = node.getMetric(id);
+            if (Double.compare(oldValue, newValue) != 0)
+                consumer.accept(new DiffRecord(Kind.METRIC_CHANGED, old, node, name, oldValue, newValue));
+        }
+
+        for (String name : old.getMetricNames())
+        {
+            if (!names.contains(name))
+                consumer.accept(new DiffRecord(Kind.METRIC_CHANGED, old, node, name,
+                        old.getMetric(registry.id(name)), Double.NaN));
+        }
+    }
+
+    /**
+     * Finds the node with the same kind and qualified identifier as the given
+     * node in the given index.
+     * 
+     * @param index
+     *            Index of the other version
+     * @param node
+     *            The node, which must not be a field
+     * @return The counterpart, or null if there is none
+     */
+    private static AbstractNode counterpart(NodeIndex index, AbstractNode node)
+    {
+        return (AbstractNode) index.getNode(node.getType(), node.getSymbol());
+    }
+
+    /**
+     * Searches the earlier version for a method which the given method of the
+     * later version replaces after a change to its parameters.
+     * 
+     * @param method
+     *            Method only found in the later version
+     * @return The method of the earlier version, or null if there is none
+     */
+    private MethodNode renamedFrom(MethodNode method)
+    {
+        TypeNode type = (TypeNode) beforeIndex.getNode(INodeType.TYPE, method.getParentSymbol());
+        if (type == null)
+            return null;
+
+        String base = baseIdentifier(method.getQIdentifier());
+        MethodNode found = null;
+        int candidates = 0;
+        for (MethodNode m : type.getMethods())
+        {
+            if (!renamed.contains(m.getSymbol()) && afterIndex.getNode(INodeType.METHOD, m.getSymbol()) == null
+                    && baseIdentifier(m.getQIdentifier()).equals(base))
+            {
+                if (m.getStart() == method.getStart())
+                    return m;
+
+                found = m;
+                candidates++;
+            }
+        }
+
+        return candidates == 1 ? found : null;
+    }
+
+    /**
+     * @param qid
+     *            Qualified identifier of a method
+     * @return The qualified identifier without the parameter list
+     */
+    private static String baseIdentifier(String qid)
+    {
+        int paren = qid.indexOf('(');
+        return paren < 0 ? qid : qid.substring(0, paren);
+    }
+
+    /**
+     * @param type
+     *            A type, may be null
+     * @return The fields of the type keyed by symbol
+     */
+    private static Map<Symbol, FieldNode> fields(TypeNode type)
+    {
+        if (type == null)
+            return Collections.emptyMap();
+
+        Map<Symbol, FieldNode> fields = Maps.newHashMap();
+        for (FieldNode f : type.getFields())
+        {
+            fields.put(f.getSymbol(), f);
+        }
+
+        return fields;
+    }
+}
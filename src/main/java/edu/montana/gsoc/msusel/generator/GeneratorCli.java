@@ -0,0 +1,312 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.generator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.INodeType;
+
+/**
+ * Command line front end of the {@link TreeGenerator}, which writes a
+ * generated tree as JSON to standard output or a file, and can report the heap
+ * retained per kind of node to standard error. Run without arguments for the
+ * defaults of {@link GeneratorSpec}, or with {@code --help} for the options.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class GeneratorCli {
+
+    /**
+     * Usage message
+     */
+    private static final String USAGE = "Usage: GeneratorCli [options]\n"
+            + "  --seed <n>              seed of the generator (default 1)\n"
+            + "  --nodes <n>             fixed shape of roughly n nodes, see GeneratorSpec.ofSize\n"
+            + "  --depth <n>             maximum nesting depth of subprojects\n"
+            + "  --subprojects <min:max> subprojects per project\n"
+            + "  --modules <min:max>     modules per project\n"
+            + "  --namespaces <min:max>  namespaces per project\n"
+            + "  --files <min:max>       files per module\n"
+            + "  --types <min:max>       types per file\n"
+            + "  --methods <min:max>     methods per type\n"
+            + "  --fields <min:max>      fields per type\n"
+            + "  --statements <min:max>  statements per method\n"
+            + "  --imports <min:max>     imports per file\n"
+            + "  --parameters <min:max>  parameters per method\n"
+            + "  --density <p>           probability of each metric being present\n"
+            + "  --out <file>            write the JSON to a file instead of standard output\n"
+            + "  --report                print the heap retained per node kind to standard error\n"
+            + "  --no-json               do not write the JSON";
+
+    /**
+     * Private constructor, this class is only used through main
+     */
+    private GeneratorCli()
+    {
+    }
+
+    /**
+     * Generates a tree as directed by the command line arguments.
+     *
+     * @param args
+     *            The command line arguments
+     */
+    public static void main(String[] args)
+    {
+        try
+        {
+            run(args, System.out, System.err);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        catch (IOException e)
+        {
+            System.err.println("Could not write the tree: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Generates a tree as directed by the given arguments.
+     *
+     * @param args
+     *            The command line arguments
+     * @param out
+     *            Stream to which the JSON is written, unless a file is given
+     * @param err
+     *            Stream to which the report and help are written
+     * @throws IOException
+     *             If the JSON could not be written
+     * @throws IllegalArgumentException
+     *             If the arguments are invalid
+     */
+    static void run(String[] args, PrintStream out, PrintStream err) throws IOException
+    {
+        GeneratorSpec.Builder builder = GeneratorSpec.builder();
+        int nodes = -1;
+        long seed = 1L;
+        String file = null;
+        boolean report = false;
+        boolean json = true;
+
+        for (int i = 0; i < args.length; i++)
+        {
+            String arg = args[i];
+            switch (arg)
+            {
+            case "--help":
+                err.println(USAGE);
+                return;
+            case "--report":
+                report = true;
+                continue;
+            case "--no-json":
+                json = false;
+                continue;
+            default:
+                break;
+            }
+
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + arg);
+            String value = args[++i];
+
+            switch (arg)
+            {
+            case "--seed":
+                seed = parseLong(arg, value);
+                break;
+            case "--nodes":
+                nodes = (int) parseLong(arg, value);
+                break;
+            case "--depth":
+                builder.depth((int) parseLong(arg, value));
+                break;
+            case "--subprojects":
+                fanOut(builder, INodeType.PROJECT, arg, value);
+                break;
+            case "--modules":
+                fanOut(builder, INodeType.MODULE, arg, value);
+                break;
+            case "--namespaces":
+                fanOut(builder, INodeType.NAMESPACE, arg, value);
+                break;
+            case "--files":
+                fanOut(builder, INodeType.FILE, arg, value);
+                break;
+            case "--types":
+                fanOut(builder, INodeType.TYPE, arg, value);
+                break;
+            case "--methods":
+                fanOut(builder, INodeType.METHOD, arg, value);
+                break;
+            case "--fields":
+                fanOut(builder, INodeType.FIELD, arg, value);
+                break;
+            case "--statements":
+                fanOut(builder, INodeType.STATEMENT, arg, value);
+                break;
+            case "--imports":
+                int[] imports = parseRange(arg, value);
+                builder.imports(imports[0], imports[1]);
+                break;
+            case "--parameters":
+                int[] params = parseRange(arg, value);
+                builder.parameters(params[0], params[1]);
+                break;
+            case "--density":
+                builder.metricDensity(parseDouble(arg, value));
+                break;
+            case "--out":
+                file = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        GeneratorSpec spec = nodes < 0 ? builder.seed(seed).create() : GeneratorSpec.ofSize(nodes, seed);
+
+        if (json)
+        {
+            CodeTree tree = new TreeGenerator(spec).generate();
+            Writer writer = new BufferedWriter(file == null ? new OutputStreamWriter(out, StandardCharsets.UTF_8)
+                    : Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8));
+            try
+            {
+                tree.toJSON(writer);
+            }
+            finally
+            {
+                if (file == null)
+                    writer.flush();
+                else
+                    writer.close();
+            }
+        }
+
+        if (report)
+        {
+            err.println(spec);
+            err.print(HeapReport.measure(spec));
+        }
+    }
+
+    /**
+     * Sets the fan-out of a level from an option value.
+     *
+     * @param builder
+     *            Spec under construction
+     * @param kind
+     *            Kind of the level
+     * @param option
+     *            Name of the option, for error messages
+     * @param value
+     *            Value of the option
+     */
+    private static void fanOut(GeneratorSpec.Builder builder, String kind, String option, String value)
+    {
+        int[] range = parseRange(option, value);
+        builder.fanOut(kind, range[0], range[1]);
+    }
+
+    /**
+     * Parses a range given either as "min:max" or as a single number.
+     *
+     * @param option
+     *            Name of the option, for error messages
+     * @param value
+     *            Value of the option
+     * @return The range as {min, max}
+     */
+    private static int[] parseRange(String option, String value)
+    {
+        int colon = value.indexOf(':');
+        if (colon < 0)
+        {
+            int n = (int) parseLong(option, value);
+            return new int[] { n, n };
+        }
+
+        return new int[] { (int) parseLong(option, value.substring(0, colon)),
+                (int) parseLong(option, value.substring(colon + 1)) };
+    }
+
+    /**
+     * Parses an integral option value.
+     *
+     * @param option
+     *            Name of the option, for error messages
+     * @param value
+     *            Value of the option
+     * @return The value
+     */
+    private static long parseLong(String option, String value)
+    {
+        try
+        {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+    }
+
+    /**
+     * Parses a decimal option value.
+     *
+     * @param option
+     *            Name of the option, for error messages
+     * @param value
+     *            Value of the option
+     * @return The value
+     */
+    private static double parseDouble(String option, String value)
+    {
+        try
+        {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,546 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.generator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import edu.montana.gsoc.msusel.node.INodeType;
+
+/**
+ * The configuration of a {@link TreeGenerator}: the seed, the fan-out at each
+ * level of the tree, the density of metrics and the number of relationships
+ * between types. Fan-outs are inclusive ranges from which the generator draws
+ * uniformly, keyed by the {@link INodeType} of the child level:
+ * <ul>
+ * <li>PROJECT - subprojects of each project, down to {@link #getDepth()}
+ * levels of nesting</li>
+ * <li>MODULE - modules of each project</li>
+ * <li>FILE - files of each module, or of each project without modules</li>
+ * <li>NAMESPACE - namespaces of each project</li>
+ * <li>TYPE - types of each file</li>
+ * <li>METHOD and FIELD - methods and fields of each type</li>
+ * <li>STATEMENT - statements of each method</li>
+ * </ul>
+ * Specs are immutable and built through {@link #builder()}.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class GeneratorSpec {
+
+    /**
+     * The node kinds whose fan-out can be configured, from the root down
+     */
+    public static final List<String> LEVELS = ImmutableList.of(INodeType.PROJECT, INodeType.MODULE,
+            INodeType.NAMESPACE, INodeType.FILE, INodeType.TYPE, INodeType.METHOD, INodeType.FIELD,
+            INodeType.STATEMENT);
+
+    /**
+     * Seed of the generator's random source
+     */
+    private long               seed;
+    /**
+     * Maximum nesting depth of subprojects
+     */
+    private int                depth;
+    /**
+     * Inclusive fan-out range per node kind
+     */
+    private Map<String, int[]> fanOut;
+    /**
+     * Inclusive range of the number of lines spanned by a statement
+     */
+    private int[]              statementLines;
+    /**
+     * Inclusive range of the number of imports of each file
+     */
+    private int[]              imports;
+    /**
+     * Inclusive range of the number of parameters of each method
+     */
+    private int[]              parameters;
+    /**
+     * Names of the metrics attached to files, types and methods
+     */
+    private List<String>       metrics;
+    /**
+     * Probability that a given metric is attached to a given node
+     */
+    private double             metricDensity;
+    /**
+     * Probability that a type is an interface
+     */
+    private double             interfaceRatio;
+
+    /**
+     * Constructs a new GeneratorSpec with the default settings.
+     */
+    private GeneratorSpec()
+    {
+        seed = 1L;
+        depth = 1;
+        fanOut = Maps.newHashMap();
+        fanOut.put(INodeType.PROJECT, new int[] { 0, 0 });
+        fanOut.put(INodeType.MODULE, new int[] { 1, 3 });
+        fanOut.put(INodeType.NAMESPACE, new int[] { 2, 6 });
+        fanOut.put(INodeType.FILE, new int[] { 5, 20 });
+        fanOut.put(INodeType.TYPE, new int[] { 1, 3 });
+        fanOut.put(INodeType.METHOD, new int[] { 2, 12 });
+        fanOut.put(INodeType.FIELD, new int[] { 0, 6 });
+        fanOut.put(INodeType.STATEMENT, new int[] { 1, 8 });
+        statementLines = new int[] { 1, 3 };
+        imports = new int[] { 0, 5 };
+        parameters = new int[] { 0, 3 };
+        metrics = ImmutableList.of("LOC", "NOM", "NOF", "CYCLO", "WMC");
+        metricDensity = 1.0;
+        interfaceRatio = 0.1;
+    }
+
+    /**
+     * Constructs a spec with a fixed shape whose trees have roughly the given
+     * number of nodes: ten modules of equally many files, each file with two
+     * types of eight methods (one statement each) and four fields.
+     *
+     * @param nodes
+     *            Requested number of nodes
+     * @param seed
+     *            Seed of the generator
+     * @return The spec
+     */
+    public static GeneratorSpec ofSize(int nodes, long seed)
+    {
+        int fileNodes = 1 + 2 * (1 + 8 * 2 + 4);
+        int files = Math.max(1, nodes / fileNodes / 10);
+
+        return builder()
+                .seed(seed)
+                .fanOut(INodeType.MODULE, 10, 10)
+                .fanOut(INodeType.NAMESPACE, 16, 16)
+                .fanOut(INodeType.FILE, files, files)
+                .fanOut(INodeType.TYPE, 2, 2)
+                .fanOut(INodeType.METHOD, 8, 8)
+                .fanOut(INodeType.FIELD, 4, 4)
+                .fanOut(INodeType.STATEMENT, 1, 1)
+                .create();
+    }
+
+    /**
+     * @return The seed of the generator's random source
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * @return The maximum nesting depth of subprojects, where 0 means the
+     *         root project has no subprojects
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @param kind
+     *            One of the {@link #LEVELS}
+     * @return The smallest number of children of the given kind per parent
+     */
+    public int getMin(String kind)
+    {
+        return range(kind)[0];
+    }
+
+    /**
+     * @param kind
+     *            One of the {@link #LEVELS}
+     * @return The largest number of children of the given kind per parent
+     */
+    public int getMax(String kind)
+    {
+        return range(kind)[1];
+    }
+
+    /**
+     * @return The inclusive range, as {min, max}, of the number of lines
+     *         spanned by a statement
+     */
+    public int[] getStatementLines()
+    {
+        return statementLines.clone();
+    }
+
+    /**
+     * @return The inclusive range, as {min, max}, of the number of imports of
+     *         each file
+     */
+    public int[] getImports()
+    {
+        return imports.clone();
+    }
+
+    /**
+     * @return The inclusive range, as {min, max}, of the number of parameters
+     *         of each method
+     */
+    public int[] getParameters()
+    {
+        return parameters.clone();
+    }
+
+    /**
+     * @return The names of the metrics attached to files, types and methods
+     */
+    public List<String> getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * @return The probability that a given metric is attached to a given node
+     */
+    public double getMetricDensity()
+    {
+        return metricDensity;
+    }
+
+    /**
+     * @return The probability that a type is an interface
+     */
+    public double getInterfaceRatio()
+    {
+        return interfaceRatio;
+    }
+
+    /**
+     * Looks up the fan-out range of the given kind.
+     *
+     * @param kind
+     *            Node kind
+     * @return The range as {min, max}
+     * @throws IllegalArgumentException
+     *             If the kind is not one of the {@link #LEVELS}
+     */
+    private int[] range(String kind)
+    {
+        int[] range = fanOut.get(kind);
+        if (range == null)
+            throw new IllegalArgumentException("Unknown node kind: " + kind);
+
+        return range;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("GeneratorSpec[seed=").append(seed).append(", depth=").append(depth);
+        for (String kind : LEVELS)
+            builder.append(", ").append(kind).append("=").append(Arrays.toString(fanOut.get(kind)));
+
+        return builder.append(", statementLines=").append(Arrays.toString(statementLines))
+                .append(", imports=").append(Arrays.toString(imports))
+                .append(", parameters=").append(Arrays.toString(parameters))
+                .append(", metrics=").append(metrics)
+                .append(", metricDensity=").append(metricDensity)
+                .append(", interfaceRatio=").append(interfaceRatio)
+                .append("]").toString();
+    }
+
+    /**
+     * Constructs a new Builder for a GeneratorSpec, starting from the default
+     * settings.
+     *
+     * @return The GeneratorSpec.Builder instance
+     */
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Builder for GeneratorSpecs implemented using the fluent interface and
+     * method chaining patterns.
+     *
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    public static class Builder {
+
+        /**
+         * Spec to be constructed
+         */
+        private GeneratorSpec spec;
+
+        /**
+         * Private constructor for the builder
+         */
+        private Builder()
+        {
+            spec = new GeneratorSpec();
+        }
+
+        /**
+         * @return The spec constructed by this builder
+         */
+        public GeneratorSpec create()
+        {
+            GeneratorSpec created = spec;
+            spec = copy(created);
+
+            return created;
+        }
+
+        /**
+         * Sets the seed of the generator's random source
+         *
+         * @param seed
+         *            The seed
+         * @return The modified builder
+         */
+        public Builder seed(long seed)
+        {
+            spec.seed = seed;
+
+            return this;
+        }
+
+        /**
+         * Sets the maximum nesting depth of subprojects
+         *
+         * @param depth
+         *            The depth, 0 for no subprojects
+         * @return The modified builder
+         * @throws IllegalArgumentException
+         *             If the depth is negative
+         */
+        public Builder depth(int depth)
+        {
+            if (depth < 0)
+                throw new IllegalArgumentException("Depth cannot be negative");
+
+            spec.depth = depth;
+
+            return this;
+        }
+
+        /**
+         * Sets the fan-out of the given level
+         *
+         * @param kind
+         *            One of the {@link GeneratorSpec#LEVELS}
+         * @param min
+         *            Smallest number of children per parent
+         * @param max
+         *            Largest number of children per parent
+         * @return The modified builder
+         * @throws IllegalArgumentException
+         *             If the kind is unknown or the range is invalid
+         */
+        public Builder fanOut(String kind, int min, int max)
+        {
+            if (!LEVELS.contains(kind))
+                throw new IllegalArgumentException("Unknown node kind: " + kind);
+
+            spec.fanOut.put(kind, checkRange(min, max));
+
+            return this;
+        }
+
+        /**
+         * Sets the number of lines spanned by each statement
+         *
+         * @param min
+         *            Smallest number of lines, at least 1
+         * @param max
+         *            Largest number of lines
+         * @return The modified builder
+         * @throws IllegalArgumentException
+         *             If the range is invalid
+         */
+        public Builder statementLines(int min, int max)
+        {
+            if (min < 1)
+                throw new IllegalArgumentException("Statements span at least one line");
+
+            spec.statementLines = checkRange(min, max);
+
+            return this;
+        }
+
+        /**
+         * Sets the number of imports of each file. Imports refer to types
+         * generated earlier in the tree.
+         *
+         * @param min
+         *            Smallest number of imports
+         * @param max
+         *            Largest number of imports
+         * @return The modified builder
+         * @throws IllegalArgumentException
+         *             If the range is invalid
+         */
+        public Builder imports(int min, int max)
+        {
+            spec.imports = checkRange(min, max);
+
+            return this;
+        }
+
+        /**
+         * Sets the number of parameters of each method. Parameters are typed
+         * by types generated earlier in the tree.
+         *
+         * @param min
+         *            Smallest number of parameters
+         * @param max
+         *            Largest number of parameters
+         * @return The modified builder
+         * @throws IllegalArgumentException
+         *             If the range is invalid
+         */
+        public Builder parameters(int min, int max)
+        {
+            spec.parameters = checkRange(min, max);
+
+            return this;
+        }
+
+        /**
+         * Sets the names of the metrics attached to files, types and methods
+         *
+         * @param metrics
+         *            Metric names
+         * @return The modified builder
+         */
+        public Builder metrics(String... metrics)
+        {
+            spec.metrics = ImmutableList.copyOf(metrics);
+
+            return this;
+        }
+
+        /**
+         * Sets the probability that a given metric is attached to a given
+         * node
+         *
+         * @param density
+         *            Probability between 0 and 1
+         * @return The modified builder
+         * @throws IllegalArgumentException
+         *             If the density is not a probability
+         */
+        public Builder metricDensity(double density)
+        {
+            spec.metricDensity = checkProbability(density);
+
+            return this;
+        }
+
+        /**
+         * Sets the probability that a type is an interface
+         *
+         * @param ratio
+         *            Probability between 0 and 1
+         * @return The modified builder
+         * @throws IllegalArgumentException
+         *             If the ratio is not a probability
+         */
+        public Builder interfaceRatio(double ratio)
+        {
+            spec.interfaceRatio = checkProbability(ratio);
+
+            return this;
+        }
+
+        /**
+         * Validates an inclusive range.
+         *
+         * @param min
+         *            Lower bound
+         * @param max
+         *            Upper bound
+         * @return The range as {min, max}
+         * @throws IllegalArgumentException
+         *             If min is negative or greater than max
+         */
+        private static int[] checkRange(int min, int max)
+        {
+            if (min < 0 || max < min)
+                throw new IllegalArgumentException("Invalid range: " + min + ".." + max);
+
+            return new int[] { min, max };
+        }
+
+        /**
+         * Validates a probability.
+         *
+         * @param p
+         *            Probability
+         * @return The probability
+         * @throws IllegalArgumentException
+         *             If p is not between 0 and 1
+         */
+        private static double checkProbability(double p)
+        {
+            if (p < 0 || p > 1)
+                throw new IllegalArgumentException("Not a probability: " + p);
+
+            return p;
+        }
+
+        /**
+         * Copies a spec so that further modifications of this builder do not
+         * affect specs already created.
+         *
+         * @param other
+         *            Spec to copy
+         * @return The copy
+         */
+        private static GeneratorSpec copy(GeneratorSpec other)
+        {
+            GeneratorSpec spec = new GeneratorSpec();
+            spec.seed = other.seed;
+            spec.depth = other.depth;
+            spec.fanOut = Maps.newHashMap(other.fanOut);
+            spec.statementLines = other.statementLines;
+            spec.imports = other.imports;
+            spec.parameters = other.parameters;
+            spec.metrics = other.metrics;
+            spec.metricDensity = other.metricDensity;
+            spec.interfaceRatio = other.interfaceRatio;
+
+            return spec;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.generator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.NodeView;
+import edu.montana.gsoc.msusel.node.INodeType;
+
+/**
+ * Reports the heap retained by each kind of node in the trees of a
+ * {@link GeneratorSpec}. The heap is measured by ablation: the same tree is
+ * generated repeatedly, each time leaving out one more kind of node from the
+ * leaves up, and the drop in used heap after a full collection is attributed
+ * to the kind left out. Retained heap therefore includes everything a kind of
+ * node keeps alive, such as its metrics, its entries in the tree's index and
+ * its slot in its parent's collections. What remains once every other kind is
+ * left out, including the structures of the tree itself, is attributed to the
+ * projects.
+ * <br>
+ * Figures are approximate: they depend on the collector settling the heap, and
+ * are best read at sizes where each kind accounts for megabytes.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class HeapReport {
+
+    /**
+     * Kinds of nodes in the order in which they are left out, leaves first
+     */
+    public static final List<String> KINDS = ImmutableList.of(INodeType.STATEMENT, INodeType.FIELD,
+            INodeType.METHOD, INodeType.TYPE, INodeType.FILE, INodeType.NAMESPACE, INodeType.MODULE,
+            INodeType.PROJECT);
+
+    /**
+     * Number of nodes of each kind
+     */
+    private final Map<String, Long> counts;
+    /**
+     * Bytes retained by the nodes of each kind
+     */
+    private final Map<String, Long> retained;
+
+    /**
+     * Constructs a new HeapReport
+     *
+     * @param counts
+     *            Number of nodes of each kind
+     * @param retained
+     *            Bytes retained by the nodes of each kind
+     */
+    private HeapReport(Map<String, Long> counts, Map<String, Long> retained)
+    {
+        this.counts = counts;
+        this.retained = retained;
+    }
+
+    /**
+     * Measures the heap retained by each kind of node in the tree described
+     * by the given spec. The tree is generated once per kind, so this takes
+     * several times as long as generating it.
+     *
+     * @param spec
+     *            Configuration of the tree
+     * @return The report
+     */
+    public static HeapReport measure(GeneratorSpec spec)
+    {
+        Map<String, Long> counts = count(new TreeGenerator(spec).generate());
+        Map<String, Long> retained = Maps.newLinkedHashMap();
+
+        long base = usedHeap();
+        Set<String> detached = Sets.newHashSet();
+        long previous = retainedBy(spec, detached, base);
+        for (String kind : KINDS)
+        {
+            detached.add(kind);
+            long current = kind.equals(INodeType.PROJECT) ? 0 : retainedBy(spec, detached, base);
+            retained.put(kind, Math.max(0, previous - current));
+            previous = current;
+        }
+
+        return new HeapReport(counts, retained);
+    }
+
+    /**
+     * Counts the nodes of each kind in a tree.
+     *
+     * @param tree
+     *            The tree
+     * @return Number of nodes of each kind
+     */
+    static Map<String, Long> count(CodeTree tree)
+    {
+        Map<String, Long> counts = Maps.newLinkedHashMap();
+        for (String kind : KINDS)
+            counts.put(kind, 0L);
+        for (AbstractNode node : new NodeView<>(tree.getProject(), AbstractNode.class))
+            counts.merge(node.getType(), 1L, Long::sum);
+
+        return counts;
+    }
+
+    /**
+     * Generates a tree without the given kinds of nodes and measures the heap
+     * it retains.
+     *
+     * @param spec
+     *            Configuration of the tree
+     * @param detached
+     *            Kinds of nodes left out
+     * @param base
+     *            Used heap before generating the tree
+     * @return Bytes retained by the tree
+     */
+    private static long retainedBy(GeneratorSpec spec, Set<String> detached, long base)
+    {
+        CodeTree tree = new TreeGenerator(spec, detached).generate();
+        long used = usedHeap();
+
+        // reading the tree after the measurement keeps it reachable during it
+        return tree.getProject() == null ? 0 : used - base;
+    }
+
+    /**
+     * Measures the used heap after running the collector, and the finalizers
+     * of the nodes it found unreachable, until it settles.
+     *
+     * @return Used heap in bytes
+     */
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        int stable = 0;
+        for (int i = 0; i < 32 && stable < 3; i++)
+        {
+            System.gc();
+            System.runFinalization();
+            try
+            {
+                Thread.sleep(20);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            stable = now < used - 1024 ? 0 : stable + 1;
+            used = Math.min(used, now);
+        }
+
+        return used;
+    }
+
+    /**
+     * @param kind
+     *            One of the {@link #KINDS}
+     * @return Number of nodes of the given kind
+     */
+    public long getCount(String kind)
+    {
+        return counts.containsKey(kind) ? counts.get(kind) : 0;
+    }
+
+    /**
+     * @param kind
+     *            One of the {@link #KINDS}
+     * @return Bytes retained by the nodes of the given kind
+     */
+    public long getRetained(String kind)
+    {
+        return retained.containsKey(kind) ? retained.get(kind) : 0;
+    }
+
+    /**
+     * @param kind
+     *            One of the {@link #KINDS}
+     * @return Average bytes retained per node of the given kind, or 0 if
+     *         there are none
+     */
+    public double getBytesPerNode(String kind)
+    {
+        long count = getCount(kind);
+
+        return count == 0 ? 0 : getRetained(kind) / (double) count;
+    }
+
+    /**
+     * @return Total number of nodes
+     */
+    public long getTotalCount()
+    {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return Total bytes retained by the tree
+     */
+    public long getTotalRetained()
+    {
+        return retained.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-10s %12s %16s %12s%n", "kind", "nodes", "retained bytes", "bytes/node"));
+        for (String kind : KINDS)
+        {
+            builder.append(String.format("%-10s %12d %16d %12.1f%n", kind, getCount(kind), getRetained(kind),
+                    getBytesPerNode(kind)));
+        }
+        long total = getTotalCount();
+        builder.append(String.format("%-10s %12d %16d %12.1f%n", "total", total, getTotalRetained(),
+                total == 0 ? 0 : getTotalRetained() / (double) total));
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,417 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.generator;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.INodeType;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.Parameter;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+
+/**
+ * Builds synthetic CodeTrees for scale testing, using the same node builders
+ * an analyzer would. Generation is driven by a single random source seeded
+ * from the {@link GeneratorSpec}, so a generator produces the same tree, down
+ * to names, line ranges, metric values and relationships, every time it is
+ * run. The only exception are the identifiers of statements, which are
+ * allocated by {@link StatementNode} itself.
+ * <br>
+ * Files lay out their types one after the other: a declaration line, one line
+ * per field, then the methods (each with a header line, its statements and a
+ * closing line), a closing line and a blank line. Relationships are imports of
+ * files and parameter types of methods, and always refer to types generated
+ * earlier.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class TreeGenerator {
+
+    /**
+     * Kinds of statements generated, in order of their likelihood
+     */
+    private static final StatementType[] STATEMENTS = { StatementType.Expression, StatementType.Expression,
+            StatementType.Declaration, StatementType.Declaration, StatementType.If, StatementType.For,
+            StatementType.Foreach, StatementType.While, StatementType.Switch, StatementType.Try,
+            StatementType.Throw, StatementType.Break };
+
+    /**
+     * Configuration of this generator
+     */
+    private final GeneratorSpec spec;
+    /**
+     * Kinds of nodes which are generated but not added to the tree
+     */
+    private final Set<String>   detached;
+    /**
+     * Random source of the current run
+     */
+    private Random              rand;
+    /**
+     * Identifiers of the types generated so far in the current run
+     */
+    private List<String>        typeIds;
+    /**
+     * Number of files generated so far in the current run
+     */
+    private int                 files;
+    /**
+     * Next line of the file currently being generated
+     */
+    private int                 line;
+
+    /**
+     * Constructs a new TreeGenerator
+     *
+     * @param spec
+     *            Configuration of the generated trees
+     */
+    public TreeGenerator(GeneratorSpec spec)
+    {
+        this(spec, Collections.<String> emptySet());
+    }
+
+    /**
+     * Constructs a new TreeGenerator which generates, but does not add to the
+     * tree, the nodes of the given kinds. Since the same random values are
+     * drawn, the remaining nodes are identical to those of a full tree. Used
+     * to measure the heap retained by each kind of node.
+     *
+     * @param spec
+     *            Configuration of the generated trees
+     * @param detached
+     *            Kinds of nodes left out of the tree
+     */
+    TreeGenerator(GeneratorSpec spec, Set<String> detached)
+    {
+        if (spec == null)
+            throw new IllegalArgumentException("Spec cannot be null");
+
+        this.spec = spec;
+        this.detached = ImmutableSet.copyOf(detached);
+    }
+
+    /**
+     * @return The configuration of this generator
+     */
+    public GeneratorSpec getSpec()
+    {
+        return spec;
+    }
+
+    /**
+     * Generates a tree. Every call returns a new, identical, tree.
+     *
+     * @return The generated tree
+     */
+    public synchronized CodeTree generate()
+    {
+        rand = new Random(spec.getSeed());
+        typeIds = Lists.newArrayList();
+        files = 0;
+
+        for (String metric : spec.getMetrics())
+            MetricNameRegistry.getInstance().register(metric);
+
+        CodeTree tree = new CodeTree();
+        tree.setProject(project("project", spec.getDepth()));
+
+        typeIds = null;
+        rand = null;
+
+        return tree;
+    }
+
+    /**
+     * Generates a project, its subprojects down to the given depth, and its
+     * modules, namespaces and files.
+     *
+     * @param qid
+     *            Qualified identifier of the project
+     * @param depth
+     *            Remaining depth of subprojects
+     * @return The project
+     */
+    private ProjectNode project(String qid, int depth)
+    {
+        ProjectNode.Builder pb = ProjectNode.builder(qid);
+
+        int subprojects = depth > 0 ? draw(INodeType.PROJECT) : 0;
+        for (int i = 0; i < subprojects; i++)
+        {
+            ProjectNode sub = project(qid + ".sub" + i, depth - 1);
+            if (attached(INodeType.PROJECT))
+                pb.project(sub);
+        }
+
+        int count = draw(INodeType.NAMESPACE);
+        List<NamespaceNode.Builder> namespaces = Lists.newArrayList();
+        for (int i = 0; i < count; i++)
+            namespaces.add(NamespaceNode.builder(qid + ".pkg" + i));
+
+        String dir = "/" + qid.replace('.', '/');
+        int modules = draw(INodeType.MODULE);
+        if (modules == 0)
+        {
+            int files = draw(INodeType.FILE);
+            for (int f = 0; f < files; f++)
+            {
+                FileNode file = file(qid, dir, namespaces);
+                if (attached(INodeType.FILE))
+                    pb.file(file);
+            }
+        }
+        for (int m = 0; m < modules; m++)
+        {
+            ModuleNode.Builder mb = ModuleNode.builder("mod" + m, qid + ".mod" + m);
+            int files = draw(INodeType.FILE);
+            for (int f = 0; f < files; f++)
+            {
+                FileNode file = file(qid, dir + "/mod" + m, namespaces);
+                if (attached(INodeType.FILE))
+                    mb.file(file);
+            }
+            if (attached(INodeType.MODULE))
+                pb.module(mb.create());
+        }
+
+        if (attached(INodeType.NAMESPACE))
+        {
+            for (NamespaceNode.Builder nb : namespaces)
+                pb.namespace(nb.create());
+        }
+
+        return pb.create();
+    }
+
+    /**
+     * Generates a file, its imports and its types.
+     *
+     * @param project
+     *            Qualified identifier of the containing project
+     * @param dir
+     *            Directory of the containing project or module
+     * @param namespaces
+     *            Namespaces of the containing project
+     * @return The file
+     */
+    private FileNode file(String project, String dir, List<NamespaceNode.Builder> namespaces)
+    {
+        int serial = files++;
+        int ns = namespaces.isEmpty() ? -1 : rand.nextInt(namespaces.size());
+        String pkg = ns < 0 ? project : project + ".pkg" + ns;
+
+        FileNode.Builder fb = FileNode.builder(dir + "/src/" + pkg.replace('.', '/') + "/File" + serial + ".java");
+
+        line = 2;
+        int imports = draw(spec.getImports());
+        for (int i = 0; i < imports && !typeIds.isEmpty(); i++)
+        {
+            fb.imports(typeIds.get(rand.nextInt(typeIds.size())));
+            line++;
+        }
+        line++;
+
+        int types = draw(INodeType.TYPE);
+        for (int t = 0; t < types; t++)
+        {
+            TypeNode type = type(pkg + ".File" + serial + (t == 0 ? "" : "_" + t));
+            if (attached(INodeType.TYPE))
+            {
+                fb.type(type);
+                if (ns >= 0 && attached(INodeType.NAMESPACE))
+                    namespaces.get(ns).type(type);
+            }
+        }
+
+        fb.length(line - 1);
+        for (Map.Entry<String, Double> metric : metrics().entrySet())
+            fb.metric(metric.getKey(), metric.getValue());
+
+        return fb.create();
+    }
+
+    /**
+     * Generates a type, its fields and its methods, starting at the current
+     * line.
+     *
+     * @param qid
+     *            Qualified identifier of the type
+     * @return The type
+     */
+    private TypeNode type(String qid)
+    {
+        String name = qid.substring(qid.lastIndexOf('.') + 1);
+        boolean isInterface = rand.nextDouble() < spec.getInterfaceRatio();
+        int start = line++;
+
+        TypeNode.Builder tb = TypeNode.builder(name, qid);
+        if (isInterface)
+            tb.isInterface();
+
+        int fields = draw(INodeType.FIELD);
+        for (int i = 0; i < fields; i++)
+        {
+            FieldNode field = FieldNode.builder("f" + i, qid + "#f" + i).range(line++).create();
+            if (attached(INodeType.FIELD))
+                tb.field(field);
+        }
+
+        int methods = draw(INodeType.METHOD);
+        for (int i = 0; i < methods; i++)
+        {
+            MethodNode method = method(qid + "#m" + i, "m" + i, isInterface);
+            if (attached(INodeType.METHOD))
+                tb.method(method);
+        }
+
+        tb.range(start, line++);
+        line++;
+        for (Map.Entry<String, Double> metric : metrics().entrySet())
+            tb.metric(metric.getKey(), metric.getValue());
+
+        typeIds.add(qid);
+
+        return tb.create();
+    }
+
+    /**
+     * Generates a method and its statements, starting at the current line.
+     * Methods of interfaces are abstract and have no statements.
+     *
+     * @param qid
+     *            Qualified identifier of the method
+     * @param name
+     *            Name of the method
+     * @param isAbstract
+     *            Whether the method is abstract
+     * @return The method
+     */
+    private MethodNode method(String qid, String name, boolean isAbstract)
+    {
+        int start = line++;
+        MethodNode.Builder mb = MethodNode.builder(name, qid).isAbstract(isAbstract);
+
+        int params = draw(spec.getParameters());
+        for (int i = 0; i < params && !typeIds.isEmpty(); i++)
+            mb.parameter(new Parameter("p" + i, typeIds.get(rand.nextInt(typeIds.size()))));
+
+        if (isAbstract)
+        {
+            mb.range(start, start);
+        }
+        else
+        {
+            int statements = draw(INodeType.STATEMENT);
+            for (int i = 0; i < statements; i++)
+            {
+                int length = draw(spec.getStatementLines());
+                StatementNode stmt = StatementNode.builder(STATEMENTS[rand.nextInt(STATEMENTS.length)])
+                        .range(line, line + length - 1)
+                        .create();
+                line += length;
+                if (attached(INodeType.STATEMENT))
+                    mb.statement(stmt);
+            }
+            mb.range(start, line++);
+        }
+
+        for (Map.Entry<String, Double> metric : metrics().entrySet())
+            mb.metric(metric.getKey(), metric.getValue());
+
+        return mb.create();
+    }
+
+    /**
+     * Draws the metrics of a node. Each metric is present with the configured
+     * density, with an integral value between 0 and 99.
+     *
+     * @return Map of metric name to value
+     */
+    private Map<String, Double> metrics()
+    {
+        Map<String, Double> metrics = Maps.newLinkedHashMap();
+        for (String metric : spec.getMetrics())
+        {
+            if (rand.nextDouble() < spec.getMetricDensity())
+                metrics.put(metric, (double) rand.nextInt(100));
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Draws the number of children of the given kind.
+     *
+     * @param kind
+     *            Kind of the children
+     * @return Number between the configured minimum and maximum, inclusive
+     */
+    private int draw(String kind)
+    {
+        return draw(new int[] { spec.getMin(kind), spec.getMax(kind) });
+    }
+
+    /**
+     * Draws a number from the given inclusive range.
+     *
+     * @param range
+     *            The range as {min, max}
+     * @return Number between min and max, inclusive
+     */
+    private int draw(int[] range)
+    {
+        return range[0] + rand.nextInt(range[1] - range[0] + 1);
+    }
+
+    /**
+     * @param kind
+     *            Node kind
+     * @return true if nodes of the given kind are added to the tree
+     */
+    private boolean attached(String kind)
+    {
+        return !detached.contains(kind);
+    }
+}
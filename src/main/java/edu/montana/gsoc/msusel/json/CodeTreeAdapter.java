@@ -0,0 +1,84 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.json;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+
+/**
+ * Streaming TypeAdapter for CodeTrees. Unlike reflective deserialization, the
+ * root project is installed through {@link CodeTree#setProject(ProjectNode)},
+ * so that the tree's index is kept up to date.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class CodeTreeAdapter extends TypeAdapter<CodeTree> {
+
+    /**
+     * Writer used for serialization
+     */
+    private static final CodeTreeWriter WRITER = new CodeTreeWriter();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(JsonWriter out, CodeTree value) throws IOException
+    {
+        if (value == null)
+            out.nullValue();
+        else
+            WRITER.writeTree(out, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CodeTree read(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+
+        CodeTree tree = new CodeTree();
+        ProjectNode project = new TreeParser().tree(in);
+        if (project != null)
+            tree.setProject(project);
+
+        return tree;
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+
+/**
+ * Streaming JSON reader for CodeTrees, the counterpart of
+ * {@link CodeTreeWriter}. The document is parsed one token at a time from a
+ * {@link JsonReader}, and every FileNode, along with its types, methods, fields
+ * and statements, is handed to a callback as soon as its closing brace has been
+ * read. Consumers can thus process or filter the files of very large documents
+ * without ever holding the whole tree in memory.
+ * <p>
+ * The required fields of each node are the same as those of the deserializers
+ * of this package, and a {@link JsonParseException} is thrown when one is
+ * missing. Method parameters and return types are skipped, as they cannot be
+ * restored through the MethodNode builder.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class CodeTreeReader {
+
+    /**
+     * Reads a complete tree from the given reader. The reader is not closed.
+     * 
+     * @param in
+     *            The reader
+     * @return The tree described by the document
+     * @throws IOException
+     *             if the reader fails
+     */
+    public CodeTree read(Reader in) throws IOException
+    {
+        return read(in, file -> true);
+    }
+
+    /**
+     * Reads a complete tree from the given UTF-8 stream. The stream is not
+     * closed.
+     * 
+     * @param in
+     *            The stream
+     * @return The tree described by the document
+     * @throws IOException
+     *             if the stream fails
+     */
+    public CodeTree read(InputStream in) throws IOException
+    {
+        return read(open(in));
+    }
+
+    /**
+     * Reads a tree from the given reader, passing each file to the provided
+     * filter as soon as it has been read. Only files accepted by the filter are
+     * added to the resulting tree, and namespaces only keep the types of
+     * accepted files. The reader is not closed.
+     * 
+     * @param in
+     *            The reader
+     * @param filter
+     *            Called once per file, in document order, returning true if
+     *            the file is to be kept in the tree
+     * @return The tree holding the kept files and the enclosing projects,
+     *         modules and namespaces
+     * @throws IOException
+     *             if the reader fails
+     */
+    public CodeTree read(Reader in, Predicate<? super FileNode> filter) throws IOException
+    {
+        CodeTree tree = new CodeTree();
+        ProjectNode project = new TreeParser(filter, true).tree(new JsonReader(in));
+        if (project != null)
+            tree.setProject(project);
+
+        return tree;
+    }
+
+    /**
+     * Reads a tree from the given UTF-8 stream, passing each file to the
+     * provided filter as soon as it has been read. The stream is not closed.
+     * 
+     * @param in
+     *            The stream
+     * @param filter
+     *            Called once per file, in document order, returning true if
+     *            the file is to be kept in the tree
+     * @return The tree holding the kept files and the enclosing projects,
+     *         modules and namespaces
+     * @throws IOException
+     *             if the stream fails
+     * @see #read(Reader, Predicate)
+     */
+    public CodeTree read(InputStream in, Predicate<? super FileNode> filter) throws IOException
+    {
+        return read(open(in), filter);
+    }
+
+    /**
+     * Streams the files of the document held by the given reader to the
+     * provided handler, one at a time and in document order. Nothing is
+     * retained once a file has been handed over, and namespaces are skipped
+     * entirely. The reader is not closed.
+     * 
+     * @param in
+     *            The reader
+     * @param handler
+     *            Called once per file
+     * @throws IOException
+     *             if the reader fails
+     */
+    public void stream(Reader in, Consumer<? super FileNode> handler) throws IOException
+    {
+        new TreeParser(file -> {
+            handler.accept(file);
+            return false;
+        }, false).tree(new JsonReader(in));
+    }
+
+    /**
+     * Streams the files of the document held by the given UTF-8 stream to the
+     * provided handler. The stream is not closed.
+     * 
+     * @param in
+     *            The stream
+     * @param handler
+     *            Called once per file
+     * @throws IOException
+     *             if the stream fails
+     * @see #stream(Reader, Consumer)
+     */
+    public void stream(InputStream in, Consumer<? super FileNode> handler) throws IOException
+    {
+        stream(open(in), handler);
+    }
+
+    /**
+     * @param in
+     *            The underlying stream
+     * @return A buffered UTF-8 reader on the given stream
+     */
+    private Reader open(InputStream in)
+    {
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+}
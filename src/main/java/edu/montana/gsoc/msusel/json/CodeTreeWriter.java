@@ -0,0 +1,664 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.stream.JsonWriter;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.node.CodeNode;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.Parameter;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+import edu.montana.gsoc.msusel.util.Symbol;
+
+/**
+ * Streaming JSON serializer for CodeTrees and their nodes. Nodes are written
+ * one token at a time to a {@link JsonWriter}, walking the live tree, so that
+ * no intermediate representation of the document is ever held in memory. The
+ * output uses the same field names and layout as the exposed fields of the
+ * nodes, and can therefore be read back using the deserializers of this
+ * package. When writing to a {@link Writer} or stream, qualified identifiers
+ * are written straight from the symbols of the nodes, without building the
+ * identifier strings.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class CodeTreeWriter {
+
+    /**
+     * Indentation used in pretty mode
+     */
+    private static final String INDENT = "  ";
+
+    /**
+     * Whether output is indented
+     */
+    private final boolean       pretty;
+
+    /**
+     * Constructs a new CodeTreeWriter producing compact output
+     */
+    public CodeTreeWriter()
+    {
+        this(false);
+    }
+
+    /**
+     * Constructs a new CodeTreeWriter
+     * 
+     * @param pretty
+     *            true if output is to be indented, false for compact output
+     */
+    public CodeTreeWriter(boolean pretty)
+    {
+        this.pretty = pretty;
+    }
+
+    /**
+     * Writes the given tree to the provided writer. The writer is flushed but
+     * not closed.
+     * 
+     * @param tree
+     *            The tree
+     * @param out
+     *            The writer
+     * @throws IOException
+     *             if the writer fails
+     */
+    public void write(CodeTree tree, Writer out) throws IOException
+    {
+        JsonWriter json = open(out);
+        writeTree(json, tree);
+        json.flush();
+    }
+
+    /**
+     * Writes the given tree to the provided stream as UTF-8. The stream is
+     * flushed but not closed.
+     * 
+     * @param tree
+     *            The tree
+     * @param out
+     *            The stream
+     * @throws IOException
+     *             if the stream fails
+     */
+    public void write(CodeTree tree, OutputStream out) throws IOException
+    {
+        write(tree, new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Writes the given node, and everything it contains, to the provided
+     * writer. The writer is flushed but not closed.
+     * 
+     * @param node
+     *            The node
+     * @param out
+     *            The writer
+     * @throws IOException
+     *             if the writer fails
+     */
+    public void write(INode node, Writer out) throws IOException
+    {
+        JsonWriter json = open(out);
+        writeNode(json, node);
+        json.flush();
+    }
+
+    /**
+     * Writes the given node, and everything it contains, to the provided
+     * stream as UTF-8. The stream is flushed but not closed.
+     * 
+     * @param node
+     *            The node
+     * @param out
+     *            The stream
+     * @throws IOException
+     *             if the stream fails
+     */
+    public void write(INode node, OutputStream out) throws IOException
+    {
+        write(node, new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @param tree
+     *            The tree
+     * @return The JSON representation of the given tree
+     */
+    public String toJson(CodeTree tree)
+    {
+        StringWriter out = new StringWriter();
+        try
+        {
+            write(tree, out);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e);
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * @param node
+     *            The node
+     * @return The JSON representation of the given node and its contents
+     */
+    public String toJson(INode node)
+    {
+        StringWriter out = new StringWriter();
+        try
+        {
+            write(node, out);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e);
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * @param out
+     *            The underlying writer
+     * @return A JsonWriter on the given writer configured for this mode
+     */
+    private JsonWriter open(Writer out)
+    {
+        JsonWriter json = new SymbolWriter(out);
+        if (pretty)
+            json.setIndent(INDENT);
+
+        return json;
+    }
+
+    /**
+     * Writes a tree as an object holding its root project.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param tree
+     *            The tree
+     * @throws IOException
+     *             if the writer fails
+     */
+    void writeTree(JsonWriter out, CodeTree tree) throws IOException
+    {
+        out.beginObject();
+        if (tree.getProject() != null)
+        {
+            out.name("project");
+            writeProject(out, tree.getProject());
+        }
+        out.endObject();
+    }
+
+    /**
+     * Writes any kind of node.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param node
+     *            The node
+     * @throws IOException
+     *             if the writer fails
+     */
+    void writeNode(JsonWriter out, INode node) throws IOException
+    {
+        if (node instanceof ProjectNode)
+            writeProject(out, (ProjectNode) node);
+        else if (node instanceof ModuleNode)
+            writeModule(out, (ModuleNode) node);
+        else if (node instanceof NamespaceNode)
+            writeNamespace(out, (NamespaceNode) node);
+        else if (node instanceof FileNode)
+            writeFile(out, (FileNode) node);
+        else if (node instanceof TypeNode)
+            writeType(out, (TypeNode) node);
+        else if (node instanceof MethodNode)
+            writeMethod(out, (MethodNode) node);
+        else if (node instanceof FieldNode)
+            writeField(out, (FieldNode) node);
+        else if (node instanceof StatementNode)
+            writeStatement(out, (StatementNode) node);
+        else
+            throw new IllegalArgumentException("Unknown node type: " + node.getClass().getName());
+    }
+
+    /**
+     * Writes a project.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param project
+     *            The project
+     * @throws IOException
+     *             if the writer fails
+     */
+    private void writeProject(JsonWriter out, ProjectNode project) throws IOException
+    {
+        out.beginObject();
+        writeChildren(out, "subprojects", project, ProjectNode.class);
+        writeChildren(out, "modules", project, ModuleNode.class);
+        writeChildren(out, "files", project, FileNode.class);
+        writeChildren(out, "namespaces", project, NamespaceNode.class);
+        writeCommon(out, project);
+        out.endObject();
+    }
+
+    /**
+     * Writes a module.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param module
+     *            The module
+     * @throws IOException
+     *             if the writer fails
+     */
+    private void writeModule(JsonWriter out, ModuleNode module) throws IOException
+    {
+        out.beginObject();
+        writeChildren(out, "files", module, FileNode.class);
+        writeChildren(out, "namespaces", module, NamespaceNode.class);
+        writeCommon(out, module);
+        out.endObject();
+    }
+
+    /**
+     * Writes a namespace. The types of a namespace are written in full as an
+     * array, as they are referenced rather than contained by it.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param ns
+     *            The namespace
+     * @throws IOException
+     *             if the writer fails
+     */
+    private void writeNamespace(JsonWriter out, NamespaceNode ns) throws IOException
+    {
+        out.beginObject();
+        out.name("types").beginArray();
+        for (TypeNode type : ns.getTypes())
+        {
+            writeType(out, type);
+        }
+        out.endArray();
+        writeChildren(out, "namespaces", ns, NamespaceNode.class);
+        writeCommon(out, ns);
+        out.endObject();
+    }
+
+    /**
+     * Writes a file.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param file
+     *            The file
+     * @throws IOException
+     *             if the writer fails
+     */
+    private void writeFile(JsonWriter out, FileNode file) throws IOException
+    {
+        out.beginObject();
+        writeChildren(out, "types", file, TypeNode.class);
+        out.name("imports").beginArray();
+        for (String imp : file.getImports())
+        {
+            out.value(imp);
+        }
+        out.endArray();
+        out.name("length").value(file.getLength());
+        writeCommon(out, file);
+        out.endObject();
+    }
+
+    /**
+     * Writes a type.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param type
+     *            The type
+     * @throws IOException
+     *             if the writer fails
+     */
+    private void writeType(JsonWriter out, TypeNode type) throws IOException
+    {
+        out.beginObject();
+        writeChildren(out, "methods", type, MethodNode.class);
+        writeChildren(out, "fields", type, FieldNode.class);
+        out.name("isInterface").value(type.isInterface());
+        out.name("isAbstract").value(type.isAbstract());
+        writeLines(out, type);
+        writeCommon(out, type);
+        out.endObject();
+    }
+
+    /**
+     * Writes a method.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param method
+     *            The method
+     * @throws IOException
+     *             if the writer fails
+     */
+    private void writeMethod(JsonWriter out, MethodNode method) throws IOException
+    {
+        out.beginObject();
+        out.name("constructor").value(method.isConstructor());
+        out.name("abstract").value(method.isAbstract());
+        out.name("accessor").value(method.isAccessorMethod());
+        out.name("static").value(method.isStatic());
+        out.name("final").value(method.isFinal());
+        writeChildren(out, "statements", method, StatementNode.class);
+        if (!method.getParams().isEmpty())
+        {
+            out.name("params").beginArray();
+            for (Parameter param : method.getParams())
+            {
+                out.beginObject();
+                out.name("name").value(param.getName());
+                out.name("typeRef").value(param.getTypeRef());
+                out.name("collection").value(param.isCollection());
+                out.endObject();
+            }
+            out.endArray();
+        }
+        if (method.getReturnType() != null)
+            out.name("returnType").value(method.getReturnType());
+        writeLines(out, method);
+        writeCommon(out, method);
+        out.endObject();
+    }
+
+    /**
+     * Writes a field.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param field
+     *            The field
+     * @throws IOException
+     *             if the writer fails
+     */
+    private void writeField(JsonWriter out, FieldNode field) throws IOException
+    {
+        out.beginObject();
+        writeLines(out, field);
+        writeCommon(out, field);
+        out.endObject();
+    }
+
+    /**
+     * Writes a statement.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param stmt
+     *            The statement
+     * @throws IOException
+     *             if the writer fails
+     */
+    private void writeStatement(JsonWriter out, StatementNode stmt) throws IOException
+    {
+        out.beginObject();
+        if (stmt.getStatementType() != null)
+            out.name("type").value(stmt.getStatementType().name());
+        writeLines(out, stmt);
+        writeCommon(out, stmt);
+        out.endObject();
+    }
+
+    /**
+     * Writes the children of the given node which are of the given kind as an
+     * object keyed by their qualified identifiers.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param name
+     *            Name of the field holding the children
+     * @param parent
+     *            The parent node
+     * @param kind
+     *            The kind of child to write
+     * @throws IOException
+     *             if the writer fails
+     */
+    private void writeChildren(JsonWriter out, String name, AbstractNode parent, Class<? extends INode> kind)
+            throws IOException
+    {
+        out.name(name).beginObject();
+        for (AbstractNode child : parent.getChildren())
+        {
+            if (kind.isInstance(child))
+            {
+                out.name(child.getQIdentifier());
+                writeNode(out, child);
+            }
+        }
+        out.endObject();
+    }
+
+    /**
+     * Writes the line range of a code node.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param node
+     *            The node
+     * @throws IOException
+     *             if the writer fails
+     */
+    private void writeLines(JsonWriter out, CodeNode node) throws IOException
+    {
+        out.name("start").value(node.getStart());
+        out.name("end").value(node.getEnd());
+    }
+
+    /**
+     * Writes the metrics, identifiers and parent of a node.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param node
+     *            The node
+     * @throws IOException
+     *             if the writer fails
+     */
+    private void writeCommon(JsonWriter out, AbstractNode node) throws IOException
+    {
+        out.name("metrics").beginObject();
+        for (String metric : node.getMetricNames())
+        {
+            out.name(metric).value(node.getMetric(metric));
+        }
+        out.endObject();
+        value(out.name("qIdentifier"), node.getSymbol());
+        out.name("name").value(node.getName());
+        if (node.getParentSymbol() != null)
+            value(out.name("parentID"), node.getParentSymbol());
+    }
+
+    /**
+     * Writes the identifier a symbol spells as a string value, straight from
+     * the symbol if the JSON writer was opened by this class.
+     * 
+     * @param out
+     *            The JSON writer
+     * @param symbol
+     *            The symbol
+     * @throws IOException
+     *             if the writer fails
+     */
+    private static void value(JsonWriter out, Symbol symbol) throws IOException
+    {
+        if (out instanceof SymbolWriter)
+            ((SymbolWriter) out).value(symbol);
+        else
+            out.value(symbol.toString());
+    }
+
+    /**
+     * JSON writer which can write symbols as string values without building
+     * the identifier strings.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    private static final class SymbolWriter extends JsonWriter implements Appendable {
+
+        /**
+         * The underlying writer
+         */
+        private final Writer out;
+
+        /**
+         * @param out
+         *            The underlying writer
+         */
+        private SymbolWriter(Writer out)
+        {
+            super(out);
+            this.out = out;
+        }
+
+        /**
+         * Writes the identifier the given symbol spells as a string value.
+         * The separator and indentation before the value are written by
+         * passing an empty raw value to the JSON writer; the quoted and
+         * escaped identifier is then appended to the underlying writer.
+         * 
+         * @param symbol
+         *            The symbol
+         * @return this
+         * @throws IOException
+         *             if the writer fails
+         */
+        JsonWriter value(Symbol symbol) throws IOException
+        {
+            jsonValue("");
+            out.write('"');
+            symbol.appendTo(this);
+            out.write('"');
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc} The characters are escaped as in JSON strings.
+         */
+        @Override
+        public Appendable append(CharSequence csq) throws IOException
+        {
+            return append(csq, 0, csq.length());
+        }
+
+        /**
+         * {@inheritDoc} The characters are escaped as in JSON strings.
+         */
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException
+        {
+            for (int i = start; i < end; i++)
+            {
+                append(csq.charAt(i));
+            }
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc} The character is escaped as in JSON strings.
+         */
+        @Override
+        public Appendable append(char c) throws IOException
+        {
+            switch (c)
+            {
+            case '"':
+                out.write("\\\"");
+                break;
+            case '\\':
+                out.write("\\\\");
+                break;
+            case '\t':
+                out.write("\\t");
+                break;
+            case '\b':
+                out.write("\\b");
+                break;
+            case '\n':
+                out.write("\\n");
+                break;
+            case '\r':
+                out.write("\\r");
+                break;
+            case '\f':
+                out.write("\\f");
+                break;
+            case '\u2028':
+                out.write("\\u2028");
+                break;
+            case '\u2029':
+                out.write("\\u2029");
+                break;
+            default:
+                if (c < 0x20)
+                    out.write(String.format("\\u%04x", (int) c));
+                else
+                    out.write(c);
+            }
+
+            return this;
+        }
+    }
+}
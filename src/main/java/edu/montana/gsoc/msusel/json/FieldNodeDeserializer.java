@@ -42,7 +42,11 @@ import edu.montana.gsoc.msusel.node.FieldNode;
  * 
  * @author Isaac Griffith
  * @version 1.1.0
+ * @deprecated Builds an intermediate JsonElement tree; use the streaming
+ *             {@link FieldNodeAdapter}, registered with the shared Gson of
+ *             {@link NodeAdapters}, instead.
  */
+@Deprecated
 public class FieldNodeDeserializer implements JsonDeserializer<FieldNode> {
 
     /**
@@ -43,7 +43,11 @@ import edu.montana.gsoc.msusel.node.TypeNode;
  * 
  * @author Isaac Griffith
  * @version 1.1.0
+ * @deprecated Builds an intermediate JsonElement tree; use the streaming
+ *             {@link FileNodeAdapter}, registered with the shared Gson of
+ *             {@link NodeAdapters}, instead.
  */
+@Deprecated
 public class FileNodeDeserializer implements JsonDeserializer<FileNode> {
 
     /**
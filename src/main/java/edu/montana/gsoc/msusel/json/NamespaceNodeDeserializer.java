@@ -42,7 +42,11 @@ import edu.montana.gsoc.msusel.node.TypeNode;
 /**
  * @author Isaac Griffith
  * @version
+ * @deprecated Builds an intermediate JsonElement tree; use the streaming
+ *             {@link NamespaceNodeAdapter}, registered with the shared Gson of
+ *             {@link NodeAdapters}, instead.
  */
+@Deprecated
 public class NamespaceNodeDeserializer implements JsonDeserializer<NamespaceNode> {
 
     /**
@@ -0,0 +1,94 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.json;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import edu.montana.gsoc.msusel.INode;
+
+/**
+ * Base class of the streaming TypeAdapters for nodes. Nodes are built
+ * straight from the tokens of the JSON layout of {@link CodeTreeWriter}, and
+ * written back in that layout, without an intermediate JsonElement tree.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ * @param <T>
+ *            Type of node adapted
+ */
+public abstract class NodeAdapter<T extends INode> extends TypeAdapter<T> {
+
+    /**
+     * Writer used for serialization
+     */
+    private static final CodeTreeWriter WRITER = new CodeTreeWriter();
+
+    /**
+     * Reads a node, and its contents, whose object is next in the given
+     * reader.
+     * 
+     * @param parser
+     *            Parser for the current document
+     * @param in
+     *            The JSON reader
+     * @return The node
+     * @throws IOException
+     *             if the reader fails
+     */
+    abstract T read(TreeParser parser, JsonReader in) throws IOException;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(JsonWriter out, T value) throws IOException
+    {
+        if (value == null)
+            out.nullValue();
+        else
+            WRITER.writeNode(out, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T read(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+
+        return read(new TreeParser(), in);
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * Registry of the streaming TypeAdapters of this package, and holder of the
+ * shared Gson instance using them. Gson instances are thread-safe and costly
+ * to create, so the shared instance should be preferred to building a new
+ * one for each document.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class NodeAdapters {
+
+    /**
+     * The shared Gson instance
+     */
+    private static final Gson GSON = register(new GsonBuilder()).create();
+
+    /**
+     * Private constructor
+     */
+    private NodeAdapters()
+    {
+    }
+
+    /**
+     * @return The shared Gson instance, with the adapters of all nodes and of
+     *         CodeTree registered
+     */
+    public static Gson gson()
+    {
+        return GSON;
+    }
+
+    /**
+     * Registers the adapters of all nodes and of CodeTree with the given
+     * builder.
+     * 
+     * @param builder
+     *            The builder
+     * @return The builder
+     */
+    public static GsonBuilder register(GsonBuilder builder)
+    {
+        return builder.registerTypeAdapter(CodeTree.class, new CodeTreeAdapter())
+                .registerTypeAdapter(ProjectNode.class, new ProjectNodeAdapter())
+                .registerTypeAdapter(ModuleNode.class, new ModuleNodeAdapter())
+                .registerTypeAdapter(NamespaceNode.class, new NamespaceNodeAdapter())
+                .registerTypeAdapter(FileNode.class, new FileNodeAdapter())
+                .registerTypeAdapter(TypeNode.class, new TypeNodeAdapter())
+                .registerTypeAdapter(MethodNode.class, new MethodNodeAdapter())
+                .registerTypeAdapter(FieldNode.class, new FieldNodeAdapter())
+                .registerTypeAdapter(StatementNode.class, new StatementNodeAdapter());
+    }
+}
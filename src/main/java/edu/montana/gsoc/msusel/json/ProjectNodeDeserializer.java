@@ -45,7 +45,11 @@ import edu.montana.gsoc.msusel.node.ProjectNode;
  * 
  * @author Isaac Griffith
  * @version 1.1.0
+ * @deprecated Builds an intermediate JsonElement tree; use the streaming
+ *             {@link ProjectNodeAdapter}, registered with the shared Gson of
+ *             {@link NodeAdapters}, instead.
  */
+@Deprecated
 public class ProjectNodeDeserializer implements JsonDeserializer<ProjectNode> {
 
     /**
@@ -0,0 +1,742 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.json;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * Token level parser for the JSON layout of {@link CodeTreeWriter}, building
+ * nodes through their builders as soon as their objects are closed. A parser
+ * holds the state of a single document, and is shared by
+ * {@link CodeTreeReader} and the TypeAdapters of this package.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+final class TreeParser {
+
+    /**
+     * Decides which files are kept
+     */
+    private final Predicate<? super FileNode> filter;
+    /**
+     * Whether anything other than files is being built
+     */
+    private final boolean                     retain;
+    /**
+     * Types of the kept files, by qualified identifier
+     */
+    private final Map<String, TypeNode>       keptTypes    = Maps.newHashMap();
+    /**
+     * Qualified identifiers of the types of files which were not kept
+     */
+    private final Set<String>                 droppedTypes = Sets.newHashSet();
+
+    /**
+     * Constructs a new TreeParser which keeps everything it reads
+     */
+    TreeParser()
+    {
+        this(file -> true, true);
+    }
+
+    /**
+     * Constructs a new TreeParser
+     * 
+     * @param filter
+     *            Decides which files are kept
+     * @param retain
+     *            Whether anything other than files is being built
+     */
+    TreeParser(Predicate<? super FileNode> filter, boolean retain)
+    {
+        this.filter = filter;
+        this.retain = retain;
+    }
+
+    /**
+     * Reads a tree document.
+     * 
+     * @param in
+     *            The JSON reader
+     * @return The root project, or null if the document has none
+     * @throws IOException
+     *             if the reader fails
+     */
+    ProjectNode tree(JsonReader in) throws IOException
+    {
+        ProjectNode project = null;
+        in.beginObject();
+        while (in.hasNext())
+        {
+            if ("project".equals(in.nextName()) && in.peek() == JsonToken.BEGIN_OBJECT)
+                project = project(in);
+            else
+                in.skipValue();
+        }
+        in.endObject();
+
+        return project;
+    }
+
+    /**
+     * Reads a project.
+     * 
+     * @param in
+     *            The JSON reader
+     * @return The project
+     * @throws IOException
+     *             if the reader fails
+     */
+    ProjectNode project(JsonReader in) throws IOException
+    {
+        Common common = new Common();
+        List<ProjectNode> projects = Lists.newArrayList();
+        List<ModuleNode> modules = Lists.newArrayList();
+        List<FileNode> files = Lists.newArrayList();
+        List<NamespaceNode> namespaces = Lists.newArrayList();
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            String field = in.nextName();
+            if (common.read(field, in))
+                continue;
+
+            switch (field)
+            {
+            case "subprojects":
+                children(in, projects, this::project);
+                break;
+            case "modules":
+                children(in, modules, this::module);
+                break;
+            case "files":
+                children(in, files, this::file);
+                break;
+            case "namespaces":
+                children(in, namespaces, this::namespace);
+                break;
+            default:
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        ProjectNode.Builder builder = ProjectNode.builder(common.require(common.qId, "qIdentifier"));
+        common.metrics.forEach(builder::metric);
+        if (common.parentID != null)
+            builder.parent(common.parentID);
+        projects.forEach(builder::project);
+        modules.forEach(builder::module);
+        files.forEach(builder::file);
+        namespaces.forEach(builder::namespace);
+
+        return builder.create();
+    }
+
+    /**
+     * Reads a module.
+     * 
+     * @param in
+     *            The JSON reader
+     * @return The module
+     * @throws IOException
+     *             if the reader fails
+     */
+    ModuleNode module(JsonReader in) throws IOException
+    {
+        Common common = new Common();
+        List<FileNode> files = Lists.newArrayList();
+        List<NamespaceNode> namespaces = Lists.newArrayList();
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            String field = in.nextName();
+            if (common.read(field, in))
+                continue;
+
+            switch (field)
+            {
+            case "files":
+                children(in, files, this::file);
+                break;
+            case "namespaces":
+                children(in, namespaces, this::namespace);
+                break;
+            default:
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        ModuleNode.Builder builder = ModuleNode.builder(common.require(common.qId, "qIdentifier"));
+        common.metrics.forEach(builder::metric);
+        if (common.parentID != null)
+            builder.parent(common.parentID);
+        files.forEach(builder::file);
+        namespaces.forEach(builder::namespace);
+
+        return builder.create();
+    }
+
+    /**
+     * Reads a namespace. Types which belong to a kept file are shared
+     * with that file, and types of files which were not kept are dropped.
+     * When nothing is being retained the namespace is skipped.
+     * 
+     * @param in
+     *            The JSON reader
+     * @return The namespace, or null if it was skipped
+     * @throws IOException
+     *             if the reader fails
+     */
+    NamespaceNode namespace(JsonReader in) throws IOException
+    {
+        if (!retain)
+        {
+            in.skipValue();
+            return null;
+        }
+
+        Common common = new Common();
+        List<TypeNode> types = Lists.newArrayList();
+        List<NamespaceNode> namespaces = Lists.newArrayList();
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            String field = in.nextName();
+            if (common.read(field, in))
+                continue;
+
+            switch (field)
+            {
+            case "types":
+                in.beginArray();
+                while (in.hasNext())
+                {
+                    TypeNode type = type(in);
+                    if (keptTypes.containsKey(type.getQIdentifier()))
+                        types.add(keptTypes.get(type.getQIdentifier()));
+                    else if (!droppedTypes.contains(type.getQIdentifier()))
+                        types.add(type);
+                }
+                in.endArray();
+                break;
+            case "namespaces":
+                children(in, namespaces, this::namespace);
+                break;
+            default:
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        NamespaceNode.Builder builder = NamespaceNode.builder(common.require(common.qId, "qIdentifier"));
+        common.metrics.forEach(builder::metric);
+        if (common.parentID != null)
+            builder.parent(common.parentID);
+        types.forEach(builder::type);
+        namespaces.forEach(builder::namespace);
+
+        return builder.create();
+    }
+
+    /**
+     * Reads a file and hands it to the filter.
+     * 
+     * @param in
+     *            The JSON reader
+     * @return The file, or null if it was not kept
+     * @throws IOException
+     *             if the reader fails
+     */
+    FileNode file(JsonReader in) throws IOException
+    {
+        Common common = new Common();
+        List<TypeNode> types = Lists.newArrayList();
+        List<String> imports = Lists.newArrayList();
+        Integer length = null;
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            String field = in.nextName();
+            if (common.read(field, in))
+                continue;
+
+            switch (field)
+            {
+            case "types":
+                children(in, types, this::type);
+                break;
+            case "imports":
+                in.beginArray();
+                while (in.hasNext())
+                    imports.add(in.nextString());
+                in.endArray();
+                break;
+            case "length":
+                length = in.nextInt();
+                break;
+            default:
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        FileNode.Builder builder = FileNode.builder(common.require(common.qId, "qIdentifier"));
+        common.metrics.forEach(builder::metric);
+        if (common.parentID != null)
+            builder.parent(common.parentID);
+        if (length != null)
+            builder.length(length);
+        imports.forEach(builder::imports);
+        types.forEach(builder::type);
+        FileNode file = builder.create();
+
+        if (!filter.test(file))
+        {
+            if (retain)
+                types.forEach(type -> droppedTypes.add(type.getQIdentifier()));
+            return null;
+        }
+
+        types.forEach(type -> keptTypes.put(type.getQIdentifier(), type));
+        return file;
+    }
+
+    /**
+     * Reads a type.
+     * 
+     * @param in
+     *            The JSON reader
+     * @return The type
+     * @throws IOException
+     *             if the reader fails
+     */
+    TypeNode type(JsonReader in) throws IOException
+    {
+        Common common = new Common();
+        List<MethodNode> methods = Lists.newArrayList();
+        List<FieldNode> fields = Lists.newArrayList();
+        boolean isInterface = false;
+        boolean isAbstract = false;
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            String field = in.nextName();
+            if (common.read(field, in))
+                continue;
+
+            switch (field)
+            {
+            case "methods":
+                children(in, methods, this::method);
+                break;
+            case "fields":
+                children(in, fields, this::field);
+                break;
+            case "isInterface":
+                isInterface = in.nextBoolean();
+                break;
+            case "isAbstract":
+                isAbstract = in.nextBoolean();
+                break;
+            default:
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        TypeNode.Builder builder = TypeNode.builder(common.require(common.name, "name"),
+                common.require(common.qId, "qIdentifier"))
+                .range(common.require(common.start, "start"), common.require(common.end, "end"));
+        common.metrics.forEach(builder::metric);
+        if (common.parentID != null)
+            builder.parent(common.parentID);
+        if (isInterface)
+            builder.isInterface();
+        if (isAbstract)
+            builder.isAbstract();
+        fields.forEach(builder::field);
+        methods.forEach(builder::method);
+
+        return builder.create();
+    }
+
+    /**
+     * Reads a method.
+     * 
+     * @param in
+     *            The JSON reader
+     * @return The method
+     * @throws IOException
+     *             if the reader fails
+     */
+    MethodNode method(JsonReader in) throws IOException
+    {
+        Common common = new Common();
+        List<StatementNode> statements = Lists.newArrayList();
+        boolean constructor = false;
+        boolean isAbstract = false;
+        boolean accessor = false;
+        boolean isStatic = false;
+        boolean isFinal = false;
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            String field = in.nextName();
+            if (common.read(field, in))
+                continue;
+
+            switch (field)
+            {
+            case "statements":
+                children(in, statements, this::statement);
+                break;
+            case "constructor":
+                constructor = in.nextBoolean();
+                break;
+            case "abstract":
+                isAbstract = in.nextBoolean();
+                break;
+            case "accessor":
+                accessor = in.nextBoolean();
+                break;
+            case "static":
+                isStatic = in.nextBoolean();
+                break;
+            case "final":
+                isFinal = in.nextBoolean();
+                break;
+            default:
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        MethodNode.Builder builder = MethodNode.builder(common.require(common.name, "name"),
+                common.require(common.qId, "qIdentifier"))
+                .constructor(constructor)
+                .isAbstract(isAbstract)
+                .accessor(accessor)
+                .range(common.require(common.start, "start"), common.require(common.end, "end"));
+        if (isStatic)
+            builder.isStatic();
+        if (isFinal)
+            builder.isFinal();
+        common.metrics.forEach(builder::metric);
+        if (common.parentID != null)
+            builder.parent(common.parentID);
+        statements.forEach(builder::statement);
+
+        return builder.create();
+    }
+
+    /**
+     * Reads a field. The end line defaults to the start line when absent.
+     * 
+     * @param in
+     *            The JSON reader
+     * @return The field
+     * @throws IOException
+     *             if the reader fails
+     */
+    FieldNode field(JsonReader in) throws IOException
+    {
+        Common common = new Common();
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            String field = in.nextName();
+            if (!common.read(field, in))
+                in.skipValue();
+        }
+        in.endObject();
+
+        int start = common.require(common.start, "start");
+        FieldNode.Builder builder = FieldNode.builder(common.require(common.name, "name"),
+                common.require(common.qId, "qIdentifier"))
+                .range(start, common.end == null ? start : common.end);
+        common.metrics.forEach(builder::metric);
+        if (common.parentID != null)
+            builder.parent(common.parentID);
+
+        return builder.create();
+    }
+
+    /**
+     * Reads a statement, restoring its qualified identifier verbatim.
+     * 
+     * @param in
+     *            The JSON reader
+     * @return The statement
+     * @throws IOException
+     *             if the reader fails
+     */
+    StatementNode statement(JsonReader in) throws IOException
+    {
+        Common common = new Common();
+        String type = null;
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            String field = in.nextName();
+            if (common.read(field, in))
+                continue;
+
+            if ("type".equals(field) && in.peek() == JsonToken.STRING)
+                type = in.nextString();
+            else
+                in.skipValue();
+        }
+        in.endObject();
+
+        String qId = common.require(common.qId, "qIdentifier");
+        int sep = qId.lastIndexOf(':');
+        if (type == null && sep > 0)
+            type = qId.substring(0, sep);
+        if (type == null)
+            throw new JsonParseException("Missing type field.");
+
+        StatementType stmtType;
+        try
+        {
+            stmtType = StatementType.valueOf(type);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new JsonParseException("Unknown statement type: " + type, e);
+        }
+
+        StatementNode.Builder builder = StatementNode.builder(stmtType, qId);
+        if (common.start != null)
+            builder.range(common.start, common.end == null ? common.start : common.end);
+        common.metrics.forEach(builder::metric);
+        if (common.parentID != null)
+            builder.parent(common.parentID);
+
+        return builder.create();
+    }
+
+    /**
+     * Reads an object of nodes keyed by their qualified identifiers,
+     * adding every kept node to the given list.
+     * 
+     * @param in
+     *            The JSON reader
+     * @param nodes
+     *            List receiving the nodes
+     * @param parser
+     *            Parser for a single node
+     * @throws IOException
+     *             if the reader fails
+     */
+    private <T> void children(JsonReader in, List<T> nodes, NodeParser<T> parser) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return;
+        }
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            in.nextName();
+            T node = parser.parse(in);
+            if (node != null)
+                nodes.add(node);
+        }
+        in.endObject();
+    }
+
+    /**
+     * Parses a single value of a keyed collection of children.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     * @param <T>
+     *            Type of node parsed
+     */
+    @FunctionalInterface
+    private interface NodeParser<T> {
+
+        /**
+         * @param in
+         *            The JSON reader, positioned at the start of the node
+         * @return The parsed node, or null if it is not to be kept
+         * @throws IOException
+         *             if the reader fails
+         */
+        T parse(JsonReader in) throws IOException;
+    }
+
+    /**
+     * The fields shared by all nodes.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    private static class Common {
+
+        /**
+         * Qualified identifier
+         */
+        String              qId;
+        /**
+         * Simple name
+         */
+        String              name;
+        /**
+         * Parent's qualified identifier
+         */
+        String              parentID;
+        /**
+         * Starting line
+         */
+        Integer             start;
+        /**
+         * Ending line
+         */
+        Integer             end;
+        /**
+         * Metric values, in document order
+         */
+        Map<String, Double> metrics = new LinkedHashMap<>();
+
+        /**
+         * Reads the value of the given field if it is a common field.
+         * 
+         * @param field
+         *            Name of the field
+         * @param in
+         *            The JSON reader, positioned at the field's value
+         * @return true if the value was consumed, false otherwise
+         * @throws IOException
+         *             if the reader fails
+         */
+        boolean read(String field, JsonReader in) throws IOException
+        {
+            switch (field)
+            {
+            case "qIdentifier":
+            case "name":
+            case "parentID":
+            case "metrics":
+            case "start":
+            case "end":
+                break;
+            default:
+                return false;
+            }
+
+            if (in.peek() == JsonToken.NULL)
+            {
+                in.nextNull();
+                return true;
+            }
+
+            switch (field)
+            {
+            case "qIdentifier":
+                qId = in.nextString();
+                break;
+            case "name":
+                name = in.nextString();
+                break;
+            case "parentID":
+                parentID = in.nextString();
+                break;
+            case "metrics":
+                in.beginObject();
+                while (in.hasNext())
+                {
+                    String metric = in.nextName();
+                    if (in.peek() == JsonToken.NUMBER)
+                        metrics.put(metric, in.nextDouble());
+                    else
+                        in.skipValue();
+                }
+                in.endObject();
+                break;
+            case "start":
+                start = in.nextInt();
+                break;
+            default:
+                end = in.nextInt();
+            }
+
+            return true;
+        }
+
+        /**
+         * @param value
+         *            Value read for a required field
+         * @param field
+         *            Name of the field
+         * @return The value
+         * @throws JsonParseException
+         *             if the value is missing
+         */
+        <V> V require(V value, String field)
+        {
+            if (value == null)
+                throw new JsonParseException("Missing " + field + " field.");
+
+            return value;
+        }
+    }
+}
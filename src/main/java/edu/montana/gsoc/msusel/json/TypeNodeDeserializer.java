@@ -44,7 +44,11 @@ import edu.montana.gsoc.msusel.node.TypeNode;
  * 
  * @author Isaac Griffith
  * @version 1.1.0
+ * @deprecated Builds an intermediate JsonElement tree; use the streaming
+ *             {@link TypeNodeAdapter}, registered with the shared Gson of
+ *             {@link NodeAdapters}, instead.
  */
+@Deprecated
 public class TypeNodeDeserializer implements JsonDeserializer<TypeNode> {
 
     /**
@@ -25,10 +25,11 @@
  */
 package edu.montana.gsoc.msusel.node;
 
-import com.google.common.collect.Range;
 import com.google.gson.annotations.Expose;
 
 import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.util.Symbol;
+import edu.montana.gsoc.msusel.version.VersionNode;
 
 /**
  * Base class for source code entities.
@@ -42,18 +43,12 @@ public abstract class CodeNode extends AbstractNode implements Comparable<CodeNo
      * The starting line value, only applicable to source code elements
      */
     @Expose
-    private int            start = 1;
+    private int start = 1;
     /**
      * The ending line value, only applicable to source code elements
      */
     @Expose
-    private int            end   = Integer.MAX_VALUE;
-    /**
-     * Range entity used to detect if something exists within this code node's
-     * range
-     */
-    @Expose
-    private Range<Integer> range;
+    private int end   = Integer.MAX_VALUE;
 
     /**
      * Constructs a new CodeNode with the given qualified and unqualified
@@ -69,6 +64,20 @@ public abstract class CodeNode extends AbstractNode implements Comparable<CodeNo
         super(qIdentifier, name);
     }
 
+    /**
+     * Constructs a new CodeNode with the given symbol for its qualified
+     * identifier, and unqualified identifier.
+     * 
+     * @param symbol
+     *            Symbol for the qualified identifier of this node
+     * @param name
+     *            The short name, or unqualified name, of this node.
+     */
+    protected CodeNode(final Symbol symbol, final String name)
+    {
+        super(symbol, name);
+    }
+
     /**
      * @return the start line of this entity
      */
@@ -146,7 +155,7 @@ public abstract class CodeNode extends AbstractNode implements Comparable<CodeNo
      */
     public boolean containsLine(final int line)
     {
-        return range.contains(line);
+        return line >= start && line <= end;
     }
 
     /**
@@ -156,20 +165,87 @@ public abstract class CodeNode extends AbstractNode implements Comparable<CodeNo
      *            lower value (inclusive) of the range
      * @param end
      *            upper value (inclusive) of the range
+     * @throws IllegalArgumentException
+     *             if the lower value is greater than the upper value or is
+     *             less than 1.
      */
     protected void setRange(int start, int end)
     {
+        if (start > end)
+        {
+            throw new IllegalArgumentException("Start cannot be greater than end");
+        }
+
+        if (start < 1)
+        {
+            throw new IllegalArgumentException("Start cannot be less than 1.");
+        }
+
         this.start = start;
         this.end = end;
         updateRange();
     }
 
     /**
-     * Updates the range when either the lower or upper bound has changed.
+     * Notifies the containing node that the lines of one of its children have
+     * moved, after either the lower or upper bound has changed.
      */
     private void updateRange()
     {
-        range = Range.closed(start, end);
+        contentChanged();
+        notifyParent();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected long contentHash()
+    {
+        return combine(combine(super.contentHash(), start), end);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean sameContent(AbstractNode other)
+    {
+        if (!super.sameContent(other))
+        {
+            return false;
+        }
+
+        CodeNode node = (CodeNode) other;
+
+        return start == node.start && end == node.end;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected VersionNode.Builder freeze(VersionNode.Builder builder)
+    {
+        return super.freeze(builder).range(start, end);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeContent(AbstractNode other)
+    {
+        boolean changed = super.mergeContent(other);
+
+        CodeNode node = (CodeNode) other;
+        if (node.start != start || node.end != end)
+        {
+            setRange(node.start, node.end);
+            changed = true;
+        }
+
+        return changed;
     }
 
     /**
@@ -184,7 +260,7 @@ public abstract class CodeNode extends AbstractNode implements Comparable<CodeNo
                 .append(", end=")
                 .append(end)
                 .append(", qIdentifier=")
-                .append(qIdentifier)
+                .append(symbol)
                 .append(", name=")
                 .append(name)
                 .append("]");
@@ -201,7 +277,7 @@ public abstract class CodeNode extends AbstractNode implements Comparable<CodeNo
         int result = 1;
         result = prime * result + end;
         result = prime * result + ((name == null) ? 0 : name.hashCode());
-        result = prime * result + ((qIdentifier == null) ? 0 : qIdentifier.hashCode());
+        result = prime * result + ((symbol == null) ? 0 : symbol.hashCode());
         result = prime * result + start;
         return result;
     }
@@ -240,14 +316,14 @@ public abstract class CodeNode extends AbstractNode implements Comparable<CodeNo
         {
             return false;
         }
-        if (qIdentifier == null)
+        if (symbol == null)
         {
-            if (other.qIdentifier != null)
+            if (other.symbol != null)
             {
                 return false;
             }
         }
-        else if (!qIdentifier.equals(other.qIdentifier))
+        else if (!symbol.equals(other.symbol))
         {
             return false;
         }
@@ -28,6 +28,7 @@ package edu.montana.gsoc.msusel.node;
 import org.eclipse.jdt.annotation.NonNull;
 
 import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.util.Symbol;
 
 /**
  * An abstraction of a type variable. Here a field's unique qualified name is a
@@ -55,6 +56,20 @@ public class FieldNode extends CodeNode {
         super(qIdentifier, name);
     }
 
+    /**
+     * Constructs a new FieldNode with the given symbol for its Qualified
+     * Identifier, and simple name.
+     * 
+     * @param symbol
+     *            Symbol for the Qualified Identifier
+     * @param name
+     *            Simple Name
+     */
+    protected FieldNode(final Symbol symbol, String name)
+    {
+        super(symbol, name);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -70,14 +85,7 @@ public class FieldNode extends CodeNode {
     @Override
     public void update(INode f)
     {
-        if (f == null)
-            return;
-
-        if (f instanceof CodeNode)
-        {
-            CodeNode c = (CodeNode) f;
-            setRange(c.getStart(), c.getEnd());
-        }
+        merge(f);
     }
 
     /**
@@ -86,7 +94,7 @@ public class FieldNode extends CodeNode {
     @Override
     public FieldNode cloneNoChildren()
     {
-        FieldNode fnode = new FieldNode(this.qIdentifier, this.name);
+        FieldNode fnode = new FieldNode(this.symbol, this.name);
         fnode.setRange(this.getStart(), this.getEnd());
 
         copyMetrics(fnode);
@@ -103,16 +111,6 @@ public class FieldNode extends CodeNode {
         return cloneNoChildren();
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    protected void finalize() throws Throwable
-    {
-        // TODO Auto-generated method stub
-        super.finalize();
-    }
-
     /**
      * Constructs a new Builder for a FieldNode with the given Qualified
      * Identifier and Simple Name
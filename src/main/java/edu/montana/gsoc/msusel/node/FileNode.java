@@ -25,24 +25,28 @@
  */
 package edu.montana.gsoc.msusel.node;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jdt.annotation.NonNull;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.ChangeSet;
 import edu.montana.gsoc.msusel.INode;
-import edu.montana.gsoc.msusel.json.FieldNodeDeserializer;
-import edu.montana.gsoc.msusel.json.FileNodeDeserializer;
-import edu.montana.gsoc.msusel.json.MethodNodeDeserializer;
-import edu.montana.gsoc.msusel.json.TypeNodeDeserializer;
+import edu.montana.gsoc.msusel.NodeView;
+import edu.montana.gsoc.msusel.json.CodeTreeWriter;
+import edu.montana.gsoc.msusel.json.NodeAdapters;
+import edu.montana.gsoc.msusel.util.Symbol;
+import edu.montana.gsoc.msusel.version.VersionNode;
 
 /**
  * An abstraction representing a file within the project (typically a source
@@ -61,7 +65,7 @@ public class FileNode extends StructuralNode {
      * identifiers
      */
     @Expose
-    private final Map<String, TypeNode> types;
+    private Map<Symbol, TypeNode>       types;
     /**
      * Set of imports/includes used by this file
      */
@@ -72,6 +76,23 @@ public class FileNode extends StructuralNode {
      */
     @Expose
     private int                         length;
+    /**
+     * Line index over the types of this file, built on demand
+     */
+    private transient volatile LineIndex<TypeNode>   typeIndex;
+    /**
+     * Line index over the methods of all types of this file, built on demand
+     */
+    private transient volatile LineIndex<MethodNode> methodIndex;
+    /**
+     * Line index over the fields of all types of this file, built on demand
+     */
+    private transient volatile LineIndex<FieldNode>  fieldIndex;
+    /**
+     * Line index over the types, methods and fields of this file together,
+     * built on demand
+     */
+    private transient volatile LineIndex<CodeNode>   entityIndex;
 
     /**
      * Constructs a new FileNode using the provided absolute path as the
@@ -102,11 +123,13 @@ public class FileNode extends StructuralNode {
         if (name == null || name.isEmpty())
             return null;
 
-        if (types.containsKey(name))
-            return types.get(name);
+        TypeNode t = types.get(Symbol.key(name));
+        if (t != null)
+            return t;
 
-        TypeNode t = new TypeNode(name, name);
-        types.put(name, t);
+        t = new TypeNode(name, name);
+        types.put(t.getSymbol(), t);
+        adopt(t);
         return t;
     }
 
@@ -120,14 +143,15 @@ public class FileNode extends StructuralNode {
      */
     public boolean addType(final TypeNode node)
     {
-        if (node == null || types.containsKey(node.getQIdentifier()))
+        if (node == null || types.containsKey(node.getSymbol()))
         {
             return false;
         }
 
-        types.put(node.getQIdentifier(), node);
+        types.put(node.getSymbol(), node);
 
-        node.setParentID(this.getQIdentifier());
+        node.setParentSymbol(symbol);
+        adopt(node);
 
         return true;
     }
@@ -142,18 +166,160 @@ public class FileNode extends StructuralNode {
      */
     public boolean removeType(final TypeNode node)
     {
-        if (node == null || !types.containsKey(node.getQIdentifier()))
+        if (node == null || !types.containsKey(node.getSymbol()))
         {
             return false;
         }
 
-        types.remove(node);
+        types.remove(node.getSymbol());
 
         node.setParentID(null);
+        disown(node);
 
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Iterable<? extends AbstractNode> children()
+    {
+        return types.values();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean removeChild(AbstractNode child)
+    {
+        return child instanceof TypeNode && removeChild(types, child);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void makeConcurrent()
+    {
+        types = concurrent(types);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void childrenChanged()
+    {
+        typeIndex = null;
+        methodIndex = null;
+        fieldIndex = null;
+        entityIndex = null;
+        super.childrenChanged();
+    }
+
+    /**
+     * @return The line index over the types of this file
+     */
+    private LineIndex<TypeNode> typeIndex()
+    {
+        LineIndex<TypeNode> idx = typeIndex;
+        if (idx == null)
+            typeIndex = idx = new LineIndex<>(types.values());
+
+        return idx;
+    }
+
+    /**
+     * @return The line index over the methods of all types of this file
+     */
+    private LineIndex<MethodNode> methodIndex()
+    {
+        LineIndex<MethodNode> idx = methodIndex;
+        if (idx == null)
+            methodIndex = idx = new LineIndex<>(methods());
+
+        return idx;
+    }
+
+    /**
+     * @return The line index over the fields of all types of this file
+     */
+    private LineIndex<FieldNode> fieldIndex()
+    {
+        LineIndex<FieldNode> idx = fieldIndex;
+        if (idx == null)
+            fieldIndex = idx = new LineIndex<>(new NodeView<>(this, FieldNode.class));
+
+        return idx;
+    }
+
+    /**
+     * @return The line index over the types, methods and fields of this file
+     */
+    private LineIndex<CodeNode> entityIndex()
+    {
+        LineIndex<CodeNode> idx = entityIndex;
+        if (idx == null)
+            entityIndex = idx = new LineIndex<>(Iterables.concat(types.values(), methods(),
+                    new NodeView<>(this, FieldNode.class)));
+
+        return idx;
+    }
+
+    /**
+     * Resolves each of the given lines to the innermost type, method or field
+     * of this file containing it, in a single sweep over the entities of this
+     * file ordered by their start lines.
+     * 
+     * @param lines
+     *            Line numbers, in any order and possibly repeated
+     * @return An array holding, at the position of each line, the innermost
+     *         entity containing it, or null if no entity contains it.
+     */
+    public CodeNode[] resolve(final int[] lines)
+    {
+        final CodeNode[] result = new CodeNode[lines.length];
+        entityIndex().findAll(lines, result);
+
+        return result;
+    }
+
+    /**
+     * Resolves each of the given lines to the innermost type of this file
+     * containing it, in a single sweep.
+     * 
+     * @param lines
+     *            Line numbers, in any order and possibly repeated
+     * @return An array holding, at the position of each line, the innermost
+     *         type containing it, or null if no type contains it.
+     */
+    public TypeNode[] resolveTypes(final int[] lines)
+    {
+        final TypeNode[] result = new TypeNode[lines.length];
+        typeIndex().findAll(lines, result);
+
+        return result;
+    }
+
+    /**
+     * Resolves each of the given lines to the innermost method of this file
+     * containing it, in a single sweep.
+     * 
+     * @param lines
+     *            Line numbers, in any order and possibly repeated
+     * @return An array holding, at the position of each line, the innermost
+     *         method containing it, or null if no method contains it.
+     */
+    public MethodNode[] resolveMethods(final int[] lines)
+    {
+        final MethodNode[] result = new MethodNode[lines.length];
+        methodIndex().findAll(lines, result);
+
+        return result;
+    }
+
     /**
      * @return The set of types contained in this file
      */
@@ -161,17 +327,17 @@ public class FileNode extends StructuralNode {
     {
         final Set<TypeNode> typeSet = Sets.newTreeSet();
 
-        for (final String key : types.keySet())
+        for (final TypeNode type : types.values())
         {
-            typeSet.add(types.get(key));
+            typeSet.add(type);
         }
 
         return typeSet;
     }
 
     /**
-     * Retrieves the method containing the given line from a type contained in
-     * this file.
+     * Retrieves the innermost method containing the given line from a type
+     * contained in this file.
      * 
      * @param line
      *            Line number for which a method is requested.
@@ -181,22 +347,14 @@ public class FileNode extends StructuralNode {
      */
     public String getMethod(final int line)
     {
-        final String type = getType(line);
-        if (type != null && types.containsKey(type))
-        {
-            final TypeNode node = types.get(getType(line));
-            if (node.getMethod(line) != null)
-            {
-                return node.getMethod(line).getQIdentifier();
-            }
-        }
+        final MethodNode node = methodIndex().find(line);
 
-        return "";
+        return node == null ? "" : node.getQIdentifier();
     }
 
     /**
-     * Retrieves the qualified identifier of the type in this file which
-     * contains the given line.
+     * Retrieves the qualified identifier of the innermost type in this file
+     * which contains the given line.
      * 
      * @param line
      *            Line number for which a type is requested
@@ -206,16 +364,9 @@ public class FileNode extends StructuralNode {
      */
     public String getType(final int line)
     {
-        for (final String type : types.keySet())
-        {
-            final TypeNode node = types.get(type);
-            if (node.containsLine(line))
-            {
-                return node.getQIdentifier();
-            }
-        }
+        final TypeNode node = typeIndex().find(line);
 
-        return "";
+        return node == null ? "" : node.getQIdentifier();
     }
 
     /**
@@ -231,8 +382,9 @@ public class FileNode extends StructuralNode {
         if (name == null || name.isEmpty())
             return null;
 
-        if (types.containsKey(name))
-            return types.get(name);
+        TypeNode type = types.get(Symbol.key(name));
+        if (type != null)
+            return type;
         else
             return addType(name);
     }
@@ -257,18 +409,9 @@ public class FileNode extends StructuralNode {
      */
     public String getField(final int line)
     {
-        final String type = getType(line);
-
-        if (type != null && types.containsKey(type))
-        {
-            final TypeNode node = types.get(type);
-            if (node.getField(line) != null)
-            {
-                return node.getField(line).getQIdentifier();
-            }
-        }
+        final FieldNode node = fieldIndex().find(line);
 
-        return "";
+        return node == null ? "" : node.getQIdentifier();
     }
 
     /**
@@ -276,8 +419,21 @@ public class FileNode extends StructuralNode {
      */
     public String toJSON()
     {
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        return gson.toJson(this);
+        return new CodeTreeWriter(true).toJson(this);
+    }
+
+    /**
+     * Serializes this file and its contents as compact JSON directly to the given
+     * writer, without building the document in memory.
+     * 
+     * @param out
+     *            The writer, which is flushed but not closed
+     * @throws IOException
+     *             if the writer fails
+     */
+    public void toJSON(Writer out) throws IOException
+    {
+        new CodeTreeWriter().write(this, out);
     }
 
     /**
@@ -286,28 +442,95 @@ public class FileNode extends StructuralNode {
     @Override
     public void update(INode node)
     {
-        if (node == null)
-            return;
-        if (!(node instanceof FileNode))
-            return;
+        merge(node);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected long contentHash()
+    {
+        long hash = combine(super.contentHash(), length);
+
+        return combine(hash, imports.hashCode());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean sameContent(AbstractNode other)
+    {
+        FileNode file = (FileNode) other;
+
+        return super.sameContent(other) && length == file.length && imports.equals(file.imports);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected VersionNode.Builder freeze(VersionNode.Builder builder)
+    {
+        return super.freeze(builder).length(length).references(imports);
+    }
 
-        FileNode f = (FileNode) node;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeContent(AbstractNode other)
+    {
+        boolean changed = super.mergeContent(other);
 
-        for (TypeNode t : f.getTypes())
+        FileNode file = (FileNode) other;
+        if (file.length != length)
         {
-            if (getType(t.getQIdentifier()) != null)
-            {
-                getType(t.getQIdentifier()).update(t);
-            }
-            else
+            setLength(file.length);
+            changed = true;
+        }
+
+        if (!file.imports.equals(imports))
+        {
+            imports.clear();
+            imports.addAll(file.imports);
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /**
+     * {@inheritDoc} A file describes the whole of its contents, so types the
+     * given file does not contain are removed from this file.
+     */
+    @Override
+    protected void mergeChildren(AbstractNode other, ChangeSet changes)
+    {
+        FileNode file = (FileNode) other;
+
+        for (TypeNode t : Lists.newArrayList(types.values()))
+        {
+            if (!file.types.containsKey(t.getSymbol()))
             {
-                addType(t);
+                removeType(t);
+                changes.recordRemoved(t);
             }
         }
 
-        for (String key : f.getMetricNames())
+        for (TypeNode t : Lists.newArrayList(file.types.values()))
         {
-            this.addMetric(key, f.getMetric(key));
+            TypeNode existing = types.get(t.getSymbol());
+            if (existing == null)
+            {
+                addType(take(t));
+                changes.recordAdded(t);
+            }
+            else
+            {
+                mergeInto(existing, t, changes);
+            }
         }
     }
 
@@ -323,13 +546,7 @@ public class FileNode extends StructuralNode {
         if (json == null || json.isEmpty())
             return null;
 
-        GsonBuilder gb = new GsonBuilder();
-        gb.registerTypeAdapter(FileNode.class, new FileNodeDeserializer());
-        gb.registerTypeAdapter(TypeNode.class, new TypeNodeDeserializer());
-        gb.registerTypeAdapter(FieldNode.class, new FieldNodeDeserializer());
-        gb.registerTypeAdapter(MethodNode.class, new MethodNodeDeserializer());
-        Gson g = gb.create();
-        return g.fromJson(json, FileNode.class);
+        return NodeAdapters.gson().fromJson(json, FileNode.class);
     }
 
     /**
@@ -345,7 +562,7 @@ public class FileNode extends StructuralNode {
         if (cnode == null)
             return false;
 
-        return types.containsKey(cnode.getQIdentifier());
+        return types.containsKey(cnode.getSymbol());
     }
 
     /**
@@ -353,13 +570,25 @@ public class FileNode extends StructuralNode {
      */
     public List<MethodNode> getMethods()
     {
-        List<MethodNode> methods = Lists.newArrayList();
-        for (String t : types.keySet())
-        {
-            methods.addAll(types.get(t).getMethods());
-        }
+        return Lists.newArrayList(methods());
+    }
 
-        return methods;
+    /**
+     * @return A lazy view of the types contained in this file, which walks the
+     *         live tree rather than copying it.
+     */
+    public NodeView<TypeNode> types()
+    {
+        return new NodeView<>(this, TypeNode.class);
+    }
+
+    /**
+     * @return A lazy view of the methods of all types contained in this file,
+     *         which walks the live tree rather than copying it.
+     */
+    public NodeView<MethodNode> methods()
+    {
+        return new NodeView<>(this, MethodNode.class);
     }
 
     /**
@@ -374,6 +603,7 @@ public class FileNode extends StructuralNode {
             throw new IllegalArgumentException("File length cannot be less than or equal to 0");
 
         this.length = length;
+        contentChanged();
     }
 
     /**
@@ -397,6 +627,7 @@ public class FileNode extends StructuralNode {
             return;
 
         imports.add(imp);
+        contentChanged();
     }
 
     /**
@@ -412,6 +643,7 @@ public class FileNode extends StructuralNode {
             return;
 
         imports.remove(imp);
+        contentChanged();
     }
 
     /**
@@ -445,11 +677,11 @@ public class FileNode extends StructuralNode {
     @Override
     public FileNode cloneNoChildren()
     {
-        FileNode fnode = new FileNode(qIdentifier);
+        FileNode fnode = new FileNode(getQIdentifier());
 
         copyMetrics(fnode);
 
-        fnode.setParentID(parentID);
+        fnode.setParentSymbol(parentSymbol);
 
         return fnode;
     }
@@ -462,26 +694,16 @@ public class FileNode extends StructuralNode {
     {
         FileNode fnode = cloneNoChildren();
 
-        for (String key : types.keySet())
+        for (TypeNode type : types.values())
         {
-            fnode.addType(types.get(key).clone());
+            fnode.addType(type.clone());
         }
 
         return fnode;
     }
 
     /**
-     * {@inheritDoc}
-     */
-    @Override
-    protected void finalize() throws Throwable
-    {
-        // TODO Auto-generated method stub
-        super.finalize();
-    }
-
-    /**
-     * Searches this FileNode for a type at the given line.
+     * Searches this FileNode for the innermost type at the given line.
      * 
      * @param line
      *            The line within this file for which a type whose range
@@ -494,13 +716,7 @@ public class FileNode extends StructuralNode {
         if (line > length || line <= 0)
             return null;
 
-        for (TypeNode type : types.values())
-        {
-            if (type.containsLine(line))
-                return type;
-        }
-
-        return null;
+        return typeIndex().find(line);
     }
 
     /**
@@ -0,0 +1,201 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.node;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+/**
+ * An immutable index over the line ranges of a set of code nodes, used to find
+ * the innermost node enclosing a given line. Nodes are ordered by ascending
+ * start and, for equal starts, descending end so that containers precede the
+ * nodes they contain. For each node the innermost earlier node enclosing it is
+ * recorded, which turns the index into a forest mirroring the nesting of the
+ * ranges. A lookup binary searches for the last node starting at or before
+ * the line and then climbs that forest until a node reaching the line is
+ * found. Should the ranges overlap without nesting, lookups fall back to a
+ * backwards scan which yields the same answer. Many lines may also be resolved
+ * at once by a single sweep over the ordered nodes.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ * @param <T>
+ *            The type of node indexed
+ */
+final class LineIndex<T extends CodeNode> {
+
+    /**
+     * Orders nodes by ascending start and then by descending end
+     */
+    private static final Comparator<CodeNode> ORDER = Comparator.comparingInt(CodeNode::getStart)
+            .thenComparing(Comparator.comparingInt(CodeNode::getEnd).reversed());
+
+    /**
+     * The indexed nodes, in order
+     */
+    private final List<T> nodes;
+    /**
+     * Start line of each node
+     */
+    private final int[]   starts;
+    /**
+     * End line of each node
+     */
+    private final int[]   ends;
+    /**
+     * Position of the innermost earlier node enclosing each node, or -1
+     */
+    private final int[]   parents;
+    /**
+     * Whether every pair of ranges is either nested or disjoint
+     */
+    private final boolean nested;
+
+    /**
+     * Constructs a new LineIndex over the given nodes
+     * 
+     * @param items
+     *            The nodes to be indexed
+     */
+    LineIndex(Iterable<? extends T> items)
+    {
+        nodes = Lists.newArrayList(items);
+        nodes.sort(ORDER);
+
+        int size = nodes.size();
+        starts = new int[size];
+        ends = new int[size];
+        parents = new int[size];
+
+        int[] stack = new int[size];
+        int top = -1;
+        boolean laminar = true;
+        for (int i = 0; i < size; i++)
+        {
+            T node = nodes.get(i);
+            starts[i] = node.getStart();
+            ends[i] = node.getEnd();
+
+            while (top >= 0 && ends[stack[top]] < starts[i])
+                top--;
+            if (top >= 0 && ends[stack[top]] < ends[i])
+                laminar = false;
+
+            parents[i] = top >= 0 ? stack[top] : -1;
+            stack[++top] = i;
+        }
+        nested = laminar;
+    }
+
+    /**
+     * Finds the innermost indexed node whose range contains the given line.
+     * 
+     * @param line
+     *            The line
+     * @return The innermost node containing the line, or null if there is no
+     *         such node.
+     */
+    T find(int line)
+    {
+        int i = floor(line);
+        if (nested)
+        {
+            while (i >= 0 && ends[i] < line)
+                i = parents[i];
+        }
+        else
+        {
+            while (i >= 0 && ends[i] < line)
+                i--;
+        }
+
+        return i < 0 ? null : nodes.get(i);
+    }
+
+    /**
+     * Finds the innermost indexed node containing each of the given lines in a
+     * single sweep. The lines are visited in ascending order while the nodes
+     * starting at or before the current line are kept on a stack, from which
+     * nodes ending before the line are popped; the top of the stack is then
+     * the answer for that line.
+     * 
+     * @param lines
+     *            The lines, in any order and possibly repeated
+     * @param out
+     *            Array receiving, at the position of each line, the innermost
+     *            node containing it or null. Must be at least as long as lines.
+     */
+    void findAll(int[] lines, T[] out)
+    {
+        long[] order = new long[lines.length];
+        for (int i = 0; i < lines.length; i++)
+            order[i] = ((long) lines[i] << 32) | i;
+        Arrays.sort(order);
+
+        int[] stack = new int[starts.length];
+        int top = -1;
+        int next = 0;
+        for (long key : order)
+        {
+            int line = (int) (key >> 32);
+            while (next < starts.length && starts[next] <= line)
+                stack[++top] = next++;
+            while (top >= 0 && ends[stack[top]] < line)
+                top--;
+
+            out[(int) key] = top < 0 ? null : nodes.get(stack[top]);
+        }
+    }
+
+    /**
+     * @param line
+     *            The line
+     * @return The position of the last node starting at or before the given
+     *         line, or -1 if every node starts after it.
+     */
+    private int floor(int line)
+    {
+        int pos = Arrays.binarySearch(starts, line);
+        if (pos < 0)
+            return -pos - 2;
+
+        while (pos + 1 < starts.length && starts[pos + 1] == line)
+            pos++;
+
+        return pos;
+    }
+
+    /**
+     * @return The number of nodes indexed
+     */
+    int size()
+    {
+        return nodes.size();
+    }
+}
@@ -25,17 +25,24 @@
  */
 package edu.montana.gsoc.msusel.node;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.eclipse.jdt.annotation.NonNull;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.ChangeSet;
 import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.util.Symbol;
+import edu.montana.gsoc.msusel.version.VersionNode;
 
 /**
  * An abstraction of a type method. A method's unique qualified name is similar
@@ -81,10 +88,11 @@ public class MethodNode extends CodeNode {
     @SerializedName("final")
     private boolean                    isFinal;
     /**
-     * The list of contained statements in the body of this method
+     * The list of contained statements in the body of this method, shared
+     * and empty until the first statement is added
      */
     @Expose
-    private Map<String, StatementNode> statements;
+    private Map<Symbol, StatementNode> statements;
     /**
      * The set of parameters for this method
      */
@@ -112,7 +120,22 @@ public class MethodNode extends CodeNode {
         this.constructor = false;
         this.isAbstract = false;
         this.accessorMethod = false;
-        statements = Maps.newHashMap();
+        statements = Collections.emptyMap();
+    }
+
+    /**
+     * Constructs a new method with the given symbol for its qualified
+     * identifier, and simple name.
+     * 
+     * @param symbol
+     *            Symbol for the Qualified Identifier
+     * @param name
+     *            Simple Name
+     */
+    protected MethodNode(final Symbol symbol, String name)
+    {
+        super(symbol, name);
+        statements = Collections.emptyMap();
     }
 
     /**
@@ -138,6 +161,7 @@ public class MethodNode extends CodeNode {
     protected void setAccessorMethod(boolean accessorMethod)
     {
         this.accessorMethod = accessorMethod;
+        contentChanged();
     }
 
     /**
@@ -147,6 +171,7 @@ public class MethodNode extends CodeNode {
     protected void setAbstract(boolean isAbstract)
     {
         this.isAbstract = isAbstract;
+        contentChanged();
     }
 
     /**
@@ -174,6 +199,7 @@ public class MethodNode extends CodeNode {
     protected void setConstructor(final boolean constructor)
     {
         this.constructor = constructor;
+        contentChanged();
     }
 
     /**
@@ -191,6 +217,7 @@ public class MethodNode extends CodeNode {
     protected void setStatic(boolean isStatic)
     {
         this.isStatic = isStatic;
+        contentChanged();
     }
 
     /**
@@ -208,6 +235,7 @@ public class MethodNode extends CodeNode {
     protected void setFinal(final boolean isFinal)
     {
         this.isFinal = isFinal;
+        contentChanged();
     }
 
     /**
@@ -216,33 +244,137 @@ public class MethodNode extends CodeNode {
     @Override
     public void update(INode m)
     {
-        if (m == null)
-            return;
+        merge(m);
+    }
 
-        if (!(m instanceof MethodNode))
-            return;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected long contentHash()
+    {
+        long hash = combine(super.contentHash(), flags());
+        hash = combine(hash, params == null ? 0 : params.hashCode());
+
+        return combine(hash, returnTypeRef == null ? 0 : returnTypeRef.hashCode());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean sameContent(AbstractNode other)
+    {
+        if (!super.sameContent(other))
+        {
+            return false;
+        }
+
+        MethodNode method = (MethodNode) other;
+
+        return flags() == method.flags() && Objects.equals(params, method.params)
+                && Objects.equals(returnTypeRef, method.returnTypeRef);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected VersionNode.Builder freeze(VersionNode.Builder builder)
+    {
+        return super.freeze(builder).flag(VersionNode.CONSTRUCTOR, constructor)
+                .flag(VersionNode.ABSTRACT, isAbstract)
+                .flag(VersionNode.ACCESSOR, accessorMethod)
+                .flag(VersionNode.STATIC, isStatic)
+                .flag(VersionNode.FINAL, isFinal)
+                .returnType(returnTypeRef);
+    }
 
-        MethodNode node = (MethodNode) m;
-        this.setRange(node.getStart(), node.getEnd());
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeContent(AbstractNode other)
+    {
+        boolean changed = super.mergeContent(other);
 
-        setConstructor(node.isConstructor());
+        MethodNode node = (MethodNode) other;
+        if (node.flags() != flags())
+        {
+            constructor = node.constructor;
+            isAbstract = node.isAbstract;
+            accessorMethod = node.accessorMethod;
+            isStatic = node.isStatic;
+            isFinal = node.isFinal;
+            changed = true;
+        }
 
-        for (String key : m.getMetricNames())
+        if (!Objects.equals(getParams(), node.getParams()))
         {
-            this.metrics.put(key, m.getMetric(key));
+            params = node.params == null ? null : Lists.newArrayList(node.params);
+            changed = true;
         }
 
-        for (StatementNode stmt : node.getStatements())
+        if (!Objects.equals(returnTypeRef, node.returnTypeRef))
         {
-            if (getStatement(stmt.getQIdentifier()) != null)
+            returnTypeRef = node.returnTypeRef;
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /**
+     * {@inheritDoc} The statements of a method are matched by their type and
+     * lines rather than by their identifiers. The given method replaces the
+     * body of this method, so statements which are not matched are added or
+     * removed.
+     */
+    @Override
+    protected void mergeChildren(AbstractNode other, ChangeSet changes)
+    {
+        MethodNode node = (MethodNode) other;
+
+        ListMultimap<String, StatementNode> existing = ArrayListMultimap.create();
+        for (StatementNode stmt : statements.values())
+        {
+            existing.put(stmt.matchKey(), stmt);
+        }
+
+        for (StatementNode stmt : Lists.newArrayList(node.statements.values()))
+        {
+            List<StatementNode> matches = existing.get(stmt.matchKey());
+            if (matches.isEmpty())
             {
-                getStatement(stmt.getQIdentifier()).update(stmt);
+                take(stmt);
+                if (statements.containsKey(stmt.getSymbol()))
+                    stmt.unassign();
+                addStatement(stmt);
+                stmt.setParentSymbol(symbol);
+                changes.recordAdded(stmt);
             }
             else
             {
-                addStatement(stmt);
+                mergeInto(matches.remove(matches.size() - 1), stmt, changes);
             }
         }
+
+        for (StatementNode stmt : existing.values())
+        {
+            statements.remove(stmt.getSymbol());
+            stmt.setParentID(null);
+            disown(stmt);
+            changes.recordRemoved(stmt);
+        }
+    }
+
+    /**
+     * @return The boolean flags of this method packed into a single value
+     */
+    private int flags()
+    {
+        return (constructor ? 1 : 0) | (isAbstract ? 2 : 0) | (accessorMethod ? 4 : 0) | (isStatic ? 8 : 0)
+                | (isFinal ? 16 : 0);
     }
 
     /**
@@ -260,7 +392,7 @@ public class MethodNode extends CodeNode {
         if (identifier == null || identifier.isEmpty())
             throw new IllegalArgumentException("Statment identifier cannot be null or empty");
 
-        return statements.get(identifier);
+        return statements.get(Symbol.key(identifier));
     }
 
     /**
@@ -269,7 +401,7 @@ public class MethodNode extends CodeNode {
     @Override
     public MethodNode cloneNoChildren()
     {
-        MethodNode mnode = new MethodNode(this.qIdentifier, this.name);
+        MethodNode mnode = new MethodNode(this.symbol, this.name);
         mnode.setConstructor(this.isConstructor());
         mnode.setAbstract(this.isAbstract());
         mnode.setAccessorMethod(this.isAccessorMethod());
@@ -290,7 +422,9 @@ public class MethodNode extends CodeNode {
 
     /**
      * Adds the given statement node to this method, unless that statement is
-     * empty.
+     * empty. A statement which has not been assigned an identifier yet is
+     * identified by the identifier of this method, its type and the first
+     * ordinal, counted from the number of statements, not already in use.
      * 
      * @param node
      *            StatementNode to add to this method.
@@ -299,28 +433,59 @@ public class MethodNode extends CodeNode {
     {
         if (node == null)
             return;
-        if (statements.containsKey(node.getQIdentifier()))
+        if (node.isProvisional())
+        {
+            Symbol id;
+            int ordinal = statements.size();
+            do
+            {
+                id = symbol.child('/', node.getStatementType() + ":" + ordinal++);
+            }
+            while (statements.containsKey(id));
+            node.assign(id);
+        }
+        if (statements.containsKey(node.getSymbol()))
             return;
 
-        statements.put(node.getQIdentifier(), node);
+        statements = modifiable(statements);
+        statements.put(node.getSymbol(), node);
+        adopt(node);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public MethodNode clone() throws CloneNotSupportedException
+    protected Iterable<? extends AbstractNode> children()
     {
-        return cloneNoChildren();
+        return statements.values();
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    protected void finalize() throws Throwable
+    protected boolean removeChild(AbstractNode child)
     {
-        super.finalize();
+        return child instanceof StatementNode && removeChild(statements, child);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void makeConcurrent()
+    {
+        statements = concurrent(statements);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MethodNode clone() throws CloneNotSupportedException
+    {
+        return cloneNoChildren();
     }
 
     /**
@@ -334,9 +499,12 @@ public class MethodNode extends CodeNode {
         if (param == null)
             return;
 
+        if (params == null)
+            params = Lists.newArrayList();
         params.add(param);
 
         updateName();
+        contentChanged();
     }
 
     /**
@@ -344,16 +512,28 @@ public class MethodNode extends CodeNode {
      */
     public List<Parameter> getParams()
     {
+        if (params == null)
+            return Lists.newArrayList();
+
         return Lists.newArrayList(params);
     }
 
+    /**
+     * @return The reference to the return type of this method, or null if none
+     *         has been recorded.
+     */
+    public String getReturnType()
+    {
+        return returnTypeRef;
+    }
+
     /**
      * Updates the name and qualified identifier after a change in the number of
      * parameters
      */
     private void updateName()
     {
-        String simpleName = name.split("(")[0];
+        String simpleName = name.split("\\(")[0];
 
         StringBuilder nameBuilder = new StringBuilder();
         nameBuilder.append(simpleName);
@@ -369,7 +549,13 @@ public class MethodNode extends CodeNode {
         nameBuilder.append(")");
 
         name = nameBuilder.toString();
-        qIdentifier = qIdentifier.substring(0, qIdentifier.lastIndexOf("#")) + "#" + name;
+        Symbol oldId = symbol;
+        symbol = (symbol.getSeparator() == '#' ? symbol.getParent() : symbol).child('#', name);
+
+        if (parent instanceof TypeNode)
+            ((TypeNode) parent).methodRenamed(this, oldId);
+        if (index != null)
+            index.rename(this, oldId);
     }
 
     /**
@@ -446,7 +632,7 @@ public class MethodNode extends CodeNode {
          */
         public Builder isAbstract(boolean abs)
         {
-            node.setAbstract(true);
+            node.setAbstract(abs);
 
             if (abs)
             {
@@ -576,7 +762,7 @@ public class MethodNode extends CodeNode {
         @NonNull
         public Builder isStatic(boolean stat)
         {
-            node.setStatic(true);
+            node.setStatic(stat);
 
             if (stat)
             {
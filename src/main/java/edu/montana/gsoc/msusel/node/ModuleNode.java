@@ -33,12 +33,17 @@ import java.util.Set;
 
 import org.eclipse.jdt.annotation.NonNull;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.gson.annotations.Expose;
 
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.ChangeSet;
 import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.NodeView;
+import edu.montana.gsoc.msusel.util.Symbol;
 
 /**
  * An abstraction representing a subset of a project or system. Specifically a
@@ -55,14 +60,14 @@ public class ModuleNode extends StructuralNode {
      * The set of files composing this module
      */
     @Expose
-    private Map<String, FileNode> files;
+    private Map<Symbol, FileNode> files;
 
     /**
      * The set of namespaces defined within this module, or partially contained
      * within this module.
      */
     @Expose
-    private Map<String, NamespaceNode> namespaces;
+    private Map<Symbol, NamespaceNode> namespaces;
 
     /**
      * Constructs a new ModuleNode with the given qualified identifier.
@@ -99,12 +104,15 @@ public class ModuleNode extends StructuralNode {
         if (node == null)
             return;
 
-        if (files.containsKey(node.getQIdentifier()))
-            files.get(node).update(node);
+        if (files.containsKey(node.getSymbol()))
+            files.get(node.getSymbol()).update(node);
         else
-            files.put(node.getQIdentifier(), node);
+        {
+            files.put(node.getSymbol(), node);
+            adopt(node);
+        }
 
-        node.setParentID(this.getQIdentifier());
+        node.setParentSymbol(symbol);
     }
 
     /**
@@ -127,13 +135,15 @@ public class ModuleNode extends StructuralNode {
         if (path == null || path.isEmpty() || !Files.exists(Paths.get(path)))
             return null;
 
-        if (files.containsKey(path))
-            return files.get(path);
+        FileNode fn = files.get(Symbol.key(path));
+        if (fn != null)
+            return fn;
 
-        FileNode fn = new FileNode(path);
-        files.put(path, fn);
+        fn = new FileNode(path);
+        files.put(fn.getSymbol(), fn);
 
-        fn.setParentID(this.getQIdentifier());
+        fn.setParentSymbol(symbol);
+        adopt(fn);
         return fn;
     }
 
@@ -152,7 +162,7 @@ public class ModuleNode extends StructuralNode {
         if (path == null || path.isEmpty())
             return null;
 
-        return files.get(path);
+        return files.get(Symbol.key(path));
     }
 
     /**
@@ -169,14 +179,25 @@ public class ModuleNode extends StructuralNode {
      */
     public List<TypeNode> getTypes()
     {
-        List<TypeNode> list = Lists.newArrayList();
+        return Lists.newArrayList(types());
+    }
 
-        for (FileNode fn : files.values())
-        {
-            list.addAll(fn.getTypes());
-        }
+    /**
+     * @return A lazy view of the types defined within the files of this
+     *         module, which walks the live tree rather than copying it.
+     */
+    public NodeView<TypeNode> types()
+    {
+        return new NodeView<>(this, TypeNode.class);
+    }
 
-        return list;
+    /**
+     * @return A lazy view of the methods defined within the files of this
+     *         module, which walks the live tree rather than copying it.
+     */
+    public NodeView<MethodNode> methods()
+    {
+        return new NodeView<>(this, MethodNode.class);
     }
 
     /**
@@ -185,29 +206,45 @@ public class ModuleNode extends StructuralNode {
     @Override
     public void update(INode c)
     {
-        if (c == null)
-            return;
-
-        if (!(c instanceof ProjectNode))
-            return;
+        merge(c);
+    }
 
-        ModuleNode mn = (ModuleNode) c;
+    /**
+     * {@inheritDoc} Files and namespaces are only ever added, as the given
+     * module may describe just those files which were re-analyzed.
+     */
+    @Override
+    protected void mergeChildren(AbstractNode other, ChangeSet changes)
+    {
+        ModuleNode mn = (ModuleNode) other;
 
-        for (FileNode f : mn.getFiles())
+        for (FileNode f : Lists.newArrayList(mn.files.values()))
         {
-            if (getFile(f.getQIdentifier()) != null)
+            FileNode existing = files.get(f.getSymbol());
+            if (existing == null)
             {
-                getFile(f.getQIdentifier()).update(f);
+                addFile(take(f));
+                changes.recordAdded(f);
             }
             else
             {
-                addFile(f);
+                mergeInto(existing, f, changes);
             }
         }
 
-        for (String key : c.getMetricNames())
+        for (NamespaceNode ns : Lists.newArrayList(mn.namespaces.values()))
         {
-            this.addMetric(key, c.getMetric(key));
+            NamespaceNode existing = namespaces.get(ns.getSymbol());
+            if (existing == null)
+            {
+                addNamespace(take(ns));
+                ns.resolveTypes();
+                changes.recordAdded(ns);
+            }
+            else
+            {
+                mergeInto(existing, ns, changes);
+            }
         }
     }
 
@@ -217,7 +254,7 @@ public class ModuleNode extends StructuralNode {
     @Override
     public ModuleNode cloneNoChildren()
     {
-        ModuleNode mnode = new ModuleNode(this.qIdentifier);
+        ModuleNode mnode = new ModuleNode(getQIdentifier());
 
         copyMetrics(mnode);
 
@@ -232,9 +269,9 @@ public class ModuleNode extends StructuralNode {
     {
         ModuleNode mnode = cloneNoChildren();
 
-        for (String key : files.keySet())
+        for (FileNode file : files.values())
         {
-            mnode.addFile(files.get(key).clone());
+            mnode.addFile(file.clone());
         }
 
         return mnode;
@@ -244,10 +281,33 @@ public class ModuleNode extends StructuralNode {
      * {@inheritDoc}
      */
     @Override
-    protected void finalize() throws Throwable
+    protected Iterable<? extends AbstractNode> children()
+    {
+        return Iterables.concat(files.values(), namespaces.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean removeChild(AbstractNode child)
     {
-        // TODO Auto-generated method stub
-        super.finalize();
+        if (child instanceof FileNode)
+            return removeChild(files, child);
+        else if (child instanceof NamespaceNode)
+            return removeChild(namespaces, child);
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void makeConcurrent()
+    {
+        files = concurrent(files);
+        namespaces = concurrent(namespaces);
     }
 
     /**
@@ -264,7 +324,7 @@ public class ModuleNode extends StructuralNode {
         if (path == null || path.isEmpty())
             return false;
 
-        return files.containsKey(path);
+        return files.containsKey(Symbol.key(path));
     }
 
     /**
@@ -273,13 +333,7 @@ public class ModuleNode extends StructuralNode {
      */
     public Set<MethodNode> getMethods()
     {
-        Set<MethodNode> methods = Sets.newHashSet();
-        for (TypeNode tn : getTypes())
-        {
-            Sets.union(methods, tn.getMethods());
-        }
-
-        return methods;
+        return Sets.newHashSet(methods());
     }
 
     /**
@@ -302,10 +356,10 @@ public class ModuleNode extends StructuralNode {
      */
     public NamespaceNode getNamespace(String nsID)
     {
-        if (nsID == null || nsID.isEmpty() || !namespaces.containsKey(nsID))
+        if (nsID == null || nsID.isEmpty())
             return null;
 
-        return namespaces.get(nsID);
+        return namespaces.get(Symbol.key(nsID));
     }
 
     /**
@@ -322,7 +376,7 @@ public class ModuleNode extends StructuralNode {
         if (nsID == null || nsID.isEmpty())
             return false;
 
-        return namespaces.containsKey(nsID);
+        return namespaces.containsKey(Symbol.key(nsID));
     }
 
     /**
@@ -334,11 +388,13 @@ public class ModuleNode extends StructuralNode {
      */
     public void addNamespace(NamespaceNode node)
     {
-        if (node == null || namespaces.containsKey(node.getQIdentifier()))
+        if (node == null || namespaces.containsKey(node.getSymbol()))
             return;
 
-        namespaces.put(node.getQIdentifier(), node);
-        node.setParentID(this.getQIdentifier());
+        node.setParentSymbol(symbol);
+        prepare(node);
+        if (namespaces.putIfAbsent(node.getSymbol(), node) == null)
+            adopt(node);
     }
 
     /**
@@ -351,11 +407,15 @@ public class ModuleNode extends StructuralNode {
      */
     public void removeFile(String qid)
     {
-        if (qid == null || qid.isEmpty() || !files.containsKey(qid))
+        if (qid == null || qid.isEmpty())
+            return;
+
+        FileNode file = files.remove(Symbol.key(qid));
+        if (file == null)
             return;
 
-        files.get(qid).setParentID(null);
-        files.remove(qid);
+        file.setParentID(null);
+        disown(file);
     }
 
     /**
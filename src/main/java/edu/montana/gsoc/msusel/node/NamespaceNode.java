@@ -27,15 +27,21 @@ package edu.montana.gsoc.msusel.node;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.jdt.annotation.NonNull;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.ChangeSet;
 import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.util.Symbol;
+import edu.montana.gsoc.msusel.version.VersionNode;
 
 /**
  * @author Isaac Griffith
@@ -53,7 +59,7 @@ public class NamespaceNode extends StructuralNode {
      */
     @Expose
     @SerializedName("namespaces")
-    private Map<String, NamespaceNode> subNS;
+    private Map<Symbol, NamespaceNode> subNS;
 
     /**
      * Constructs a new NamespaceNode with the given qualified identifier.
@@ -83,8 +89,125 @@ public class NamespaceNode extends StructuralNode {
     @Override
     public void update(INode c)
     {
-        // TODO Auto-generated method stub
+        merge(c);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected long contentHash()
+    {
+        long hash = 0;
+        for (TypeNode type : types)
+        {
+            hash += mix(type.getSymbol().hashCode());
+        }
+
+        return combine(super.contentHash(), hash);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean sameContent(AbstractNode other)
+    {
+        return super.sameContent(other) && typeIds().equals(((NamespaceNode) other).typeIds());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected VersionNode.Builder freeze(VersionNode.Builder builder)
+    {
+        return super.freeze(builder).references(typeIds());
+    }
+
+    /**
+     * {@inheritDoc} The types of a namespace are references to types contained
+     * in files, so they are resolved against the tree this namespace belongs
+     * to.
+     */
+    @Override
+    protected boolean mergeContent(AbstractNode other)
+    {
+        boolean changed = super.mergeContent(other);
+
+        NamespaceNode ns = (NamespaceNode) other;
+        if (!typeIds().equals(ns.typeIds()))
+        {
+            types.clear();
+            types.addAll(ns.types);
+            resolveTypes();
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /**
+     * {@inheritDoc} Sub-namespaces are only ever added, as a namespace may span
+     * files and modules that were not part of the given namespace's tree.
+     */
+    @Override
+    protected void mergeChildren(AbstractNode other, ChangeSet changes)
+    {
+        NamespaceNode ns = (NamespaceNode) other;
+
+        for (NamespaceNode sub : Lists.newArrayList(ns.subNS.values()))
+        {
+            NamespaceNode existing = subNS.get(sub.getSymbol());
+            if (existing == null)
+            {
+                addSubNamespace(take(sub));
+                sub.resolveTypes();
+                changes.recordAdded(sub);
+            }
+            else
+            {
+                mergeInto(existing, sub, changes);
+            }
+        }
+    }
+
+    /**
+     * @return The qualified identifiers of the types of this namespace
+     */
+    private Set<String> typeIds()
+    {
+        Set<String> ids = Sets.newHashSet();
+        for (TypeNode type : types)
+        {
+            ids.add(type.getQIdentifier());
+        }
+
+        return ids;
+    }
+
+    /**
+     * Replaces the types of this namespace, and of its sub-namespaces, with
+     * the types of the same qualified identifier in the tree this namespace
+     * belongs to. Types unknown to the tree are kept as they are.
+     */
+    void resolveTypes()
+    {
+        if (index == null)
+            return;
+
+        Set<TypeNode> resolved = Sets.newHashSet();
+        for (TypeNode type : types)
+        {
+            TypeNode own = index.getType(type.getQIdentifier());
+            resolved.add(own != null ? own : type);
+        }
+        types = resolved;
 
+        for (NamespaceNode sub : subNS.values())
+        {
+            sub.resolveTypes();
+        }
     }
 
     /**
@@ -97,6 +220,38 @@ public class NamespaceNode extends StructuralNode {
         return null;
     }
 
+    /**
+     * {@inheritDoc} The types of a namespace are contained by their files, so
+     * only sub-namespaces are considered children here.
+     */
+    @Override
+    protected Iterable<? extends AbstractNode> children()
+    {
+        return subNS.values();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean removeChild(AbstractNode child)
+    {
+        return child instanceof NamespaceNode && removeChild(subNS, child);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void makeConcurrent()
+    {
+        if (subNS instanceof ConcurrentMap)
+            return;
+
+        subNS = concurrent(subNS);
+        types = Sets.newConcurrentHashSet(types);
+    }
+
     /**
      * @return The set of types contained within this namespace.
      */
@@ -118,6 +273,7 @@ public class NamespaceNode extends StructuralNode {
             return;
 
         types.add(qid);
+        contentChanged();
     }
 
     /**
@@ -129,11 +285,13 @@ public class NamespaceNode extends StructuralNode {
      */
     public void addSubNamespace(NamespaceNode ns)
     {
-        if (ns == null || subNS.containsKey(ns.getQIdentifier()))
+        if (ns == null || subNS.containsKey(ns.getSymbol()))
             return;
 
-        ns.setParentID(this.getQIdentifier());
-        subNS.put(ns.getQIdentifier(), ns);
+        ns.setParentSymbol(symbol);
+        prepare(ns);
+        if (subNS.putIfAbsent(ns.getSymbol(), ns) == null)
+            adopt(ns);
     }
 
     /**
@@ -153,14 +311,18 @@ public class NamespaceNode extends StructuralNode {
         if (qid == null || qid.isEmpty())
             return null;
 
-        if (subNS.containsKey(qid))
-        {
-            return subNS.get(qid);
-        }
+        NamespaceNode ns = subNS.get(Symbol.key(qid));
+        if (ns != null)
+            return ns;
+
+        ns = new NamespaceNode(qid);
+        ns.setParentSymbol(symbol);
+        prepare(ns);
 
-        NamespaceNode ns = new NamespaceNode(qid);
-        ns.setParentID(this.getQIdentifier());
-        subNS.put(qid, ns);
+        NamespaceNode existing = subNS.putIfAbsent(ns.getSymbol(), ns);
+        if (existing != null)
+            return existing;
+        adopt(ns);
 
         return ns;
     }
@@ -25,26 +25,27 @@
  */
 package edu.montana.gsoc.msusel.node;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.ChangeSet;
 import edu.montana.gsoc.msusel.INode;
-import edu.montana.gsoc.msusel.json.FieldNodeDeserializer;
-import edu.montana.gsoc.msusel.json.FileNodeDeserializer;
-import edu.montana.gsoc.msusel.json.MethodNodeDeserializer;
-import edu.montana.gsoc.msusel.json.ModuleNodeDeserializer;
-import edu.montana.gsoc.msusel.json.ProjectNodeDeserializer;
-import edu.montana.gsoc.msusel.json.TypeNodeDeserializer;
+import edu.montana.gsoc.msusel.NodeView;
+import edu.montana.gsoc.msusel.json.CodeTreeWriter;
+import edu.montana.gsoc.msusel.json.NodeAdapters;
+import edu.montana.gsoc.msusel.util.Symbol;
 
 /**
  * An abstraction representing the project. Each ProjectNode can contain a set
@@ -60,22 +61,22 @@ public class ProjectNode extends StructuralNode {
      * Map of subprojects keyed by their qualified id
      */
     @Expose
-    private Map<String, ProjectNode>   subprojects;
+    private Map<Symbol, ProjectNode>   subprojects;
     /**
      * Map of modules keyed by their qualified id
      */
     @Expose
-    private Map<String, ModuleNode>    modules;
+    private Map<Symbol, ModuleNode>    modules;
     /**
      * Map of files keyed by their qualified id
      */
     @Expose
-    private Map<String, FileNode>      files;
+    private Map<Symbol, FileNode>      files;
     /**
      * Map of namespaces keyed by their qualified id
      */
     @Expose
-    private Map<String, NamespaceNode> namespaces;
+    private Map<Symbol, NamespaceNode> namespaces;
 
     /**
      * Constructs a new empty project with the provided qIdentifier
@@ -110,12 +111,15 @@ public class ProjectNode extends StructuralNode {
         if (node == null)
             return;
 
-        if (subprojects.containsKey(node.getQIdentifier()))
-            subprojects.get(node.getQIdentifier()).update(node);
+        if (subprojects.containsKey(node.getSymbol()))
+            subprojects.get(node.getSymbol()).update(node);
         else
-            subprojects.put(node.getQIdentifier(), node);
+        {
+            subprojects.put(node.getSymbol(), node);
+            adopt(node);
+        }
 
-        node.setParentID(this.qIdentifier);
+        node.setParentSymbol(symbol);
     }
 
     /**
@@ -129,12 +133,14 @@ public class ProjectNode extends StructuralNode {
         if (key == null || key.isEmpty())
             return null;
 
-        if (subprojects.containsKey(key))
-            return subprojects.get(key);
+        ProjectNode node = subprojects.get(Symbol.key(key));
+        if (node != null)
+            return node;
 
-        ProjectNode node = new ProjectNode(key);
-        subprojects.put(key, node);
-        node.setParentID(this.qIdentifier);
+        node = new ProjectNode(key);
+        subprojects.put(node.getSymbol(), node);
+        node.setParentSymbol(symbol);
+        adopt(node);
         return node;
     }
 
@@ -150,7 +156,7 @@ public class ProjectNode extends StructuralNode {
         if (key == null || key.isEmpty())
             return null;
 
-        return subprojects.get(key);
+        return subprojects.get(Symbol.key(key));
     }
 
     /**
@@ -173,10 +179,11 @@ public class ProjectNode extends StructuralNode {
         if (id == null || id.isEmpty())
             return null;
 
-        if (subprojects.containsKey(id))
+        ProjectNode n = subprojects.remove(Symbol.key(id));
+        if (n != null)
         {
-            ProjectNode n = subprojects.remove(id);
             n.setParentID(null);
+            disown(n);
             return n;
         }
 
@@ -193,10 +200,11 @@ public class ProjectNode extends StructuralNode {
         if (node == null)
             return node;
 
-        if (subprojects.containsKey(node.getQIdentifier()))
+        if (subprojects.containsKey(node.getSymbol()))
         {
-            ProjectNode n = subprojects.remove(node.getQIdentifier());
+            ProjectNode n = subprojects.remove(node.getSymbol());
             n.setParentID(null);
+            disown(n);
             return n;
         }
 
@@ -212,10 +220,15 @@ public class ProjectNode extends StructuralNode {
         if (node == null)
             return;
 
-        if (modules.containsKey(node.getQIdentifier()))
-            modules.get(node.getQIdentifier()).update(node);
+        if (modules.containsKey(node.getSymbol()))
+            modules.get(node.getSymbol()).update(node);
         else
-            modules.put(node.getQIdentifier(), node);
+        {
+            modules.put(node.getSymbol(), node);
+            adopt(node);
+        }
+
+        node.setParentSymbol(symbol);
     }
 
     /**
@@ -230,11 +243,13 @@ public class ProjectNode extends StructuralNode {
         if (key == null || key.isEmpty())
             return null;
 
-        if (modules.containsKey(key))
-            return modules.get(key);
+        ModuleNode node = modules.get(Symbol.key(key));
+        if (node != null)
+            return node;
 
-        ModuleNode node = new ModuleNode(key);
-        modules.put(key, node);
+        node = new ModuleNode(key);
+        modules.put(node.getSymbol(), node);
+        adopt(node);
         return node;
     }
 
@@ -254,7 +269,7 @@ public class ProjectNode extends StructuralNode {
         if (key == null || key.isEmpty())
             return null;
 
-        return modules.get(key);
+        return modules.get(Symbol.key(key));
     }
 
     /**
@@ -274,12 +289,15 @@ public class ProjectNode extends StructuralNode {
         if (node == null)
             return;
 
-        if (files.containsKey(node.getQIdentifier()))
-            files.get(node.getQIdentifier()).update(node);
+        if (files.containsKey(node.getSymbol()))
+            files.get(node.getSymbol()).update(node);
         else
-            files.put(node.getQIdentifier(), node);
+        {
+            files.put(node.getSymbol(), node);
+            adopt(node);
+        }
 
-        node.setParentID(this.qIdentifier);
+        node.setParentSymbol(symbol);
     }
 
     /**
@@ -294,13 +312,15 @@ public class ProjectNode extends StructuralNode {
         if (path == null || path.isEmpty() || !Files.exists(Paths.get(path)))
             return null;
 
-        if (files.containsKey(path))
-            return files.get(path);
+        FileNode fn = files.get(Symbol.key(path));
+        if (fn != null)
+            return fn;
 
-        FileNode fn = new FileNode(path);
-        files.put(path, fn);
+        fn = new FileNode(path);
+        files.put(fn.getSymbol(), fn);
 
-        fn.setParentID(this.parentID);
+        fn.setParentSymbol(parentSymbol);
+        adopt(fn);
 
         return fn;
     }
@@ -318,7 +338,7 @@ public class ProjectNode extends StructuralNode {
         if (path == null || path.isEmpty())
             return null;
 
-        return files.get(path);
+        return files.get(Symbol.key(path));
     }
 
     /**
@@ -335,53 +355,74 @@ public class ProjectNode extends StructuralNode {
     @Override
     public void update(INode c)
     {
-        if (c == null)
-            return;
-
-        if (!(c instanceof ProjectNode))
-            return;
+        merge(c);
+    }
 
-        ProjectNode pn = (ProjectNode) c;
+    /**
+     * {@inheritDoc} Subprojects, modules, files and namespaces are only ever
+     * added, as the given project may describe just those files which were
+     * re-analyzed.
+     */
+    @Override
+    protected void mergeChildren(AbstractNode other, ChangeSet changes)
+    {
+        ProjectNode pn = (ProjectNode) other;
 
-        for (ModuleNode m : pn.getModules())
+        for (ModuleNode m : Lists.newArrayList(pn.modules.values()))
         {
-            if (getModule(m.getQIdentifier()) != null)
+            ModuleNode existing = modules.get(m.getSymbol());
+            if (existing == null)
             {
-                getModule(m.getQIdentifier()).update(m);
+                addModule(take(m));
+                changes.recordAdded(m);
             }
             else
             {
-                addModule(m);
+                mergeInto(existing, m, changes);
             }
         }
 
-        for (ProjectNode p : pn.getSubProjects())
+        for (ProjectNode p : Lists.newArrayList(pn.subprojects.values()))
         {
-            if (getSubProject(p.getQIdentifier()) != null)
+            ProjectNode existing = subprojects.get(p.getSymbol());
+            if (existing == null)
             {
-                getSubProject(p.getQIdentifier()).update(p);
+                addSubProject(take(p));
+                changes.recordAdded(p);
             }
             else
             {
-                addSubProject(p);
+                mergeInto(existing, p, changes);
             }
         }
 
-        for (FileNode f : pn.getFiles())
+        for (FileNode f : Lists.newArrayList(pn.files.values()))
         {
-            if (getFile(f.getQIdentifier()) != null)
+            FileNode existing = files.get(f.getSymbol());
+            if (existing == null)
             {
-                getFile(f.getQIdentifier()).update(f);
+                addFile(take(f));
+                changes.recordAdded(f);
             }
             else
             {
-                addFile(f);
+                mergeInto(existing, f, changes);
             }
         }
 
-        for (String key : pn.getMetricNames())
+        for (NamespaceNode ns : Lists.newArrayList(pn.namespaces.values()))
         {
-            this.addMetric(key, pn.getMetric(key));
+            NamespaceNode existing = namespaces.get(ns.getSymbol());
+            if (existing == null)
+            {
+                addNamespace(take(ns));
+                ns.resolveTypes();
+                changes.recordAdded(ns);
+            }
+            else
+            {
+                mergeInto(existing, ns, changes);
+            }
         }
     }
 
@@ -390,7 +431,11 @@ public class ProjectNode extends StructuralNode {
      */
     public Set<String> getFileKeys()
     {
-        return files.keySet();
+        Set<String> keys = Sets.newHashSet();
+        for (Symbol key : files.keySet())
+            keys.add(key.toString());
+
+        return keys;
     }
 
     /**
@@ -402,7 +447,7 @@ public class ProjectNode extends StructuralNode {
         if (file == null || file.isEmpty())
             return;
 
-        files.remove(file);
+        disown(files.remove(Symbol.key(file)));
     }
 
     /**
@@ -411,24 +456,37 @@ public class ProjectNode extends StructuralNode {
      */
     public List<TypeNode> getTypes()
     {
-        List<TypeNode> list = Lists.newArrayList();
-
-        for (ProjectNode pn : subprojects.values())
-        {
-            list.addAll(pn.getTypes());
-        }
+        return Lists.newArrayList(types());
+    }
 
-        for (ModuleNode mn : modules.values())
-        {
-            list.addAll(mn.getTypes());
-        }
+    /**
+     * @return A lazy view of all files contained in the modules, subprojects,
+     *         and files of this project, which walks the live tree rather than
+     *         copying it.
+     */
+    public NodeView<FileNode> files()
+    {
+        return new NodeView<>(this, FileNode.class);
+    }
 
-        for (FileNode fn : files.values())
-        {
-            list.addAll(fn.getTypes());
-        }
+    /**
+     * @return A lazy view of all types contained in the modules, subprojects,
+     *         and files of this project, which walks the live tree rather than
+     *         copying it.
+     */
+    public NodeView<TypeNode> types()
+    {
+        return new NodeView<>(this, TypeNode.class);
+    }
 
-        return list;
+    /**
+     * @return A lazy view of all methods contained in the modules,
+     *         subprojects, and files of this project, which walks the live
+     *         tree rather than copying it.
+     */
+    public NodeView<MethodNode> methods()
+    {
+        return new NodeView<>(this, MethodNode.class);
     }
 
     /**
@@ -442,15 +500,7 @@ public class ProjectNode extends StructuralNode {
         if (json == null || json.isEmpty())
             return null;
 
-        GsonBuilder gb = new GsonBuilder();
-        gb.registerTypeAdapter(FileNode.class, new FileNodeDeserializer());
-        gb.registerTypeAdapter(TypeNode.class, new TypeNodeDeserializer());
-        gb.registerTypeAdapter(FieldNode.class, new FieldNodeDeserializer());
-        gb.registerTypeAdapter(MethodNode.class, new MethodNodeDeserializer());
-        gb.registerTypeAdapter(ProjectNode.class, new ProjectNodeDeserializer());
-        gb.registerTypeAdapter(ModuleNode.class, new ModuleNodeDeserializer());
-        Gson g = gb.create();
-        return g.fromJson(json, ProjectNode.class);
+        return NodeAdapters.gson().fromJson(json, ProjectNode.class);
     }
 
     /**
@@ -458,8 +508,60 @@ public class ProjectNode extends StructuralNode {
      */
     public String toJSON()
     {
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        return gson.toJson(this);
+        return new CodeTreeWriter(true).toJson(this);
+    }
+
+    /**
+     * Serializes this project and its contents as compact JSON directly to the given
+     * writer, without building the document in memory.
+     * 
+     * @param out
+     *            The writer, which is flushed but not closed
+     * @throws IOException
+     *             if the writer fails
+     */
+    public void toJSON(Writer out) throws IOException
+    {
+        new CodeTreeWriter().write(this, out);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Iterable<? extends AbstractNode> children()
+    {
+        return Iterables.concat(subprojects.values(), modules.values(), files.values(), namespaces.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean removeChild(AbstractNode child)
+    {
+        if (child instanceof ProjectNode)
+            return removeChild(subprojects, child);
+        else if (child instanceof ModuleNode)
+            return removeChild(modules, child);
+        else if (child instanceof FileNode)
+            return removeChild(files, child);
+        else if (child instanceof NamespaceNode)
+            return removeChild(namespaces, child);
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void makeConcurrent()
+    {
+        subprojects = concurrent(subprojects);
+        modules = concurrent(modules);
+        files = concurrent(files);
+        namespaces = concurrent(namespaces);
     }
 
     /**
@@ -476,14 +578,7 @@ public class ProjectNode extends StructuralNode {
      */
     public List<MethodNode> getMethods()
     {
-        List<MethodNode> methods = Lists.newArrayList();
-
-        for (String f : files.keySet())
-        {
-            methods.addAll(files.get(f).getMethods());
-        }
-
-        return methods;
+        return Lists.newArrayList(methods());
     }
 
     /**
@@ -492,11 +587,11 @@ public class ProjectNode extends StructuralNode {
     @Override
     public ProjectNode cloneNoChildren()
     {
-        ProjectNode pnode = new ProjectNode(qIdentifier);
+        ProjectNode pnode = new ProjectNode(getQIdentifier());
 
         copyMetrics(pnode);
 
-        pnode.setParentID(this.parentID);
+        pnode.setParentSymbol(parentSymbol);
 
         return pnode;
     }
@@ -509,33 +604,24 @@ public class ProjectNode extends StructuralNode {
     {
         ProjectNode pnode = cloneNoChildren();
 
-        for (String key : files.keySet())
+        for (FileNode file : files.values())
         {
-            pnode.addFile(files.get(key).clone());
+            pnode.addFile(file.clone());
         }
 
-        for (String key : modules.keySet())
+        for (ModuleNode module : modules.values())
         {
-            pnode.addModule(modules.get(key).clone());
+            pnode.addModule(module.clone());
         }
 
-        for (String key : subprojects.keySet())
+        for (ProjectNode project : subprojects.values())
         {
-            pnode.addSubProject(subprojects.get(key).clone());
+            pnode.addSubProject(project.clone());
         }
 
         return pnode;
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    protected void finalize() throws Throwable
-    {
-        super.finalize();
-    }
-
     /**
      * Searches this project for a module with the provided qualified
      * identifier.
@@ -550,7 +636,7 @@ public class ProjectNode extends StructuralNode {
         if (qIdentifier == null || qIdentifier.isEmpty())
             return false;
 
-        return modules.containsKey(qIdentifier);
+        return modules.containsKey(Symbol.key(qIdentifier));
     }
 
     /**
@@ -567,7 +653,7 @@ public class ProjectNode extends StructuralNode {
         if (path == null || path.isEmpty())
             return false;
 
-        return files.containsKey(path);
+        return files.containsKey(Symbol.key(path));
     }
 
     /**
@@ -584,13 +670,15 @@ public class ProjectNode extends StructuralNode {
      */
     protected void addNamespace(NamespaceNode ns)
     {
-        if (ns == null || namespaces.containsKey(ns.getQIdentifier()))
+        if (ns == null || namespaces.containsKey(ns.getSymbol()))
         {
             return;
         }
 
-        ns.setParentID(this.getQIdentifier());
-        namespaces.put(ns.getQIdentifier(), ns);
+        ns.setParentSymbol(symbol);
+        prepare(ns);
+        if (namespaces.putIfAbsent(ns.getSymbol(), ns) == null)
+            adopt(ns);
     }
 
     /**
@@ -605,13 +693,18 @@ public class ProjectNode extends StructuralNode {
         if (ns == null || ns.isEmpty())
             return null;
 
-        if (namespaces.containsKey(ns))
-            return namespaces.get(ns);
+        NamespaceNode namespace = namespaces.get(Symbol.key(ns));
+        if (namespace != null)
+            return namespace;
 
-        NamespaceNode namespace = new NamespaceNode(ns);
-        namespace.setParentID(this.getQIdentifier());
+        namespace = new NamespaceNode(ns);
+        namespace.setParentSymbol(symbol);
+        prepare(namespace);
 
-        namespaces.put(namespace.getQIdentifier(), namespace);
+        NamespaceNode existing = namespaces.putIfAbsent(namespace.getSymbol(), namespace);
+        if (existing != null)
+            return existing;
+        adopt(namespace);
 
         return namespace;
     }
@@ -626,7 +719,7 @@ public class ProjectNode extends StructuralNode {
         if (ns == null || ns.isEmpty())
             return;
 
-        namespaces.remove(ns);
+        disown(namespaces.remove(Symbol.key(ns)));
     }
 
     /**
@@ -639,7 +732,7 @@ public class ProjectNode extends StructuralNode {
         if (ns == null)
             return;
 
-        namespaces.remove(ns.getQIdentifier());
+        disown(namespaces.remove(ns.getSymbol()));
     }
 
     /**
@@ -654,10 +747,10 @@ public class ProjectNode extends StructuralNode {
      */
     public NamespaceNode getNamespace(String ns)
     {
-        if (ns == null || ns.isEmpty() || !namespaces.containsKey(ns))
+        if (ns == null || ns.isEmpty())
             return null;
 
-        return namespaces.get(ns);
+        return namespaces.get(Symbol.key(ns));
     }
 
     /**
@@ -674,7 +767,7 @@ public class ProjectNode extends StructuralNode {
         if (ns == null || ns.isEmpty())
             return false;
 
-        return namespaces.containsKey(ns);
+        return namespaces.containsKey(Symbol.key(ns));
     }
 
     /**
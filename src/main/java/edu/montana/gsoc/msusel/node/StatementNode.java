@@ -27,38 +27,59 @@ package edu.montana.gsoc.msusel.node;
 
 import com.google.gson.annotations.Expose;
 
+import edu.montana.gsoc.msusel.AbstractNode;
 import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.util.Symbol;
 
 /**
  * An abstraction of the statements making up the body of a method. A statement
  * has a defined Statement Type and its unique qualitfied name is a combination
- * of that type and a separate long integer representing the count of that
- * statement type within the system.
+ * of the qualified identifier of its method, that type and the ordinal of the
+ * statement within the method, assigned when the statement is added to it.
  * 
  * @author Isaac Griffith
  * @version 1.1.0
  */
 public class StatementNode extends CodeNode {
 
-    /**
-     * The next valid IDNum
-     */
-    private static long   nextIDNum = 0;
     /**
      * The type of this statement
      */
     @Expose
     private StatementType type;
+    /**
+     * Whether the identifier of this statement is a placeholder, to be
+     * replaced when the statement is added to a method
+     */
+    private transient boolean provisional;
 
     /**
-     * Constructs a new StatementNode with the given type.
+     * Constructs a new StatementNode with the given type. Until the statement
+     * is added to a method its identifier is a placeholder, shared with all
+     * other such statements of the same type.
      * 
      * @param type
      *            The StatementNode's tyupe
      */
     protected StatementNode(StatementType type)
     {
-        super(type + ":" + nextIDNum++, type.toString());
+        super(type.toString(), type.toString());
+        this.type = type;
+        this.provisional = true;
+    }
+
+    /**
+     * Constructs a new StatementNode with the given type and a previously
+     * assigned Qualified Identifier.
+     * 
+     * @param type
+     *            The StatementNode's type
+     * @param qIdentifier
+     *            Qualified Identifier
+     */
+    protected StatementNode(StatementType type, String qIdentifier)
+    {
+        super(qIdentifier, type.toString());
         this.type = type;
     }
 
@@ -85,14 +106,53 @@ public class StatementNode extends CodeNode {
     @Override
     public void update(INode c)
     {
-        if (c == null)
-            return;
+        merge(c);
+    }
 
-        if (c instanceof StatementNode && c.getQIdentifier().equals(this.getQIdentifier()))
-        {
-            StatementNode s = (StatementNode) c;
-            setRange(s.getStart(), s.getEnd());
-        }
+    /**
+     * {@inheritDoc} The identifier of a statement depends on the order in
+     * which statements were added to its method, so it is excluded in favour
+     * of the statement type and lines, allowing the statements of a
+     * re-analyzed method to match those already in the tree.
+     */
+    @Override
+    protected long contentHash()
+    {
+        long hash = combine(getType().hashCode(), type.name().hashCode());
+        hash = combine(combine(hash, getStart()), getEnd());
+
+        return combine(hash, metricsHash());
+    }
+
+    /**
+     * {@inheritDoc} The identifier of a statement is excluded, as in
+     * {@link #contentHash()}.
+     */
+    @Override
+    protected boolean sameContent(AbstractNode other)
+    {
+        StatementNode stmt = (StatementNode) other;
+
+        return type == stmt.type && getStart() == stmt.getStart() && getEnd() == stmt.getEnd()
+                && sameMetrics(other);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object contentKey()
+    {
+        return matchKey();
+    }
+
+    /**
+     * @return Key under which statements of a method are matched during a
+     *         merge, consisting of the statement type and lines
+     */
+    String matchKey()
+    {
+        return type + "@" + getStart() + "-" + getEnd();
     }
 
     /**
@@ -118,29 +178,38 @@ public class StatementNode extends CodeNode {
     }
 
     /**
-     * {@inheritDoc}
+     * @return true if the identifier of this statement is a placeholder which
+     *         is replaced when the statement is added to a method, false if
+     *         it has been assigned or restored
      */
-    @Override
-    protected void finalize() throws Throwable
+    boolean isProvisional()
     {
-        // TODO Auto-generated method stub
-        super.finalize();
+        return provisional;
     }
 
     /**
-     * Updates the nextIDNum static field to the one provided if the provided
-     * value is greater than or equal to the current value. This method should
-     * only be used during deserialization.
+     * Replaces the placeholder identifier of this statement with the given
+     * one. Only called by the method this statement is added to, before the
+     * statement is attached to a tree.
      * 
-     * @param num
-     *            New nextIDNum
+     * @param id
+     *            Symbol for the assigned identifier
      */
-    public static void setNextIDNum(long num)
+    void assign(Symbol id)
     {
-        if (num < nextIDNum)
-            return;
+        symbol = id;
+        provisional = false;
+    }
 
-        nextIDNum = num;
+    /**
+     * Marks the identifier of this statement as a placeholder, so that it is
+     * replaced when the statement is next added to a method. Used when the
+     * identifier this statement was assigned in another tree is already in
+     * use in the method it is moved to.
+     */
+    void unassign()
+    {
+        provisional = true;
     }
 
     /**
@@ -156,6 +225,23 @@ public class StatementNode extends CodeNode {
         return new Builder(type);
     }
 
+    /**
+     * Constructs a new Builder for a StatementNode with the given
+     * StatementType, restoring a Qualified Identifier previously assigned to
+     * it. The identifier is kept when the statement is added to a method.
+     * This method should only be used during deserialization.
+     * 
+     * @param type
+     *            Type of the Node to be built.
+     * @param qID
+     *            Qualified Identifier
+     * @return The StatementNode.Builder instance
+     */
+    public static Builder builder(StatementType type, String qID)
+    {
+        return new Builder(new StatementNode(type, qID));
+    }
+
     /**
      * Builder for Statements implemented using the fluent interface and method
      * chaining patterns.
@@ -182,6 +268,17 @@ public class StatementNode extends CodeNode {
             node = new StatementNode(type);
         }
 
+        /**
+         * Constructs a new Builder for the given StatementNode
+         * 
+         * @param node
+         *            StatementNode to be constructed.
+         */
+        private Builder(StatementNode node)
+        {
+            this.node = node;
+        }
+
         /**
          * @return The newly built StatementNode
          */
@@ -221,6 +318,23 @@ public class StatementNode extends CodeNode {
             return range(line, line);
         }
 
+        /**
+         * The the metric and measurement value to the StatementNode under
+         * construction.
+         * 
+         * @param metric
+         *            Metric name
+         * @param value
+         *            Measurement value
+         * @return this
+         */
+        public Builder metric(String metric, Double value)
+        {
+            node.addMetric(metric, value);
+
+            return this;
+        }
+
         /**
          * Sets the qualified identifier of the parent for this statement
          * 
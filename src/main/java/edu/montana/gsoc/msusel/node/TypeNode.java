@@ -25,17 +25,22 @@
  */
 package edu.montana.gsoc.msusel.node;
 
-import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jdt.annotation.NonNull;
 
-import com.google.common.collect.Maps;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.gson.annotations.Expose;
 
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.ChangeSet;
 import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.util.Symbol;
+import edu.montana.gsoc.msusel.version.VersionNode;
 
 /**
  * An abstraction of a type. Currently a type is based on the notion from the
@@ -53,12 +58,12 @@ public class TypeNode extends CodeNode {
      * Map of method nodes indexed by their qualified name
      */
     @Expose
-    private final Map<String, MethodNode> methods = Maps.newHashMap();
+    private Map<Symbol, MethodNode> methods = Collections.emptyMap();
     /**
      * Map of field nodes indexed by their qualified name
      */
     @Expose
-    private final Map<String, FieldNode>  fields  = Maps.newHashMap();
+    private Map<Symbol, FieldNode>  fields  = Collections.emptyMap();
     /**
      * Boolean indicator that when true indicates that this type is an
      * interface, false it is a class
@@ -71,6 +76,14 @@ public class TypeNode extends CodeNode {
      */
     @Expose
     private boolean                       isAbstract;
+    /**
+     * Line index over the methods of this type, built on demand
+     */
+    private transient volatile LineIndex<MethodNode> methodIndex;
+    /**
+     * Line index over the fields of this type, built on demand
+     */
+    private transient volatile LineIndex<FieldNode>  fieldIndex;
 
     /**
      * Constructs a new empty type with the given qualified identifier, simple
@@ -87,6 +100,20 @@ public class TypeNode extends CodeNode {
         super(qIdentifier, identifier);
     }
 
+    /**
+     * Constructs a new TypeNode with the given symbol for its qualified
+     * identifier, and simple identifier.
+     * 
+     * @param symbol
+     *            Symbol for the qualified identifier of this type
+     * @param identifier
+     *            The Simple identifier for this type (typename)
+     */
+    protected TypeNode(final Symbol symbol, final String identifier)
+    {
+        super(symbol, identifier);
+    }
+
     /**
      * @param method
      *            Method node to be removed from this type, if null or not
@@ -94,14 +121,31 @@ public class TypeNode extends CodeNode {
      */
     public void removeMethod(final MethodNode method)
     {
-        if (method == null || !methods.containsKey(method.getQIdentifier()))
+        if (method == null || !methods.containsKey(method.getSymbol()))
         {
             return;
         }
 
-        methods.remove(method.getQIdentifier());
+        methods.remove(method.getSymbol());
 
         method.setParentID(null);
+        disown(method);
+    }
+
+    /**
+     * Moves a method of this type whose qualified identifier has changed to
+     * the key of its new identifier.
+     * 
+     * @param method
+     *            The renamed method
+     * @param oldId
+     *            Symbol for the qualified identifier the method was previously
+     *            stored under
+     */
+    void methodRenamed(final MethodNode method, final Symbol oldId)
+    {
+        if (methods.remove(oldId, method))
+            methods.put(method.getSymbol(), method);
     }
 
     /**
@@ -120,19 +164,47 @@ public class TypeNode extends CodeNode {
     {
         if (line >= getStart() && line <= getEnd())
         {
-            Collection<MethodNode> nodes = methods.values();
-            for (MethodNode node : nodes)
-            {
-                if (node.containsLine(line))
-                {
-                    return node;
-                }
-            }
+            return methodIndex().find(line);
         }
 
         return null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void childrenChanged()
+    {
+        methodIndex = null;
+        fieldIndex = null;
+        super.childrenChanged();
+    }
+
+    /**
+     * @return The line index over the methods of this type
+     */
+    private LineIndex<MethodNode> methodIndex()
+    {
+        LineIndex<MethodNode> idx = methodIndex;
+        if (idx == null)
+            methodIndex = idx = new LineIndex<>(methods.values());
+
+        return idx;
+    }
+
+    /**
+     * @return The line index over the fields of this type
+     */
+    private LineIndex<FieldNode> fieldIndex()
+    {
+        LineIndex<FieldNode> idx = fieldIndex;
+        if (idx == null)
+            fieldIndex = idx = new LineIndex<>(fields.values());
+
+        return idx;
+    }
+
     /**
      * Searches this type for a method with the given name, where here we are
      * assuming the simple name and not the qualified identifier. In the case
@@ -149,8 +221,9 @@ public class TypeNode extends CodeNode {
         if (name == null || name.isEmpty())
             return null;
 
-        if (methods.containsKey(this.qIdentifier + "#" + name))
-            return methods.get(this.qIdentifier + "#" + name);
+        MethodNode method = methods.get(symbol.child('#', name));
+        if (method != null)
+            return method;
 
         return addMethod(name);
     }
@@ -166,12 +239,15 @@ public class TypeNode extends CodeNode {
         if (name == null || name.isEmpty())
             return null;
 
-        if (methods.containsKey(name))
-            return methods.get(name);
+        Symbol key = symbol.child('#', name);
+        if (methods.containsKey(key))
+            return methods.get(key);
 
-        MethodNode m = new MethodNode(this.qIdentifier + "#" + name, name);
-        methods.put(name, m);
-        m.setParentID(this.getQIdentifier());
+        MethodNode m = new MethodNode(key, name);
+        methods = modifiable(methods);
+        methods.put(key, m);
+        m.setParentSymbol(symbol);
+        adopt(m);
         return m;
     }
 
@@ -196,8 +272,14 @@ public class TypeNode extends CodeNode {
                     "A method's start cannot be less than the type's start line, and a method's end cannot exceed a type's end line.");
         }
 
-        methods.put(method.getQIdentifier(), method);
-        method.setParentID(this.getQIdentifier());
+        methods = modifiable(methods);
+        MethodNode old = methods.put(method.getSymbol(), method);
+        method.setParentSymbol(symbol);
+        if (old != method)
+        {
+            disown(old);
+            adopt(method);
+        }
 
         return true;
     }
@@ -230,7 +312,7 @@ public class TypeNode extends CodeNode {
             return;
         }
 
-        fields.remove(field.getQIdentifier());
+        disown(fields.remove(field.getSymbol()));
         field.setParentID(null);
     }
 
@@ -245,14 +327,7 @@ public class TypeNode extends CodeNode {
     {
         if (line >= getStart() && line <= getEnd())
         {
-            Collection<FieldNode> nodes = fields.values();
-            for (final FieldNode node : nodes)
-            {
-                if (node.containsLine(line))
-                {
-                    return node;
-                }
-            }
+            return fieldIndex().find(line);
         }
 
         return null;
@@ -284,10 +359,12 @@ public class TypeNode extends CodeNode {
                     "A field's start cannot be less than the type's start line, and a field's end cannot exceed a type's end line.");
         }
 
-        if (!fields.containsKey(field.getQIdentifier()))
+        if (!fields.containsKey(field.getSymbol()))
         {
-            fields.put(field.getQIdentifier(), field);
-            field.setParentID(this.getQIdentifier());
+            fields = modifiable(fields);
+            fields.put(field.getSymbol(), field);
+            field.setParentSymbol(symbol);
+            adopt(field);
         }
 
         return true;
@@ -324,7 +401,7 @@ public class TypeNode extends CodeNode {
         {
             TypeNode other = (TypeNode) obj;
 
-            if (!other.qIdentifier.equals(qIdentifier))
+            if (!other.symbol.equals(symbol))
                 return false;
         }
 
@@ -337,64 +414,113 @@ public class TypeNode extends CodeNode {
     @Override
     public void update(INode t)
     {
-        if (t == null)
-            return;
+        merge(t);
+    }
 
-        if (!(t instanceof TypeNode))
-            return;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected long contentHash()
+    {
+        return combine(super.contentHash(), (isInterface ? 1 : 0) | (isAbstract ? 2 : 0));
+    }
 
-        TypeNode type = (TypeNode) t;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean sameContent(AbstractNode other)
+    {
+        TypeNode type = (TypeNode) other;
 
-        setRange(type.getStart(), type.getEnd());
+        return super.sameContent(other) && isInterface == type.isInterface && isAbstract == type.isAbstract;
+    }
 
-        for (MethodNode m : type.getMethods())
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected VersionNode.Builder freeze(VersionNode.Builder builder)
+    {
+        return super.freeze(builder).flag(VersionNode.INTERFACE, isInterface).flag(VersionNode.ABSTRACT, isAbstract);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeContent(AbstractNode other)
+    {
+        boolean changed = super.mergeContent(other);
+
+        TypeNode type = (TypeNode) other;
+        if (type.isInterface != isInterface || type.isAbstract != isAbstract)
+        {
+            setInterface(type.isInterface);
+            setAbstract(type.isAbstract);
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /**
+     * {@inheritDoc} The given type replaces the members of this type, so
+     * methods and fields it does not contain are removed.
+     */
+    @Override
+    protected void mergeChildren(AbstractNode other, ChangeSet changes)
+    {
+        TypeNode type = (TypeNode) other;
+
+        for (MethodNode m : Lists.newArrayList(methods.values()))
         {
-            if (getMethod(m.getQIdentifier()) != null)
+            if (!type.methods.containsKey(m.getSymbol()))
             {
-                getMethod(m.getQIdentifier()).update(m);
+                removeMethod(m);
+                changes.recordRemoved(m);
             }
-            else
+        }
+
+        for (FieldNode f : Lists.newArrayList(fields.values()))
+        {
+            if (!type.fields.containsKey(f.getSymbol()))
             {
-                addMethod(m);
+                removeField(f);
+                changes.recordRemoved(f);
             }
         }
 
-        for (FieldNode f : type.getFields())
+        for (MethodNode m : Lists.newArrayList(type.methods.values()))
         {
-            if (getField(f.getQIdentifier()) != null)
+            MethodNode existing = methods.get(m.getSymbol());
+            if (existing == null)
             {
-                getField(f.getQIdentifier()).update(f);
+                addMethod(take(m));
+                changes.recordAdded(m);
             }
             else
             {
-                addField(f);
+                mergeInto(existing, m, changes);
             }
         }
 
-        for (String key : t.getMetricNames())
+        for (FieldNode f : Lists.newArrayList(type.fields.values()))
         {
-            this.metrics.put(key, t.getMetric(key));
+            FieldNode existing = fields.get(f.getSymbol());
+            if (existing == null)
+            {
+                addField(take(f));
+                changes.recordAdded(f);
+            }
+            else
+            {
+                mergeInto(existing, f, changes);
+            }
         }
     }
 
-    /**
-     * Search this type for a field node with a matching qualified identifier.
-     * 
-     * @param qid
-     *            The Qualified identifier of the field being searched for.
-     * @return The field node requested or null if no matching field node could
-     *         be found or the provided identifier is null or empty.
-     */
-    private FieldNode getField(String qid)
-    {
-        FieldNode retVal = null;
-
-        if (qid != null && !qid.isEmpty() && fields.containsKey(qid))
-            retVal = fields.get(qid);
-
-        return retVal;
-    }
-
     /**
      * Adds a new field with the given simple name to this type by creating such
      * field. If this field already exists the existing field is returned.
@@ -410,21 +536,54 @@ public class TypeNode extends CodeNode {
         if (name != null && !name.isEmpty())
         {
 
-            if (fields.containsKey(this.qIdentifier + "#" + name))
+            Symbol key = symbol.child('#', name);
+            retVal = fields.get(key);
+            if (retVal == null)
             {
-                retVal = fields.get(name);
-            }
-            else
-            {
-                FieldNode f = new FieldNode(this.qIdentifier + "#" + name, name);
-                fields.put(name, f);
-                f.setParentID(this.getQIdentifier());
+                retVal = new FieldNode(key, name);
+                fields = modifiable(fields);
+                fields.put(key, retVal);
+                retVal.setParentSymbol(symbol);
+                adopt(retVal);
             }
         }
 
         return retVal;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Iterable<? extends AbstractNode> children()
+    {
+        return Iterables.concat(methods.values(), fields.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean removeChild(AbstractNode child)
+    {
+        if (child instanceof MethodNode)
+            return removeChild(methods, child);
+        else if (child instanceof FieldNode)
+            return removeChild(fields, child);
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void makeConcurrent()
+    {
+        methods = concurrent(methods);
+        fields = concurrent(fields);
+    }
+
     /**
      * Tests whether the given methodNode is contained within this type
      * 
@@ -436,7 +595,7 @@ public class TypeNode extends CodeNode {
     public boolean hasMethod(MethodNode node)
     {
         if (node != null)
-            return methods.containsKey(node.getQIdentifier());
+            return methods.containsKey(node.getSymbol());
         else
             return false;
     }
@@ -447,7 +606,7 @@ public class TypeNode extends CodeNode {
     @Override
     public TypeNode cloneNoChildren()
     {
-        TypeNode tnode = new TypeNode(qIdentifier, name);
+        TypeNode tnode = new TypeNode(symbol, name);
         tnode.setStart(getStart());
         tnode.setEnd(getEnd());
 
@@ -464,29 +623,19 @@ public class TypeNode extends CodeNode {
     {
         TypeNode tnode = cloneNoChildren();
 
-        for (String key : fields.keySet())
+        for (FieldNode field : fields.values())
         {
-            tnode.addField(fields.get(key).clone());
+            tnode.addField(field.clone());
         }
 
-        for (String key : methods.keySet())
+        for (MethodNode method : methods.values())
         {
-            tnode.addMethod(methods.get(key).clone());
+            tnode.addMethod(method.clone());
         }
 
         return tnode;
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    protected void finalize() throws Throwable
-    {
-        // TODO Auto-generated method stub
-        super.finalize();
-    }
-
     /**
      * @return True if this is an interface, false otherwise.
      */
@@ -502,6 +651,7 @@ public class TypeNode extends CodeNode {
     private void setInterface(boolean isInterface)
     {
         this.isInterface = isInterface;
+        contentChanged();
     }
 
     /**
@@ -519,6 +669,7 @@ public class TypeNode extends CodeNode {
     private void setAbstract(boolean isAbstract)
     {
         this.isAbstract = isAbstract;
+        contentChanged();
     }
 
     /**
@@ -535,13 +686,7 @@ public class TypeNode extends CodeNode {
         if (line < getStart() || line > getEnd())
             return null;
 
-        for (MethodNode method : methods.values())
-        {
-            if (method.containsLine(line))
-                return method;
-        }
-
-        return null;
+        return methodIndex().find(line);
     }
 
     /**
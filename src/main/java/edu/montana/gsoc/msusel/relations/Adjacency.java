@@ -0,0 +1,133 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.relations;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable adjacency of a single direction and type of relationship in
+ * compressed sparse row form: the neighbors of node {@code n} are
+ * {@code targets[offsets[n]]} up to {@code targets[offsets[n + 1]]}, in
+ * ascending order. Two int arrays hold any number of edges.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+final class Adjacency {
+
+    /**
+     * Start of the row of each node, followed by the number of edges
+     */
+    private final int[] offsets;
+    /**
+     * Neighbors of all nodes, row by row
+     */
+    private final int[] targets;
+
+    /**
+     * Constructs a new Adjacency
+     * 
+     * @param offsets
+     *            Start of the row of each node, followed by the number of
+     *            edges
+     * @param targets
+     *            Neighbors of all nodes, row by row, each row sorted
+     */
+    Adjacency(int[] offsets, int[] targets)
+    {
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * @param node
+     *            Id of the node
+     * @return A copy of the neighbors of the node
+     */
+    int[] get(int node)
+    {
+        if (node < 0 || node >= offsets.length - 1)
+            return new int[0];
+
+        return Arrays.copyOfRange(targets, offsets[node], offsets[node + 1]);
+    }
+
+    /**
+     * Passes each neighbor of a node to an action, in ascending order.
+     * 
+     * @param node
+     *            Id of the node
+     * @param action
+     *            The action
+     */
+    void forEach(int node, IntConsumer action)
+    {
+        if (node < 0 || node >= offsets.length - 1)
+            return;
+
+        for (int i = offsets[node]; i < offsets[node + 1]; i++)
+        {
+            action.accept(targets[i]);
+        }
+    }
+
+    /**
+     * @param node
+     *            Id of the node
+     * @return The number of neighbors of the node
+     */
+    int degree(int node)
+    {
+        if (node < 0 || node >= offsets.length - 1)
+            return 0;
+
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * @param node
+     *            Id of the node
+     * @param neighbor
+     *            Id of the neighbor
+     * @return true if the edge is present, false otherwise
+     */
+    boolean contains(int node, int neighbor)
+    {
+        if (node < 0 || node >= offsets.length - 1)
+            return false;
+
+        return Arrays.binarySearch(targets, offsets[node], offsets[node + 1], neighbor) >= 0;
+    }
+
+    /**
+     * @return The number of edges
+     */
+    int size()
+    {
+        return targets.length;
+    }
+}
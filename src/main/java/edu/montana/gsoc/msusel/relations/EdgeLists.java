@@ -0,0 +1,221 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.relations;
+
+import java.util.Arrays;
+
+/**
+ * Growable adjacency lists of a single direction and type of relationship,
+ * holding, for each node id, a plain int array of the ids of its neighbors.
+ * Neighbors are kept in no particular order. Not thread-safe: guarded by the
+ * owning {@link RelationGraph}.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+final class EdgeLists {
+
+    /**
+     * Shared array of the nodes without neighbors
+     */
+    private static final int[] NONE    = new int[0];
+
+    /**
+     * Neighbors of each node, only the first {@code degrees[node]} of which
+     * are in use
+     */
+    private int[][]            lists   = new int[0][];
+    /**
+     * Number of neighbors of each node
+     */
+    private int[]              degrees = new int[0];
+    /**
+     * Number of edges
+     */
+    private long               size;
+
+    /**
+     * Appends an edge, which must not be present yet.
+     * 
+     * @param node
+     *            Id of the node
+     * @param neighbor
+     *            Id of the neighbor
+     */
+    void add(int node, int neighbor)
+    {
+        if (node >= lists.length)
+        {
+            int length = Math.max(node + 1, lists.length + (lists.length >> 1));
+            lists = Arrays.copyOf(lists, length);
+            degrees = Arrays.copyOf(degrees, length);
+        }
+
+        int[] list = lists[node];
+        int degree = degrees[node];
+        if (list == null)
+            lists[node] = list = new int[2];
+        else if (degree == list.length)
+            lists[node] = list = Arrays.copyOf(list, degree + (degree >> 1) + 1);
+
+        list[degree] = neighbor;
+        degrees[node] = degree + 1;
+        size++;
+    }
+
+    /**
+     * Removes an edge.
+     * 
+     * @param node
+     *            Id of the node
+     * @param neighbor
+     *            Id of the neighbor
+     * @return true if the edge was present, false otherwise
+     */
+    boolean remove(int node, int neighbor)
+    {
+        int index = indexOf(node, neighbor);
+        if (index < 0)
+            return false;
+
+        int last = --degrees[node];
+        lists[node][index] = lists[node][last];
+        if (last == 0)
+            lists[node] = null;
+        size--;
+
+        return true;
+    }
+
+    /**
+     * Removes all edges of a node.
+     * 
+     * @param node
+     *            Id of the node
+     * @return The former neighbors of the node
+     */
+    int[] clear(int node)
+    {
+        int[] neighbors = get(node);
+        if (neighbors.length > 0)
+        {
+            lists[node] = null;
+            degrees[node] = 0;
+            size -= neighbors.length;
+        }
+
+        return neighbors;
+    }
+
+    /**
+     * @param node
+     *            Id of the node
+     * @param neighbor
+     *            Id of the neighbor
+     * @return Position of the neighbor in the list of the node, or -1 if
+     *         absent
+     */
+    int indexOf(int node, int neighbor)
+    {
+        int degree = degree(node);
+        int[] list = degree == 0 ? NONE : lists[node];
+        for (int i = 0; i < degree; i++)
+        {
+            if (list[i] == neighbor)
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param node
+     *            Id of the node
+     * @return A copy of the neighbors of the node
+     */
+    int[] get(int node)
+    {
+        int degree = degree(node);
+        return degree == 0 ? NONE : Arrays.copyOf(lists[node], degree);
+    }
+
+    /**
+     * @param node
+     *            Id of the node
+     * @return The number of neighbors of the node
+     */
+    int degree(int node)
+    {
+        return node >= 0 && node < degrees.length ? degrees[node] : 0;
+    }
+
+    /**
+     * @return One more than the largest id of a node with neighbors, or less
+     */
+    int bound()
+    {
+        return degrees.length;
+    }
+
+    /**
+     * @return The number of edges
+     */
+    long size()
+    {
+        return size;
+    }
+
+    /**
+     * Packs the lists into compressed sparse rows, each row sorted.
+     * 
+     * @param bound
+     *            Number of rows
+     * @return The rows
+     */
+    Adjacency compact(int bound)
+    {
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("Too many edges to compact: " + size);
+
+        int[] offsets = new int[bound + 1];
+        int[] targets = new int[(int) size];
+        int pos = 0;
+        for (int node = 0; node < bound; node++)
+        {
+            offsets[node] = pos;
+            int degree = degree(node);
+            if (degree > 0)
+            {
+                System.arraycopy(lists[node], 0, targets, pos, degree);
+                Arrays.sort(targets, pos, pos + degree);
+                pos += degree;
+            }
+        }
+        offsets[bound] = pos;
+
+        return new Adjacency(offsets, targets);
+    }
+}
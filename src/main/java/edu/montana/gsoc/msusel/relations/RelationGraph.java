@@ -0,0 +1,440 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.relations;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.util.NodeIds;
+
+/**
+ * The relationships between the nodes of a tree, held as adjacency lists of
+ * node ids rather than as a {@link Relationship} per edge. Every type of
+ * relationship is indexed in both directions, so that the nodes a node
+ * relates to and the nodes relating to it are found at the same cost. At most
+ * one relationship of each type is held between two nodes.
+ * <p>
+ * Edges are added and removed incrementally. For read-heavy analyses,
+ * {@link #compact()} packs the graph into an immutable {@link RelationIndex}
+ * in compressed sparse row form. Nodes are identified by the ids assigned by
+ * the tree's {@link NodeIds}; the edges of a node are dropped when it is
+ * removed from the tree, as its id is released.
+ * <p>
+ * All methods synchronize on the graph.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class RelationGraph {
+
+    /**
+     * Types of relationships, indexed by ordinal
+     */
+    private static final RelationshipType[] TYPES = RelationshipType.values();
+
+    /**
+     * Allocator resolving node ids to nodes, or null
+     */
+    private final NodeIds                   ids;
+    /**
+     * Edges from source to destination, by type
+     */
+    private final EdgeLists[]               forward;
+    /**
+     * Edges from destination to source, by type
+     */
+    private final EdgeLists[]               reverse;
+
+    /**
+     * Constructs a new, empty, RelationGraph whose node ids are not resolved
+     * to nodes.
+     */
+    public RelationGraph()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructs a new, empty, RelationGraph.
+     * 
+     * @param ids
+     *            Allocator resolving node ids to nodes, or null
+     */
+    public RelationGraph(NodeIds ids)
+    {
+        this.ids = ids;
+        forward = new EdgeLists[TYPES.length];
+        reverse = new EdgeLists[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++)
+        {
+            forward[i] = new EdgeLists();
+            reverse[i] = new EdgeLists();
+        }
+    }
+
+    /**
+     * Adds a relationship. Takes time proportional to the smaller of the
+     * number of relationships of that type from the source, and to the
+     * destination.
+     * 
+     * @param source
+     *            Id of the source node
+     * @param dest
+     *            Id of the destination node
+     * @param type
+     *            Type of the relationship
+     * @return true if the relationship was added, false if it was present
+     * @throws IllegalArgumentException
+     *             if an id is negative or the type is null
+     */
+    public synchronized boolean add(int source, int dest, RelationshipType type)
+    {
+        check(source, dest, type);
+
+        EdgeLists out = forward[type.ordinal()];
+        EdgeLists in = reverse[type.ordinal()];
+        boolean present = out.degree(source) <= in.degree(dest) ? out.indexOf(source, dest) >= 0
+                : in.indexOf(dest, source) >= 0;
+        if (present)
+            return false;
+
+        out.add(source, dest);
+        in.add(dest, source);
+        return true;
+    }
+
+    /**
+     * Adds a relationship between two nodes of the tree.
+     * 
+     * @param source
+     *            The source node
+     * @param dest
+     *            The destination node
+     * @param type
+     *            Type of the relationship
+     * @return true if the relationship was added, false if it was present
+     * @throws IllegalArgumentException
+     *             if a node is not attached to a tree, or the type is null
+     */
+    public boolean add(INode source, INode dest, RelationshipType type)
+    {
+        return add(id(source), id(dest), type);
+    }
+
+    /**
+     * Adds a relationship between two nodes of the tree.
+     * 
+     * @param relationship
+     *            The relationship
+     * @return true if the relationship was added, false if it was present
+     * @throws IllegalArgumentException
+     *             if a node is not attached to a tree, or the type is null
+     */
+    public boolean add(Relationship relationship)
+    {
+        return add(relationship.getSource(), relationship.getDest(), relationship.getType());
+    }
+
+    /**
+     * Removes a relationship.
+     * 
+     * @param source
+     *            Id of the source node
+     * @param dest
+     *            Id of the destination node
+     * @param type
+     *            Type of the relationship
+     * @return true if the relationship was removed, false if it was absent
+     */
+    public synchronized boolean remove(int source, int dest, RelationshipType type)
+    {
+        if (type == null || !forward[type.ordinal()].remove(source, dest))
+            return false;
+
+        reverse[type.ordinal()].remove(dest, source);
+        return true;
+    }
+
+    /**
+     * Removes all relationships from and to a node.
+     * 
+     * @param node
+     *            Id of the node
+     */
+    public synchronized void removeNode(int node)
+    {
+        for (int i = 0; i < TYPES.length; i++)
+        {
+            for (int dest : forward[i].clear(node))
+            {
+                reverse[i].remove(dest, node);
+            }
+            for (int source : reverse[i].clear(node))
+            {
+                forward[i].remove(source, node);
+            }
+        }
+    }
+
+    /**
+     * @param source
+     *            Id of the source node
+     * @param dest
+     *            Id of the destination node
+     * @param type
+     *            Type of the relationship
+     * @return true if the relationship is present, false otherwise
+     */
+    public synchronized boolean contains(int source, int dest, RelationshipType type)
+    {
+        if (type == null)
+            return false;
+
+        EdgeLists out = forward[type.ordinal()];
+        EdgeLists in = reverse[type.ordinal()];
+        return out.degree(source) <= in.degree(dest) ? out.indexOf(source, dest) >= 0
+                : in.indexOf(dest, source) >= 0;
+    }
+
+    /**
+     * @param source
+     *            Id of the source node
+     * @param type
+     *            Type of the relationships
+     * @return Ids of the nodes the source relates to, in no particular order
+     */
+    public synchronized int[] targets(int source, RelationshipType type)
+    {
+        return forward[type.ordinal()].get(source);
+    }
+
+    /**
+     * @param dest
+     *            Id of the destination node
+     * @param type
+     *            Type of the relationships
+     * @return Ids of the nodes relating to the destination, in no particular
+     *         order
+     */
+    public synchronized int[] sources(int dest, RelationshipType type)
+    {
+        return reverse[type.ordinal()].get(dest);
+    }
+
+    /**
+     * @param source
+     *            Id of the source node
+     * @param type
+     *            Type of the relationships
+     * @return The number of nodes the source relates to
+     */
+    public synchronized int outDegree(int source, RelationshipType type)
+    {
+        return forward[type.ordinal()].degree(source);
+    }
+
+    /**
+     * @param dest
+     *            Id of the destination node
+     * @param type
+     *            Type of the relationships
+     * @return The number of nodes relating to the destination
+     */
+    public synchronized int inDegree(int dest, RelationshipType type)
+    {
+        return reverse[type.ordinal()].degree(dest);
+    }
+
+    /**
+     * Materializes the relationships from a node. Requires the graph to
+     * resolve ids to nodes; relationships to nodes no longer in the tree are
+     * skipped.
+     * 
+     * @param source
+     *            The source node
+     * @return The relationships of every type from the node
+     * @throws IllegalStateException
+     *             if the graph does not resolve node ids
+     */
+    public List<Relationship> getOutgoing(INode source)
+    {
+        List<Relationship> relationships = Lists.newArrayList();
+        for (RelationshipType type : TYPES)
+        {
+            for (int dest : targets(source.getId(), type))
+            {
+                INode node = resolve(dest);
+                if (node != null)
+                    relationships.add(new Relationship(source, node, type));
+            }
+        }
+
+        return relationships;
+    }
+
+    /**
+     * Materializes the relationships to a node. Requires the graph to resolve
+     * ids to nodes; relationships from nodes no longer in the tree are
+     * skipped.
+     * 
+     * @param dest
+     *            The destination node
+     * @return The relationships of every type to the node
+     * @throws IllegalStateException
+     *             if the graph does not resolve node ids
+     */
+    public List<Relationship> getIncoming(INode dest)
+    {
+        List<Relationship> relationships = Lists.newArrayList();
+        for (RelationshipType type : TYPES)
+        {
+            for (int source : sources(dest.getId(), type))
+            {
+                INode node = resolve(source);
+                if (node != null)
+                    relationships.add(new Relationship(node, dest, type));
+            }
+        }
+
+        return relationships;
+    }
+
+    /**
+     * @param type
+     *            Type of the relationships
+     * @return The number of relationships of the given type
+     */
+    public synchronized long size(RelationshipType type)
+    {
+        return forward[type.ordinal()].size();
+    }
+
+    /**
+     * @return The number of relationships of all types
+     */
+    public synchronized long size()
+    {
+        long size = 0;
+        for (EdgeLists lists : forward)
+        {
+            size += lists.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Packs the current relationships into an immutable index. Later changes
+     * to this graph are not reflected by the index.
+     * 
+     * @return The index
+     * @throws IllegalStateException
+     *             if there are more relationships of a type than an array can
+     *             hold
+     */
+    public synchronized RelationIndex compact()
+    {
+        int bound = 0;
+        for (int i = 0; i < TYPES.length; i++)
+        {
+            bound = Math.max(bound, Math.max(forward[i].bound(), reverse[i].bound()));
+        }
+
+        Adjacency[] out = new Adjacency[TYPES.length];
+        Adjacency[] in = new Adjacency[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++)
+        {
+            out[i] = forward[i].compact(bound);
+            in[i] = reverse[i].compact(bound);
+        }
+
+        return new RelationIndex(out, in);
+    }
+
+    /**
+     * Removes all relationships.
+     */
+    public synchronized void clear()
+    {
+        for (int i = 0; i < TYPES.length; i++)
+        {
+            forward[i] = new EdgeLists();
+            reverse[i] = new EdgeLists();
+        }
+    }
+
+    /**
+     * @param node
+     *            A node
+     * @return The id of the node
+     * @throws IllegalArgumentException
+     *             if the node is not attached to a tree
+     */
+    private static int id(INode node)
+    {
+        if (node == null || node.getId() < 0)
+            throw new IllegalArgumentException("Relationships can only be added between nodes of a tree.");
+
+        return node.getId();
+    }
+
+    /**
+     * @param id
+     *            Id of a node
+     * @return The node, or null if the id is no longer assigned
+     * @throws IllegalStateException
+     *             if the graph does not resolve node ids
+     */
+    private INode resolve(int id)
+    {
+        if (ids == null)
+            throw new IllegalStateException("Node ids are not resolved by this graph.");
+
+        return ids.get(id);
+    }
+
+    /**
+     * Validates the ends and type of a relationship.
+     * 
+     * @param source
+     *            Id of the source node
+     * @param dest
+     *            Id of the destination node
+     * @param type
+     *            Type of the relationship
+     * @throws IllegalArgumentException
+     *             if an id is negative or the type is null
+     */
+    private static void check(int source, int dest, RelationshipType type)
+    {
+        if (source < 0 || dest < 0)
+            throw new IllegalArgumentException("Node ids cannot be negative.");
+        if (type == null)
+            throw new IllegalArgumentException("Relationship type cannot be null.");
+    }
+}
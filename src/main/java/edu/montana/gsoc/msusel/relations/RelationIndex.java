@@ -0,0 +1,183 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.relations;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable, compacted form of a {@link RelationGraph}, for read-heavy
+ * analyses such as coupling metrics. Each type of relationship is held in
+ * both directions in compressed sparse row form, two int arrays per
+ * direction, with the neighbors of each node in ascending order of their
+ * ids. An index may be shared by any number of threads.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class RelationIndex {
+
+    /**
+     * Edges from source to destination, by type
+     */
+    private final Adjacency[] forward;
+    /**
+     * Edges from destination to source, by type
+     */
+    private final Adjacency[] reverse;
+
+    /**
+     * Constructs a new RelationIndex
+     * 
+     * @param forward
+     *            Edges from source to destination, by type
+     * @param reverse
+     *            Edges from destination to source, by type
+     */
+    RelationIndex(Adjacency[] forward, Adjacency[] reverse)
+    {
+        this.forward = forward;
+        this.reverse = reverse;
+    }
+
+    /**
+     * @param source
+     *            Id of the source node
+     * @param dest
+     *            Id of the destination node
+     * @param type
+     *            Type of the relationship
+     * @return true if the relationship is present, false otherwise
+     */
+    public boolean contains(int source, int dest, RelationshipType type)
+    {
+        return type != null && forward[type.ordinal()].contains(source, dest);
+    }
+
+    /**
+     * @param source
+     *            Id of the source node
+     * @param type
+     *            Type of the relationships
+     * @return Ids of the nodes the source relates to, in ascending order
+     */
+    public int[] targets(int source, RelationshipType type)
+    {
+        return forward[type.ordinal()].get(source);
+    }
+
+    /**
+     * @param dest
+     *            Id of the destination node
+     * @param type
+     *            Type of the relationships
+     * @return Ids of the nodes relating to the destination, in ascending
+     *         order
+     */
+    public int[] sources(int dest, RelationshipType type)
+    {
+        return reverse[type.ordinal()].get(dest);
+    }
+
+    /**
+     * Passes the id of each node the source relates to to an action, in
+     * ascending order, without copying them.
+     * 
+     * @param source
+     *            Id of the source node
+     * @param type
+     *            Type of the relationships
+     * @param action
+     *            The action
+     */
+    public void forEachTarget(int source, RelationshipType type, IntConsumer action)
+    {
+        forward[type.ordinal()].forEach(source, action);
+    }
+
+    /**
+     * Passes the id of each node relating to the destination to an action, in
+     * ascending order, without copying them.
+     * 
+     * @param dest
+     *            Id of the destination node
+     * @param type
+     *            Type of the relationships
+     * @param action
+     *            The action
+     */
+    public void forEachSource(int dest, RelationshipType type, IntConsumer action)
+    {
+        reverse[type.ordinal()].forEach(dest, action);
+    }
+
+    /**
+     * @param source
+     *            Id of the source node
+     * @param type
+     *            Type of the relationships
+     * @return The number of nodes the source relates to
+     */
+    public int outDegree(int source, RelationshipType type)
+    {
+        return forward[type.ordinal()].degree(source);
+    }
+
+    /**
+     * @param dest
+     *            Id of the destination node
+     * @param type
+     *            Type of the relationships
+     * @return The number of nodes relating to the destination
+     */
+    public int inDegree(int dest, RelationshipType type)
+    {
+        return reverse[type.ordinal()].degree(dest);
+    }
+
+    /**
+     * @param type
+     *            Type of the relationships
+     * @return The number of relationships of the given type
+     */
+    public int size(RelationshipType type)
+    {
+        return forward[type.ordinal()].size();
+    }
+
+    /**
+     * @return The number of relationships of all types
+     */
+    public long size()
+    {
+        long size = 0;
+        for (Adjacency adjacency : forward)
+        {
+            size += adjacency.size();
+        }
+
+        return size;
+    }
+}
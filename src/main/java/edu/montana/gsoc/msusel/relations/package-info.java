@@ -25,7 +25,8 @@
  */
 /**
  * This package contains the classes representing relationships, both structural
- * and logical, defined as a part of the software system.
+ * and logical, defined as a part of the software system, and the graph in
+ * which the relationships between the nodes of a tree are indexed.
  * 
  * @author Isaac Griffith
  * @version 1.1.0
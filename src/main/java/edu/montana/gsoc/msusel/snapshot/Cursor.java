@@ -0,0 +1,151 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A position within a mapped snapshot, advanced as the primitive encodings of
+ * {@link SnapshotFormat} are decoded from it. Only absolute reads are made on
+ * the underlying buffer, so any number of cursors may share it across
+ * threads.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+final class Cursor {
+
+    /**
+     * The mapped snapshot
+     */
+    private final ByteBuffer buffer;
+    /**
+     * The current position
+     */
+    private int              pos;
+
+    /**
+     * Constructs a new Cursor
+     * 
+     * @param buffer
+     *            The mapped snapshot
+     * @param pos
+     *            The initial position
+     */
+    Cursor(ByteBuffer buffer, int pos)
+    {
+        this.buffer = buffer;
+        this.pos = pos;
+    }
+
+    /**
+     * @return The current position
+     */
+    int position()
+    {
+        return pos;
+    }
+
+    /**
+     * @return The byte at the current position
+     */
+    byte nextByte()
+    {
+        return buffer.get(pos++);
+    }
+
+    /**
+     * @return The int32 at the current position
+     */
+    int nextInt()
+    {
+        int value = buffer.getInt(pos);
+        pos += 4;
+
+        return value;
+    }
+
+    /**
+     * @return The double at the current position
+     */
+    double nextDouble()
+    {
+        double value = buffer.getDouble(pos);
+        pos += 8;
+
+        return value;
+    }
+
+    /**
+     * @return The unsigned varint at the current position
+     */
+    int nextVarint()
+    {
+        int value = 0;
+        for (int shift = 0;; shift += 7)
+        {
+            byte b = buffer.get(pos++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    /**
+     * @return The zig-zag varint at the current position
+     */
+    int nextSigned()
+    {
+        int raw = nextVarint();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /**
+     * Moves past the given number of bytes
+     * 
+     * @param bytes
+     *            Number of bytes to skip
+     */
+    void skip(int bytes)
+    {
+        pos += bytes;
+    }
+
+    /**
+     * Moves past the given number of varints
+     * 
+     * @param count
+     *            Number of varints to skip
+     */
+    void skipVarints(int count)
+    {
+        while (count > 0)
+        {
+            if (buffer.get(pos++) >= 0)
+                count--;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import java.util.Collections;
+import java.util.List;
+
+import edu.montana.gsoc.msusel.node.INodeType;
+
+/**
+ * Read-only flyweight for a FieldNode of a {@link MappedSnapshot}.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MappedField extends MappedCodeNode {
+
+    /**
+     * Constructs a new MappedField
+     * 
+     * @param snapshot
+     *            The snapshot holding the node
+     * @param offset
+     *            Offset of the node's section
+     */
+    MappedField(MappedSnapshot snapshot, int offset)
+    {
+        super(snapshot, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getType()
+    {
+        return INodeType.FIELD;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MappedNode> getChildren()
+    {
+        return Collections.emptyList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Cursor lines()
+    {
+        return body();
+    }
+}
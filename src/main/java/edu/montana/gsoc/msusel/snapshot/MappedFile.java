@@ -0,0 +1,127 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.node.INodeType;
+
+/**
+ * Read-only flyweight for a FileNode of a {@link MappedSnapshot}.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MappedFile extends MappedNode {
+
+    /**
+     * Constructs a new MappedFile
+     * 
+     * @param snapshot
+     *            The snapshot holding the node
+     * @param offset
+     *            Offset of the node's section
+     */
+    MappedFile(MappedSnapshot snapshot, int offset)
+    {
+        super(snapshot, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getType()
+    {
+        return INodeType.FILE;
+    }
+
+    /**
+     * @return The length of the file in lines
+     */
+    public int getLength()
+    {
+        return body().nextVarint();
+    }
+
+    /**
+     * @return The imports of the file
+     */
+    public Set<String> getImports()
+    {
+        Cursor cursor = body();
+        cursor.skipVarints(1);
+        Set<String> imports = Sets.newLinkedHashSet();
+        for (int i = cursor.nextVarint(); i > 0; i--)
+        {
+            imports.add(snapshot.string(cursor.nextVarint()));
+        }
+
+        return imports;
+    }
+
+    /**
+     * @return The types of the file
+     */
+    public List<MappedType> getTypes()
+    {
+        Cursor cursor = body();
+        cursor.skipVarints(1);
+        cursor.skipVarints(cursor.nextVarint());
+
+        return group(cursor, MappedType.class);
+    }
+
+    /**
+     * @param line
+     *            A line number
+     * @return The innermost type of the file spanning the given line, or null
+     *         if there is none
+     */
+    public MappedType findType(int line)
+    {
+        MappedType found = null;
+        for (MappedType type : getTypes())
+        {
+            if (type.containsLine(line) && (found == null || type.getStart() >= found.getStart()))
+                found = type;
+        }
+
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MappedType> getChildren()
+    {
+        return getTypes();
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import java.util.List;
+
+import edu.montana.gsoc.msusel.node.INodeType;
+
+/**
+ * Read-only flyweight for a MethodNode of a {@link MappedSnapshot}.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MappedMethod extends MappedCodeNode {
+
+    /**
+     * Constructs a new MappedMethod
+     * 
+     * @param snapshot
+     *            The snapshot holding the node
+     * @param offset
+     *            Offset of the node's section
+     */
+    MappedMethod(MappedSnapshot snapshot, int offset)
+    {
+        super(snapshot, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getType()
+    {
+        return INodeType.METHOD;
+    }
+
+    /**
+     * @return true if the method is a constructor, false otherwise
+     */
+    public boolean isConstructor()
+    {
+        return (body().nextByte() & SnapshotFormat.CONSTRUCT) != 0;
+    }
+
+    /**
+     * @return true if the method is abstract, false otherwise
+     */
+    public boolean isAbstract()
+    {
+        return (body().nextByte() & SnapshotFormat.ABSTRACT) != 0;
+    }
+
+    /**
+     * @return true if the method is an accessor, false otherwise
+     */
+    public boolean isAccessorMethod()
+    {
+        return (body().nextByte() & SnapshotFormat.ACCESSOR) != 0;
+    }
+
+    /**
+     * @return true if the method is static, false otherwise
+     */
+    public boolean isStatic()
+    {
+        return (body().nextByte() & SnapshotFormat.STATIC) != 0;
+    }
+
+    /**
+     * @return true if the method is final, false otherwise
+     */
+    public boolean isFinal()
+    {
+        return (body().nextByte() & SnapshotFormat.FINAL) != 0;
+    }
+
+    /**
+     * @return The statements of the method
+     */
+    public List<MappedStatement> getStatements()
+    {
+        Cursor cursor = lines();
+        cursor.skipVarints(2);
+
+        return group(cursor, MappedStatement.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MappedStatement> getChildren()
+    {
+        return getStatements();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Cursor lines()
+    {
+        Cursor cursor = body();
+        cursor.skip(1);
+
+        return cursor;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import edu.montana.gsoc.msusel.node.INodeType;
+
+/**
+ * Read-only flyweight for a ModuleNode of a {@link MappedSnapshot}.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MappedModule extends MappedNode {
+
+    /**
+     * Constructs a new MappedModule
+     * 
+     * @param snapshot
+     *            The snapshot holding the node
+     * @param offset
+     *            Offset of the node's section
+     */
+    MappedModule(MappedSnapshot snapshot, int offset)
+    {
+        super(snapshot, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getType()
+    {
+        return INodeType.MODULE;
+    }
+
+    /**
+     * @return The files of this module
+     */
+    public List<MappedFile> getFiles()
+    {
+        return group(body(), MappedFile.class);
+    }
+
+    /**
+     * @return The namespaces of this module
+     */
+    public List<MappedNamespace> getNamespaces()
+    {
+        Cursor cursor = body();
+        skipGroup(cursor);
+
+        return group(cursor, MappedNamespace.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MappedNode> getChildren()
+    {
+        Cursor cursor = body();
+        List<MappedNode> children = Lists.newArrayList();
+        children.addAll(group(cursor, MappedFile.class));
+        children.addAll(group(cursor, MappedNamespace.class));
+
+        return children;
+    }
+}
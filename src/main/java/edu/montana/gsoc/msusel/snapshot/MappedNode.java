@@ -0,0 +1,252 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Read-only flyweight for a node of a {@link MappedSnapshot}. A flyweight
+ * only holds the offset of the node's section, and decodes whatever is asked
+ * of it from the mapping, so that flyweights are cheap to create and to
+ * discard. Two flyweights are equal when they denote the same section of the
+ * same snapshot.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public abstract class MappedNode {
+
+    /**
+     * The snapshot holding the node
+     */
+    protected final MappedSnapshot snapshot;
+    /**
+     * Offset of the node's section
+     */
+    protected final int            offset;
+
+    /**
+     * Constructs a new MappedNode
+     * 
+     * @param snapshot
+     *            The snapshot holding the node
+     * @param offset
+     *            Offset of the node's section
+     */
+    MappedNode(MappedSnapshot snapshot, int offset)
+    {
+        this.snapshot = snapshot;
+        this.offset = offset;
+    }
+
+    /**
+     * @return The INodeType of the node
+     */
+    public abstract String getType();
+
+    /**
+     * @return The nodes contained by this node, in the order of the JSON
+     *         layout
+     */
+    public abstract List<? extends MappedNode> getChildren();
+
+    /**
+     * @return The qualified identifier of the node
+     */
+    public String getQIdentifier()
+    {
+        return snapshot.string(snapshot.cursor(offset + 1).nextVarint());
+    }
+
+    /**
+     * @return The simple name of the node
+     */
+    public String getName()
+    {
+        Cursor cursor = snapshot.cursor(offset + 1);
+        cursor.skipVarints(1);
+
+        return snapshot.string(cursor.nextVarint());
+    }
+
+    /**
+     * @return The qualified identifier of the node's parent, or null if none
+     *         was recorded
+     */
+    public String getParentID()
+    {
+        Cursor cursor = snapshot.cursor(offset + 1);
+        cursor.skipVarints(2);
+        int index = cursor.nextVarint();
+
+        return index == 0 ? null : snapshot.string(index - 1);
+    }
+
+    /**
+     * @param metric
+     *            Metric name
+     * @return Measurement value, or null if no such metric has been measured
+     *         for this node
+     */
+    public Double getMetric(String metric)
+    {
+        int key = snapshot.indexOf(metric);
+        if (key < 0)
+            return null;
+
+        Cursor cursor = metrics();
+        for (int i = cursor.nextVarint(); i > 0; i--)
+        {
+            if (cursor.nextVarint() == key)
+                return cursor.nextDouble();
+            cursor.skip(8);
+        }
+
+        return null;
+    }
+
+    /**
+     * @param metric
+     *            Metric name
+     * @return true if the node holds a value for the named metric, false
+     *         otherwise
+     */
+    public boolean hasMetric(String metric)
+    {
+        return getMetric(metric) != null;
+    }
+
+    /**
+     * @return The names of the metrics measured for this node
+     */
+    public Set<String> getMetricNames()
+    {
+        Set<String> names = Sets.newLinkedHashSet();
+        Cursor cursor = metrics();
+        for (int i = cursor.nextVarint(); i > 0; i--)
+        {
+            names.add(snapshot.string(cursor.nextVarint()));
+            cursor.skip(8);
+        }
+
+        return names;
+    }
+
+    /**
+     * @return A cursor at the metric count of the node's section
+     */
+    Cursor metrics()
+    {
+        Cursor cursor = snapshot.cursor(offset + 1);
+        cursor.skipVarints(3);
+
+        return cursor;
+    }
+
+    /**
+     * @return A cursor at the first field particular to the node's kind
+     */
+    Cursor body()
+    {
+        Cursor cursor = metrics();
+        for (int i = cursor.nextVarint(); i > 0; i--)
+        {
+            cursor.skipVarints(1);
+            cursor.skip(8);
+        }
+
+        return cursor;
+    }
+
+    /**
+     * Decodes a group of children, leaving the cursor after it.
+     * 
+     * @param cursor
+     *            A cursor at the group's count
+     * @param kind
+     *            Kind of the children
+     * @return Flyweights for the children
+     */
+    <T extends MappedNode> List<T> group(Cursor cursor, Class<T> kind)
+    {
+        int count = cursor.nextVarint();
+        List<T> nodes = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++)
+        {
+            nodes.add(kind.cast(snapshot.node(cursor.nextInt())));
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Moves a cursor past a group of children.
+     * 
+     * @param cursor
+     *            A cursor at the group's count
+     */
+    static void skipGroup(Cursor cursor)
+    {
+        cursor.skip(cursor.nextVarint() * 4);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        return 31 * System.identityHashCode(snapshot) + offset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof MappedNode))
+            return false;
+        MappedNode other = (MappedNode) obj;
+
+        return snapshot == other.snapshot && offset == other.offset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return getType() + ":" + getQIdentifier();
+    }
+}
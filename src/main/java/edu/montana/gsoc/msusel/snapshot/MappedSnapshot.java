@@ -0,0 +1,286 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import static edu.montana.gsoc.msusel.snapshot.SnapshotFormat.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only view of a snapshot file mapped into memory. Nothing is decoded
+ * when the snapshot is opened: the nodes handed out are flyweights holding
+ * only the offset of their section, decoding their fields, metrics and
+ * children from the mapping on each access. Heap use is thus independent of
+ * the size of the tree, and processes mapping the same file share its pages
+ * through the operating system's page cache.
+ * <p>
+ * Snapshots are limited to 2GB, the reach of a single mapping. A snapshot may
+ * be browsed from several threads at once.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class MappedSnapshot {
+
+    /**
+     * The mapped snapshot
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Number of strings in the string table
+     */
+    private final int        stringCount;
+    /**
+     * Position of the string end offsets
+     */
+    private final int        stringEnds;
+    /**
+     * Position of the string data
+     */
+    private final int        stringData;
+    /**
+     * Offset of the root project's section, or -1 if none
+     */
+    private final int        root;
+    /**
+     * Position of the type index
+     */
+    private final int        typeIndex;
+    /**
+     * Number of entries of the type index
+     */
+    private final int        typeCount;
+
+    /**
+     * Constructs a new MappedSnapshot, validating the header and footer of
+     * the given buffer.
+     * 
+     * @param buffer
+     *            The snapshot
+     * @throws IOException
+     *             if the buffer does not hold a supported snapshot
+     */
+    MappedSnapshot(ByteBuffer buffer) throws IOException
+    {
+        this.buffer = buffer;
+        int size = buffer.limit();
+        try
+        {
+            if (size < 4 + FOOTER || buffer.getInt(0) != MAGIC || buffer.getInt(size - 4) != MAGIC)
+                throw new IOException("Not a CodeTree snapshot.");
+
+            Cursor cursor = new Cursor(buffer, 4);
+            int version = cursor.nextVarint();
+            if (version != VERSION)
+                throw new IOException("Unsupported snapshot version: " + version);
+            stringCount = cursor.nextVarint();
+            stringEnds = cursor.position();
+            if (cursor.nextInt() != 0)
+                throw new IOException("Corrupt snapshot.");
+            stringData = stringEnds + (stringCount + 1) * 4;
+
+            root = buffer.getInt(size - FOOTER);
+            typeIndex = buffer.getInt(size - FOOTER + 4);
+            typeCount = buffer.getInt(size - FOOTER + 8);
+        }
+        catch (IndexOutOfBoundsException | BufferUnderflowException e)
+        {
+            throw new IOException("Corrupt snapshot.", e);
+        }
+
+        if (stringCount < 0 || stringData > size || root >= typeIndex || typeIndex < stringData
+                || typeIndex + (long) typeCount * 8 != size - FOOTER)
+            throw new IOException("Corrupt snapshot.");
+    }
+
+    /**
+     * Maps the given snapshot file into memory. The file must not be changed
+     * while it is mapped.
+     * 
+     * @param path
+     *            Path of the snapshot file
+     * @return A view of the snapshot
+     * @throws IOException
+     *             if the file cannot be mapped, or does not hold a supported
+     *             snapshot
+     */
+    public static MappedSnapshot open(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Snapshot too large to map: " + path);
+
+            return new MappedSnapshot(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return The root project, or null if the snapshot holds an empty tree
+     */
+    public MappedProject getProject()
+    {
+        return root < 0 ? null : (MappedProject) node(root);
+    }
+
+    /**
+     * Finds a type held by a file, using the type index of the snapshot.
+     * 
+     * @param qIdentifier
+     *            Qualified identifier of the type
+     * @return The type, or null if no file holds a type with the given
+     *         identifier
+     */
+    public MappedType findType(String qIdentifier)
+    {
+        int index = indexOf(qIdentifier);
+        return index < 0 ? null : typeAt(index);
+    }
+
+    /**
+     * Finds a type held by a file by the string index of its qualified
+     * identifier.
+     * 
+     * @param index
+     *            String index of the qualified identifier
+     * @return The type, or null if there is none
+     */
+    MappedType typeAt(int index)
+    {
+        int low = 0;
+        int high = typeCount - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int found = buffer.getInt(typeIndex + mid * 8);
+            if (found < index)
+                low = mid + 1;
+            else if (found > index)
+                high = mid - 1;
+            else
+                return (MappedType) node(buffer.getInt(typeIndex + mid * 8 + 4));
+        }
+
+        return null;
+    }
+
+    /**
+     * @param offset
+     *            Offset of a node section
+     * @return A flyweight for the node of the given section
+     */
+    MappedNode node(int offset)
+    {
+        byte tag = buffer.get(offset);
+        switch (tag)
+        {
+        case PROJECT:
+            return new MappedProject(this, offset);
+        case MODULE:
+            return new MappedModule(this, offset);
+        case NAMESPACE:
+            return new MappedNamespace(this, offset);
+        case FILE:
+            return new MappedFile(this, offset);
+        case TYPE:
+            return new MappedType(this, offset);
+        case METHOD:
+            return new MappedMethod(this, offset);
+        case FIELD:
+            return new MappedField(this, offset);
+        case STATEMENT:
+            return new MappedStatement(this, offset);
+        default:
+            throw new IllegalStateException("Corrupt snapshot: unexpected section " + tag + " at " + offset + ".");
+        }
+    }
+
+    /**
+     * @param pos
+     *            A position in the snapshot
+     * @return A cursor at the given position
+     */
+    Cursor cursor(int pos)
+    {
+        return new Cursor(buffer, pos);
+    }
+
+    /**
+     * Decodes a string of the string table.
+     * 
+     * @param index
+     *            Index of the string
+     * @return The string
+     */
+    String string(int index)
+    {
+        int start = buffer.getInt(stringEnds + index * 4);
+        int end = buffer.getInt(stringEnds + index * 4 + 4);
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = buffer.get(stringData + start + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Looks up a string in the sorted string table.
+     * 
+     * @param str
+     *            The string
+     * @return Index of the string, or -1 if the snapshot does not contain it
+     */
+    int indexOf(String str)
+    {
+        if (str == null)
+            return -1;
+
+        int low = 0;
+        int high = stringCount - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int cmp = string(mid).compareTo(str);
+            if (cmp < 0)
+                low = mid + 1;
+            else if (cmp > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+
+        return -1;
+    }
+}
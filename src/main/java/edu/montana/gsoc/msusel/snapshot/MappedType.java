@@ -0,0 +1,146 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import edu.montana.gsoc.msusel.node.INodeType;
+
+/**
+ * Read-only flyweight for a TypeNode of a {@link MappedSnapshot}.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MappedType extends MappedCodeNode {
+
+    /**
+     * Constructs a new MappedType
+     * 
+     * @param snapshot
+     *            The snapshot holding the node
+     * @param offset
+     *            Offset of the node's section
+     */
+    MappedType(MappedSnapshot snapshot, int offset)
+    {
+        super(snapshot, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getType()
+    {
+        return INodeType.TYPE;
+    }
+
+    /**
+     * @return true if the type is an interface, false otherwise
+     */
+    public boolean isInterface()
+    {
+        return (body().nextByte() & SnapshotFormat.INTERFACE) != 0;
+    }
+
+    /**
+     * @return true if the type is abstract, false otherwise
+     */
+    public boolean isAbstract()
+    {
+        return (body().nextByte() & SnapshotFormat.ABSTRACT) != 0;
+    }
+
+    /**
+     * @return The methods of the type
+     */
+    public List<MappedMethod> getMethods()
+    {
+        Cursor cursor = lines();
+        cursor.skipVarints(2);
+
+        return group(cursor, MappedMethod.class);
+    }
+
+    /**
+     * @return The fields of the type
+     */
+    public List<MappedField> getFields()
+    {
+        Cursor cursor = lines();
+        cursor.skipVarints(2);
+        skipGroup(cursor);
+
+        return group(cursor, MappedField.class);
+    }
+
+    /**
+     * @param line
+     *            A line number
+     * @return The method of the type spanning the given line, or null if
+     *         there is none
+     */
+    public MappedMethod findMethod(int line)
+    {
+        for (MappedMethod method : getMethods())
+        {
+            if (method.containsLine(line))
+                return method;
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MappedCodeNode> getChildren()
+    {
+        Cursor cursor = lines();
+        cursor.skipVarints(2);
+        List<MappedCodeNode> children = Lists.newArrayList();
+        children.addAll(group(cursor, MappedMethod.class));
+        children.addAll(group(cursor, MappedField.class));
+
+        return children;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Cursor lines()
+    {
+        Cursor cursor = body();
+        cursor.skip(1);
+
+        return cursor;
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Constants and primitive encodings shared by the snapshot writer and readers.
+ * A snapshot is laid out so that it can be browsed in place once mapped into
+ * memory, as well as read sequentially from a stream:
+ * 
+ * <pre>
+ * magic      int32    "CTSN"
+ * version    varint
+ * strings    varint count, count + 1 int32 end offsets into the data, then
+ *            the UTF-8 data of every string, in ascending order
+ * nodes      node sections, children before their parents, ending with the
+ *            root project, followed by a NONE byte
+ * types      per type held by a file: int32 string index of its qualified
+ *            identifier and int32 offset of its section, sorted by index
+ * footer     int32 root offset (-1 for an empty tree), int32 offset and
+ *            int32 count of the type index, int32 magic
+ * </pre>
+ * 
+ * Each node section starts with its kind tag, followed by the string table
+ * indices of its qualified identifier, name and parent identifier (plus one,
+ * zero meaning none), its metrics as a varint count of key index and IEEE 754
+ * value pairs, the fields particular to its kind and finally its children,
+ * grouped by kind as in the JSON layout, each group being a varint count of
+ * int32 section offsets. Line ranges are stored as a zig-zag varint start
+ * followed by a zig-zag varint length. All int32 values are big-endian.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+final class SnapshotFormat {
+
+    /**
+     * Magic number opening every snapshot, "CTSN"
+     */
+    static final int  MAGIC      = 0x4354534E;
+    /**
+     * Current version of the format
+     */
+    static final int  VERSION    = 2;
+    /**
+     * Size of the footer closing every snapshot
+     */
+    static final int  FOOTER     = 16;
+
+    /**
+     * Tag of an empty tree
+     */
+    static final byte NONE       = 0;
+    /**
+     * Tag of a ProjectNode section
+     */
+    static final byte PROJECT    = 1;
+    /**
+     * Tag of a ModuleNode section
+     */
+    static final byte MODULE     = 2;
+    /**
+     * Tag of a NamespaceNode section
+     */
+    static final byte NAMESPACE  = 3;
+    /**
+     * Tag of a FileNode section
+     */
+    static final byte FILE       = 4;
+    /**
+     * Tag of a TypeNode section
+     */
+    static final byte TYPE       = 5;
+    /**
+     * Tag of a MethodNode section
+     */
+    static final byte METHOD     = 6;
+    /**
+     * Tag of a FieldNode section
+     */
+    static final byte FIELD      = 7;
+    /**
+     * Tag of a StatementNode section
+     */
+    static final byte STATEMENT  = 8;
+    /**
+     * Tag of a namespace type stored as the string index of the qualified
+     * identifier of a type held by a file of the tree
+     */
+    static final byte REFERENCE  = 9;
+
+    /**
+     * TypeNode flag: interface
+     */
+    static final int  INTERFACE  = 1;
+    /**
+     * TypeNode and MethodNode flag: abstract
+     */
+    static final int  ABSTRACT   = 1 << 1;
+    /**
+     * MethodNode flag: constructor
+     */
+    static final int  CONSTRUCT  = 1 << 2;
+    /**
+     * MethodNode flag: accessor
+     */
+    static final int  ACCESSOR   = 1 << 3;
+    /**
+     * MethodNode flag: static
+     */
+    static final int  STATIC     = 1 << 4;
+    /**
+     * MethodNode flag: final
+     */
+    static final int  FINAL      = 1 << 5;
+
+    /**
+     * Private constructor
+     */
+    private SnapshotFormat()
+    {
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint.
+     * 
+     * @param out
+     *            The output
+     * @param value
+     *            Value to write, treated as unsigned
+     * @throws IOException
+     *             if the output fails
+     */
+    static void writeVarint(DataOutput out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Writes a signed value as a zig-zag varint.
+     * 
+     * @param out
+     *            The output
+     * @param value
+     *            Value to write
+     * @throws IOException
+     *             if the output fails
+     */
+    static void writeSigned(DataOutput out, int value) throws IOException
+    {
+        writeVarint(out, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     * 
+     * @param in
+     *            The input
+     * @return The value read
+     * @throws IOException
+     *             if the input fails or the varint is malformed
+     */
+    static int readVarint(DataInput in) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+
+        throw new IOException("Malformed varint in snapshot.");
+    }
+
+    /**
+     * Reads a zig-zag varint.
+     * 
+     * @param in
+     *            The input
+     * @return The value read
+     * @throws IOException
+     *             if the input fails or the varint is malformed
+     */
+    static int readSigned(DataInput in) throws IOException
+    {
+        int raw = readVarint(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
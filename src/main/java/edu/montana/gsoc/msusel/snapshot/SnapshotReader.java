@@ -0,0 +1,577 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import static edu.montana.gsoc.msusel.snapshot.SnapshotFormat.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.CountingInputStream;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * Reads CodeTrees from the binary snapshot format described by
+ * {@link SnapshotFormat}. Nodes are rebuilt through their builders, so the
+ * resulting tree holds exactly what a JSON round-trip would: metrics whose
+ * names are unknown to the MetricNameRegistry are dropped, and statements
+ * keep their identifiers and metrics verbatim.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class SnapshotReader {
+
+    /**
+     * Reads a tree from the given stream. The stream is not closed.
+     * 
+     * @param in
+     *            The stream
+     * @return The tree held by the snapshot
+     * @throws IOException
+     *             if the stream fails, or does not hold a supported snapshot
+     */
+    public CodeTree read(InputStream in) throws IOException
+    {
+        CountingInputStream counter = new CountingInputStream(new BufferedInputStream(in));
+        DataInputStream data = new DataInputStream(counter);
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a CodeTree snapshot.");
+        int version = readVarint(data);
+        if (version != VERSION)
+            throw new IOException("Unsupported snapshot version: " + version);
+
+        String[] strings = new String[readVarint(data)];
+        int[] ends = new int[strings.length + 1];
+        for (int i = 0; i < ends.length; i++)
+        {
+            ends[i] = data.readInt();
+        }
+        byte[] bytes = new byte[ends[strings.length]];
+        data.readFully(bytes);
+        for (int i = 0; i < strings.length; i++)
+        {
+            strings[i] = new String(bytes, ends[i], ends[i + 1] - ends[i], StandardCharsets.UTF_8);
+        }
+
+        CodeTree tree = new CodeTree();
+        ProjectNode root = new Session(strings, counter, data).tree();
+        if (root != null)
+            tree.setProject(root);
+
+        return tree;
+    }
+
+    /**
+     * The state of a single read of a snapshot.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    private static class Session {
+
+        /**
+         * The string table
+         */
+        private final String[]                   strings;
+        /**
+         * Counts the bytes read so far
+         */
+        private final CountingInputStream        counter;
+        /**
+         * The input
+         */
+        private final DataInputStream            in;
+        /**
+         * Nodes read but not yet claimed by their parent, by section offset
+         */
+        private final Map<Integer, AbstractNode> pending    = Maps.newHashMap();
+        /**
+         * Types held by files, by qualified identifier
+         */
+        private final Map<String, TypeNode>      fileTypes  = Maps.newHashMap();
+        /**
+         * Number of types held by files, and so of entries in the type index
+         */
+        private int                              typeCount;
+        /**
+         * Namespaces holding type references yet to be resolved
+         */
+        private final List<NamespaceNode>        refHolders = Lists.newArrayList();
+        /**
+         * Qualified identifiers of the referenced types, parallel to
+         * refHolders
+         */
+        private final List<String>               refs       = Lists.newArrayList();
+
+        /**
+         * Constructs a new Session
+         * 
+         * @param strings
+         *            The string table
+         * @param counter
+         *            Counts the bytes read so far
+         * @param in
+         *            The input, positioned at the first node section
+         */
+        Session(String[] strings, CountingInputStream counter, DataInputStream in)
+        {
+            this.strings = strings;
+            this.counter = counter;
+            this.in = in;
+        }
+
+        /**
+         * Reads the node sections, checks the footer and resolves the type
+         * references of namespaces.
+         * 
+         * @return The root project, or null for an empty tree
+         * @throws IOException
+         *             if the input fails or is corrupt
+         */
+        ProjectNode tree() throws IOException
+        {
+            AbstractNode last = null;
+            int root = -1;
+            while (true)
+            {
+                int offset = (int) counter.getCount();
+                byte tag = in.readByte();
+                if (tag == NONE)
+                    break;
+
+                last = section(tag);
+                pending.put(offset, last);
+                root = offset;
+            }
+
+            if (last != null && !(last instanceof ProjectNode))
+                throw new IOException("Corrupt snapshot: the last section is not a project.");
+
+            int index = (int) counter.getCount();
+            in.skipBytes(typeCount * 8);
+            if (in.readInt() != root || in.readInt() != index || in.readInt() != typeCount || in.readInt() != MAGIC)
+                throw new IOException("Corrupt snapshot: footer does not match its sections.");
+            for (int i = 0; i < refs.size(); i++)
+            {
+                refHolders.get(i).addType(fileTypes.get(refs.get(i)));
+            }
+
+            return (ProjectNode) last;
+        }
+
+        /**
+         * Reads a node section, less its tag.
+         * 
+         * @param tag
+         *            Tag of the section
+         * @return The node
+         * @throws IOException
+         *             if the input fails or is corrupt
+         */
+        private AbstractNode section(byte tag) throws IOException
+        {
+            switch (tag)
+            {
+            case PROJECT:
+                return project();
+            case MODULE:
+                return module();
+            case NAMESPACE:
+                return namespace();
+            case FILE:
+                return file();
+            case TYPE:
+                return type();
+            case METHOD:
+                return method();
+            case FIELD:
+                return field();
+            case STATEMENT:
+                return statement();
+            default:
+                throw new IOException("Corrupt snapshot: unexpected section " + tag + ".");
+            }
+        }
+
+        /**
+         * Reads a project section, less its tag.
+         * 
+         * @return The project
+         * @throws IOException
+         *             if the input fails or is corrupt
+         */
+        private ProjectNode project() throws IOException
+        {
+            String qId = string();
+            string();
+            String parent = optString();
+            ProjectNode.Builder builder = ProjectNode.builder(qId);
+            if (parent != null)
+                builder.parent(parent);
+            metrics(builder::metric);
+
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                builder.project(take(ProjectNode.class));
+            }
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                builder.module(take(ModuleNode.class));
+            }
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                builder.file(take(FileNode.class));
+            }
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                builder.namespace(take(NamespaceNode.class));
+            }
+
+            return builder.create();
+        }
+
+        /**
+         * Reads a module section, less its tag.
+         * 
+         * @return The module
+         * @throws IOException
+         *             if the input fails or is corrupt
+         */
+        private ModuleNode module() throws IOException
+        {
+            String qId = string();
+            ModuleNode.Builder builder = ModuleNode.builder(string(), qId);
+            String parent = optString();
+            if (parent != null)
+                builder.parent(parent);
+            metrics(builder::metric);
+
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                builder.file(take(FileNode.class));
+            }
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                builder.namespace(take(NamespaceNode.class));
+            }
+
+            return builder.create();
+        }
+
+        /**
+         * Reads a namespace section, less its tag. Type references are
+         * resolved once the whole tree has been read.
+         * 
+         * @return The namespace
+         * @throws IOException
+         *             if the input fails or is corrupt
+         */
+        private NamespaceNode namespace() throws IOException
+        {
+            String qId = string();
+            string();
+            String parent = optString();
+            NamespaceNode.Builder builder = NamespaceNode.builder(qId);
+            if (parent != null)
+                builder.parent(parent);
+            metrics(builder::metric);
+
+            List<String> typeRefs = Lists.newArrayList();
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                byte tag = in.readByte();
+                if (tag == REFERENCE)
+                    typeRefs.add(string());
+                else if (tag == TYPE)
+                    builder.type(take(TypeNode.class));
+                else
+                    throw new IOException("Corrupt snapshot: unexpected section " + tag + ".");
+            }
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                builder.namespace(take(NamespaceNode.class));
+            }
+
+            NamespaceNode ns = builder.create();
+            for (String ref : typeRefs)
+            {
+                refHolders.add(ns);
+                refs.add(ref);
+            }
+
+            return ns;
+        }
+
+        /**
+         * Reads a file section, less its tag.
+         * 
+         * @return The file
+         * @throws IOException
+         *             if the input fails or is corrupt
+         */
+        private FileNode file() throws IOException
+        {
+            String qId = string();
+            FileNode.Builder builder = FileNode.builder(string(), qId);
+            String parent = optString();
+            if (parent != null)
+                builder.parent(parent);
+            metrics(builder::metric);
+
+            builder.length(readVarint(in));
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                builder.imports(string());
+            }
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                TypeNode type = take(TypeNode.class);
+                fileTypes.put(type.getQIdentifier(), type);
+                typeCount++;
+                builder.type(type);
+            }
+
+            return builder.create();
+        }
+
+        /**
+         * Reads a type section, less its tag.
+         * 
+         * @return The type
+         * @throws IOException
+         *             if the input fails or is corrupt
+         */
+        private TypeNode type() throws IOException
+        {
+            String qId = string();
+            TypeNode.Builder builder = TypeNode.builder(string(), qId);
+            String parent = optString();
+            if (parent != null)
+                builder.parent(parent);
+            metrics(builder::metric);
+
+            int flags = in.readByte();
+            if ((flags & INTERFACE) != 0)
+                builder.isInterface();
+            if ((flags & ABSTRACT) != 0)
+                builder.isAbstract();
+            int start = readSigned(in);
+            builder.range(start, start + readSigned(in));
+
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                builder.method(take(MethodNode.class));
+            }
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                builder.field(take(FieldNode.class));
+            }
+
+            return builder.create();
+        }
+
+        /**
+         * Reads a method section, less its tag.
+         * 
+         * @return The method
+         * @throws IOException
+         *             if the input fails or is corrupt
+         */
+        private MethodNode method() throws IOException
+        {
+            String qId = string();
+            MethodNode.Builder builder = MethodNode.builder(string(), qId);
+            String parent = optString();
+            if (parent != null)
+                builder.parent(parent);
+            metrics(builder::metric);
+
+            int flags = in.readByte();
+            builder.constructor((flags & CONSTRUCT) != 0)
+                    .isAbstract((flags & ABSTRACT) != 0)
+                    .accessor((flags & ACCESSOR) != 0);
+            if ((flags & STATIC) != 0)
+                builder.isStatic();
+            if ((flags & FINAL) != 0)
+                builder.isFinal();
+            int start = readSigned(in);
+            builder.range(start, start + readSigned(in));
+
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                builder.statement(take(StatementNode.class));
+            }
+
+            return builder.create();
+        }
+
+        /**
+         * Reads a field section, less its tag.
+         * 
+         * @return The field
+         * @throws IOException
+         *             if the input fails or is corrupt
+         */
+        private FieldNode field() throws IOException
+        {
+            String qId = string();
+            FieldNode.Builder builder = FieldNode.builder(string(), qId);
+            String parent = optString();
+            if (parent != null)
+                builder.parent(parent);
+            metrics(builder::metric);
+
+            int start = readSigned(in);
+            builder.range(start, start + readSigned(in));
+
+            return builder.create();
+        }
+
+        /**
+         * Reads a statement section, less its tag. The identifier is restored
+         * verbatim, along with the metrics of the statement.
+         * 
+         * @return The statement
+         * @throws IOException
+         *             if the input fails or is corrupt
+         */
+        private StatementNode statement() throws IOException
+        {
+            String qId = string();
+            string();
+            String parent = optString();
+            Map<String, Double> metrics = Maps.newLinkedHashMap();
+            metrics(metrics::put);
+
+            StatementType type;
+            try
+            {
+                type = StatementType.valueOf(string());
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IOException("Corrupt snapshot: unknown statement type.", e);
+            }
+
+            StatementNode.Builder builder = StatementNode.builder(type, qId);
+            if (parent != null)
+                builder.parent(parent);
+            metrics.forEach(builder::metric);
+            int start = readSigned(in);
+            builder.range(start, start + readSigned(in));
+
+            return builder.create();
+        }
+
+        /**
+         * Reads the metrics of a section.
+         * 
+         * @param sink
+         *            Receives each metric name and value
+         * @throws IOException
+         *             if the input fails or is corrupt
+         */
+        private void metrics(BiConsumer<String, Double> sink) throws IOException
+        {
+            for (int i = readVarint(in); i > 0; i--)
+            {
+                String metric = string();
+                sink.accept(metric, in.readDouble());
+            }
+        }
+
+        /**
+         * Claims the node whose section offset is read next.
+         * 
+         * @param kind
+         *            The expected kind of node
+         * @return The node
+         * @throws IOException
+         *             if the input fails, or the offset does not belong to an
+         *             unclaimed node of the given kind
+         */
+        private <T extends AbstractNode> T take(Class<T> kind) throws IOException
+        {
+            int offset = in.readInt();
+            AbstractNode node = pending.remove(offset);
+            if (!kind.isInstance(node))
+                throw new IOException("Corrupt snapshot: no " + kind.getSimpleName() + " section at " + offset + ".");
+
+            return kind.cast(node);
+        }
+
+        /**
+         * @return The string whose table index is read next
+         * @throws IOException
+         *             if the input fails or the index is out of range
+         */
+        private String string() throws IOException
+        {
+            int index = readVarint(in);
+            if (index < 0 || index >= strings.length)
+                throw new IOException("Corrupt snapshot: string index " + index + " out of range.");
+
+            return strings[index];
+        }
+
+        /**
+         * @return The string whose table index plus one is read next, or null
+         *         if that is zero
+         * @throws IOException
+         *             if the input fails or the index is out of range
+         */
+        private String optString() throws IOException
+        {
+            int index = readVarint(in);
+            if (index == 0)
+                return null;
+            if (index > strings.length)
+                throw new IOException("Corrupt snapshot: string index " + index + " out of range.");
+
+            return strings[index - 1];
+        }
+    }
+}
@@ -0,0 +1,586 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import static edu.montana.gsoc.msusel.snapshot.SnapshotFormat.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.node.CodeNode;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * Writes CodeTrees in the binary snapshot format described by
+ * {@link SnapshotFormat}. The tree is walked twice: once to build the string
+ * table, and once to write the node sections, children first so that the
+ * offsets of their sections are known when their parent is written.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class SnapshotWriter {
+
+    /**
+     * Writes the given tree to the provided stream. The stream is flushed but
+     * not closed.
+     * 
+     * @param tree
+     *            The tree
+     * @param out
+     *            The stream
+     * @throws IOException
+     *             if the stream fails, or the snapshot would exceed 2GB
+     */
+    public void write(CodeTree tree, OutputStream out) throws IOException
+    {
+        ProjectNode root = tree.getProject();
+        Session session = new Session(new DataOutputStream(new BufferedOutputStream(out)));
+        if (root != null)
+            session.collect(root);
+
+        session.header();
+        session.finish(root == null ? -1 : session.node(root));
+    }
+
+    /**
+     * The state of a single write of a tree.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    private static class Session {
+
+        /**
+         * The output
+         */
+        private final DataOutputStream     out;
+        /**
+         * Strings of the tree, gathered before the string table is written
+         */
+        private final Set<String>          collected = Sets.newHashSet();
+        /**
+         * String table, mapping each string to its index
+         */
+        private final Map<String, Integer> strings   = Maps.newHashMap();
+        /**
+         * Types held by the files of the tree, which namespaces refer to
+         * rather than repeat
+         */
+        private final Set<TypeNode>        fileTypes = Sets.newIdentityHashSet();
+        /**
+         * Entries of the type index, each packing a string index above a
+         * section offset
+         */
+        private long[]                     typeIndex = new long[16];
+        /**
+         * Number of entries of the type index
+         */
+        private int                        typeCount;
+
+        /**
+         * Constructs a new Session
+         * 
+         * @param out
+         *            The output
+         */
+        Session(DataOutputStream out)
+        {
+            this.out = out;
+        }
+
+        /**
+         * Adds the strings of the given node and its contents to those of the
+         * string table.
+         * 
+         * @param node
+         *            The node
+         */
+        void collect(AbstractNode node)
+        {
+            collected.add(node.getQIdentifier());
+            collected.add(node.getName());
+            if (node.getParentID() != null)
+                collected.add(node.getParentID());
+            collected.addAll(node.getMetricNames());
+
+            if (node instanceof FileNode)
+            {
+                FileNode file = (FileNode) node;
+                collected.addAll(file.getImports());
+                fileTypes.addAll(file.getTypes());
+            }
+            else if (node instanceof NamespaceNode)
+            {
+                ((NamespaceNode) node).getTypes().forEach(this::collect);
+            }
+            else if (node instanceof StatementNode)
+            {
+                collected.add(((StatementNode) node).getStatementType().name());
+            }
+
+            for (AbstractNode child : node.getChildren())
+            {
+                collect(child);
+            }
+        }
+
+        /**
+         * Writes the magic number, version and sorted string table.
+         * 
+         * @throws IOException
+         *             if the output fails
+         */
+        void header() throws IOException
+        {
+            String[] table = collected.toArray(new String[collected.size()]);
+            Arrays.sort(table);
+            byte[][] encoded = new byte[table.length][];
+
+            out.writeInt(MAGIC);
+            writeVarint(out, VERSION);
+            writeVarint(out, table.length);
+            out.writeInt(0);
+            int end = 0;
+            for (int i = 0; i < table.length; i++)
+            {
+                strings.put(table[i], i);
+                encoded[i] = table[i].getBytes(StandardCharsets.UTF_8);
+                end += encoded[i].length;
+                out.writeInt(end);
+            }
+            for (byte[] bytes : encoded)
+            {
+                out.write(bytes);
+            }
+        }
+
+        /**
+         * Ends the node sections and writes the type index and footer.
+         * 
+         * @param root
+         *            Offset of the root project's section, or -1 if none
+         * @throws IOException
+         *             if the output fails
+         */
+        void finish(int root) throws IOException
+        {
+            out.writeByte(NONE);
+
+            int index = position();
+            Arrays.sort(typeIndex, 0, typeCount);
+            for (int i = 0; i < typeCount; i++)
+            {
+                out.writeInt((int) (typeIndex[i] >>> 32));
+                out.writeInt((int) typeIndex[i]);
+            }
+
+            out.writeInt(root);
+            out.writeInt(index);
+            out.writeInt(typeCount);
+            out.writeInt(MAGIC);
+            out.flush();
+        }
+
+        /**
+         * Writes any kind of node, after its contents.
+         * 
+         * @param node
+         *            The node
+         * @return Offset of the node's section
+         * @throws IOException
+         *             if the output fails
+         */
+        int node(INode node) throws IOException
+        {
+            if (node instanceof ProjectNode)
+                return project((ProjectNode) node);
+            else if (node instanceof ModuleNode)
+                return module((ModuleNode) node);
+            else if (node instanceof NamespaceNode)
+                return namespace((NamespaceNode) node);
+            else if (node instanceof FileNode)
+                return file((FileNode) node);
+            else if (node instanceof TypeNode)
+                return type((TypeNode) node);
+            else if (node instanceof MethodNode)
+                return method((MethodNode) node);
+            else if (node instanceof FieldNode)
+                return field((FieldNode) node);
+            else if (node instanceof StatementNode)
+                return statement((StatementNode) node);
+            else
+                throw new IllegalArgumentException("Unknown node type: " + node.getClass().getName());
+        }
+
+        /**
+         * Writes a project section.
+         * 
+         * @param project
+         *            The project
+         * @return Offset of the section
+         * @throws IOException
+         *             if the output fails
+         */
+        private int project(ProjectNode project) throws IOException
+        {
+            int[] projects = children(project, ProjectNode.class);
+            int[] modules = children(project, ModuleNode.class);
+            int[] files = children(project, FileNode.class);
+            int[] namespaces = children(project, NamespaceNode.class);
+
+            int offset = common(PROJECT, project);
+            group(projects);
+            group(modules);
+            group(files);
+            group(namespaces);
+
+            return offset;
+        }
+
+        /**
+         * Writes a module section.
+         * 
+         * @param module
+         *            The module
+         * @return Offset of the section
+         * @throws IOException
+         *             if the output fails
+         */
+        private int module(ModuleNode module) throws IOException
+        {
+            int[] files = children(module, FileNode.class);
+            int[] namespaces = children(module, NamespaceNode.class);
+
+            int offset = common(MODULE, module);
+            group(files);
+            group(namespaces);
+
+            return offset;
+        }
+
+        /**
+         * Writes a namespace section. Types held by a file of the tree are
+         * written as references.
+         * 
+         * @param ns
+         *            The namespace
+         * @return Offset of the section
+         * @throws IOException
+         *             if the output fails
+         */
+        private int namespace(NamespaceNode ns) throws IOException
+        {
+            Set<TypeNode> types = ns.getTypes();
+            int[] inline = new int[types.size()];
+            int i = 0;
+            for (TypeNode type : types)
+            {
+                inline[i++] = fileTypes.contains(type) ? -1 : type(type);
+            }
+            int[] namespaces = children(ns, NamespaceNode.class);
+
+            int offset = common(NAMESPACE, ns);
+            writeVarint(out, inline.length);
+            i = 0;
+            for (TypeNode type : types)
+            {
+                if (inline[i] < 0)
+                {
+                    out.writeByte(REFERENCE);
+                    string(type.getQIdentifier());
+                }
+                else
+                {
+                    out.writeByte(TYPE);
+                    out.writeInt(inline[i]);
+                }
+                i++;
+            }
+            group(namespaces);
+
+            return offset;
+        }
+
+        /**
+         * Writes a file section, adding its types to the type index.
+         * 
+         * @param file
+         *            The file
+         * @return Offset of the section
+         * @throws IOException
+         *             if the output fails
+         */
+        private int file(FileNode file) throws IOException
+        {
+            int[] types = new int[file.getTypes().size()];
+            int i = 0;
+            for (AbstractNode child : file.getChildren())
+            {
+                if (child instanceof TypeNode)
+                {
+                    types[i] = type((TypeNode) child);
+                    if (typeCount == typeIndex.length)
+                        typeIndex = Arrays.copyOf(typeIndex, typeCount * 2);
+                    typeIndex[typeCount++] = (long) strings.get(child.getQIdentifier()) << 32 | types[i];
+                    i++;
+                }
+            }
+
+            int offset = common(FILE, file);
+            writeVarint(out, file.getLength());
+            writeVarint(out, file.getImports().size());
+            for (String imp : file.getImports())
+            {
+                string(imp);
+            }
+            group(Arrays.copyOf(types, i));
+
+            return offset;
+        }
+
+        /**
+         * Writes a type section.
+         * 
+         * @param type
+         *            The type
+         * @return Offset of the section
+         * @throws IOException
+         *             if the output fails
+         */
+        private int type(TypeNode type) throws IOException
+        {
+            int[] methods = children(type, MethodNode.class);
+            int[] fields = children(type, FieldNode.class);
+
+            int offset = common(TYPE, type);
+            out.writeByte((type.isInterface() ? INTERFACE : 0) | (type.isAbstract() ? ABSTRACT : 0));
+            lines(type);
+            group(methods);
+            group(fields);
+
+            return offset;
+        }
+
+        /**
+         * Writes a method section.
+         * 
+         * @param method
+         *            The method
+         * @return Offset of the section
+         * @throws IOException
+         *             if the output fails
+         */
+        private int method(MethodNode method) throws IOException
+        {
+            int[] statements = children(method, StatementNode.class);
+
+            int offset = common(METHOD, method);
+            out.writeByte((method.isAbstract() ? ABSTRACT : 0)
+                    | (method.isConstructor() ? CONSTRUCT : 0)
+                    | (method.isAccessorMethod() ? ACCESSOR : 0)
+                    | (method.isStatic() ? STATIC : 0)
+                    | (method.isFinal() ? FINAL : 0));
+            lines(method);
+            group(statements);
+
+            return offset;
+        }
+
+        /**
+         * Writes a field section.
+         * 
+         * @param field
+         *            The field
+         * @return Offset of the section
+         * @throws IOException
+         *             if the output fails
+         */
+        private int field(FieldNode field) throws IOException
+        {
+            int offset = common(FIELD, field);
+            lines(field);
+
+            return offset;
+        }
+
+        /**
+         * Writes a statement section.
+         * 
+         * @param stmt
+         *            The statement
+         * @return Offset of the section
+         * @throws IOException
+         *             if the output fails
+         */
+        private int statement(StatementNode stmt) throws IOException
+        {
+            int offset = common(STATEMENT, stmt);
+            string(stmt.getStatementType().name());
+            lines(stmt);
+
+            return offset;
+        }
+
+        /**
+         * Writes the tag, identifiers and metrics opening every section.
+         * 
+         * @param tag
+         *            Tag of the section
+         * @param node
+         *            The node
+         * @return Offset of the section
+         * @throws IOException
+         *             if the output fails, or the snapshot would exceed 2GB
+         */
+        private int common(byte tag, INode node) throws IOException
+        {
+            int offset = position();
+            out.writeByte(tag);
+            string(node.getQIdentifier());
+            string(node.getName());
+            writeVarint(out, node.getParentID() == null ? 0 : strings.get(node.getParentID()) + 1);
+
+            Set<String> metrics = node.getMetricNames();
+            writeVarint(out, metrics.size());
+            for (String metric : metrics)
+            {
+                string(metric);
+                out.writeDouble(node.getMetric(metric));
+            }
+
+            return offset;
+        }
+
+        /**
+         * Writes the sections of the children of the given node which are of
+         * the given kind.
+         * 
+         * @param parent
+         *            The parent node
+         * @param kind
+         *            The kind of child to write
+         * @return Offsets of the children's sections
+         * @throws IOException
+         *             if the output fails
+         */
+        private int[] children(AbstractNode parent, Class<? extends INode> kind) throws IOException
+        {
+            int count = 0;
+            for (AbstractNode child : parent.getChildren())
+            {
+                if (kind.isInstance(child))
+                    count++;
+            }
+
+            int[] offsets = new int[count];
+            int i = 0;
+            for (AbstractNode child : parent.getChildren())
+            {
+                if (kind.isInstance(child))
+                    offsets[i++] = node(child);
+            }
+
+            return offsets;
+        }
+
+        /**
+         * Writes a group of child section offsets, preceded by their count.
+         * 
+         * @param offsets
+         *            The offsets
+         * @throws IOException
+         *             if the output fails
+         */
+        private void group(int[] offsets) throws IOException
+        {
+            writeVarint(out, offsets.length);
+            for (int offset : offsets)
+            {
+                out.writeInt(offset);
+            }
+        }
+
+        /**
+         * Writes the line range of a code node.
+         * 
+         * @param node
+         *            The node
+         * @throws IOException
+         *             if the output fails
+         */
+        private void lines(CodeNode node) throws IOException
+        {
+            writeSigned(out, node.getStart());
+            writeSigned(out, node.getEnd() - node.getStart());
+        }
+
+        /**
+         * Writes the string table index of a string.
+         * 
+         * @param str
+         *            The string
+         * @throws IOException
+         *             if the output fails
+         */
+        private void string(String str) throws IOException
+        {
+            writeVarint(out, strings.get(str));
+        }
+
+        /**
+         * @return The number of bytes written so far
+         * @throws IOException
+         *             if the snapshot would exceed 2GB
+         */
+        private int position() throws IOException
+        {
+            if (out.size() == Integer.MAX_VALUE)
+                throw new IOException("Snapshot exceeds the 2GB limit of its offsets.");
+
+            return out.size();
+        }
+    }
+}
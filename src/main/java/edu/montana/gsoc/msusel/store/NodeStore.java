@@ -0,0 +1,788 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.CodeNode;
+import edu.montana.gsoc.msusel.node.INodeType;
+import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+import edu.montana.gsoc.msusel.util.Symbol;
+
+/**
+ * A store of node records kept in chunks of direct memory, as an alternative
+ * to the on-heap nodes of a CodeTree for trees too large for a reasonable
+ * heap. Each record is of a fixed size, and holds the kind, parent, line
+ * range and metric slots of a node, together with references to its
+ * qualified identifier and name, which are kept in a separate area of direct
+ * memory, and links to its first child, last child and next sibling, which
+ * thread the children of a node into a list without a separate allocation.
+ * Records are identified by their index in the store, assigned densely in the
+ * order in which they are added.
+ * <p>
+ * The heap holds nothing but the arrays of chunks and a table of metric
+ * slots, so the garbage collector neither traces nor copies the tree however
+ * large it grows. Records are read and written through {@link StoredNode}
+ * flyweights, which can be moved from record to record, or through the
+ * accessors of this class by record id. Direct memory is limited by
+ * {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap size.
+ * <p>
+ * Records are added by a single thread. Once added, records may be read, and
+ * their metrics updated, by any number of threads, although updates of the
+ * same record must be synchronized by the caller.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class NodeStore {
+
+    /**
+     * Kinds of nodes, indexed by their code in a record
+     */
+    static final List<String> KINDS         = ImmutableList.of(INodeType.PROJECT, INodeType.MODULE,
+            INodeType.NAMESPACE, INodeType.FILE, INodeType.TYPE, INodeType.METHOD, INodeType.FIELD,
+            INodeType.STATEMENT);
+    /**
+     * Default number of metric slots of a record
+     */
+    public static final int   DEFAULT_SLOTS = 8;
+    /**
+     * Largest number of metric slots of a record
+     */
+    public static final int   MAX_SLOTS     = 1024;
+    /**
+     * Log2 of the number of records in a chunk
+     */
+    static final int          CHUNK_BITS    = 14;
+    /**
+     * Offset of the kind of the node
+     */
+    private static final int  KIND          = 0;
+    /**
+     * Offset of the id of the parent, or -1
+     */
+    private static final int  PARENT        = 4;
+    /**
+     * Offset of the id of the first child, or -1
+     */
+    private static final int  FIRST         = 8;
+    /**
+     * Offset of the id of the last child, or -1
+     */
+    private static final int  LAST          = 12;
+    /**
+     * Offset of the id of the next sibling, or -1
+     */
+    private static final int  NEXT          = 16;
+    /**
+     * Offset of the first line
+     */
+    private static final int  START         = 20;
+    /**
+     * Offset of the last line
+     */
+    private static final int  END           = 24;
+    /**
+     * Offset of the hash of the qualified identifier
+     */
+    private static final int  HASH          = 28;
+    /**
+     * Offset of the reference to the qualified identifier
+     */
+    private static final int  QID           = 32;
+    /**
+     * Offset of the reference to the name
+     */
+    private static final int  NAME          = 40;
+    /**
+     * Offset of the metric slots
+     */
+    private static final int  METRICS       = 48;
+
+    /**
+     * Number of metric slots of a record
+     */
+    private final int         slots;
+    /**
+     * Size of a record, in bytes
+     */
+    private final int         recordSize;
+    /**
+     * Area holding identifiers and names
+     */
+    private final StringArea  strings       = new StringArea();
+    /**
+     * Chunks of records
+     */
+    private ByteBuffer[]      chunks        = new ByteBuffer[16];
+    /**
+     * Number of records
+     */
+    private int               size;
+    /**
+     * Open addressing table of record ids plus one, by qualified identifier
+     */
+    private ByteBuffer        table         = ByteBuffer.allocateDirect(1024 * 4);
+    /**
+     * Number of entries of the table
+     */
+    private int               tableSize;
+    /**
+     * Slot assigned to each metric registry id, plus one
+     */
+    private volatile int[]    slotOf        = new int[0];
+    /**
+     * Number of slots assigned so far
+     */
+    private int               slotsUsed;
+
+    /**
+     * Constructs a new NodeStore with the default number of metric slots.
+     */
+    public NodeStore()
+    {
+        this(DEFAULT_SLOTS);
+    }
+
+    /**
+     * Constructs a new NodeStore.
+     * 
+     * @param slots
+     *            Number of distinct metrics which can be stored
+     * @throws IllegalArgumentException
+     *             if the number of slots is negative or above
+     *             {@link #MAX_SLOTS}
+     */
+    public NodeStore(int slots)
+    {
+        if (slots < 0 || slots > MAX_SLOTS)
+            throw new IllegalArgumentException("Number of metric slots must be between 0 and " + MAX_SLOTS + ".");
+
+        this.slots = slots;
+        this.recordSize = METRICS + slots * 8;
+    }
+
+    /**
+     * Copies a tree into a new store, parents before their children. Metrics
+     * which do not fit into the default number of slots are dropped.
+     * 
+     * @param tree
+     *            The tree
+     * @return The store
+     */
+    public static NodeStore copyOf(CodeTree tree)
+    {
+        return copyOf(tree, DEFAULT_SLOTS);
+    }
+
+    /**
+     * Copies a tree into a new store, parents before their children. Metrics
+     * which do not fit into the given number of slots are dropped.
+     * 
+     * @param tree
+     *            The tree
+     * @param slots
+     *            Number of distinct metrics which can be stored
+     * @return The store
+     */
+    public static NodeStore copyOf(CodeTree tree, int slots)
+    {
+        NodeStore store = new NodeStore(slots);
+        if (tree.getProject() != null)
+            store.copy(tree.getProject(), -1);
+
+        return store;
+    }
+
+    /**
+     * Copies a node and its children.
+     * 
+     * @param node
+     *            The node
+     * @param parent
+     *            Id of the record of its parent, or -1
+     */
+    private void copy(AbstractNode node, int parent)
+    {
+        int start = 0;
+        int end = 0;
+        if (node instanceof CodeNode)
+        {
+            start = ((CodeNode) node).getStart();
+            end = ((CodeNode) node).getEnd();
+        }
+
+        int id = add(node.getType(), node.getSymbol(), node.getName(), parent, start, end);
+        MetricNameRegistry registry = MetricNameRegistry.getInstance();
+        for (String metric : node.getMetricNames())
+        {
+            int key = registry.id(metric);
+            int slot = slot(key, true);
+            if (slot >= 0)
+                setMetric(id, key, node.getMetric(key));
+        }
+
+        for (AbstractNode child : node.getChildren())
+        {
+            copy(child, id);
+        }
+    }
+
+    /**
+     * Adds a record for a node, as the last child of its parent.
+     * 
+     * @param type
+     *            INodeType of the node
+     * @param qid
+     *            Qualified identifier of the node
+     * @param name
+     *            Simple name of the node
+     * @param parent
+     *            Id of the record of the parent, or -1 for a root
+     * @param start
+     *            First line of the node
+     * @param end
+     *            Last line of the node
+     * @return Id of the new record
+     * @throws IllegalArgumentException
+     *             if the type is unknown, the identifier is null or empty, or
+     *             the parent does not exist
+     */
+    public int add(String type, String qid, String name, int parent, int start, int end)
+    {
+        int kind = KINDS.indexOf(type);
+        if (kind < 0)
+            throw new IllegalArgumentException("Unknown node type: " + type);
+        if (qid == null || qid.isEmpty())
+            throw new IllegalArgumentException("Identifier can be neither null nor empty.");
+        if (parent < -1 || parent >= size)
+            throw new IllegalArgumentException("No such parent record: " + parent);
+
+        return add(kind, qid.hashCode(), strings.add(qid), name, parent, start, end);
+    }
+
+    /**
+     * Adds a record for a node of a tree, as the last child of its parent,
+     * writing its qualified identifier straight from the symbol.
+     * 
+     * @param type
+     *            INodeType of the node
+     * @param qid
+     *            Symbol for the qualified identifier of the node
+     * @param name
+     *            Simple name of the node
+     * @param parent
+     *            Id of the record of the parent, or -1 for a root
+     * @param start
+     *            First line of the node
+     * @param end
+     *            Last line of the node
+     * @return Id of the new record
+     * @throws IllegalArgumentException
+     *             if the type is unknown
+     */
+    private int add(String type, Symbol qid, String name, int parent, int start, int end)
+    {
+        int kind = KINDS.indexOf(type);
+        if (kind < 0)
+            throw new IllegalArgumentException("Unknown node type: " + type);
+
+        return add(kind, qid.hashCode(), strings.add(qid), name, parent, start, end);
+    }
+
+    /**
+     * Adds a record, as the last child of its parent.
+     * 
+     * @param kind
+     *            Index of the INodeType of the node
+     * @param hash
+     *            Hash code of the qualified identifier of the node
+     * @param qid
+     *            Reference to the qualified identifier of the node
+     * @param name
+     *            Simple name of the node
+     * @param parent
+     *            Id of the record of the parent, or -1 for a root
+     * @param start
+     *            First line of the node
+     * @param end
+     *            Last line of the node
+     * @return Id of the new record
+     */
+    private int add(int kind, int hash, long qid, String name, int parent, int start, int end)
+    {
+        int id = size;
+        if (id == Integer.MAX_VALUE)
+            throw new IllegalStateException("Store is full.");
+        if ((id >>> CHUNK_BITS) == chunks.length)
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        if ((id & ((1 << CHUNK_BITS) - 1)) == 0)
+            chunks[id >>> CHUNK_BITS] = ByteBuffer.allocateDirect(recordSize << CHUNK_BITS);
+
+        ByteBuffer chunk = chunks[id >>> CHUNK_BITS];
+        int pos = pos(id);
+        chunk.putInt(pos + KIND, kind);
+        chunk.putInt(pos + PARENT, parent);
+        chunk.putInt(pos + FIRST, -1);
+        chunk.putInt(pos + LAST, -1);
+        chunk.putInt(pos + NEXT, -1);
+        chunk.putInt(pos + START, start);
+        chunk.putInt(pos + END, end);
+        chunk.putInt(pos + HASH, hash);
+        chunk.putLong(pos + QID, qid);
+        chunk.putLong(pos + NAME, name == null ? -1L : strings.add(name));
+        for (int i = 0; i < slots; i++)
+        {
+            chunk.putDouble(pos + METRICS + i * 8, Double.NaN);
+        }
+        size++;
+
+        if (parent >= 0)
+        {
+            int last = getInt(parent, LAST);
+            if (last < 0)
+                putInt(parent, FIRST, id);
+            else
+                putInt(last, NEXT, id);
+            putInt(parent, LAST, id);
+        }
+        index(id, hash);
+
+        return id;
+    }
+
+    /**
+     * @return The number of records
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return The number of metric slots of a record
+     */
+    public int getSlots()
+    {
+        return slots;
+    }
+
+    /**
+     * @return The number of bytes of direct memory allocated by this store
+     */
+    public long offHeapSize()
+    {
+        long records = 0;
+        for (ByteBuffer chunk : chunks)
+        {
+            if (chunk != null)
+                records += chunk.capacity();
+        }
+
+        return records + strings.capacity() + table.capacity();
+    }
+
+    /**
+     * Finds the first record added with the given qualified identifier.
+     * 
+     * @param qid
+     *            Qualified identifier
+     * @return Id of the record, or -1 if there is none
+     */
+    public int find(String qid)
+    {
+        if (qid == null)
+            return -1;
+
+        byte[] bytes = qid.getBytes(StandardCharsets.UTF_8);
+        int hash = qid.hashCode();
+        int mask = table.capacity() / 4 - 1;
+        for (int i = mix(hash) & mask;; i = (i + 1) & mask)
+        {
+            int entry = table.getInt(i * 4) - 1;
+            if (entry < 0)
+                return -1;
+            if (getInt(entry, HASH) == hash && strings.matches(getLong(entry, QID), bytes))
+                return entry;
+        }
+    }
+
+    /**
+     * @return A new flyweight, not yet moved to any record
+     */
+    public StoredNode flyweight()
+    {
+        return new StoredNode(this);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return A new flyweight for the given record
+     * @throws IllegalArgumentException
+     *             if there is no such record
+     */
+    public StoredNode node(int id)
+    {
+        return flyweight().moveTo(id);
+    }
+
+    /**
+     * @return A new flyweight for the first record, or null if the store is
+     *         empty
+     */
+    public StoredNode root()
+    {
+        return size == 0 ? null : node(0);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return true if the store holds a record with the given id, false
+     *         otherwise
+     */
+    public boolean contains(int id)
+    {
+        return id >= 0 && id < size;
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return The INodeType of the node
+     */
+    public String kind(int id)
+    {
+        return KINDS.get(getInt(id, KIND));
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return The qualified identifier of the node
+     */
+    public String qIdentifier(int id)
+    {
+        return strings.get(getLong(id, QID));
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return The simple name of the node, or null if none was given
+     */
+    public String name(int id)
+    {
+        long ref = getLong(id, NAME);
+        return ref < 0 ? null : strings.get(ref);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return Id of the record of the parent, or -1 if none
+     */
+    public int parent(int id)
+    {
+        return getInt(id, PARENT);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return Id of the record of the first child, or -1 if none
+     */
+    public int firstChild(int id)
+    {
+        return getInt(id, FIRST);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return Id of the record of the next sibling, or -1 if none
+     */
+    public int nextSibling(int id)
+    {
+        return getInt(id, NEXT);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return The first line of the node
+     */
+    public int start(int id)
+    {
+        return getInt(id, START);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return The last line of the node
+     */
+    public int end(int id)
+    {
+        return getInt(id, END);
+    }
+
+    /**
+     * Sets the line range of a node.
+     * 
+     * @param id
+     *            Id of a record
+     * @param start
+     *            First line of the node
+     * @param end
+     *            Last line of the node
+     */
+    public void setRange(int id, int start, int end)
+    {
+        putInt(id, START, start);
+        putInt(id, END, end);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @param key
+     *            Metric id, as assigned by the MetricNameRegistry
+     * @return Measurement value, or NaN if no such metric has been measured
+     *         for the node
+     */
+    public double getMetric(int id, int key)
+    {
+        int slot = slot(key, false);
+        return slot < 0 ? Double.NaN : chunk(id).getDouble(pos(id) + METRICS + slot * 8);
+    }
+
+    /**
+     * Stores a measurement value for a node, replacing any existing value.
+     * Nothing happens if the id is negative or the value is not finite.
+     * 
+     * @param id
+     *            Id of a record
+     * @param key
+     *            Metric id, as assigned by the MetricNameRegistry
+     * @param value
+     *            Measurement value
+     * @throws IllegalStateException
+     *             if the metric is new to the store, and all metric slots are
+     *             in use
+     */
+    public void setMetric(int id, int key, double value)
+    {
+        if (key < 0 || Double.isNaN(value) || Double.isInfinite(value))
+            return;
+
+        int slot = slot(key, true);
+        if (slot < 0)
+            throw new IllegalStateException("No metric slot left for " + MetricNameRegistry.getInstance().name(key));
+
+        chunk(id).putDouble(pos(id) + METRICS + slot * 8, value);
+    }
+
+    /**
+     * @return The registry ids of the metrics assigned a slot, in the order
+     *         of their slots
+     */
+    int[] metricKeys()
+    {
+        int[] map = slotOf;
+        int[] keys = new int[slotsUsed];
+        for (int key = 0; key < map.length; key++)
+        {
+            if (map[key] > 0 && map[key] <= keys.length)
+                keys[map[key] - 1] = key;
+        }
+
+        return keys;
+    }
+
+    /**
+     * Looks up the slot of a metric.
+     * 
+     * @param key
+     *            Metric id, as assigned by the MetricNameRegistry
+     * @param assign
+     *            Whether to assign a slot to a metric new to the store
+     * @return The slot, or -1 if the metric has no slot and none could be
+     *         assigned
+     */
+    private int slot(int key, boolean assign)
+    {
+        int[] map = slotOf;
+        if (key >= 0 && key < map.length && map[key] > 0)
+            return map[key] - 1;
+        if (!assign || key < 0)
+            return -1;
+
+        synchronized (this)
+        {
+            map = slotOf;
+            if (key < map.length && map[key] > 0)
+                return map[key] - 1;
+            if (slotsUsed == slots)
+                return -1;
+
+            map = Arrays.copyOf(map, Math.max(map.length, key + 1));
+            map[key] = ++slotsUsed;
+            slotOf = map;
+
+            return slotsUsed - 1;
+        }
+    }
+
+    /**
+     * Adds a record to the table of identifiers, growing the table as needed.
+     * 
+     * @param id
+     *            Id of the record
+     * @param hash
+     *            Hash of its qualified identifier
+     */
+    private void index(int id, int hash)
+    {
+        if ((tableSize + 1) * 2 > table.capacity() / 4)
+        {
+            ByteBuffer old = table;
+            table = ByteBuffer.allocateDirect(old.capacity() * 2);
+            for (int i = 0; i < old.capacity() / 4; i++)
+            {
+                int entry = old.getInt(i * 4) - 1;
+                if (entry >= 0)
+                    insert(entry, getInt(entry, HASH));
+            }
+        }
+
+        insert(id, hash);
+        tableSize++;
+    }
+
+    /**
+     * Inserts a record into the table of identifiers.
+     * 
+     * @param id
+     *            Id of the record
+     * @param hash
+     *            Hash of its qualified identifier
+     */
+    private void insert(int id, int hash)
+    {
+        int mask = table.capacity() / 4 - 1;
+        int i = mix(hash) & mask;
+        while (table.getInt(i * 4) != 0)
+        {
+            i = (i + 1) & mask;
+        }
+
+        table.putInt(i * 4, id + 1);
+    }
+
+    /**
+     * Spreads the bits of a hash over the table.
+     * 
+     * @param hash
+     *            A hash
+     * @return The mixed hash
+     */
+    private static int mix(int hash)
+    {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return The chunk holding the record
+     * @throws IllegalArgumentException
+     *             if there is no such record
+     */
+    private ByteBuffer chunk(int id)
+    {
+        if (id < 0 || id >= size)
+            throw new IllegalArgumentException("No such record: " + id);
+
+        return chunks[id >>> CHUNK_BITS];
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return Position of the record in its chunk
+     */
+    private int pos(int id)
+    {
+        return (id & ((1 << CHUNK_BITS) - 1)) * recordSize;
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @param field
+     *            Offset of a field of the record
+     * @return The value of the field
+     */
+    private int getInt(int id, int field)
+    {
+        return chunk(id).getInt(pos(id) + field);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @param field
+     *            Offset of a field of the record
+     * @return The value of the field
+     */
+    private long getLong(int id, int field)
+    {
+        return chunk(id).getLong(pos(id) + field);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @param field
+     *            Offset of a field of the record
+     * @param value
+     *            The new value of the field
+     */
+    private void putInt(int id, int field, int value)
+    {
+        chunk(id).putInt(pos(id) + field, value);
+    }
+}
@@ -0,0 +1,511 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.store;
+
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.node.CodeNode;
+import edu.montana.gsoc.msusel.util.MetricKey;
+import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+import edu.montana.gsoc.msusel.util.Symbol;
+
+/**
+ * Flyweight for a record of a {@link NodeStore}. A flyweight only holds the
+ * id of the record it is positioned at, reading and writing whatever is asked
+ * of it from the store, and may be moved from record to record, so that a
+ * whole store can be walked with a single flyweight and no allocation beyond
+ * the strings and lists asked for. Two flyweights are equal when they are
+ * positioned at the same record of the same store.
+ * <p>
+ * Ids returned by {@link #getId()} are those of the records in the store,
+ * rather than ids assigned by a CodeTree. Records are linked to their parents
+ * when they are added, so stored nodes can neither be reparented nor cloned
+ * onto the heap.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class StoredNode implements INode {
+
+    /**
+     * The store holding the record
+     */
+    private final NodeStore store;
+    /**
+     * Id of the record, or -1 before the flyweight is first moved
+     */
+    private int             id = -1;
+
+    /**
+     * Constructs a new StoredNode
+     * 
+     * @param store
+     *            The store holding the record
+     */
+    StoredNode(NodeStore store)
+    {
+        this.store = store;
+    }
+
+    /**
+     * Moves this flyweight to the given record.
+     * 
+     * @param id
+     *            Id of a record
+     * @return This flyweight
+     * @throws IllegalArgumentException
+     *             if there is no such record
+     */
+    public StoredNode moveTo(int id)
+    {
+        if (!store.contains(id))
+            throw new IllegalArgumentException("No such record: " + id);
+
+        this.id = id;
+        return this;
+    }
+
+    /**
+     * Moves this flyweight to the record of the parent, if any.
+     * 
+     * @return true if the flyweight moved, false if there is no parent
+     */
+    public boolean toParent()
+    {
+        return follow(store.parent(id));
+    }
+
+    /**
+     * Moves this flyweight to the record of the first child, if any.
+     * 
+     * @return true if the flyweight moved, false if there are no children
+     */
+    public boolean toFirstChild()
+    {
+        return follow(store.firstChild(id));
+    }
+
+    /**
+     * Moves this flyweight to the record of the next sibling, if any.
+     * 
+     * @return true if the flyweight moved, false if there is no next sibling
+     */
+    public boolean toNextSibling()
+    {
+        return follow(store.nextSibling(id));
+    }
+
+    /**
+     * @param next
+     *            Id of the record to move to, or -1
+     * @return true if the flyweight moved, false otherwise
+     */
+    private boolean follow(int next)
+    {
+        if (next < 0)
+            return false;
+
+        id = next;
+        return true;
+    }
+
+    /**
+     * @return The store holding the record
+     */
+    public NodeStore getStore()
+    {
+        return store;
+    }
+
+    /**
+     * @return New flyweights for the children of the node, in the order in
+     *         which they were added
+     */
+    public List<StoredNode> getChildren()
+    {
+        List<StoredNode> children = Lists.newArrayList();
+        for (int child = store.firstChild(id); child >= 0; child = store.nextSibling(child))
+        {
+            children.add(store.node(child));
+        }
+
+        return children;
+    }
+
+    /**
+     * @return A new flyweight for the parent of the node, or null if none
+     */
+    public StoredNode getParent()
+    {
+        int parent = store.parent(id);
+        return parent < 0 ? null : store.node(parent);
+    }
+
+    /**
+     * @return The first line of the node
+     */
+    public int getStart()
+    {
+        return store.start(id);
+    }
+
+    /**
+     * @return The last line of the node
+     */
+    public int getEnd()
+    {
+        return store.end(id);
+    }
+
+    /**
+     * Sets the line range of the node.
+     * 
+     * @param start
+     *            First line of the node
+     * @param end
+     *            Last line of the node
+     */
+    public void setRange(int start, int end)
+    {
+        store.setRange(id, start, end);
+    }
+
+    /**
+     * @param line
+     *            A line
+     * @return true if the line is within the range of the node, false
+     *         otherwise
+     */
+    public boolean containsLine(int line)
+    {
+        return line >= getStart() && line <= getEnd();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getType()
+    {
+        return store.kind(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addMetric(String name, Double value)
+    {
+        if (name == null || name.isEmpty() || value == null)
+            return;
+
+        addMetric(MetricNameRegistry.getInstance().id(name), value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws IllegalStateException
+     *             if the metric is new to the store, and all metric slots are
+     *             in use
+     */
+    @Override
+    public void addMetric(int id, double value)
+    {
+        store.setMetric(this.id, id, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addMetric(MetricKey key, double value)
+    {
+        if (key != null)
+            addMetric(key.getId(), value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrementMetric(String name, Double increment)
+    {
+        if (name == null || name.isEmpty() || increment == null)
+            return;
+
+        incrementMetric(MetricNameRegistry.getInstance().id(name), increment);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrementMetric(int id, double increment)
+    {
+        if (id < 0 || Double.isNaN(increment) || Double.isInfinite(increment))
+            return;
+
+        double value = getMetric(id);
+        addMetric(id, Double.isNaN(value) ? increment : value + increment);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrementMetric(MetricKey key, double increment)
+    {
+        if (key != null)
+            incrementMetric(key.getId(), increment);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Double getMetric(String metric)
+    {
+        double value = getMetric(MetricNameRegistry.getInstance().id(metric));
+        return Double.isNaN(value) ? null : value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getMetric(int id)
+    {
+        return store.getMetric(this.id, id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getMetric(MetricKey key)
+    {
+        return key == null ? Double.NaN : getMetric(key.getId());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasMetric(String metric)
+    {
+        return hasMetric(MetricNameRegistry.getInstance().id(metric));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasMetric(int id)
+    {
+        return !Double.isNaN(getMetric(id));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasMetric(MetricKey key)
+    {
+        return key != null && hasMetric(key.getId());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getQIdentifier()
+    {
+        return store.qIdentifier(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Symbol getSymbol()
+    {
+        return Symbol.parse(getQIdentifier(), getName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName()
+    {
+        return store.name(id);
+    }
+
+    /**
+     * Copies the metrics of the other node, and its line range if it has one.
+     * 
+     * @param other
+     *            Node to be merged into this node.
+     */
+    @Override
+    public void update(INode other)
+    {
+        if (other == null)
+            return;
+
+        for (String metric : other.getMetricNames())
+        {
+            addMetric(metric, other.getMetric(metric));
+        }
+
+        if (other instanceof CodeNode)
+            setRange(((CodeNode) other).getStart(), ((CodeNode) other).getEnd());
+        else if (other instanceof StoredNode)
+            setRange(((StoredNode) other).getStart(), ((StoredNode) other).getEnd());
+    }
+
+    /**
+     * Not supported, records of a store cannot be cloned onto the heap.
+     * 
+     * @throws UnsupportedOperationException
+     *             always
+     */
+    @Override
+    public INode cloneNoChildren()
+    {
+        throw new UnsupportedOperationException("Stored nodes cannot be cloned.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getMetricNames()
+    {
+        Set<String> names = Sets.newLinkedHashSet();
+        MetricNameRegistry registry = MetricNameRegistry.getInstance();
+        for (int key : store.metricKeys())
+        {
+            if (hasMetric(key))
+                names.add(registry.name(key));
+        }
+
+        return names;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addMetrics(List<Pair<String, Double>> join)
+    {
+        for (Pair<String, Double> pair : join)
+        {
+            addMetric(pair.getKey(), pair.getValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getParentID()
+    {
+        int parent = store.parent(id);
+        return parent < 0 ? null : store.qIdentifier(parent);
+    }
+
+    /**
+     * Not supported, records are linked to their parents when they are added.
+     * 
+     * @throws UnsupportedOperationException
+     *             always
+     */
+    @Override
+    public void setParentID(String id)
+    {
+        throw new UnsupportedOperationException("Stored nodes cannot be reparented.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasParent()
+    {
+        return store.parent(id) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        return 31 * System.identityHashCode(store) + id;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof StoredNode))
+            return false;
+        StoredNode other = (StoredNode) obj;
+
+        return store == other.store && id == other.id;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return getType() + ":" + getQIdentifier();
+    }
+}
@@ -0,0 +1,330 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import edu.montana.gsoc.msusel.util.Symbol;
+
+/**
+ * Append-only area of direct memory holding the strings of a
+ * {@link NodeStore}. Strings are encoded as their UTF-8 length followed by
+ * their bytes, and never straddle a chunk: a reference to a string packs the
+ * index of its chunk in the upper half, and its position within the chunk in
+ * the lower half. Strings longer than a chunk are given a chunk of their own.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+final class StringArea {
+
+    /**
+     * Default size of a chunk, in bytes
+     */
+    static final int     CHUNK = 1 << 20;
+
+    /**
+     * The chunks allocated so far
+     */
+    private ByteBuffer[] chunks = new ByteBuffer[16];
+    /**
+     * Number of chunks allocated so far
+     */
+    private int          count;
+    /**
+     * Number of bytes allocated so far
+     */
+    private long         capacity;
+    /**
+     * Encoder used to append symbols
+     */
+    private final Encoder encoder = new Encoder();
+
+    /**
+     * Appends a string.
+     * 
+     * @param str
+     *            The string
+     * @return Reference to the string
+     */
+    long add(String str)
+    {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer chunk = reserve(4 + bytes.length);
+        long ref = ((long) (count - 1) << 32) | chunk.position();
+        chunk.putInt(bytes.length);
+        chunk.put(bytes);
+
+        return ref;
+    }
+
+    /**
+     * Appends the identifier a symbol spells, encoding it straight from the
+     * symbol rather than building the identifier string.
+     * 
+     * @param symbol
+     *            The symbol
+     * @return Reference to the identifier
+     */
+    long add(Symbol symbol)
+    {
+        int length = encoder.encode(symbol, null);
+
+        ByteBuffer chunk = reserve(4 + length);
+        long ref = ((long) (count - 1) << 32) | chunk.position();
+        chunk.putInt(length);
+        encoder.encode(symbol, chunk);
+
+        return ref;
+    }
+
+    /**
+     * Decodes a string.
+     * 
+     * @param ref
+     *            Reference to the string
+     * @return The string
+     */
+    String get(long ref)
+    {
+        ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+        int pos = (int) ref;
+        byte[] bytes = new byte[chunk.getInt(pos)];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = chunk.get(pos + 4 + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares a string with the UTF-8 encoding of another, without decoding
+     * it.
+     * 
+     * @param ref
+     *            Reference to the string
+     * @param bytes
+     *            UTF-8 encoding of the other string
+     * @return true if both strings are equal, false otherwise
+     */
+    boolean matches(long ref, byte[] bytes)
+    {
+        ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+        int pos = (int) ref;
+        if (chunk.getInt(pos) != bytes.length)
+            return false;
+
+        for (int i = 0; i < bytes.length; i++)
+        {
+            if (chunk.get(pos + 4 + i) != bytes[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The number of bytes of direct memory allocated so far
+     */
+    long capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * @param size
+     *            Number of bytes to be appended
+     * @return The current chunk, or a new one if the current chunk does not
+     *         have enough space left
+     */
+    private ByteBuffer reserve(int size)
+    {
+        ByteBuffer chunk = count == 0 ? null : chunks[count - 1];
+        if (chunk == null || chunk.remaining() < size)
+            chunk = allocate(Math.max(CHUNK, size));
+
+        return chunk;
+    }
+
+    /**
+     * Allocates a new chunk, which becomes the current one.
+     * 
+     * @param size
+     *            Size of the chunk in bytes
+     * @return The chunk
+     */
+    private ByteBuffer allocate(int size)
+    {
+        if (count == chunks.length)
+            chunks = Arrays.copyOf(chunks, count * 2);
+
+        ByteBuffer chunk = ByteBuffer.allocateDirect(size);
+        chunks[count++] = chunk;
+        capacity += size;
+
+        return chunk;
+    }
+
+    /**
+     * Encodes the characters appended to it as UTF-8, the way
+     * {@link String#getBytes(java.nio.charset.Charset)} does, replacing
+     * unpaired surrogates with '?'.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    private static final class Encoder implements Appendable {
+
+        /**
+         * Buffer receiving the encoding, or null if it is only measured
+         */
+        private ByteBuffer out;
+        /**
+         * Number of bytes of the encoding so far
+         */
+        private int        length;
+        /**
+         * High surrogate waiting for its low surrogate, or 0
+         */
+        private char       high;
+
+        /**
+         * @param symbol
+         *            The symbol
+         * @param out
+         *            Buffer receiving the encoding, or null to only measure
+         *            it
+         * @return Length of the encoding of the identifier the symbol spells
+         */
+        int encode(Symbol symbol, ByteBuffer out)
+        {
+            this.out = out;
+            length = 0;
+            high = 0;
+            try
+            {
+                symbol.appendTo(this);
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException(e);
+            }
+            if (high != 0)
+                put('?');
+            this.out = null;
+
+            return length;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Appendable append(CharSequence csq)
+        {
+            return append(csq, 0, csq.length());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Appendable append(CharSequence csq, int start, int end)
+        {
+            for (int i = start; i < end; i++)
+            {
+                append(csq.charAt(i));
+            }
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Appendable append(char c)
+        {
+            if (high != 0)
+            {
+                char h = high;
+                high = 0;
+                if (Character.isLowSurrogate(c))
+                {
+                    int cp = Character.toCodePoint(h, c);
+                    put(0xF0 | cp >> 18);
+                    put(0x80 | cp >> 12 & 0x3F);
+                    put(0x80 | cp >> 6 & 0x3F);
+                    put(0x80 | cp & 0x3F);
+                    return this;
+                }
+                put('?');
+            }
+
+            if (Character.isHighSurrogate(c))
+            {
+                high = c;
+            }
+            else if (Character.isLowSurrogate(c))
+            {
+                put('?');
+            }
+            else if (c < 0x80)
+            {
+                put(c);
+            }
+            else if (c < 0x800)
+            {
+                put(0xC0 | c >> 6);
+                put(0x80 | c & 0x3F);
+            }
+            else
+            {
+                put(0xE0 | c >> 12);
+                put(0x80 | c >> 6 & 0x3F);
+                put(0x80 | c & 0x3F);
+            }
+
+            return this;
+        }
+
+        /**
+         * @param b
+         *            Byte of the encoding
+         */
+        private void put(int b)
+        {
+            if (out != null)
+                out.put((byte) b);
+            length++;
+        }
+    }
+}
@@ -25,15 +25,20 @@
  */
 package edu.montana.gsoc.msusel.util;
 
-import java.util.Queue;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import com.google.common.collect.Queues;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
 
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.ChangeSet;
 import edu.montana.gsoc.msusel.CodeTree;
 import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.NodeView;
 import edu.montana.gsoc.msusel.node.FieldNode;
 import edu.montana.gsoc.msusel.node.FileNode;
 import edu.montana.gsoc.msusel.node.MethodNode;
@@ -44,17 +49,36 @@ import edu.montana.gsoc.msusel.node.StatementNode;
 import edu.montana.gsoc.msusel.node.TypeNode;
 
 /**
- * This class provides utility methods for modifying a given CodeTree.
+ * This class provides utility methods for modifying a given CodeTree. The
+ * methods updating the tree may be called from several threads: updates of
+ * the whole tree are always serialized, while updates of single files are
+ * serialized per file when the tree is in concurrent mode (see
+ * {@link CodeTree#enableConcurrency()}) and with all other updates otherwise.
  * 
  * @author Isaac Griffith
  * @version 1.1.0
  */
 public class CodeTreeUtils {
 
+    /**
+     * Number of locks over which the files of a tree are distributed
+     */
+    private static final int    FILE_LOCKS = 64;
+
     /**
      * The tree used for the various operations herein.
      */
-    private final CodeTree tree;
+    private final CodeTree      tree;
+    /**
+     * Held exclusively by updates of the whole tree, and shared by updates of
+     * single files in concurrent mode
+     */
+    private final ReadWriteLock treeLock  = new ReentrantReadWriteLock();
+    /**
+     * Locks serializing updates of the same file, selected by the qualified
+     * identifier of the file
+     */
+    private final Striped<Lock> fileLocks = Striped.lock(FILE_LOCKS);
 
     /**
      * Constructs a new CodeTreeUtils for the given tree.
@@ -70,6 +94,9 @@ public class CodeTreeUtils {
     /**
      * Extracts the code tree section from the root down to the provided node
      * and then everything below the node.
+     * Every node of the extracted section is copied; to extract a branch
+     * without copying it, use {@link edu.montana.gsoc.msusel.version.TreeVersion#extract(String)}
+     * on a published version of the tree.
      * 
      * @param node
      *            Node whose CodeTree is to be extracted.
@@ -258,11 +285,18 @@ public class CodeTreeUtils {
                 next = null;
             }
 
-            ProjectNode curProj = findProject(current.getQIdentifier());
-
-            fnode = curProj.getFile(tnode.getParentID()).cloneNoChildren();
+            fnode = fnode.cloneNoChildren();
 
-            curProj.addFile(fnode);
+            if (mnode != null)
+            {
+                ModuleNode mod = mnode.cloneNoChildren();
+                current.addModule(mod);
+                mod.addFile(fnode);
+            }
+            else
+            {
+                current.addFile(fnode);
+            }
 
             fnode.addType(tnode.cloneNoChildren());
 
@@ -310,11 +344,18 @@ public class CodeTreeUtils {
                 next = null;
             }
 
-            ProjectNode curProj = findProject(current.getQIdentifier());
+            fnode = fnode.cloneNoChildren();
 
-            fnode = curProj.getFile(tnode.getParentID()).cloneNoChildren();
-
-            curProj.addFile(fnode);
+            if (mnode != null)
+            {
+                ModuleNode mod = mnode.cloneNoChildren();
+                current.addModule(mod);
+                mod.addFile(fnode);
+            }
+            else
+            {
+                current.addFile(fnode);
+            }
 
             tnode = tnode.cloneNoChildren();
             fnode.addType(tnode);
@@ -350,22 +391,7 @@ public class CodeTreeUtils {
             return null;
         }
 
-        for (ProjectNode p : getProjects())
-        {
-            if (p.hasFile(qid))
-            {
-                return p.getFile(qid);
-            }
-            else
-            {
-                for (ModuleNode m : p.getModules())
-                {
-                    if (m.hasFile(qid))
-                        return m.getFile(qid);
-                }
-            }
-        }
-        return null;
+        return tree.getIndex().getFile(qid);
     }
 
     /**
@@ -380,13 +406,8 @@ public class CodeTreeUtils {
     {
         if (identifier == null || identifier.isEmpty())
             return null;
-        String[] ids = identifier.split("#");
-        TypeNode tn = findType(ids[0]);
-
-        if (tn != null)
-            return tn.getMethod(ids[1]);
 
-        return null;
+        return tree.getIndex().getMethod(identifier);
     }
 
     /**
@@ -404,15 +425,25 @@ public class CodeTreeUtils {
         if (qIdentifier == null || qIdentifier.isEmpty())
             return null;
 
-        Set<ProjectNode> projs = getProjects();
+        return tree.getIndex().getModule(qIdentifier);
+    }
 
-        for (ProjectNode p : projs)
-        {
-            if (p.hasModule(qIdentifier))
-                return p.getModule(qIdentifier);
-        }
+    /**
+     * Searches the CodeTree for a NamespaceNode with the given qualified
+     * identifier.
+     * 
+     * @param qIdentifier
+     *            Qualified Identifier
+     * @return The NamespaceNode with matching qualified identifier, or null if
+     *         the provided qualified identifier is null or empty or no such
+     *         matching NamespaceNode exists.
+     */
+    public NamespaceNode findNamespace(String qIdentifier)
+    {
+        if (qIdentifier == null || qIdentifier.isEmpty())
+            return null;
 
-        return null;
+        return tree.getIndex().getNamespace(qIdentifier);
     }
 
     /**
@@ -482,24 +513,7 @@ public class CodeTreeUtils {
         if (qid == null || qid.isEmpty())
             return null;
 
-        Queue<ProjectNode> queue = Queues.newArrayDeque();
-
-        if (this.tree.getProject() != null)
-            queue.offer(this.tree.getProject());
-
-        while (!queue.isEmpty())
-        {
-            ProjectNode node = queue.poll();
-            if (node.getQIdentifier().equals(qid))
-                return node;
-
-            for (ProjectNode pn : node.getSubProjects())
-            {
-                queue.offer(pn);
-            }
-        }
-
-        return null;
+        return tree.getIndex().getProject(qid);
     }
 
     /**
@@ -517,15 +531,7 @@ public class CodeTreeUtils {
         if (key == null || key.isEmpty())
             return null;
 
-        for (final TypeNode tnode : getTypes())
-        {
-            if (tnode.getQIdentifier().equals(key))
-            {
-                return tnode;
-            }
-        }
-
-        return null;
+        return tree.getIndex().getType(key);
     }
 
     /**
@@ -545,13 +551,7 @@ public class CodeTreeUtils {
             return null;
         }
 
-        for (FileNode fn : getFiles())
-        {
-            if (fn.getQIdentifier().equals(file))
-                return fn;
-        }
-
-        return null;
+        return tree.getIndex().getFile(file);
     }
 
     /**
@@ -559,20 +559,7 @@ public class CodeTreeUtils {
      */
     public Set<FileNode> getFiles()
     {
-        Set<FileNode> files = Sets.newHashSet();
-
-        Queue<ProjectNode> queue = Queues.newArrayDeque();
-
-        queue.add(tree.getProject());
-
-        while (!queue.isEmpty())
-        {
-            ProjectNode pn = queue.poll();
-            files.addAll(pn.getFiles());
-            queue.addAll(pn.getSubProjects());
-        }
-
-        return files;
+        return Sets.newHashSet(files());
     }
 
     /**
@@ -580,13 +567,7 @@ public class CodeTreeUtils {
      */
     public Set<MethodNode> getMethods()
     {
-        final Set<MethodNode> methods = Sets.newHashSet();
-
-        getTypes().forEach((type) -> {
-            methods.addAll(type.getMethods());
-        });
-
-        return methods;
+        return Sets.newHashSet(methods());
     }
 
     /**
@@ -595,20 +576,7 @@ public class CodeTreeUtils {
      */
     public Set<ProjectNode> getProjects()
     {
-        Set<ProjectNode> projs = Sets.newHashSet();
-        Queue<ProjectNode> q = Queues.newArrayDeque();
-
-        if (tree.getProject() != null)
-            q.offer(tree.getProject());
-
-        while (!q.isEmpty())
-        {
-            ProjectNode pnode = q.poll();
-            projs.add(pnode);
-            q.addAll(pnode.getSubProjects());
-        }
-
-        return projs;
+        return Sets.newHashSet(projects());
     }
 
     /**
@@ -616,43 +584,115 @@ public class CodeTreeUtils {
      */
     public Set<TypeNode> getTypes()
     {
-        final Set<TypeNode> types = Sets.newHashSet();
+        return Sets.newHashSet(types());
+    }
+
+    /**
+     * @return A lazy view of all files within the tree, which walks the live
+     *         tree rather than copying it.
+     */
+    public NodeView<FileNode> files()
+    {
+        return new NodeView<>(tree.getProject(), FileNode.class);
+    }
+
+    /**
+     * @return A lazy view of all methods within the tree, which walks the live
+     *         tree rather than copying it.
+     */
+    public NodeView<MethodNode> methods()
+    {
+        return new NodeView<>(tree.getProject(), MethodNode.class);
+    }
 
-        getFiles().forEach((file) -> {
-            types.addAll(file.getTypes());
-        });
+    /**
+     * @return A lazy view of all projects within the tree (including the root
+     *         project), which walks the live tree rather than copying it.
+     */
+    public NodeView<ProjectNode> projects()
+    {
+        return new NodeView<>(tree.getProject(), ProjectNode.class);
+    }
 
-        return types;
+    /**
+     * @return A lazy view of all types within the tree, which walks the live
+     *         tree rather than copying it.
+     */
+    public NodeView<TypeNode> types()
+    {
+        return new NodeView<>(tree.getProject(), TypeNode.class);
     }
 
     /**
      * Merges the CodeTree this class operates upon with the one provided.
+     * Subtrees of the provided tree which are unchanged with respect to this
+     * tree are skipped, see {@link AbstractNode#merge(INode)}. Nodes of the
+     * provided tree which are added to this tree are moved rather than copied,
+     * and are removed from the provided tree, which remains consistent.
      * 
      * @param other
      *            CodeTree to merge into the currently operated on CodeTree.
+     * @return The changes made to the currently operated on CodeTree
      */
-    public void merge(CodeTree other)
+    public ChangeSet merge(CodeTree other)
     {
-        if (other == null)
-            return;
+        ChangeSet changes = new ChangeSet();
+        if (other == null || other.getProject() == null)
+            return changes;
 
-        ProjectNode pn = other.getProject();
+        Lock lock = treeLock.writeLock();
+        lock.lock();
+        try
+        {
+            return merge(other.getProject());
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Merges the given project into the tree, either as the root project or as
+     * a subproject of it.
+     * 
+     * @param pn
+     *            Root project of the tree to merge
+     * @return The changes made to the tree
+     */
+    private ChangeSet merge(ProjectNode pn)
+    {
+        ChangeSet changes = new ChangeSet();
+        ProjectNode root = tree.getProject();
 
-        if (tree.getProject() == null)
+        if (root == null)
         {
-            tree.setProject(pn);
+            root = pn.cloneNoChildren();
+            tree.setProject(root);
+            root.merge(pn);
+            changes.recordAdded(root);
         }
-        if (pn.hasParent())
+        else if (pn.hasParent() && pn.getParentID().equals(root.getQIdentifier()))
         {
-            if (pn.getParentID().equals(tree.getProject().getQIdentifier()))
+            ProjectNode existing = root.getSubProject(pn.getQIdentifier());
+            if (existing == null)
             {
-                tree.getProject().addSubProject(pn);
+                ProjectNode sub = pn.cloneNoChildren();
+                root.addSubProject(sub);
+                sub.merge(pn);
+                changes.recordAdded(sub);
+            }
+            else
+            {
+                changes = existing.merge(pn);
             }
         }
-        else if (tree.getProject().equals(pn))
+        else if (root.getQIdentifier().equals(pn.getQIdentifier()))
         {
-            tree.getProject().update(pn);
+            changes = root.merge(pn);
         }
+
+        return changes;
     }
 
     /**
@@ -669,14 +709,22 @@ public class CodeTreeUtils {
             return;
         }
 
-        INode parent = findParent(findFile(file));
-        if (parent instanceof ProjectNode)
+        Lock lock = lockFile(file);
+        try
         {
-            ((ProjectNode) parent).removeFile(file);
+            INode parent = findParent(findFile(file));
+            if (parent instanceof ProjectNode)
+            {
+                ((ProjectNode) parent).removeFile(file);
+            }
+            else if (parent instanceof ModuleNode)
+            {
+                ((ModuleNode) parent).removeFile(file);
+            }
         }
-        else if (parent instanceof ModuleNode)
+        finally
         {
-            ((ModuleNode) parent).removeFile(file);
+            unlockFile(lock);
         }
     }
 
@@ -685,40 +733,61 @@ public class CodeTreeUtils {
      * searches the tree for a corresponding file matching the provided one. If
      * found the existing file is merged with the provided one. If no such file
      * exists, the new one is added to the tree. Finally, if the provided file
-     * is null, nothing happens.
+     * is null, or its parent cannot be found, nothing happens. In concurrent
+     * mode, updates of different files run in parallel.
      * 
      * @param node
      *            File to be used to update the tree.
+     * @return The changes made to the tree
      */
-    public synchronized void updateFile(final FileNode node)
+    public ChangeSet updateFile(final FileNode node)
     {
         if (node == null)
-            return;
+            return new ChangeSet();
+
+        Lock lock = lockFile(node.getQIdentifier());
+        try
+        {
+            return update(node);
+        }
+        finally
+        {
+            unlockFile(lock);
+        }
+    }
 
-        INode p = null;
-        if (findProject(node.getParentID()) != null)
-            p = findProject(node.getParentID());
+    /**
+     * Merges the given file into the tree, or adds it if the tree does not
+     * contain it yet. The caller holds the lock of the file.
+     * 
+     * @param node
+     *            File to be used to update the tree.
+     * @return The changes made to the tree
+     */
+    private ChangeSet update(final FileNode node)
+    {
+        ChangeSet changes = new ChangeSet();
+        ProjectNode project = findProject(node.getParentID());
+        ModuleNode module = project == null ? findModule(node.getParentID()) : null;
+
+        FileNode existing = null;
+        if (project != null)
+            existing = project.getFile(node.getQIdentifier());
+        else if (module != null)
+            existing = module.getFile(node.getQIdentifier());
         else
-            p = findModule(node.getParentID());
+            return changes;
 
-        if (p instanceof ProjectNode)
-        {
-            if (((ProjectNode) p).getFile(node.getQIdentifier()) == null)
-            {
-                ((ProjectNode) p).addFile(node);
-            }
+        if (existing != null)
+            return existing.merge(node);
 
-            ((ProjectNode) p).getFile(node.getQIdentifier()).update(node);
-        }
+        if (project != null)
+            project.addFile(node);
         else
-        {
-            if (((ModuleNode) p).getFile(node.getQIdentifier()) == null)
-            {
-                ((ModuleNode) p).addFile(node);
-            }
+            module.addFile(node);
+        changes.recordAdded(node);
 
-            ((ModuleNode) p).getFile(node.getQIdentifier()).update(node);
-        }
+        return changes;
     }
 
     /**
@@ -727,15 +796,76 @@ public class CodeTreeUtils {
      * 
      * @param node
      *            Project to merge into the root project of the tree.
+     * @return The changes made to the tree
      */
-    public synchronized void updateRootProject(final ProjectNode node)
+    public ChangeSet updateRootProject(final ProjectNode node)
     {
+        ChangeSet changes = new ChangeSet();
         if (node == null)
+            return changes;
+
+        Lock lock = treeLock.writeLock();
+        lock.lock();
+        try
+        {
+            if (tree.getProject() == null)
+            {
+                tree.setProject(node);
+                changes.recordAdded(node);
+            }
+            else
+            {
+                changes = tree.getProject().merge(node);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        return changes;
+    }
+
+    /**
+     * Acquires the locks guarding an update of the file with the given
+     * identifier. In concurrent mode this shares the tree lock and holds the
+     * lock of the file, otherwise it holds the tree lock exclusively.
+     * 
+     * @param qid
+     *            Qualified identifier of the file
+     * @return The lock of the file, to be passed to
+     *         {@link #unlockFile(Lock)}, or null outside concurrent mode
+     */
+    private Lock lockFile(String qid)
+    {
+        if (!tree.isConcurrent())
+        {
+            treeLock.writeLock().lock();
+            return null;
+        }
+
+        treeLock.readLock().lock();
+        Lock lock = fileLocks.get(qid);
+        lock.lock();
+
+        return lock;
+    }
+
+    /**
+     * Releases the locks acquired by {@link #lockFile(String)}.
+     * 
+     * @param lock
+     *            The lock of the file, or null outside concurrent mode
+     */
+    private void unlockFile(Lock lock)
+    {
+        if (lock == null)
+        {
+            treeLock.writeLock().unlock();
             return;
+        }
 
-        if (tree.getProject() == null)
-            tree.setProject(node);
-        else
-            tree.getProject().update(node);
+        lock.unlock();
+        treeLock.readLock().unlock();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+/**
+ * An immutable handle to a metric registered with the
+ * {@link MetricNameRegistry}. A key carries the acronym a name resolved to
+ * along with the acronym's id, so that code which holds on to a key never needs
+ * to resolve the metric's name again. Keys are equal when their ids are.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class MetricKey {
+
+    /**
+     * The acronym of the metric
+     */
+    private final String acronym;
+    /**
+     * The id of the metric
+     */
+    private final int    id;
+
+    /**
+     * Constructs a new MetricKey
+     * 
+     * @param acronym
+     *            The acronym of the metric
+     * @param id
+     *            The id of the metric
+     */
+    MetricKey(String acronym, int id)
+    {
+        this.acronym = acronym;
+        this.id = id;
+    }
+
+    /**
+     * @return The acronym of the metric
+     */
+    public String getAcronym()
+    {
+        return acronym;
+    }
+
+    /**
+     * @return The id of the metric
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        return id;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof MetricKey))
+            return false;
+
+        return id == ((MetricKey) obj).id;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return acronym;
+    }
+}
@@ -25,26 +25,35 @@
  */
 package edu.montana.gsoc.msusel.util;
 
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.collect.Maps;
 
 /**
  * A registration utility for metric names, given that most metrics have
- * different names depending on the tools producing them. Note that this is
- * implemented as a Singleton.
+ * different names depending on the tools producing them. Each known acronym is
+ * represented by an immutable {@link MetricKey}, shared by all of its
+ * alternate names, whose dense integer id nodes use to store metric values
+ * without hashing strings. Lookups are lock-free and registration may be
+ * performed from any thread. Note that this is implemented as a Singleton.
  * 
  * @author Isaac Griffith
- * @version 1.1.0
+ * @version 1.1.1
  */
 public class MetricNameRegistry {
 
     /**
-     * The mapping of names to the actual acronym used by the sparqline-metrics
-     * module. The index is the alternate name and the value is the known
-     * acronym.
+     * The mapping of names to the key of the acronym used by the
+     * sparqline-metrics module. The index is the alternate name, or the
+     * acronym itself, and the value is the key of the known acronym.
      */
-    private Map<String, String> nameMap;
+    private final ConcurrentMap<String, MetricKey> keys;
+    /**
+     * The keys of the known acronyms, indexed by their ids. Replaced rather
+     * than modified when a new acronym is registered.
+     */
+    private volatile MetricKey[]                   byId;
 
     /**
      * @return The single instance of this registry.
@@ -59,32 +68,91 @@ public class MetricNameRegistry {
      */
     private MetricNameRegistry()
     {
-        nameMap = Maps.newHashMap();
-        nameMap.put("LOC", "LOC");
-        nameMap.put("LoC", "LOC");
-        nameMap.put("CountLineCode", "LOC");
+        keys = Maps.newConcurrentMap();
+        byId = new MetricKey[0];
+        register("LOC", "LoC", "CountLineCode");
     }
 
     /**
      * Registers a metric acronym and its alternate names. If the acronym is
      * null nothing happens. If their are no alternative names, then simply the
-     * acronym is mapped to itself.
+     * acronym is mapped to itself. Registering an acronym which is already
+     * known keeps its existing key.
      * 
      * @param metric
      *            The metric acronym
      * @param alts
      *            The alternate names.
+     * @return The key of the acronym, or null if the acronym is null or empty.
      */
-    public void register(String metric, String... alts)
+    public synchronized MetricKey register(String metric, String... alts)
     {
         if (metric == null || metric.isEmpty())
-            return;
+            return null;
 
-        nameMap.put(metric, metric);
+        MetricKey key = keys.get(metric);
+        if (key == null || !key.getAcronym().equals(metric))
+        {
+            MetricKey[] ids = Arrays.copyOf(byId, byId.length + 1);
+            key = new MetricKey(metric, byId.length);
+            ids[key.getId()] = key;
+            byId = ids;
+        }
+
+        keys.put(metric, key);
         for (String alt : alts)
         {
-            nameMap.put(alt, metric);
+            if (alt != null && !alt.isEmpty())
+                keys.put(alt, key);
         }
+
+        return key;
+    }
+
+    /**
+     * Resolves the given name to the key of the acronym assigned to it.
+     * 
+     * @param name
+     *            A metric name.
+     * @return The key of the acronym associated with the given name, or null
+     *         if no such mapping exists or if the provided name is null or
+     *         empty.
+     */
+    public MetricKey key(String name)
+    {
+        if (name == null || name.isEmpty())
+            return null;
+
+        return keys.get(name);
+    }
+
+    /**
+     * Resolves the given name to the key of the acronym assigned to it,
+     * registering the name as an acronym of its own if it is not yet known.
+     * 
+     * @param name
+     *            A metric name.
+     * @return The key of the acronym associated with the given name, or null
+     *         if the provided name is null or empty.
+     */
+    public MetricKey keyOrRegister(String name)
+    {
+        MetricKey key = key(name);
+        return key != null ? key : register(name);
+    }
+
+    /**
+     * @param id
+     *            A metric id.
+     * @return The key with the given id, or null if no such key exists.
+     */
+    public MetricKey key(int id)
+    {
+        MetricKey[] ids = byId;
+        if (id < 0 || id >= ids.length)
+            return null;
+
+        return ids[id];
     }
 
     /**
@@ -97,10 +165,44 @@ public class MetricNameRegistry {
      */
     public String lookup(String name)
     {
-        if (name == null || name.isEmpty() || !nameMap.containsKey(name))
-            return null;
+        MetricKey key = key(name);
+        return key == null ? null : key.getAcronym();
+    }
 
-        return nameMap.get(name);
+    /**
+     * Looks up the id of the acronym assigned to the given name.
+     * 
+     * @param name
+     *            A metric name.
+     * @return The id of the acronym associated with the given name, or -1 if
+     *         no such mapping exists or if the provided name is null or empty.
+     */
+    public int id(String name)
+    {
+        MetricKey key = key(name);
+        return key == null ? -1 : key.getId();
+    }
+
+    /**
+     * Looks up the acronym with the given id.
+     * 
+     * @param id
+     *            A metric id.
+     * @return The acronym with the given id, or null if no such acronym
+     *         exists.
+     */
+    public String name(int id)
+    {
+        MetricKey key = key(id);
+        return key == null ? null : key.getAcronym();
+    }
+
+    /**
+     * @return The number of ids assigned so far
+     */
+    public int size()
+    {
+        return byId.length;
     }
 
     /**
@@ -0,0 +1,445 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.google.common.collect.Lists;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * Rolls metrics up the node hierarchy according to a set of
+ * {@link RollupSpec}s. The tree is evaluated bottom-up as a fork-join
+ * computation: projects and modules fork a task per child, while files and
+ * everything beneath them are folded sequentially within a single task. Each
+ * node combines the partial results (sum, count, min and max) of its children,
+ * so that means remain exact at every level, and writes the aggregated values
+ * into its own metrics map. Namespaces, which reference rather than contain
+ * their types, receive the aggregate of their types and sub-namespaces without
+ * contributing to their parent's values.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MetricRollup {
+
+    /**
+     * Nodes at or below this level are folded sequentially rather than forked
+     */
+    private static final int     FORK_LEVEL = 2;
+    /**
+     * Level assigned to types, and so the deepest level a namespace can reach
+     */
+    private static final int     TYPE_LEVEL = 3;
+    /**
+     * Index of the running sum within a spec's partial result
+     */
+    private static final int     SUM        = 0;
+    /**
+     * Index of the running count within a spec's partial result
+     */
+    private static final int     COUNT      = 1;
+    /**
+     * Index of the running minimum within a spec's partial result
+     */
+    private static final int     MIN        = 2;
+    /**
+     * Index of the running maximum within a spec's partial result
+     */
+    private static final int     MAX        = 3;
+    /**
+     * Width of a spec's partial result
+     */
+    private static final int     WIDTH      = 4;
+
+    /**
+     * The specs evaluated by this roll-up
+     */
+    private final RollupSpec[]   specs;
+    /**
+     * Registry id of each spec's source metric
+     */
+    private final int[]          metrics;
+    /**
+     * Registry id of each spec's target metric
+     */
+    private final int[]          targets;
+    /**
+     * Level of each spec's source node kind
+     */
+    private final int[]          levels;
+    /**
+     * Deepest level any spec reads from
+     */
+    private final int            depth;
+    /**
+     * The pool in which roll-ups are executed
+     */
+    private final ForkJoinPool   pool;
+
+    /**
+     * Constructs a new MetricRollup evaluating the given specs in the common
+     * fork-join pool.
+     * 
+     * @param specs
+     *            The specs to evaluate
+     */
+    public MetricRollup(RollupSpec... specs)
+    {
+        this(ForkJoinPool.commonPool(), Arrays.asList(specs));
+    }
+
+    /**
+     * Constructs a new MetricRollup evaluating the given specs in the
+     * provided pool. The source and target metrics of each spec are registered
+     * with the {@link MetricNameRegistry} if they are not already known.
+     * 
+     * @param pool
+     *            The pool in which roll-ups are executed
+     * @param specs
+     *            The specs to evaluate
+     * @throws IllegalArgumentException
+     *             If a spec reads from a kind of node which does not sit at a
+     *             single level of the hierarchy
+     */
+    public MetricRollup(ForkJoinPool pool, Collection<RollupSpec> specs)
+    {
+        if (pool == null)
+            throw new IllegalArgumentException("Pool cannot be null");
+
+        this.pool = pool;
+        this.specs = specs.toArray(new RollupSpec[specs.size()]);
+        this.metrics = new int[this.specs.length];
+        this.targets = new int[this.specs.length];
+        this.levels = new int[this.specs.length];
+
+        MetricNameRegistry registry = MetricNameRegistry.getInstance();
+        int deepest = 0;
+        for (int i = 0; i < this.specs.length; i++)
+        {
+            RollupSpec spec = this.specs[i];
+            levels[i] = level(spec.getSource());
+            if (levels[i] == Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Cannot roll up from " + spec.getSource().getSimpleName());
+
+            metrics[i] = registry.keyOrRegister(spec.getMetric()).getId();
+            targets[i] = registry.keyOrRegister(spec.getTarget()).getId();
+            deepest = Math.max(deepest, levels[i]);
+        }
+        depth = deepest;
+    }
+
+    /**
+     * Rolls metrics up through the given tree.
+     * 
+     * @param tree
+     *            The tree
+     */
+    public void rollup(CodeTree tree)
+    {
+        if (tree == null || tree.getProject() == null)
+            return;
+
+        rollup(tree.getProject());
+    }
+
+    /**
+     * Rolls metrics up through the given project and everything it contains.
+     * 
+     * @param project
+     *            The root project
+     */
+    public void rollup(ProjectNode project)
+    {
+        if (project == null || specs.length == 0)
+            return;
+
+        pool.invoke(new RollupTask(project));
+    }
+
+    /**
+     * Sequentially folds the given node and its descendants, writing the
+     * aggregated values into each if requested.
+     * 
+     * @param node
+     *            Node to fold
+     * @param write
+     *            Whether results are to be written into the nodes
+     * @return The partial results of the node
+     */
+    private double[] fold(AbstractNode node, boolean write)
+    {
+        if (node instanceof NamespaceNode)
+            return foldNamespace((NamespaceNode) node, write);
+
+        double[] acc = local(node);
+        if (level(node.getClass()) < depth)
+        {
+            for (AbstractNode child : node.getChildren())
+            {
+                if (!(child instanceof NamespaceNode))
+                    merge(acc, fold(child, write));
+                else if (write)
+                    foldNamespace((NamespaceNode) child, true);
+            }
+        }
+
+        if (write)
+            write(node, acc);
+
+        return acc;
+    }
+
+    /**
+     * Folds the given namespace from its types and sub-namespaces. The types
+     * themselves are only read, as they are written by the fold of the file
+     * which contains them.
+     * 
+     * @param ns
+     *            Namespace to fold
+     * @param write
+     *            Whether results are to be written into the namespaces
+     * @return The partial results of the namespace
+     */
+    private double[] foldNamespace(NamespaceNode ns, boolean write)
+    {
+        double[] acc = empty();
+        if (depth >= TYPE_LEVEL)
+        {
+            for (TypeNode type : ns.getTypes())
+                merge(acc, fold(type, false));
+        }
+        for (AbstractNode child : ns.getChildren())
+            merge(acc, foldNamespace((NamespaceNode) child, write));
+
+        if (write)
+            write(ns, acc);
+
+        return acc;
+    }
+
+    /**
+     * @return A partial result into which nothing has been accumulated
+     */
+    private double[] empty()
+    {
+        double[] acc = new double[specs.length * WIDTH];
+        for (int i = 0; i < specs.length; i++)
+        {
+            acc[i * WIDTH + MIN] = Double.POSITIVE_INFINITY;
+            acc[i * WIDTH + MAX] = Double.NEGATIVE_INFINITY;
+        }
+
+        return acc;
+    }
+
+    /**
+     * @param node
+     *            A node
+     * @return The partial result of the given node, including the values it
+     *         carries itself for any spec reading from its kind.
+     */
+    private double[] local(AbstractNode node)
+    {
+        double[] acc = empty();
+        int level = level(node.getClass());
+        for (int i = 0; i < specs.length; i++)
+        {
+            if (levels[i] != level || !specs[i].getSource().isInstance(node))
+                continue;
+
+            double value = node.getMetric(metrics[i]);
+            if (Double.isNaN(value))
+                continue;
+
+            int base = i * WIDTH;
+            acc[base + SUM] += value;
+            acc[base + COUNT] += 1;
+            acc[base + MIN] = Math.min(acc[base + MIN], value);
+            acc[base + MAX] = Math.max(acc[base + MAX], value);
+        }
+
+        return acc;
+    }
+
+    /**
+     * Merges one partial result into another.
+     * 
+     * @param into
+     *            The partial result to be updated
+     * @param from
+     *            The partial result to be merged
+     */
+    private void merge(double[] into, double[] from)
+    {
+        for (int base = 0; base < into.length; base += WIDTH)
+        {
+            into[base + SUM] += from[base + SUM];
+            into[base + COUNT] += from[base + COUNT];
+            into[base + MIN] = Math.min(into[base + MIN], from[base + MIN]);
+            into[base + MAX] = Math.max(into[base + MAX], from[base + MAX]);
+        }
+    }
+
+    /**
+     * Writes the aggregated values of each spec for which the given node sits
+     * above the spec's source. Aside from counts, nothing is written when no
+     * values were found.
+     * 
+     * @param node
+     *            The node
+     * @param acc
+     *            The partial result of the node
+     */
+    private void write(AbstractNode node, double[] acc)
+    {
+        int level = node instanceof NamespaceNode ? -1 : level(node.getClass());
+        for (int i = 0; i < specs.length; i++)
+        {
+            if (level >= levels[i] || (level < 0 && levels[i] < TYPE_LEVEL))
+                continue;
+
+            int base = i * WIDTH;
+            double count = acc[base + COUNT];
+            double value;
+            switch (specs[i].getAggregation())
+            {
+            case COUNT:
+                value = count;
+                break;
+            case SUM:
+                value = acc[base + SUM];
+                break;
+            case MEAN:
+                value = acc[base + SUM] / count;
+                break;
+            case MIN:
+                value = acc[base + MIN];
+                break;
+            default:
+                value = acc[base + MAX];
+                break;
+            }
+
+            if (count > 0 || specs[i].getAggregation() == Aggregation.COUNT)
+                node.addMetric(targets[i], value);
+        }
+    }
+
+    /**
+     * @param kind
+     *            A kind of node
+     * @return The depth at which the given kind of node sits in the
+     *         containment hierarchy, or Integer.MAX_VALUE if the kind is not
+     *         specific to one level.
+     */
+    private static int level(Class<?> kind)
+    {
+        if (ProjectNode.class.isAssignableFrom(kind))
+            return 0;
+        if (ModuleNode.class.isAssignableFrom(kind))
+            return 1;
+        if (FileNode.class.isAssignableFrom(kind))
+            return 2;
+        if (TypeNode.class.isAssignableFrom(kind))
+            return 3;
+        if (MethodNode.class.isAssignableFrom(kind) || FieldNode.class.isAssignableFrom(kind))
+            return 4;
+        if (StatementNode.class.isAssignableFrom(kind))
+            return 5;
+
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * A fork-join task rolling metrics up through a single node.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    private class RollupTask extends RecursiveTask<double[]> {
+
+        /**
+         * Generated serial version UID
+         */
+        private static final long  serialVersionUID = -2263946712387651025L;
+        /**
+         * The node rolled up by this task
+         */
+        private final AbstractNode node;
+
+        /**
+         * Constructs a new RollupTask for the given node
+         * 
+         * @param node
+         *            The node
+         */
+        RollupTask(AbstractNode node)
+        {
+            this.node = node;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected double[] compute()
+        {
+            if (node instanceof NamespaceNode || level(node.getClass()) >= FORK_LEVEL
+                    || level(node.getClass()) >= depth)
+                return fold(node, true);
+
+            List<RollupTask> tasks = Lists.newArrayList();
+            for (AbstractNode child : node.getChildren())
+                tasks.add(new RollupTask(child));
+            invokeAll(tasks);
+
+            double[] acc = local(node);
+            for (RollupTask task : tasks)
+            {
+                if (!(task.node instanceof NamespaceNode))
+                    merge(acc, task.join());
+            }
+            write(node, acc);
+
+            return acc;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A compact map from metric ids, as assigned by the
+ * {@link MetricNameRegistry}, to primitive measurement values. Entries are
+ * kept in a pair of parallel arrays ordered by id, so that lookups are binary
+ * searches and no values are boxed. Empty instances share a single pair of
+ * empty arrays, so nodes without metrics only pay for the instance itself.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class MetricValues {
+
+    /**
+     * Shared ids of instances holding no values
+     */
+    private static final int[]    NO_IDS    = new int[0];
+    /**
+     * Shared values of instances holding no values
+     */
+    private static final double[] NO_VALUES = new double[0];
+
+    /**
+     * The metric ids, in ascending order
+     */
+    private int[]                 ids       = NO_IDS;
+    /**
+     * The value of each metric id
+     */
+    private double[]              values    = NO_VALUES;
+    /**
+     * The number of entries in use
+     */
+    private int                   size;
+
+    /**
+     * @param id
+     *            A metric id
+     * @return true if a value is stored for the given id, false otherwise
+     */
+    public boolean has(int id)
+    {
+        return id >= 0 && Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    /**
+     * @param id
+     *            A metric id
+     * @return The value stored for the given id, or NaN if none is stored
+     */
+    public double get(int id)
+    {
+        int pos = id < 0 ? -1 : Arrays.binarySearch(ids, 0, size, id);
+        return pos < 0 ? Double.NaN : values[pos];
+    }
+
+    /**
+     * Stores the value for the given id, replacing any existing value. Nothing
+     * happens if the id is negative.
+     * 
+     * @param id
+     *            A metric id
+     * @param value
+     *            The value
+     */
+    public void put(int id, double value)
+    {
+        if (id < 0)
+            return;
+
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0)
+            values[pos] = value;
+        else
+            insert(-pos - 1, id, value);
+    }
+
+    /**
+     * Adds the increment to the value stored for the given id, storing the
+     * increment itself if no value exists. Nothing happens if the id is
+     * negative.
+     * 
+     * @param id
+     *            A metric id
+     * @param increment
+     *            The increment
+     */
+    public void add(int id, double increment)
+    {
+        if (id < 0)
+            return;
+
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0)
+            values[pos] += increment;
+        else
+            insert(-pos - 1, id, increment);
+    }
+
+    /**
+     * @return An independent copy of these values, holding no spare capacity
+     */
+    public MetricValues copy()
+    {
+        MetricValues copy = new MetricValues();
+        if (size > 0)
+        {
+            copy.ids = Arrays.copyOf(ids, size);
+            copy.values = Arrays.copyOf(values, size);
+            copy.size = size;
+        }
+
+        return copy;
+    }
+
+    /**
+     * @return The number of values stored
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @param index
+     *            Position of an entry, between 0 and {@link #size()}
+     * @return The metric id of the entry at the given position
+     */
+    public int idAt(int index)
+    {
+        return ids[index];
+    }
+
+    /**
+     * @param index
+     *            Position of an entry, between 0 and {@link #size()}
+     * @return The value of the entry at the given position
+     */
+    public double valueAt(int index)
+    {
+        return values[index];
+    }
+
+    /**
+     * @return The registered acronyms of the metrics stored
+     */
+    public Set<String> names()
+    {
+        MetricNameRegistry registry = MetricNameRegistry.getInstance();
+        Set<String> names = Sets.newLinkedHashSet();
+        for (int i = 0; i < size; i++)
+        {
+            names.add(registry.name(ids[i]));
+        }
+
+        return names;
+    }
+
+    /**
+     * Inserts a new entry at the given position, growing the arrays if
+     * needed.
+     * 
+     * @param pos
+     *            Position at which the entry belongs
+     * @param id
+     *            The metric id
+     * @param value
+     *            The value
+     */
+    private void insert(int pos, int id, double value)
+    {
+        if (size == ids.length)
+        {
+            int capacity = size + Math.max(2, size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        ids[pos] = id;
+        values[pos] = value;
+        size++;
+    }
+
+    /**
+     * Gson adapter writing metric values as an object mapping each acronym to
+     * its value, which is the same representation used for a map of names to
+     * values. When read, unknown names are registered so that no values are
+     * lost.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    public static class Adapter extends TypeAdapter<MetricValues> {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JsonWriter out, MetricValues metrics) throws IOException
+        {
+            if (metrics == null)
+            {
+                out.nullValue();
+                return;
+            }
+
+            MetricNameRegistry registry = MetricNameRegistry.getInstance();
+            out.beginObject();
+            for (int i = 0; i < metrics.size; i++)
+            {
+                out.name(registry.name(metrics.ids[i])).value(metrics.values[i]);
+            }
+            out.endObject();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public MetricValues read(JsonReader in) throws IOException
+        {
+            if (in.peek() == JsonToken.NULL)
+            {
+                in.nextNull();
+                return null;
+            }
+
+            MetricNameRegistry registry = MetricNameRegistry.getInstance();
+            MetricValues metrics = new MetricValues();
+            in.beginObject();
+            while (in.hasNext())
+            {
+                MetricKey key = registry.keyOrRegister(in.nextName());
+                double value = in.nextDouble();
+                if (key != null)
+                    metrics.put(key.getId(), value);
+            }
+            in.endObject();
+
+            return metrics;
+        }
+    }
+}
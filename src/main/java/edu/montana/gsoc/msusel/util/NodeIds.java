@@ -0,0 +1,269 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import edu.montana.gsoc.msusel.INode;
+
+/**
+ * Allocator of dense int ids for the nodes of a tree, together with the table
+ * from id back to node. Ids are handed out in sequence starting at 0, so that
+ * they can index primitive arrays kept alongside the tree, and released ids
+ * are handed out again before new ones, so that the ids stay dense as nodes
+ * are removed and added. Both allocation and lookup are lock-free: released
+ * ids are kept on a stack updated by compare-and-set, and the table is split
+ * into buckets of doubling size which are installed on first use by
+ * compare-and-set, so it never has to be copied as it grows.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class NodeIds {
+
+    /**
+     * Size of the first bucket, a power of two
+     */
+    private static final int FIRST_BUCKET = 1 << 10;
+    /**
+     * Number of buckets needed to cover every non-negative int
+     */
+    private static final int BUCKETS      = 22;
+
+    /**
+     * The next id to be handed out
+     */
+    private final AtomicInteger                                     next    = new AtomicInteger();
+    /**
+     * Number of ids currently assigned to a node
+     */
+    private final AtomicInteger                                     live    = new AtomicInteger();
+    /**
+     * Top of the stack of released ids, or null if there are none
+     */
+    private final AtomicReference<Free>                             free    = new AtomicReference<>();
+    /**
+     * The buckets of the table, bucket k holding FIRST_BUCKET * 2^k nodes
+     */
+    private final AtomicReferenceArray<AtomicReferenceArray<INode>> buckets = new AtomicReferenceArray<>(BUCKETS);
+
+    /**
+     * Assigns an id to the given node, the most recently released one if
+     * there is any, or else the next one.
+     * 
+     * @param node
+     *            The node
+     * @return The id of the node
+     * @throws IllegalStateException
+     *             if all ids have been handed out
+     */
+    public int register(INode node)
+    {
+        int id = reuse();
+        if (id < 0)
+            id = next.getAndIncrement();
+        if (id < 0)
+            throw new IllegalStateException("Node ids exhausted");
+
+        int bucket = bucket(id);
+        AtomicReferenceArray<INode> slots = buckets.get(bucket);
+        if (slots == null)
+        {
+            slots = new AtomicReferenceArray<>(size(bucket));
+            if (!buckets.compareAndSet(bucket, null, slots))
+                slots = buckets.get(bucket);
+        }
+        slots.set(id - start(bucket), node);
+        live.incrementAndGet();
+
+        return id;
+    }
+
+    /**
+     * Releases the id of the given node, to be handed out again.
+     * 
+     * @param id
+     *            The id
+     * @param node
+     *            The node the id is assigned to; if the id is assigned to
+     *            another node nothing happens
+     */
+    public void release(int id, INode node)
+    {
+        AtomicReferenceArray<INode> slots = slots(id);
+        if (slots != null && slots.compareAndSet(id - start(bucket(id)), node, null))
+        {
+            live.decrementAndGet();
+            Free top;
+            Free entry = new Free(id);
+            do
+            {
+                top = free.get();
+                entry.next = top;
+            }
+            while (!free.compareAndSet(top, entry));
+        }
+    }
+
+    /**
+     * Takes the most recently released id off the stack. Every entry is a
+     * fresh object, so an entry which is taken and pushed back again cannot
+     * be mistaken for the one it replaced.
+     * 
+     * @return The id, or -1 if no released id is available
+     */
+    private int reuse()
+    {
+        Free top;
+        do
+        {
+            top = free.get();
+            if (top == null)
+                return -1;
+        }
+        while (!free.compareAndSet(top, top.next));
+
+        return top.id;
+    }
+
+    /**
+     * @param id
+     *            An id
+     * @return The node the id is assigned to, or null if there is none
+     */
+    public INode get(int id)
+    {
+        AtomicReferenceArray<INode> slots = slots(id);
+
+        return slots == null ? null : slots.get(id - start(bucket(id)));
+    }
+
+    /**
+     * @return The number of distinct ids handed out so far; every id is less
+     *         than this, so it may serve as the length of arrays indexed by
+     *         id
+     */
+    public int bound()
+    {
+        return Math.max(next.get(), 0);
+    }
+
+    /**
+     * @return The number of ids currently assigned to a node
+     */
+    public int size()
+    {
+        return live.get();
+    }
+
+    /**
+     * Releases all ids and starts handing them out from 0 again. Must not be
+     * called while ids are being registered.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            buckets.set(i, null);
+        }
+        free.set(null);
+        live.set(0);
+        next.set(0);
+    }
+
+    /**
+     * @param id
+     *            An id
+     * @return The bucket holding the id, or null if the id is out of range or
+     *         its bucket has not been installed
+     */
+    private AtomicReferenceArray<INode> slots(int id)
+    {
+        if (id < 0 || id >= bound())
+            return null;
+
+        return buckets.get(bucket(id));
+    }
+
+    /**
+     * @param id
+     *            A non-negative id
+     * @return The number of the bucket holding the id
+     */
+    private static int bucket(int id)
+    {
+        return 31 - Integer.numberOfLeadingZeros(id / FIRST_BUCKET + 1);
+    }
+
+    /**
+     * @param bucket
+     *            Number of a bucket
+     * @return The first id held by the bucket
+     */
+    private static int start(int bucket)
+    {
+        return FIRST_BUCKET * ((1 << bucket) - 1);
+    }
+
+    /**
+     * @param bucket
+     *            Number of a bucket
+     * @return The number of ids held by the bucket
+     */
+    private static int size(int bucket)
+    {
+        return (int) Math.min((long) FIRST_BUCKET << bucket, (long) Integer.MAX_VALUE - start(bucket) + 1);
+    }
+
+    /**
+     * Entry of the stack of released ids
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    private static final class Free {
+
+        /**
+         * The released id
+         */
+        private final int id;
+        /**
+         * The entry below this one, or null if this is the bottom entry
+         */
+        private Free      next;
+
+        /**
+         * @param id
+         *            The released id
+         */
+        private Free(int id)
+        {
+            this.id = id;
+        }
+    }
+}
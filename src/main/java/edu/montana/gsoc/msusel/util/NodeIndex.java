@@ -0,0 +1,406 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.INodeType;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+import edu.montana.gsoc.msusel.relations.RelationGraph;
+
+/**
+ * A tree-wide index from qualified identifier to node. Nodes register
+ * themselves (and their children) with the index of the tree they are
+ * attached to, and structural nodes keep the index in sync as children are
+ * added or removed. This allows the lookups of {@link CodeTreeUtils} to be
+ * answered without walking the tree.
+ * <p>
+ * Nodes are keyed by their {@link Symbol}, and the index owns the
+ * {@link SymbolTable} through which the nodes of the tree share the prefixes
+ * of their identifiers.
+ * <p>
+ * The index also assigns every node attached to the tree, indexed kind or
+ * not, a dense int id (see {@link NodeIds}) by which it can be looked up,
+ * and holds the relationships between nodes keyed by those ids (see
+ * {@link RelationGraph}).
+ * <p>
+ * Once the tree is switched to concurrent mode the index uses concurrent
+ * maps, and marks the nodes registered with it to switch their own children
+ * to concurrent maps as well (see {@link CodeTree#enableConcurrency()}).
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.0
+ */
+public class NodeIndex {
+
+    /**
+     * Map of projects keyed by their qualified identifier
+     */
+    private Map<Symbol, ProjectNode>   projects;
+    /**
+     * Map of modules keyed by their qualified identifier
+     */
+    private Map<Symbol, ModuleNode>    modules;
+    /**
+     * Map of namespaces keyed by their qualified identifier
+     */
+    private Map<Symbol, NamespaceNode> namespaces;
+    /**
+     * Map of files keyed by their qualified identifier
+     */
+    private Map<Symbol, FileNode>      files;
+    /**
+     * Map of types keyed by their qualified identifier
+     */
+    private Map<Symbol, TypeNode>      types;
+    /**
+     * Map of methods keyed by their qualified identifier
+     */
+    private Map<Symbol, MethodNode>    methods;
+    /**
+     * Shared symbols of the identifiers of the nodes attached to the tree
+     */
+    private final SymbolTable                symbols   = new SymbolTable();
+    /**
+     * Ids of all nodes attached to the tree
+     */
+    private final NodeIds                    ids       = new NodeIds();
+    /**
+     * Relationships between the nodes of the tree, keyed by id
+     */
+    private final RelationGraph              relations = new RelationGraph(ids);
+    /**
+     * Whether this index, and the tree it belongs to, is safe for concurrent
+     * modification
+     */
+    private volatile boolean                 concurrent;
+
+    /**
+     * Constructs a new empty NodeIndex
+     */
+    public NodeIndex()
+    {
+        projects = Maps.newHashMap();
+        modules = Maps.newHashMap();
+        namespaces = Maps.newHashMap();
+        files = Maps.newHashMap();
+        types = Maps.newHashMap();
+        methods = Maps.newHashMap();
+    }
+
+    /**
+     * Switches this index to concurrent maps. Must be called before other
+     * threads start using the index.
+     */
+    public void makeConcurrent()
+    {
+        if (concurrent)
+            return;
+
+        projects = concurrent(projects);
+        modules = concurrent(modules);
+        namespaces = concurrent(namespaces);
+        files = concurrent(files);
+        types = concurrent(types);
+        methods = concurrent(methods);
+        concurrent = true;
+    }
+
+    /**
+     * @param map
+     *            A map of this index
+     * @return A concurrent map holding the same entries
+     */
+    private static <T> Map<Symbol, T> concurrent(Map<Symbol, T> map)
+    {
+        Map<Symbol, T> copy = Maps.newConcurrentMap();
+        copy.putAll(map);
+        return copy;
+    }
+
+    /**
+     * @return true if this index is safe for concurrent modification, false
+     *         otherwise
+     */
+    public boolean isConcurrent()
+    {
+        return concurrent;
+    }
+
+    /**
+     * @return The table of the symbols shared by the nodes of the tree
+     */
+    public SymbolTable getSymbols()
+    {
+        return symbols;
+    }
+
+    /**
+     * @return The allocator of the ids of the nodes attached to the tree
+     */
+    public NodeIds getIds()
+    {
+        return ids;
+    }
+
+    /**
+     * @return The relationships between the nodes of the tree
+     */
+    public RelationGraph getRelations()
+    {
+        return relations;
+    }
+
+    /**
+     * @param id
+     *            Id of a node, as returned by {@link INode#getId()}
+     * @return The node of the tree with the given id, or null if there is
+     *         none
+     */
+    public INode getNode(int id)
+    {
+        return ids.get(id);
+    }
+
+    /**
+     * Registers the given node (but not its children) with this index. If the
+     * node is null, or is of a kind which is not indexed, nothing happens.
+     * 
+     * @param node
+     *            Node to be registered
+     */
+    public void add(INode node)
+    {
+        if (node instanceof ProjectNode)
+            projects.put(node.getSymbol(), (ProjectNode) node);
+        else if (node instanceof ModuleNode)
+            modules.put(node.getSymbol(), (ModuleNode) node);
+        else if (node instanceof NamespaceNode)
+            namespaces.put(node.getSymbol(), (NamespaceNode) node);
+        else if (node instanceof FileNode)
+            files.put(node.getSymbol(), (FileNode) node);
+        else if (node instanceof TypeNode)
+            types.put(node.getSymbol(), (TypeNode) node);
+        else if (node instanceof MethodNode)
+            methods.put(node.getSymbol(), (MethodNode) node);
+    }
+
+    /**
+     * Removes the given node (but not its children) from this index. The entry
+     * is only removed if it currently maps to the given node, so that a
+     * replacement node registered under the same identifier is retained.
+     * 
+     * @param node
+     *            Node to be removed
+     */
+    public void remove(INode node)
+    {
+        if (node != null)
+            remove(node, node.getSymbol());
+    }
+
+    /**
+     * Re-registers a node whose qualified identifier has changed.
+     * 
+     * @param node
+     *            The node whose identifier has changed
+     * @param oldId
+     *            Symbol for the qualified identifier the node was previously
+     *            registered under
+     */
+    public void rename(INode node, Symbol oldId)
+    {
+        if (node == null)
+            return;
+
+        remove(node, oldId);
+        add(node);
+    }
+
+    /**
+     * Removes the entry for the given key if it maps to the given node.
+     * 
+     * @param node
+     *            Node to be removed
+     * @param key
+     *            Symbol for the qualified identifier the node is registered
+     *            under
+     */
+    private void remove(INode node, Symbol key)
+    {
+        if (key == null)
+            return;
+
+        if (node instanceof ProjectNode)
+            projects.remove(key, node);
+        else if (node instanceof ModuleNode)
+            modules.remove(key, node);
+        else if (node instanceof NamespaceNode)
+            namespaces.remove(key, node);
+        else if (node instanceof FileNode)
+            files.remove(key, node);
+        else if (node instanceof TypeNode)
+            types.remove(key, node);
+        else if (node instanceof MethodNode)
+            methods.remove(key, node);
+    }
+
+    /**
+     * @param qid
+     *            Qualified Identifier
+     * @return The project with the given identifier, or null if no such
+     *         project is indexed.
+     */
+    public ProjectNode getProject(String qid)
+    {
+        return qid == null ? null : projects.get(Symbol.key(qid));
+    }
+
+    /**
+     * @param qid
+     *            Qualified Identifier
+     * @return The module with the given identifier, or null if no such module
+     *         is indexed.
+     */
+    public ModuleNode getModule(String qid)
+    {
+        return qid == null ? null : modules.get(Symbol.key(qid));
+    }
+
+    /**
+     * @param qid
+     *            Qualified Identifier
+     * @return The namespace with the given identifier, or null if no such
+     *         namespace is indexed.
+     */
+    public NamespaceNode getNamespace(String qid)
+    {
+        return qid == null ? null : namespaces.get(Symbol.key(qid));
+    }
+
+    /**
+     * @param qid
+     *            Qualified Identifier
+     * @return The file with the given identifier, or null if no such file is
+     *         indexed.
+     */
+    public FileNode getFile(String qid)
+    {
+        return qid == null ? null : files.get(Symbol.key(qid));
+    }
+
+    /**
+     * @param qid
+     *            Qualified Identifier
+     * @return The type with the given identifier, or null if no such type is
+     *         indexed.
+     */
+    public TypeNode getType(String qid)
+    {
+        return qid == null ? null : types.get(Symbol.key(qid));
+    }
+
+    /**
+     * @param qid
+     *            Qualified Identifier
+     * @return The method with the given identifier, or null if no such method
+     *         is indexed.
+     */
+    public MethodNode getMethod(String qid)
+    {
+        return qid == null ? null : methods.get(Symbol.key(qid));
+    }
+
+    /**
+     * Looks up a node by the symbol for its qualified identifier, without
+     * building the identifier string.
+     * 
+     * @param type
+     *            INodeType of the node
+     * @param symbol
+     *            Symbol for the qualified identifier
+     * @return The node of the given kind with the given identifier, or null
+     *         if no such node is indexed or nodes of the given kind are not
+     *         indexed by identifier
+     */
+    public INode getNode(String type, Symbol symbol)
+    {
+        if (type == null || symbol == null)
+            return null;
+
+        switch (type)
+        {
+        case INodeType.PROJECT:
+            return projects.get(symbol);
+        case INodeType.MODULE:
+            return modules.get(symbol);
+        case INodeType.NAMESPACE:
+            return namespaces.get(symbol);
+        case INodeType.FILE:
+            return files.get(symbol);
+        case INodeType.TYPE:
+            return types.get(symbol);
+        case INodeType.METHOD:
+            return methods.get(symbol);
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * @return The total number of nodes registered with this index.
+     */
+    public int size()
+    {
+        return projects.size() + modules.size() + namespaces.size() + files.size() + types.size() + methods.size();
+    }
+
+    /**
+     * Removes all entries from this index, releases all ids and drops the
+     * shared symbols and relationships.
+     */
+    public void clear()
+    {
+        relations.clear();
+        ids.clear();
+        symbols.clear();
+        projects.clear();
+        modules.clear();
+        namespaces.clear();
+        files.clear();
+        types.clear();
+        methods.clear();
+    }
+}
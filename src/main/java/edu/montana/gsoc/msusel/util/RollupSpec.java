@@ -0,0 +1,212 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+
+/**
+ * A declarative description of a single metric roll-up: which metric to read,
+ * from which kind of node, how to aggregate its values, and under which name
+ * the result is stored in each containing node. Specs are immutable, so the
+ * modifiers {@link #from(Class)} and {@link #as(String)} return new specs.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class RollupSpec {
+
+    /**
+     * The metric read from the source nodes
+     */
+    private final String                 metric;
+    /**
+     * The aggregation applied to the values of the metric
+     */
+    private final Aggregation            aggregation;
+    /**
+     * The kind of node from which the values are read
+     */
+    private final Class<? extends INode> source;
+    /**
+     * The name under which the aggregated value is stored
+     */
+    private final String                 target;
+
+    /**
+     * Constructs a new RollupSpec
+     * 
+     * @param metric
+     *            The metric read from the source nodes
+     * @param aggregation
+     *            The aggregation applied to the values of the metric
+     * @param source
+     *            The kind of node from which the values are read
+     * @param target
+     *            The name under which the aggregated value is stored
+     */
+    public RollupSpec(String metric, Aggregation aggregation, Class<? extends INode> source, String target)
+    {
+        if (metric == null || metric.isEmpty())
+            throw new IllegalArgumentException("Metric name cannot be null or empty");
+        if (target == null || target.isEmpty())
+            throw new IllegalArgumentException("Target name cannot be null or empty");
+        if (aggregation == null || source == null)
+            throw new IllegalArgumentException("Aggregation and source cannot be null");
+
+        this.metric = metric;
+        this.aggregation = aggregation;
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * Creates a spec summing the given metric over the methods of each node,
+     * storing the result under the same name.
+     * 
+     * @param metric
+     *            Metric name
+     * @return The new spec
+     */
+    public static RollupSpec sum(String metric)
+    {
+        return new RollupSpec(metric, Aggregation.SUM, MethodNode.class, metric);
+    }
+
+    /**
+     * Creates a spec averaging the given metric over the methods of each node,
+     * storing the result under the same name.
+     * 
+     * @param metric
+     *            Metric name
+     * @return The new spec
+     */
+    public static RollupSpec mean(String metric)
+    {
+        return new RollupSpec(metric, Aggregation.MEAN, MethodNode.class, metric);
+    }
+
+    /**
+     * Creates a spec taking the maximum of the given metric over the methods of
+     * each node, storing the result under the same name.
+     * 
+     * @param metric
+     *            Metric name
+     * @return The new spec
+     */
+    public static RollupSpec max(String metric)
+    {
+        return new RollupSpec(metric, Aggregation.MAX, MethodNode.class, metric);
+    }
+
+    /**
+     * Creates a spec taking the minimum of the given metric over the methods of
+     * each node, storing the result under the same name.
+     * 
+     * @param metric
+     *            Metric name
+     * @return The new spec
+     */
+    public static RollupSpec min(String metric)
+    {
+        return new RollupSpec(metric, Aggregation.MIN, MethodNode.class, metric);
+    }
+
+    /**
+     * Creates a spec counting the methods of each node which carry the given
+     * metric, storing the result under the same name.
+     * 
+     * @param metric
+     *            Metric name
+     * @return The new spec
+     */
+    public static RollupSpec count(String metric)
+    {
+        return new RollupSpec(metric, Aggregation.COUNT, MethodNode.class, metric);
+    }
+
+    /**
+     * @param source
+     *            The kind of node from which values are to be read
+     * @return A copy of this spec reading its values from the given kind of
+     *         node
+     */
+    public RollupSpec from(Class<? extends INode> source)
+    {
+        return new RollupSpec(metric, aggregation, source, target);
+    }
+
+    /**
+     * @param target
+     *            The name under which results are to be stored
+     * @return A copy of this spec storing its results under the given name
+     */
+    public RollupSpec as(String target)
+    {
+        return new RollupSpec(metric, aggregation, source, target);
+    }
+
+    /**
+     * @return The metric read from the source nodes
+     */
+    public String getMetric()
+    {
+        return metric;
+    }
+
+    /**
+     * @return The aggregation applied to the values of the metric
+     */
+    public Aggregation getAggregation()
+    {
+        return aggregation;
+    }
+
+    /**
+     * @return The kind of node from which the values are read
+     */
+    public Class<? extends INode> getSource()
+    {
+        return source;
+    }
+
+    /**
+     * @return The name under which the aggregated value is stored
+     */
+    public String getTarget()
+    {
+        return target;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return aggregation + "(" + source.getSimpleName() + "." + metric + ") -> " + target;
+    }
+}
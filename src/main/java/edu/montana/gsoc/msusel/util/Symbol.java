@@ -0,0 +1,519 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A qualified identifier stored as a (parent symbol, local name) pair, so
+ * that identifiers sharing a prefix, such as the members of a type, share the
+ * symbol for that prefix rather than each repeating it in a string. The full
+ * identifier is only built when {@link #toString()} is called; it can be
+ * written out without being built through {@link #appendTo(Appendable)}.
+ * <p>
+ * Identifiers are split at their last '#', or failing that their last '/',
+ * '.' or ':', and local names made up of digits only are stored as ints.
+ * Symbols are values: two symbols are equal if they spell the same
+ * identifier, however they are split, and their hash code is that of the
+ * identifier string. Within a tree, prefixes are shared through the tree's
+ * {@link SymbolTable}.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class Symbol {
+
+    /**
+     * The characters an identifier is split at, in order of preference
+     */
+    private static final String SEPARATORS = "#/.:";
+
+    /**
+     * The symbol for the prefix of this identifier, or null if it has none.
+     * Only ever replaced by an equal symbol.
+     */
+    private volatile Symbol     parent;
+    /**
+     * The local name, or null if it is a number
+     */
+    private final String        name;
+    /**
+     * The local name if it is a number, or -1
+     */
+    private final int           number;
+    /**
+     * The character between the prefix and the local name, or 0 if there is
+     * no prefix
+     */
+    private final char          separator;
+    /**
+     * Hash code of the identifier string
+     */
+    private final int           hash;
+
+    /**
+     * Constructs a new Symbol
+     * 
+     * @param parent
+     *            The prefix, or null
+     * @param separator
+     *            The separator, ignored if there is no prefix
+     * @param name
+     *            The local name, or null if it is a number
+     * @param number
+     *            The local name if it is a number, or -1
+     */
+    private Symbol(Symbol parent, char separator, String name, int number)
+    {
+        this.parent = parent;
+        this.separator = parent == null ? 0 : separator;
+        this.name = name;
+        this.number = number;
+
+        int h = 0;
+        if (parent != null)
+            h = 31 * parent.hash + separator;
+        if (name != null)
+        {
+            for (int i = 0; i < name.length(); i++)
+                h = 31 * h + name.charAt(i);
+        }
+        else
+        {
+            for (int div = tens(number); div > 0; div /= 10)
+                h = 31 * h + '0' + number / div % 10;
+        }
+        hash = h;
+    }
+
+    /**
+     * Splits the given identifier into a chain of symbols.
+     * 
+     * @param qid
+     *            Qualified identifier
+     * @return The symbol for the identifier
+     * @throws IllegalArgumentException
+     *             if the identifier is null or empty
+     */
+    public static Symbol parse(String qid)
+    {
+        return parse(qid, null);
+    }
+
+    /**
+     * Splits the given identifier into a chain of symbols, reusing the given
+     * simple name as the local name if it matches.
+     * 
+     * @param qid
+     *            Qualified identifier
+     * @param name
+     *            Simple name of the entity the identifier belongs to, or null
+     * @return The symbol for the identifier
+     * @throws IllegalArgumentException
+     *             if the identifier is null or empty
+     */
+    public static Symbol parse(String qid, String name)
+    {
+        if (qid == null || qid.isEmpty())
+            throw new IllegalArgumentException("Identifier can be neither null nor empty.");
+
+        return parse(qid, qid.length(), name);
+    }
+
+    /**
+     * Constructs an unsplit symbol for the given identifier. It is equal to
+     * any symbol for the same identifier, and is meant as a cheap key when
+     * looking up nodes by identifier.
+     * 
+     * @param qid
+     *            Qualified identifier
+     * @return The symbol, or null if the identifier is null
+     */
+    public static Symbol key(String qid)
+    {
+        return qid == null ? null : new Symbol(null, (char) 0, qid, -1);
+    }
+
+    /**
+     * @param qid
+     *            Qualified identifier
+     * @param end
+     *            End of the prefix of the identifier to be parsed
+     * @param name
+     *            Local name to reuse, or null
+     * @return The symbol for the prefix
+     */
+    private static Symbol parse(String qid, int end, String name)
+    {
+        int split = -1;
+        for (int i = 0; i < SEPARATORS.length() && split < 0; i++)
+        {
+            int index = qid.lastIndexOf(SEPARATORS.charAt(i), end - 1);
+            if (index > 0 && index < end - 1)
+                split = index;
+        }
+
+        int start = split + 1;
+        Symbol parent = split < 0 ? null : parse(qid, split, null);
+        char separator = split < 0 ? 0 : qid.charAt(split);
+
+        int number = number(qid, start, end);
+        if (number >= 0)
+            return new Symbol(parent, separator, null, number);
+
+        if (name != null && name.length() == end - start && qid.startsWith(name, start))
+            return new Symbol(parent, separator, name, -1);
+
+        return new Symbol(parent, separator, qid.substring(start, end), -1);
+    }
+
+    /**
+     * @param separator
+     *            Character between this identifier and the local name
+     * @param name
+     *            Local name of the child
+     * @return The symbol for this identifier, followed by the separator and
+     *         the given name
+     * @throws IllegalArgumentException
+     *             if the name is null or empty
+     */
+    public Symbol child(char separator, String name)
+    {
+        if (name == null || name.isEmpty())
+            throw new IllegalArgumentException("Name can be neither null nor empty.");
+
+        int number = number(name, 0, name.length());
+        return number >= 0 ? new Symbol(this, separator, null, number) : new Symbol(this, separator, name, -1);
+    }
+
+    /**
+     * @param s
+     *            A string
+     * @param start
+     *            Start of the region of the string
+     * @param end
+     *            End of the region of the string
+     * @return The number the region spells in canonical form, or -1 if it
+     *         does not or the number would not fit
+     */
+    private static int number(String s, int start, int end)
+    {
+        int length = end - start;
+        if (length < 1 || length > 9 || (length > 1 && s.charAt(start) == '0'))
+            return -1;
+
+        int number = 0;
+        for (int i = start; i < end; i++)
+        {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            number = number * 10 + c - '0';
+        }
+
+        return number;
+    }
+
+    /**
+     * @param number
+     *            A non-negative number
+     * @return The largest power of ten not greater than the number, or 1
+     */
+    private static int tens(int number)
+    {
+        int div = 1;
+        while (number / div >= 10)
+            div *= 10;
+
+        return div;
+    }
+
+    /**
+     * @return The symbol for the prefix of this identifier, or null if it has
+     *         none
+     */
+    public Symbol getParent()
+    {
+        return parent;
+    }
+
+    /**
+     * Replaces the prefix of this symbol with an equal one.
+     * 
+     * @param parent
+     *            The new prefix
+     */
+    void reparent(Symbol parent)
+    {
+        if (parent != null && parent.equals(this.parent))
+            this.parent = parent;
+    }
+
+    /**
+     * @return The character between the prefix and the local name, or 0 if
+     *         there is no prefix
+     */
+    public char getSeparator()
+    {
+        return separator;
+    }
+
+    /**
+     * @return The local name
+     */
+    public String getName()
+    {
+        return name != null ? name : Integer.toString(number);
+    }
+
+    /**
+     * @return The length of the identifier
+     */
+    public int length()
+    {
+        int length = 0;
+        for (Symbol s = this; s != null; s = s.parent)
+            length += s.localLength() + (s.separator == 0 ? 0 : 1);
+
+        return length;
+    }
+
+    /**
+     * @return The length of the local name
+     */
+    private int localLength()
+    {
+        if (name != null)
+            return name.length();
+
+        int length = 1;
+        for (int div = tens(number); div > 1; div /= 10)
+            length++;
+
+        return length;
+    }
+
+    /**
+     * Checks whether this symbol spells the given identifier, without
+     * building the identifier string.
+     * 
+     * @param qid
+     *            Qualified identifier
+     * @return true if this symbol spells the identifier, false otherwise
+     */
+    public boolean matches(String qid)
+    {
+        if (qid == null)
+            return false;
+
+        int end = qid.length();
+        for (Symbol s = this; s != null;)
+        {
+            int start = end - s.localLength();
+            if (start < 0 || !s.localMatches(qid, start))
+                return false;
+
+            Symbol p = s.parent;
+            if (p == null)
+                return start == 0;
+            if (start == 0 || qid.charAt(start - 1) != s.separator)
+                return false;
+
+            end = start - 1;
+            s = p;
+        }
+
+        return false;
+    }
+
+    /**
+     * @param s
+     *            A string
+     * @param start
+     *            Index in the string at which the local name is expected
+     * @return true if the local name occurs in the string at the given index
+     */
+    private boolean localMatches(String s, int start)
+    {
+        if (name != null)
+            return s.startsWith(name, start);
+
+        int n = number;
+        for (int i = start + localLength() - 1; i >= start; i--, n /= 10)
+        {
+            if (s.charAt(i) != '0' + n % 10)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc} The identifier is built anew on each call.
+     */
+    @Override
+    public String toString()
+    {
+        char[] chars = new char[length()];
+
+        int end = chars.length;
+        for (Symbol s = this; s != null; s = s.parent)
+        {
+            int start = end - s.localLength();
+            if (s.name != null)
+            {
+                s.name.getChars(0, s.name.length(), chars, start);
+            }
+            else
+            {
+                int n = s.number;
+                for (int i = end - 1; i >= start; i--, n /= 10)
+                    chars[i] = (char) ('0' + n % 10);
+            }
+
+            if (s.separator != 0)
+                chars[--start] = s.separator;
+            end = start;
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Appends the identifier this symbol spells to the given appendable,
+     * without building the identifier string.
+     * 
+     * @param out
+     *            The appendable
+     * @throws IOException
+     *             if the appendable fails
+     */
+    public void appendTo(Appendable out) throws IOException
+    {
+        Symbol p = parent;
+        if (p != null)
+        {
+            p.appendTo(out);
+            out.append(separator);
+        }
+
+        if (name != null)
+        {
+            out.append(name);
+        }
+        else
+        {
+            for (int div = tens(number); div > 0; div /= 10)
+                out.append((char) ('0' + number / div % 10));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Symbol))
+            return false;
+
+        Symbol other = (Symbol) obj;
+        if (hash != other.hash)
+            return false;
+
+        Symbol a = this;
+        Symbol b = other;
+        while (a.separator == b.separator && a.number == b.number && Objects.equals(a.name, b.name))
+        {
+            a = a.parent;
+            b = b.parent;
+            if (a == b)
+                return true;
+            if (a == null || b == null)
+                return false;
+        }
+
+        if (other.parent == null && other.name != null)
+            return matches(other.name);
+        if (parent == null && name != null)
+            return other.matches(name);
+
+        return toString().equals(other.toString());
+    }
+
+    /**
+     * Gson adapter writing a symbol as the identifier string it spells.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    public static class Adapter extends TypeAdapter<Symbol> {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JsonWriter out, Symbol symbol) throws IOException
+        {
+            if (symbol == null)
+                out.nullValue();
+            else
+                out.value(symbol.toString());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Symbol read(JsonReader in) throws IOException
+        {
+            if (in.peek() == JsonToken.NULL)
+            {
+                in.nextNull();
+                return null;
+            }
+
+            return parse(in.nextString());
+        }
+    }
+}
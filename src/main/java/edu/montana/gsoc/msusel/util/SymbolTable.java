@@ -0,0 +1,131 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.Maps;
+
+/**
+ * The set of shared symbols of a tree. Symbols which are the prefix of other
+ * identifiers, such as those of types, files and namespaces, are interned
+ * here once, and the symbols of the nodes attached to the tree are moved onto
+ * the interned version of their prefix. Each prefix is thereby stored once
+ * per tree, however many identifiers start with it.
+ * <p>
+ * The table is safe for concurrent use. Symbols stay interned until the table
+ * is cleared, even when the nodes using them are removed from the tree.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class SymbolTable {
+
+    /**
+     * The interned symbols, each mapped to itself
+     */
+    private final ConcurrentMap<Symbol, Symbol> symbols = Maps.newConcurrentMap();
+
+    /**
+     * Returns the interned symbol equal to the given one. If there is none,
+     * the given symbol is interned, after its prefix has been.
+     * 
+     * @param symbol
+     *            A symbol
+     * @return The interned symbol, or null if the given symbol is null
+     */
+    public Symbol intern(Symbol symbol)
+    {
+        if (symbol == null)
+            return null;
+
+        Symbol interned = symbols.get(symbol);
+        if (interned != null)
+            return interned;
+
+        share(symbol);
+        interned = symbols.putIfAbsent(symbol, symbol);
+        return interned == null ? symbol : interned;
+    }
+
+    /**
+     * Moves the given symbol onto the interned version of its prefix,
+     * interning the prefix if necessary, without interning the symbol itself.
+     * 
+     * @param symbol
+     *            A symbol
+     */
+    public void share(Symbol symbol)
+    {
+        Symbol parent = symbol == null ? null : symbol.getParent();
+        if (parent != null)
+            symbol.reparent(intern(parent));
+    }
+
+    /**
+     * Moves the given symbol onto the interned version of the given prefix,
+     * interning the prefix if necessary, without interning the symbol itself.
+     * Used to intern the symbol of a node, rather than a copy, when it is the
+     * prefix of the symbol of one of its children.
+     * 
+     * @param symbol
+     *            A symbol
+     * @param prefix
+     *            A symbol equal to the prefix of the given symbol
+     */
+    public void share(Symbol symbol, Symbol prefix)
+    {
+        if (symbol != null && prefix != null)
+            symbol.reparent(intern(prefix));
+    }
+
+    /**
+     * @param qid
+     *            Qualified identifier
+     * @return The interned symbol for the given identifier, or null if there
+     *         is none
+     */
+    public Symbol find(String qid)
+    {
+        return qid == null ? null : symbols.get(Symbol.key(qid));
+    }
+
+    /**
+     * @return The number of interned symbols
+     */
+    public int size()
+    {
+        return symbols.size();
+    }
+
+    /**
+     * Removes all interned symbols.
+     */
+    public void clear()
+    {
+        symbols.clear();
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.version;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import edu.montana.gsoc.msusel.CodeTree;
+
+/**
+ * An immutable version of a CodeTree, as captured by
+ * {@link CodeTree#publish()}. Versions share every subtree which did not
+ * change between them, so capturing a version only allocates the nodes on the
+ * paths to changes, and holding on to a version costs nothing beyond the
+ * nodes no other version shares. Versions may be read by any number of
+ * threads while the tree they were captured from is being modified.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class TreeVersion {
+
+    /**
+     * The root project, may be null
+     */
+    private final VersionNode root;
+    /**
+     * Lookup tables of this version, built on first use
+     */
+    private volatile Index    index;
+
+    /**
+     * Constructs a new TreeVersion with the given root
+     * 
+     * @param root
+     *            The root project, may be null for an empty tree
+     */
+    public TreeVersion(VersionNode root)
+    {
+        this.root = root;
+    }
+
+    /**
+     * @return The root project, or null if the tree is empty
+     */
+    public VersionNode getRoot()
+    {
+        return root;
+    }
+
+    /**
+     * @return The fingerprint of this version, equal to the fingerprint of the
+     *         tree at the time it was captured, or 0 if the tree is empty
+     */
+    public long getFingerprint()
+    {
+        return root == null ? 0 : root.getFingerprint();
+    }
+
+    /**
+     * Searches this version for the node with the given qualified identifier.
+     * The first search builds a table of all nodes of this version.
+     * 
+     * @param qid
+     *            Qualified identifier
+     * @return The node, or null if there is none
+     */
+    public VersionNode find(String qid)
+    {
+        return qid == null ? null : index().nodes.get(qid);
+    }
+
+    /**
+     * @param node
+     *            A node of this version
+     * @return The node containing the given node in this version, or null if
+     *         it is the root or not part of this version
+     */
+    public VersionNode getParent(VersionNode node)
+    {
+        return node == null ? null : index().parents.get(node);
+    }
+
+    /**
+     * @return The number of nodes in this version
+     */
+    public int size()
+    {
+        return index().parents.size() + (root == null ? 0 : 1);
+    }
+
+    /**
+     * Extracts the branch of this version from the root down to the node with
+     * the given qualified identifier, and everything below that node. Only the
+     * ancestors of the node are copied, the subtree of the node itself is
+     * shared with this version.
+     * 
+     * @param qid
+     *            Qualified identifier of the node
+     * @return The extracted version, or null if no such node exists
+     */
+    public TreeVersion extract(String qid)
+    {
+        VersionNode node = find(qid);
+        if (node == null)
+            return null;
+
+        VersionNode branch = node;
+        for (VersionNode parent = getParent(node); parent != null; parent = getParent(parent))
+        {
+            branch = parent.withChild(branch);
+        }
+
+        return new TreeVersion(branch);
+    }
+
+    /**
+     * @return The lookup tables of this version
+     */
+    private Index index()
+    {
+        Index idx = index;
+        if (idx == null)
+            index = idx = new Index(root);
+
+        return idx;
+    }
+
+    /**
+     * Lookup tables of the nodes of a version
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    private static class Index {
+
+        /**
+         * Nodes keyed by qualified identifier
+         */
+        private final Map<String, VersionNode>      nodes   = Maps.newHashMap();
+        /**
+         * The parent of each node, except the root
+         */
+        private final Map<VersionNode, VersionNode> parents = new IdentityHashMap<>();
+
+        /**
+         * Builds the tables for the version with the given root
+         * 
+         * @param root
+         *            The root, may be null
+         */
+        Index(VersionNode root)
+        {
+            if (root != null)
+                add(root);
+        }
+
+        /**
+         * Adds the given node and its children to the tables
+         * 
+         * @param node
+         *            The node
+         */
+        private void add(VersionNode node)
+        {
+            nodes.putIfAbsent(node.getQIdentifier(), node);
+            for (VersionNode child : node.getChildren())
+            {
+                parents.put(child, node);
+                add(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,604 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.version;
+
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+import edu.montana.gsoc.msusel.util.MetricValues;
+import edu.montana.gsoc.msusel.util.Symbol;
+
+/**
+ * An immutable node of a {@link TreeVersion}. A single class represents every
+ * kind of node, attributes not applicable to a kind hold their defaults.
+ * Version nodes carry no reference to their parent, which is what allows a
+ * subtree to be shared between any number of versions.
+ * 
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public final class VersionNode {
+
+    /**
+     * Flag of an interface type
+     */
+    public static final int           INTERFACE   = 1;
+    /**
+     * Flag of an abstract type or method
+     */
+    public static final int           ABSTRACT    = 2;
+    /**
+     * Flag of a constructor
+     */
+    public static final int           CONSTRUCTOR = 4;
+    /**
+     * Flag of an accessor or mutator method
+     */
+    public static final int           ACCESSOR    = 8;
+    /**
+     * Flag of a static method
+     */
+    public static final int           STATIC      = 16;
+    /**
+     * Flag of a final method
+     */
+    public static final int           FINAL       = 32;
+
+    /**
+     * The kind of node, one of the constants of INodeType
+     */
+    private final String                     type;
+    /**
+     * The qualified identifier
+     */
+    private final Symbol                     symbol;
+    /**
+     * The simple name
+     */
+    private final String                     name;
+    /**
+     * The qualified identifier of the parent, may be null
+     */
+    private final Symbol                     parentID;
+    /**
+     * The metric values, never modified after construction
+     */
+    private final MetricValues               metrics;
+    /**
+     * First line of a code node, 0 otherwise
+     */
+    private final int                        start;
+    /**
+     * Last line of a code node, 0 otherwise
+     */
+    private final int                        end;
+    /**
+     * Combination of the flag constants
+     */
+    private final int                        flags;
+    /**
+     * Length of a file, 0 otherwise
+     */
+    private final int                        length;
+    /**
+     * Imports of a file, or qualified identifiers of the types of a namespace
+     */
+    private final ImmutableSet<String>       references;
+    /**
+     * Return type of a method, may be null
+     */
+    private final String                     returnType;
+    /**
+     * The contained nodes
+     */
+    private final ImmutableList<VersionNode> children;
+    /**
+     * Hash of the content of this node alone
+     */
+    private final long                       contentHash;
+    /**
+     * Fingerprint of the subtree rooted at this node
+     */
+    private final long                       fingerprint;
+
+    /**
+     * Constructs a new VersionNode from the state of the given builder
+     * 
+     * @param builder
+     *            The builder
+     * @param children
+     *            The contained nodes
+     * @param fingerprint
+     *            Fingerprint of the subtree
+     */
+    private VersionNode(Builder builder, ImmutableList<VersionNode> children, long fingerprint)
+    {
+        this.type = builder.type;
+        this.symbol = builder.symbol;
+        this.name = builder.name;
+        this.parentID = builder.parentID;
+        this.metrics = builder.metrics;
+        this.start = builder.start;
+        this.end = builder.end;
+        this.flags = builder.flags;
+        this.length = builder.length;
+        this.references = builder.references;
+        this.returnType = builder.returnType;
+        this.contentHash = builder.contentHash;
+        this.children = children;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Constructs a copy of the given node with different children
+     * 
+     * @param node
+     *            The node to copy
+     * @param children
+     *            The contained nodes of the copy
+     */
+    private VersionNode(VersionNode node, ImmutableList<VersionNode> children)
+    {
+        this.type = node.type;
+        this.symbol = node.symbol;
+        this.name = node.name;
+        this.parentID = node.parentID;
+        this.metrics = node.metrics;
+        this.start = node.start;
+        this.end = node.end;
+        this.flags = node.flags;
+        this.length = node.length;
+        this.references = node.references;
+        this.returnType = node.returnType;
+        this.contentHash = node.contentHash;
+        this.children = children;
+        this.fingerprint = fingerprint(contentHash, children);
+    }
+
+    /**
+     * @return The kind of node, one of the constants of INodeType
+     */
+    public String getType()
+    {
+        return type;
+    }
+
+    /**
+     * @return The qualified identifier
+     */
+    public String getQIdentifier()
+    {
+        return symbol.toString();
+    }
+
+    /**
+     * @return The symbol for the qualified identifier
+     */
+    public Symbol getSymbol()
+    {
+        return symbol;
+    }
+
+    /**
+     * @return The simple name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return The qualified identifier of the parent, may be null
+     */
+    public String getParentID()
+    {
+        return parentID == null ? null : parentID.toString();
+    }
+
+    /**
+     * @param metric
+     *            Metric name
+     * @return Measurement value, or null if no such metric has been measured
+     *         for this node
+     */
+    public Double getMetric(String metric)
+    {
+        int id = MetricNameRegistry.getInstance().id(metric);
+
+        return metrics.has(id) ? metrics.get(id) : null;
+    }
+
+    /**
+     * @param id
+     *            Metric id, as assigned by the MetricNameRegistry
+     * @return Measurement value, or NaN if no such metric has been measured
+     *         for this node
+     */
+    public double getMetric(int id)
+    {
+        return metrics.get(id);
+    }
+
+    /**
+     * @param metric
+     *            Metric name
+     * @return true if the node holds a value for the named metric, false
+     *         otherwise
+     */
+    public boolean hasMetric(String metric)
+    {
+        return metrics.has(MetricNameRegistry.getInstance().id(metric));
+    }
+
+    /**
+     * @return The names of the metrics measured for this node
+     */
+    public Set<String> getMetricNames()
+    {
+        return metrics.names();
+    }
+
+    /**
+     * @return First line of a code node, 0 otherwise
+     */
+    public int getStart()
+    {
+        return start;
+    }
+
+    /**
+     * @return Last line of a code node, 0 otherwise
+     */
+    public int getEnd()
+    {
+        return end;
+    }
+
+    /**
+     * @param line
+     *            Line to check
+     * @return true if this is a code node whose range contains the line
+     */
+    public boolean containsLine(int line)
+    {
+        return end > 0 && line >= start && line <= end;
+    }
+
+    /**
+     * @param flag
+     *            One of the flag constants
+     * @return true if the flag is set for this node
+     */
+    public boolean is(int flag)
+    {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * @return Length of a file, 0 otherwise
+     */
+    public int getLength()
+    {
+        return length;
+    }
+
+    /**
+     * @return Imports of a file, qualified identifiers of the types of a
+     *         namespace, empty otherwise
+     */
+    public Set<String> getReferences()
+    {
+        return references;
+    }
+
+    /**
+     * @return Return type of a method, may be null
+     */
+    public String getReturnType()
+    {
+        return returnType;
+    }
+
+    /**
+     * @return The contained nodes
+     */
+    public List<VersionNode> getChildren()
+    {
+        return children;
+    }
+
+    /**
+     * @param qid
+     *            Qualified identifier
+     * @return The directly contained node with the given identifier, or null
+     *         if there is none
+     */
+    public VersionNode getChild(String qid)
+    {
+        for (VersionNode child : children)
+        {
+            if (child.symbol.matches(qid))
+                return child;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return Fingerprint of the subtree rooted at this node, equal to the
+     *         fingerprint of the node it was captured from at that time
+     */
+    public long getFingerprint()
+    {
+        return fingerprint;
+    }
+
+    /**
+     * @param child
+     *            The only node the copy contains
+     * @return A copy of this node containing the given node only
+     */
+    VersionNode withChild(VersionNode child)
+    {
+        return new VersionNode(this, ImmutableList.of(child));
+    }
+
+    /**
+     * Combines a content hash with the fingerprints of the children in the
+     * same manner as {@link AbstractNode#getFingerprint()}.
+     * 
+     * @param contentHash
+     *            Hash of the content of the node
+     * @param children
+     *            The contained nodes
+     * @return The fingerprint
+     */
+    private static long fingerprint(long contentHash, List<VersionNode> children)
+    {
+        long sum = 0;
+        for (VersionNode child : children)
+        {
+            sum += AbstractNode.mix(child.fingerprint);
+        }
+
+        return AbstractNode.combine(contentHash, sum);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return type + " " + symbol;
+    }
+
+    /**
+     * Creates a new Builder for a VersionNode
+     * 
+     * @param type
+     *            The kind of node, one of the constants of INodeType
+     * @param qID
+     *            Symbol for the qualified identifier
+     * @param name
+     *            Simple name
+     * @return The VersionNode.Builder instance
+     */
+    public static Builder builder(String type, Symbol qID, String name)
+    {
+        return new Builder(type, qID, name);
+    }
+
+    /**
+     * Builder for VersionNodes implemented using the fluent interface and
+     * method chaining patterns.
+     * 
+     * @author Isaac Griffith
+     * @version 1.1.1
+     */
+    public static class Builder {
+
+        /**
+         * The kind of node
+         */
+        private final String        type;
+        /**
+         * The qualified identifier
+         */
+        private final Symbol        symbol;
+        /**
+         * The simple name
+         */
+        private final String        name;
+        /**
+         * The qualified identifier of the parent
+         */
+        private Symbol              parentID;
+        /**
+         * The metric values
+         */
+        private MetricValues        metrics    = new MetricValues();
+        /**
+         * First line
+         */
+        private int                 start;
+        /**
+         * Last line
+         */
+        private int                 end;
+        /**
+         * Combination of the flag constants
+         */
+        private int                 flags;
+        /**
+         * Length of a file
+         */
+        private int                 length;
+        /**
+         * Imports or type references
+         */
+        private ImmutableSet<String> references = ImmutableSet.of();
+        /**
+         * Return type of a method
+         */
+        private String              returnType;
+        /**
+         * Hash of the content of the node
+         */
+        private long                contentHash;
+
+        /**
+         * Constructs a new Builder
+         * 
+         * @param type
+         *            The kind of node
+         * @param qID
+         *            Symbol for the qualified identifier
+         * @param name
+         *            Simple name
+         */
+        private Builder(String type, Symbol qID, String name)
+        {
+            this.type = type;
+            this.symbol = qID;
+            this.name = name;
+        }
+
+        /**
+         * @param pID
+         *            Symbol for the qualified identifier of the parent
+         * @return this
+         */
+        public Builder parent(Symbol pID)
+        {
+            parentID = pID;
+            return this;
+        }
+
+        /**
+         * @param values
+         *            Metric values, which are copied
+         * @return this
+         */
+        public Builder metrics(MetricValues values)
+        {
+            metrics = values.copy();
+            return this;
+        }
+
+        /**
+         * @param start
+         *            First line
+         * @param end
+         *            Last line
+         * @return this
+         */
+        public Builder range(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        /**
+         * @param flag
+         *            One of the flag constants
+         * @param set
+         *            Whether the flag is set
+         * @return this
+         */
+        public Builder flag(int flag, boolean set)
+        {
+            if (set)
+                flags |= flag;
+            else
+                flags &= ~flag;
+            return this;
+        }
+
+        /**
+         * @param length
+         *            Length of a file
+         * @return this
+         */
+        public Builder length(int length)
+        {
+            this.length = length;
+            return this;
+        }
+
+        /**
+         * @param refs
+         *            Imports of a file or type references of a namespace
+         * @return this
+         */
+        public Builder references(Set<String> refs)
+        {
+            references = ImmutableSet.copyOf(refs);
+            return this;
+        }
+
+        /**
+         * @param type
+         *            Return type of a method
+         * @return this
+         */
+        public Builder returnType(String type)
+        {
+            returnType = type;
+            return this;
+        }
+
+        /**
+         * @param hash
+         *            Hash of the content of the node, which must be computed
+         *            as by the node the version is captured from
+         * @return this
+         */
+        public Builder contentHash(long hash)
+        {
+            contentHash = hash;
+            return this;
+        }
+
+        /**
+         * @param children
+         *            The contained nodes
+         * @return The new VersionNode
+         */
+        public VersionNode create(List<VersionNode> children)
+        {
+            ImmutableList<VersionNode> list = ImmutableList.copyOf(children);
+
+            return new VersionNode(this, list, fingerprint(contentHash, list));
+        }
+    }
+}
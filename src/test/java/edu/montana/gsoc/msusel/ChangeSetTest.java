@@ -0,0 +1,350 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.montana.gsoc.msusel.ChangeSet.MetricDelta;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>ChangeSetTest</code> contains tests for the incremental
+ * merge of trees and the <code>{@link ChangeSet}</code> it produces.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class ChangeSetTest {
+
+    private CodeTree fixture;
+
+    /**
+     * Tests that merging an identical analysis, whose statements carry fresh
+     * identifiers, changes nothing.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnchanged() throws Exception
+    {
+        ProjectNode other = analyze(10, 8.0, 4, true, false);
+        Assert.assertEquals(fixture.getProject().getFingerprint(), other.getFingerprint());
+
+        ChangeSet changes = fixture.getUtils().merge(tree(other));
+
+        Assert.assertTrue(changes.toString(), changes.isEmpty());
+        Assert.assertEquals(2, fixture.getUtils().findMethod("pkg.A#a").getStatements().size());
+    }
+
+    /**
+     * Tests that a changed line range and metric are reported against the
+     * method they belong to only.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testModified() throws Exception
+    {
+        long before = fixture.getProject().getFingerprint();
+        ChangeSet changes = fixture.getUtils().merge(tree(analyze(9, 7.0, 4, true, false)));
+
+        MethodNode a = fixture.getUtils().findMethod("pkg.A#a");
+        Assert.assertEquals(1, changes.getModified().size());
+        Assert.assertSame(a, changes.getModified().get(0));
+        Assert.assertTrue(changes.getAdded().isEmpty());
+        Assert.assertTrue(changes.getRemoved().isEmpty());
+        Assert.assertEquals(9, a.getEnd());
+
+        List<MetricDelta> deltas = changes.getMetricDeltas();
+        Assert.assertEquals(1, deltas.size());
+        Assert.assertEquals("pkg.A#a", deltas.get(0).getQIdentifier());
+        Assert.assertEquals("LOC", deltas.get(0).getMetric());
+        Assert.assertEquals(8.0, deltas.get(0).getOldValue(), 0.0);
+        Assert.assertEquals(7.0, deltas.get(0).getNewValue(), 0.0);
+        Assert.assertEquals(-1.0, deltas.get(0).getDelta(), 0.0);
+
+        Assert.assertNotEquals(before, fixture.getProject().getFingerprint());
+        Assert.assertTrue(fixture.getUtils().merge(tree(analyze(9, 7.0, 4, true, false))).isEmpty());
+    }
+
+    /**
+     * Tests that members missing from a re-analyzed file are removed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRemoved() throws Exception
+    {
+        MethodNode b = fixture.getUtils().findMethod("pkg.A#b");
+        ChangeSet changes = fixture.getUtils().merge(tree(analyze(10, 8.0, 4, false, false)));
+
+        Assert.assertEquals(1, changes.getRemoved().size());
+        Assert.assertSame(b, changes.getRemoved().get(0));
+        Assert.assertNull(fixture.getUtils().findMethod("pkg.A#b"));
+        Assert.assertEquals(1, fixture.getUtils().findType("pkg.A").getMethods().size());
+    }
+
+    /**
+     * Tests that files only present in the merged tree are added, while files
+     * only present in this tree are kept.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAdded() throws Exception
+    {
+        ProjectNode other = ProjectNode.builder("project").file(file("src/pkg/B.java", "pkg.B", 6, 3.0, 4))
+                .create();
+        ChangeSet changes = fixture.getUtils().merge(tree(other));
+
+        Assert.assertEquals(1, changes.getAdded().size());
+        Assert.assertEquals("src/pkg/B.java", changes.getAdded().get(0).getQIdentifier());
+        Assert.assertTrue(changes.getModified().isEmpty());
+        Assert.assertNotNull(fixture.getUtils().findFile("src/pkg/B.java"));
+        Assert.assertNotNull(fixture.getUtils().findFile("src/pkg/A.java"));
+        Assert.assertNotNull(fixture.getUtils().findMethod("pkg.B#a"));
+    }
+
+    /**
+     * Tests that statements are matched by their type and lines.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStatements() throws Exception
+    {
+        ChangeSet changes = fixture.getUtils().merge(tree(analyze(10, 8.0, 5, true, false)));
+
+        Assert.assertEquals(1, changes.getAdded().size());
+        Assert.assertEquals(1, changes.getRemoved().size());
+        Assert.assertEquals(5, ((StatementNode) changes.getAdded().get(0)).getStart());
+        Assert.assertEquals(4, ((StatementNode) changes.getRemoved().get(0)).getStart());
+        Assert.assertTrue(changes.getModified().isEmpty());
+        Assert.assertEquals(2, fixture.getUtils().findMethod("pkg.A#a").getStatements().size());
+    }
+
+    /**
+     * Tests updating a single file of the tree.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUpdateFile() throws Exception
+    {
+        FileNode file = file("src/pkg/A.java", "pkg.A", 10, 8.0, 4);
+        file.addImport("java.util.Map");
+
+        ChangeSet changes = fixture.getUtils().updateFile(file);
+
+        Assert.assertEquals(1, changes.getModified().size());
+        Assert.assertEquals("src/pkg/A.java", changes.getModified().get(0).getQIdentifier());
+        Assert.assertTrue(fixture.getUtils().findFile("src/pkg/A.java").hasImport("java.util.Map"));
+        Assert.assertNotSame(file, fixture.getUtils().findFile("src/pkg/A.java"));
+
+        Assert.assertTrue(fixture.getUtils().updateFile(null).isEmpty());
+    }
+
+    /**
+     * Tests that update(INode) delegates to the incremental merge.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUpdate() throws Exception
+    {
+        fixture.getProject().update(analyze(10, 8.0, 4, true, true));
+
+        Assert.assertNotNull(fixture.getUtils().findFile("src/pkg/B.java"));
+        Assert.assertTrue(fixture.getProject().merge(null).isEmpty());
+        Assert.assertTrue(fixture.getProject().merge(fixture.getUtils().findFile("src/pkg/B.java")).isEmpty());
+    }
+
+    /**
+     * Tests that the merged tree is left consistent when nodes new to this
+     * tree are moved out of it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSourceConsistent() throws Exception
+    {
+        CodeTree other = tree(analyze(10, 8.0, 5, true, true));
+        FileNode b = other.getUtils().findFile("src/pkg/B.java");
+        fixture.getUtils().merge(other);
+
+        Assert.assertSame(b, fixture.getUtils().findFile("src/pkg/B.java"));
+        Assert.assertNull(other.getUtils().findFile("src/pkg/B.java"));
+        Assert.assertNull(other.getUtils().findMethod("pkg.B#a"));
+        Assert.assertEquals(1, other.getProject().getFiles().size());
+        Assert.assertNotNull(other.getUtils().findMethod("pkg.A#a"));
+        Assert.assertEquals(1, other.getUtils().findMethod("pkg.A#a").getStatements().size());
+        assertConsistent(other);
+        assertConsistent(fixture);
+
+        CodeTree empty = new CodeTree();
+        empty.getUtils().merge(other);
+        Assert.assertNotSame(other.getProject(), empty.getProject());
+        Assert.assertNotNull(empty.getUtils().findMethod("pkg.A#a"));
+        Assert.assertNull(other.getUtils().findMethod("pkg.A#a"));
+        assertConsistent(other);
+        assertConsistent(empty);
+    }
+
+    /**
+     * Asserts that every node reachable from the root of the given tree is
+     * registered with the tree under its id, and that no other node is.
+     * 
+     * @param tree
+     *            The tree
+     */
+    private static void assertConsistent(CodeTree tree)
+    {
+        int count = 0;
+        Deque<AbstractNode> stack = new ArrayDeque<>();
+        stack.push(tree.getProject());
+        while (!stack.isEmpty())
+        {
+            AbstractNode node = stack.pop();
+            Assert.assertSame(node, tree.getNode(node.getId()));
+            count++;
+            for (AbstractNode child : node.getChildren())
+            {
+                stack.push(child);
+            }
+        }
+
+        Assert.assertEquals(count, tree.getIndex().getIds().size());
+    }
+
+    /**
+     * Constructs a project as it would be produced by analyzing a small
+     * system.
+     * 
+     * @param end
+     *            Last line of method a
+     * @param loc
+     *            Lines of code of method a
+     * @param line
+     *            Line of the second statement of method a
+     * @param withB
+     *            Whether the file contains method b
+     * @param withFileB
+     *            Whether the project contains a second file
+     * @return The project
+     */
+    private static ProjectNode analyze(int end, double loc, int line, boolean withB, boolean withFileB)
+    {
+        FileNode a = file("src/pkg/A.java", "pkg.A", end, loc, line);
+        if (!withB)
+            a.getType("pkg.A").removeMethod(a.getType("pkg.A").getMethod("b"));
+
+        ProjectNode.Builder project = ProjectNode.builder("project").file(a);
+        if (withFileB)
+            project.file(file("src/pkg/B.java", "pkg.B", 6, 3.0, 4));
+
+        return project.create();
+    }
+
+    /**
+     * @return A file of the project containing a single type with methods a
+     *         and b
+     */
+    private static FileNode file(String path, String type, int end, double loc, int line)
+    {
+        TypeNode t = TypeNode.builder(type, type).range(1, 20).method(method(type + "#a", end, loc, line))
+                .method(MethodNode.builder("b", type + "#b").range(12, 15).create()).create();
+
+        return FileNode.builder(path).parent("project").length(20).imports("java.util.List").type(t).create();
+    }
+
+    /**
+     * @return A method with two statements
+     */
+    private static MethodNode method(String qid, int end, double loc, int line)
+    {
+        return MethodNode.builder("a", qid).range(2, end).metric("LOC", loc)
+                .statement(StatementNode.builder(StatementType.Declaration).range(3).create())
+                .statement(StatementNode.builder(StatementType.Expression).range(line).create()).create();
+    }
+
+    /**
+     * @return A tree with the given project as its root
+     */
+    private static CodeTree tree(ProjectNode project)
+    {
+        CodeTree tree = new CodeTree();
+        tree.setProject(project);
+
+        return tree;
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = tree(analyze(10, 8.0, 4, true, false));
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(ChangeSetTest.class);
+    }
+}
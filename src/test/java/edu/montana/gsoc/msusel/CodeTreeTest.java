@@ -37,6 +37,7 @@ import edu.montana.gsoc.msusel.CodeTree;
 import edu.montana.gsoc.msusel.node.FieldNode;
 import edu.montana.gsoc.msusel.node.FileNode;
 import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
 import edu.montana.gsoc.msusel.node.ProjectNode;
 import edu.montana.gsoc.msusel.node.TypeNode;
 
@@ -152,6 +153,40 @@ public class CodeTreeTest {
         System.out.println(test.toJSON());
     }
 
+    /**
+     * Tests extracting a type and a method that live in a module file: the
+     * extracted tree contains the module and file, and the original tree is
+     * left untouched.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExtractTree_Module() throws Exception
+    {
+        fixture.getProject().addModule(ModuleNode.builder("module")
+                .file(FileNode.builder("path3")
+                        .type(TypeNode.builder("Type3", "path3.namespace.Type3")
+                                .range(1, 50)
+                                .method(MethodNode.builder("method3", "path3.namespace.Type3#method3")
+                                        .range(10, 20)
+                                        .create())
+                                .create())
+                        .create())
+                .create());
+
+        CodeTree test = fixture.getUtils().extractTree(fixture.getUtils().findType("path3.namespace.Type3"));
+        assertEquals("module", test.getUtils().findFile("path3").getParentID());
+        assertNotNull(test.getUtils().findType("path3.namespace.Type3"));
+        assertEquals(1, test.getUtils().getFiles().size());
+
+        test = fixture.getUtils().extractTree(fixture.getUtils().findMethod("path3.namespace.Type3#method3"));
+        assertNotNull(test.getUtils().findMethod("path3.namespace.Type3#method3"));
+        assertEquals(1, test.getUtils().getFiles().size());
+
+        assertEquals(3, fixture.getUtils().getFiles().size());
+        assertEquals(1, fixture.getUtils().findFile("path3").getTypes().size());
+    }
+
     /**
      * Perform pre-test initialization.
      *
@@ -0,0 +1,315 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+import edu.montana.gsoc.msusel.util.CodeTreeUtils;
+
+/**
+ * The class <code>ConcurrentCodeTreeTest</code> contains tests for the
+ * concurrent mode of <code>{@link CodeTree}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class ConcurrentCodeTreeTest {
+
+    /**
+     * Number of threads modifying the tree
+     */
+    private static final int THREADS = 8;
+    /**
+     * Number of files added by each thread
+     */
+    private static final int FILES   = 100;
+
+    private CodeTree        fixture;
+
+    private ExecutorService executor;
+
+    /**
+     * Tests that switching to concurrent mode keeps the existing nodes
+     * indexed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEnableConcurrency() throws Exception
+    {
+        fixture.getProject().addFile(file(0, 0));
+        Assert.assertFalse(fixture.isConcurrent());
+
+        fixture.enableConcurrency();
+        fixture.enableConcurrency();
+
+        Assert.assertTrue(fixture.isConcurrent());
+        Assert.assertTrue(fixture.getIndex().isConcurrent());
+        Assert.assertNotNull(fixture.getIndex().getFile("src/0/0.java"));
+        Assert.assertNotNull(fixture.getIndex().getType("pkg0.T0"));
+        Assert.assertNotNull(fixture.getIndex().getMethod("pkg0.T0#run"));
+        Assert.assertNull(fixture.getIndex().getType(null));
+    }
+
+    /**
+     * Tests that files added and then updated from several threads are all
+     * present exactly once.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUpdateFile() throws Exception
+    {
+        fixture.enableConcurrency();
+        CodeTreeUtils utils = fixture.getUtils();
+
+        run(thread -> {
+            for (int i = 0; i < FILES; i++)
+                Assert.assertFalse(utils.updateFile(file(thread, i)).isEmpty());
+        });
+        run(thread -> {
+            for (int i = 0; i < FILES; i++)
+            {
+                FileNode file = file(thread, i);
+                file.getType("pkg" + thread + ".T" + i).addMetric("LOC", 10.0);
+                utils.updateFile(file);
+            }
+        });
+
+        Assert.assertEquals(THREADS * FILES, fixture.getProject().getFiles().size());
+        Assert.assertEquals(1 + 3 * THREADS * FILES, fixture.getIndex().size());
+        for (int thread = 0; thread < THREADS; thread++)
+        {
+            for (int i = 0; i < FILES; i++)
+            {
+                TypeNode type = utils.findType("pkg" + thread + ".T" + i);
+                Assert.assertEquals(10.0, type.getMetric("LOC"), 0.001);
+                Assert.assertSame(utils.findFile("src/" + thread + "/" + i + ".java"), utils.findParent(type));
+            }
+        }
+    }
+
+    /**
+     * Tests that types and methods added to different files from several
+     * threads are all present and indexed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAddType() throws Exception
+    {
+        fixture.enableConcurrency();
+        for (int thread = 0; thread < THREADS; thread++)
+        {
+            fixture.getProject().addFile(FileNode.builder("src/" + thread + ".java").length(1000).create());
+        }
+
+        run(thread -> {
+            FileNode file = fixture.getProject().getFile("src/" + thread + ".java");
+            for (int i = 0; i < FILES; i++)
+            {
+                TypeNode type = TypeNode.builder("T" + i, "pkg" + thread + ".T" + i).range(i * 10 + 1, i * 10 + 9)
+                        .create();
+                Assert.assertTrue(file.addType(type));
+                type.addMethod(MethodNode.builder("m", type.getQIdentifier() + "#m").range(i * 10 + 2, i * 10 + 3)
+                        .create());
+            }
+        });
+
+        for (int thread = 0; thread < THREADS; thread++)
+        {
+            FileNode file = fixture.getProject().getFile("src/" + thread + ".java");
+            Assert.assertEquals(FILES, file.getTypes().size());
+            Assert.assertEquals("pkg" + thread + ".T4", file.findType(45).getQIdentifier());
+        }
+        Assert.assertEquals(1 + THREADS + 2 * THREADS * FILES, fixture.getIndex().size());
+    }
+
+    /**
+     * Tests that a namespace created by several threads at once exists only
+     * once and receives the types of all threads.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNamespace() throws Exception
+    {
+        fixture.enableConcurrency();
+        ProjectNode project = fixture.getProject();
+
+        Set<NamespaceNode> created = Sets.newConcurrentHashSet();
+        run(thread -> {
+            for (int i = 0; i < FILES; i++)
+            {
+                NamespaceNode ns = project.addNamespace("pkg");
+                created.add(ns);
+                ns.addType(TypeNode.builder("T" + i, "pkg.T" + thread + "_" + i).create());
+                ns.addSubNamespace("pkg.sub").addType(TypeNode.builder("S" + i, "pkg.sub.S" + thread + "_" + i).create());
+            }
+        });
+
+        Assert.assertEquals(1, created.size());
+        NamespaceNode ns = project.getNamespace("pkg");
+        Assert.assertSame(ns, fixture.getIndex().getNamespace("pkg"));
+        Assert.assertEquals(THREADS * FILES, ns.getTypes().size());
+        Assert.assertEquals(1, Iterables.size(ns.getChildren()));
+        Assert.assertEquals(THREADS * FILES, ns.addSubNamespace("pkg.sub").getTypes().size());
+    }
+
+    /**
+     * Tests that statements added to methods by several threads receive
+     * distinct identifiers.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStatementIds() throws Exception
+    {
+        Set<String> ids = Sets.newConcurrentHashSet();
+        run(thread -> {
+            MethodNode method = file(thread, 0).getTypes().iterator().next().getMethods().iterator().next();
+            for (int i = 0; i < FILES; i++)
+            {
+                StatementNode stmt = StatementNode.builder(StatementType.Expression).range(3).create();
+                method.addStatement(stmt);
+                ids.add(stmt.getQIdentifier());
+            }
+        });
+
+        Assert.assertEquals(THREADS * FILES, ids.size());
+    }
+
+    /**
+     * Runs the given task once on each thread and waits for all of them,
+     * rethrowing the first failure.
+     *
+     * @param task
+     *            Task receiving the number of the thread
+     * @throws Exception
+     *             if any task failed
+     */
+    private void run(Task task) throws Exception
+    {
+        List<Callable<Void>> calls = Lists.newArrayList();
+        for (int thread = 0; thread < THREADS; thread++)
+        {
+            final int number = thread;
+            calls.add(() -> {
+                task.run(number);
+                return null;
+            });
+        }
+
+        for (Future<Void> result : executor.invokeAll(calls))
+            result.get();
+    }
+
+    /**
+     * A unit of work of one thread
+     */
+    private interface Task {
+
+        /**
+         * @param thread
+         *            Number of the thread
+         * @throws Exception
+         *             if the work fails
+         */
+        void run(int thread) throws Exception;
+    }
+
+    /**
+     * @return A file of the given thread, holding one type with one method
+     */
+    private static FileNode file(int thread, int i)
+    {
+        TypeNode type = TypeNode.builder("T" + i, "pkg" + thread + ".T" + i).range(1, 10)
+                .method(MethodNode.builder("run", "pkg" + thread + ".T" + i + "#run").range(2, 4).create()).create();
+
+        return FileNode.builder("src/" + thread + "/" + i + ".java").parent("project").length(10).type(type)
+                .create();
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = new CodeTree();
+        fixture.setProject("project");
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(ConcurrentCodeTreeTest.class);
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel;
+
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>FingerprintTest</code> contains tests for the structural
+ * fingerprints of <code>{@link AbstractNode}</code> and the content based
+ * equality of <code>{@link CodeTree}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class FingerprintTest {
+
+    private CodeTree fixture;
+
+    /**
+     * Tests that separately built trees of equal content share fingerprints.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEqualContent() throws Exception
+    {
+        CodeTree other = tree();
+        long hash = fixture.getFingerprint();
+
+        Assert.assertNotEquals(0, hash);
+        Assert.assertEquals(hash, fixture.getFingerprint());
+        Assert.assertEquals(hash, other.getFingerprint());
+        Assert.assertEquals(fixture, other);
+        Assert.assertEquals(fixture.hashCode(), other.hashCode());
+        Assert.assertTrue(fixture.getProject().contentEquals(other.getProject()));
+    }
+
+    /**
+     * Tests that changing a metric deep in the tree is seen at the root.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMetricChanged() throws Exception
+    {
+        long hash = fixture.getFingerprint();
+        MethodNode method = fixture.getUtils().findMethod("pkg.A#a");
+
+        method.addMetric("LOC", 9.0);
+        Assert.assertNotEquals(hash, fixture.getFingerprint());
+        Assert.assertNotEquals(fixture, tree());
+
+        method.addMetric("LOC", 8.0);
+        Assert.assertEquals(hash, fixture.getFingerprint());
+    }
+
+    /**
+     * Tests that changing lines, flags or imports is seen at the root.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testContentChanged() throws Exception
+    {
+        long hash = fixture.getFingerprint();
+
+        fixture.getUtils().findMethod("pkg.A#a").update(MethodNode.builder("a", "pkg.A#a").range(2, 9).create());
+        long moved = fixture.getFingerprint();
+        Assert.assertNotEquals(hash, moved);
+
+        fixture.getUtils().findFile("src/pkg/A.java").addImport("java.util.Map");
+        Assert.assertNotEquals(moved, fixture.getFingerprint());
+
+        fixture.getUtils().findFile("src/pkg/A.java").removeImport("java.util.Map");
+        Assert.assertEquals(moved, fixture.getFingerprint());
+    }
+
+    /**
+     * Tests that adding and removing children is seen at the root.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testChildrenChanged() throws Exception
+    {
+        long hash = fixture.getFingerprint();
+        TypeNode type = fixture.getUtils().findType("pkg.A");
+        MethodNode b = fixture.getUtils().findMethod("pkg.A#b");
+
+        type.removeMethod(b);
+        Assert.assertNotEquals(hash, fixture.getFingerprint());
+
+        type.addMethod(b);
+        Assert.assertEquals(hash, fixture.getFingerprint());
+    }
+
+    /**
+     * Tests comparing nodes of differing kinds and trees without projects.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testContentEquals() throws Exception
+    {
+        ProjectNode project = fixture.getProject();
+
+        Assert.assertTrue(project.contentEquals(project));
+        Assert.assertFalse(project.contentEquals(null));
+        Assert.assertFalse(project.contentEquals(fixture.getUtils().findFile("src/pkg/A.java")));
+
+        Assert.assertEquals(new CodeTree(), new CodeTree());
+        Assert.assertEquals(0, new CodeTree().getFingerprint());
+        Assert.assertNotEquals(fixture, new CodeTree());
+    }
+
+    /**
+     * Tests that a tree can be found in a hashed collection after its nodes
+     * are edited.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testHashCodeStable() throws Exception
+    {
+        Set<CodeTree> trees = Sets.newHashSet(fixture);
+        int hash = fixture.hashCode();
+
+        fixture.getUtils().findMethod("pkg.A#a").addMetric("LOC", 9.0);
+        Assert.assertEquals(hash, fixture.hashCode());
+        Assert.assertTrue(trees.contains(fixture));
+        Assert.assertFalse(trees.contains(tree()));
+
+        fixture.getUtils().findMethod("pkg.A#a").addMetric("LOC", 8.0);
+        Assert.assertTrue(trees.contains(tree()));
+    }
+
+    /**
+     * @return A tree containing a single file, type and two methods
+     */
+    private static CodeTree tree()
+    {
+        TypeNode type = TypeNode.builder("A", "pkg.A").range(1, 20)
+                .method(MethodNode.builder("a", "pkg.A#a").range(2, 10).metric("LOC", 8.0).create())
+                .method(MethodNode.builder("b", "pkg.A#b").range(12, 15).metric("LOC", 3.0).create()).create();
+        FileNode file = FileNode.builder("src/pkg/A.java").length(20).imports("java.util.List").type(type).create();
+
+        CodeTree tree = new CodeTree();
+        tree.setProject(ProjectNode.builder("project").file(file).create());
+
+        return tree;
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = tree();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(FingerprintTest.class);
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+
+/**
+ * The class <code>MetricColumnsTest</code> contains tests for the class
+ * <code>{@link MetricColumns}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MetricColumnsTest {
+
+    private CodeTree fixture;
+
+    /**
+     * Tests the aggregates over a column populated from existing metrics.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAggregates() throws Exception
+    {
+        MetricColumns.Column cc = fixture.getColumns().column(MethodNode.class, "ColCC");
+
+        Assert.assertEquals(20, fixture.getColumns().size(MethodNode.class));
+        Assert.assertEquals(2, fixture.getColumns().size(TypeNode.class));
+        Assert.assertEquals(20, cc.count());
+        Assert.assertEquals(210.0, cc.sum(), 0.0001);
+        Assert.assertEquals(10.5, cc.mean(), 0.0001);
+        Assert.assertEquals(1.0, cc.min(), 0.0001);
+        Assert.assertEquals(20.0, cc.max(), 0.0001);
+        Assert.assertEquals(10.0, cc.percentile(50), 0.0001);
+        Assert.assertEquals(19.0, cc.percentile(95), 0.0001);
+        Assert.assertEquals(1.0, cc.percentile(0), 0.0001);
+        Assert.assertArrayEquals(new long[] { 5, 5, 5, 5 }, cc.histogram(4));
+
+        List<INode> top = cc.top(3);
+        Assert.assertEquals(3, top.size());
+        Assert.assertEquals(20.0, top.get(0).getMetric("ColCC"), 0.0001);
+        Assert.assertEquals(18.0, top.get(2).getMetric("ColCC"), 0.0001);
+
+        MetricColumns.Column loc = fixture.getColumns().column(MethodNode.class, "LOC");
+        Assert.assertEquals(1.0, cc.correlation(loc), 0.0001);
+        Assert.assertEquals(10, loc.count());
+
+        MetricColumns.Column missing = fixture.getColumns().column(MethodNode.class, "NotAMetric");
+        Assert.assertEquals(0, missing.count());
+        Assert.assertTrue(Double.isNaN(missing.mean()));
+        Assert.assertEquals(0, missing.top(5).size());
+    }
+
+    /**
+     * Tests that the columns follow metric changes made through the nodes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMetricUpdates() throws Exception
+    {
+        MetricColumns.Column cc = fixture.getColumns().column(MethodNode.class, "ColCC");
+        MethodNode method = fixture.getUtils().findMethod("file.Type0#m0");
+
+        method.addMetric("ColCC", 100.0);
+        Assert.assertEquals(100.0, cc.max(), 0.0001);
+
+        method.incrementMetric("ColCC", 1.0);
+        Assert.assertEquals(101.0, cc.max(), 0.0001);
+        Assert.assertSame(method, cc.top(1).get(0));
+    }
+
+    /**
+     * Tests that the columns follow nodes being added and removed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStructureUpdates() throws Exception
+    {
+        MetricColumns.Column cc = fixture.getColumns().column(MethodNode.class, "ColCC");
+        FileNode file = fixture.getUtils().findFile("file");
+        TypeNode type = fixture.getUtils().findType("file.Type0");
+
+        file.removeType(type);
+        Assert.assertEquals(10, cc.count());
+        Assert.assertEquals(10, fixture.getColumns().size(MethodNode.class));
+
+        type.addMethod(MethodNode.builder("extra", type.getQIdentifier() + "#extra").range(50, 50)
+                .metric("ColCC", 1000.0).create());
+        Assert.assertEquals(10, cc.count());
+
+        file.addType(type);
+        Assert.assertEquals(21, cc.count());
+        Assert.assertEquals(1000.0, cc.max(), 0.0001);
+
+        fixture.setProject("other");
+        Assert.assertEquals(0, cc.count());
+        Assert.assertEquals(0, fixture.getColumns().size(MethodNode.class));
+    }
+
+    /**
+     * Tests that a column taken before any node of its kind exists follows
+     * the nodes added later.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEmptyKind() throws Exception
+    {
+        MetricColumns.Column cc = fixture.getColumns().column(FieldNode.class, "ColCC");
+        Assert.assertEquals(0, cc.count());
+        Assert.assertEquals(0, fixture.getColumns().size(FieldNode.class));
+
+        TypeNode type = fixture.getUtils().findType("file.Type0");
+        type.addField(FieldNode.builder("field", "file.Type0#field").range(5, 5).metric("ColCC", 7.0).create());
+        Assert.assertEquals(1, fixture.getColumns().size(FieldNode.class));
+        Assert.assertEquals(1, cc.count());
+        Assert.assertEquals(7.0, cc.max(), 0.0001);
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        MetricNameRegistry.getInstance().register("ColCC");
+
+        fixture = new CodeTree();
+        fixture.setProject("root");
+
+        FileNode file = FileNode.builder("file").create();
+        int value = 1;
+        for (int t = 0; t < 2; t++)
+        {
+            String type = "file.Type" + t;
+            TypeNode.Builder builder = TypeNode.builder("Type" + t, type).range(1 + t * 100, 100 + t * 100);
+            for (int m = 0; m < 10; m++)
+            {
+                MethodNode.Builder method = MethodNode.builder("m" + m, type + "#m" + m)
+                        .range(10 + m + t * 100, 10 + m + t * 100)
+                        .metric("ColCC", (double) value);
+                if (value % 2 == 0)
+                    method.metric("LOC", value * 2.0);
+                builder.method(method.create());
+                value++;
+            }
+            file.addType(builder.create());
+        }
+        fixture.getProject().addFile(file);
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(MetricColumnsTest.class);
+    }
+}
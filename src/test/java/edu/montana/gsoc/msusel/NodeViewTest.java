@@ -0,0 +1,204 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel;
+
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>NodeViewTest</code> contains tests for the class
+ * <code>{@link NodeView}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class NodeViewTest {
+
+    private CodeTree fixture;
+
+    /**
+     * Run the iterator() method test.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testIterator() throws Exception
+    {
+        List<FileNode> files = Lists.newArrayList(fixture.getUtils().files());
+        Assert.assertEquals(12, files.size());
+        Assert.assertEquals(12, Sets.newHashSet(files).size());
+
+        Assert.assertEquals(4, Lists.newArrayList(fixture.getUtils().projects()).size());
+        Assert.assertEquals(24, Lists.newArrayList(fixture.getUtils().types()).size());
+        Assert.assertEquals(72, Lists.newArrayList(fixture.getUtils().methods()).size());
+    }
+
+    /**
+     * Run the stream() and parallelStream() method tests.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStreams() throws Exception
+    {
+        NodeView<MethodNode> view = fixture.getUtils().methods();
+
+        Set<MethodNode> sequential = view.stream().collect(Collectors.toSet());
+        Set<MethodNode> parallel = view.parallelStream().collect(Collectors.toSet());
+
+        Assert.assertEquals(72, sequential.size());
+        Assert.assertEquals(sequential, parallel);
+        Assert.assertEquals(72, view.parallelStream().count());
+    }
+
+    /**
+     * Tests that splitting yields every node exactly once.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSpliterator() throws Exception
+    {
+        List<TypeNode> types = Lists.newArrayList();
+        List<Spliterator<TypeNode>> work = Lists.newArrayList(fixture.getUtils().types().spliterator());
+
+        while (!work.isEmpty())
+        {
+            Spliterator<TypeNode> split = work.remove(0);
+            Spliterator<TypeNode> prefix = split.trySplit();
+            if (prefix != null)
+            {
+                work.add(prefix);
+                work.add(split);
+            }
+            else
+            {
+                split.forEachRemaining(types::add);
+            }
+        }
+
+        Assert.assertEquals(24, types.size());
+        Assert.assertEquals(24, Sets.newHashSet(types).size());
+    }
+
+    /**
+     * Tests that views reflect changes made after their creation.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLive() throws Exception
+    {
+        ProjectNode sub = fixture.getProject().getSubProject("sub0");
+        NodeView<TypeNode> view = sub.types();
+        Assert.assertEquals(8, view.stream().count());
+
+        sub.addFile(FileNode.builder("extra")
+                .type(TypeNode.builder("Extra", "extra.Extra").range(1, 10).create())
+                .create());
+        Assert.assertEquals(9, view.stream().count());
+        Assert.assertFalse(view.isEmpty());
+        Assert.assertTrue(FileNode.builder("empty").create().types().isEmpty());
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = new CodeTree();
+        fixture.setProject("root");
+
+        for (int p = 0; p < 3; p++)
+        {
+            ProjectNode sub = fixture.getProject().addSubProject("sub" + p);
+            ModuleNode module = sub.addModule("module" + p);
+
+            for (int f = 0; f < 4; f++)
+            {
+                FileNode file = FileNode.builder("file" + p + "_" + f).create();
+                for (int t = 0; t < 2; t++)
+                {
+                    String type = file.getQIdentifier() + ".Type" + t;
+                    TypeNode.Builder builder = TypeNode.builder("Type" + t, type).range(1, 100);
+                    for (int m = 0; m < 3; m++)
+                    {
+                        builder.method(MethodNode.builder("m" + m, type + "#m" + m).range(10 + m, 10 + m).create());
+                    }
+                    file.addType(builder.create());
+                }
+
+                if (f % 2 == 0)
+                    sub.addFile(file);
+                else
+                    module.addFile(file);
+            }
+        }
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(NodeViewTest.class);
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.diff;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.diff.DiffRecord.Kind;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.Parameter;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>TreeDiffTest</code> contains tests for the class
+ * <code>{@link TreeDiff}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class TreeDiffTest {
+
+    private TreeDiff fixture;
+
+    /**
+     * Tests that trees of equal content produce no records.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnchanged() throws Exception
+    {
+        Assert.assertTrue(new TreeDiff(before(), before()).toList().isEmpty());
+    }
+
+    /**
+     * Tests that every kind of difference is reported exactly where expected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDiff() throws Exception
+    {
+        List<DiffRecord> records = fixture.toList();
+        Set<String> actual = records.stream().map(DiffRecord::toString).collect(Collectors.toSet());
+
+        Set<String> expected = Sets.newHashSet(
+                "ADDED FILE src/D.java",
+                "MOVED TYPE pkg.B: src/B.java -> src/D.java",
+                "RANGE_CHANGED METHOD pkg.A#foo: 2-5 -> 2-6",
+                "METRIC_CHANGED METHOD pkg.A#foo: LOC 4.0 -> 5.0",
+                "RENAMED METHOD pkg.A#bar(int): was pkg.A#bar",
+                "ADDED METHOD pkg.A#baz",
+                "ADDED FIELD pkg.A#y",
+                "METRIC_CHANGED TYPE pkg.A: NOM 2.0 -> NaN",
+                "REMOVED FILE src/B.java",
+                "REMOVED FILE src/C.java",
+                "REMOVED TYPE pkg.C",
+                "REMOVED METHOD pkg.C#run",
+                "REMOVED FIELD pkg.A#x");
+
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected.size(), records.size());
+
+        int firstRemoved = 0;
+        while (records.get(firstRemoved).getKind() != Kind.REMOVED)
+            firstRemoved++;
+        for (int i = firstRemoved; i < records.size(); i++)
+            Assert.assertEquals(Kind.REMOVED, records.get(i).getKind());
+    }
+
+    /**
+     * Tests the accessors of the streamed records.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRecords() throws Exception
+    {
+        fixture.diff(record -> {
+            switch (record.getKind())
+            {
+            case ADDED:
+                Assert.assertNull(record.getBefore());
+                Assert.assertNotNull(record.getAfter());
+                break;
+            case REMOVED:
+                Assert.assertNotNull(record.getBefore());
+                Assert.assertNull(record.getAfter());
+                break;
+            case METRIC_CHANGED:
+                Assert.assertNotNull(record.getMetric());
+                break;
+            default:
+                Assert.assertNotNull(record.getBefore());
+                Assert.assertNotNull(record.getAfter());
+                Assert.assertNull(record.getMetric());
+                Assert.assertTrue(Double.isNaN(record.getOldValue()));
+            }
+        });
+    }
+
+    /**
+     * Tests that null trees are rejected.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNull() throws Exception
+    {
+        new TreeDiff(before(), null);
+    }
+
+    /**
+     * @return The earlier version of the tree
+     */
+    private static CodeTree before()
+    {
+        TypeNode a = TypeNode.builder("A", "pkg.A").range(1, 20).metric("NOM", 2.0)
+                .method(MethodNode.builder("foo", "pkg.A#foo").range(2, 5).metric("LOC", 4.0)
+                        .statement(StatementNode.builder(StatementType.Expression).range(3).create()).create())
+                .method(MethodNode.builder("bar", "pkg.A#bar").range(7, 9).create())
+                .field(FieldNode.builder("x", "pkg.A#x").range(10).create()).create();
+
+        return tree(file("src/A.java", a), file("src/B.java", type("pkg.B")), file("src/C.java", type("pkg.C")),
+                file("src/E.java", type("pkg.E")));
+    }
+
+    /**
+     * @return The later version of the tree
+     */
+    private static CodeTree after()
+    {
+        TypeNode a = TypeNode.builder("A", "pkg.A").range(1, 20)
+                .method(MethodNode.builder("foo", "pkg.A#foo").range(2, 6).metric("LOC", 5.0)
+                        .statement(StatementNode.builder(StatementType.Expression).range(3).create()).create())
+                .method(MethodNode.builder("bar", "pkg.A#bar").range(7, 9).parameter(new Parameter("i", "int"))
+                        .create())
+                .method(MethodNode.builder("baz", "pkg.A#baz").range(11, 12).create())
+                .field(FieldNode.builder("y", "pkg.A#y").range(10).create()).create();
+
+        return tree(file("src/A.java", a), file("src/D.java", type("pkg.B")), file("src/E.java", type("pkg.E")));
+    }
+
+    /**
+     * @return A type with a single method
+     */
+    private static TypeNode type(String qid)
+    {
+        return TypeNode.builder(qid, qid).range(1, 10)
+                .method(MethodNode.builder("run", qid + "#run").range(2, 4).create()).create();
+    }
+
+    /**
+     * @return A file containing the given type
+     */
+    private static FileNode file(String path, TypeNode type)
+    {
+        return FileNode.builder(path).parent("project").length(20).type(type).create();
+    }
+
+    /**
+     * @return A tree of a project containing the given files
+     */
+    private static CodeTree tree(FileNode... files)
+    {
+        ProjectNode.Builder project = ProjectNode.builder("project");
+        for (FileNode file : files)
+            project.file(file);
+
+        CodeTree tree = new CodeTree();
+        tree.setProject(project.create());
+
+        return tree;
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = new TreeDiff(before(), after());
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(TreeDiffTest.class);
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.generator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.INodeType;
+
+/**
+ * The class <code>GeneratorCliTest</code> contains tests for the class
+ * <code>{@link GeneratorCli}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class GeneratorCliTest {
+
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+
+    /**
+     * Tests that the options are applied and the tree written as JSON.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testJson() throws Exception
+    {
+        GeneratorCli.run(new String[] { "--seed", "3", "--modules", "1", "--files", "2", "--types", "1:1",
+                "--report" }, new PrintStream(out), new PrintStream(err));
+
+        CodeTree tree = CodeTree.createFromJson(new String(out.toByteArray(), StandardCharsets.UTF_8));
+        Assert.assertEquals(2, tree.getUtils().getFiles().size());
+        Assert.assertEquals(2, tree.getUtils().getTypes().size());
+
+        String report = new String(err.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(report.contains("seed=3"));
+        Assert.assertTrue(report.contains(INodeType.STATEMENT));
+    }
+
+    /**
+     * Tests that invalid options are rejected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testInvalid() throws Exception
+    {
+        for (String[] args : new String[][] { { "--files" }, { "--files", "x" }, { "--colour", "1" },
+                { "--types", "3:1" } })
+        {
+            try
+            {
+                GeneratorCli.run(args, new PrintStream(out), new PrintStream(err));
+                Assert.fail(String.join(" ", args));
+            }
+            catch (IllegalArgumentException e)
+            {
+            }
+        }
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(GeneratorCliTest.class);
+    }
+}
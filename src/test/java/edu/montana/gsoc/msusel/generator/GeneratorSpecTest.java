@@ -0,0 +1,168 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.generator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.montana.gsoc.msusel.node.INodeType;
+
+/**
+ * The class <code>GeneratorSpecTest</code> contains tests for the class
+ * <code>{@link GeneratorSpec}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class GeneratorSpecTest {
+
+    private GeneratorSpec.Builder fixture;
+
+    /**
+     * Tests that the builder sets each setting.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBuilder() throws Exception
+    {
+        GeneratorSpec spec = fixture.seed(5L)
+                .depth(3)
+                .fanOut(INodeType.TYPE, 2, 4)
+                .statementLines(2, 2)
+                .imports(1, 1)
+                .parameters(0, 0)
+                .metrics("LOC")
+                .metricDensity(0.5)
+                .interfaceRatio(0)
+                .create();
+
+        Assert.assertEquals(5L, spec.getSeed());
+        Assert.assertEquals(3, spec.getDepth());
+        Assert.assertEquals(2, spec.getMin(INodeType.TYPE));
+        Assert.assertEquals(4, spec.getMax(INodeType.TYPE));
+        Assert.assertArrayEquals(new int[] { 2, 2 }, spec.getStatementLines());
+        Assert.assertArrayEquals(new int[] { 1, 1 }, spec.getImports());
+        Assert.assertArrayEquals(new int[] { 0, 0 }, spec.getParameters());
+        Assert.assertEquals(1, spec.getMetrics().size());
+        Assert.assertEquals(0.5, spec.getMetricDensity(), 0.0);
+        Assert.assertEquals(0.0, spec.getInterfaceRatio(), 0.0);
+    }
+
+    /**
+     * Tests that specs already created are not affected by the builder.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCreateCopies() throws Exception
+    {
+        GeneratorSpec first = fixture.fanOut(INodeType.FILE, 1, 1).create();
+        GeneratorSpec second = fixture.fanOut(INodeType.FILE, 7, 9).create();
+
+        Assert.assertEquals(1, first.getMax(INodeType.FILE));
+        Assert.assertEquals(9, second.getMax(INodeType.FILE));
+    }
+
+    /**
+     * Tests that invalid settings are rejected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testInvalid() throws Exception
+    {
+        try
+        {
+            fixture.fanOut(INodeType.TYPE, 3, 2);
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+        try
+        {
+            fixture.fanOut("CLASS", 1, 2);
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+        try
+        {
+            fixture.metricDensity(1.5);
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+        try
+        {
+            fixture.create().getMin("CLASS");
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = GeneratorSpec.builder();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(GeneratorSpecTest.class);
+    }
+}
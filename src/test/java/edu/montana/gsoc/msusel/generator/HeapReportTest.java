@@ -0,0 +1,127 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.generator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.montana.gsoc.msusel.node.INodeType;
+
+/**
+ * The class <code>HeapReportTest</code> contains tests for the class
+ * <code>{@link HeapReport}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class HeapReportTest {
+
+    private HeapReport fixture;
+
+    /**
+     * Tests that nodes are counted per kind.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCounts() throws Exception
+    {
+        Assert.assertEquals(1, fixture.getCount(INodeType.PROJECT));
+        Assert.assertEquals(2, fixture.getCount(INodeType.MODULE));
+        Assert.assertEquals(4, fixture.getCount(INodeType.NAMESPACE));
+        Assert.assertEquals(2 * 50, fixture.getCount(INodeType.FILE));
+        Assert.assertEquals(2 * 50 * 2, fixture.getCount(INodeType.TYPE));
+        Assert.assertEquals(2 * 50 * 2 * 10, fixture.getCount(INodeType.METHOD));
+        Assert.assertEquals(2 * 50 * 2 * 3, fixture.getCount(INodeType.FIELD));
+        Assert.assertEquals(2 * 50 * 2 * 10 * 2, fixture.getCount(INodeType.STATEMENT));
+    }
+
+    /**
+     * Tests that the retained heap is reported for every kind and adds up.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRetained() throws Exception
+    {
+        long total = 0;
+        for (String kind : HeapReport.KINDS)
+        {
+            Assert.assertTrue(fixture.getRetained(kind) >= 0);
+            total += fixture.getRetained(kind);
+        }
+
+        Assert.assertEquals(total, fixture.getTotalRetained());
+        Assert.assertTrue(fixture.getRetained(INodeType.METHOD) > 0);
+        Assert.assertTrue(fixture.toString().contains(INodeType.METHOD));
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = HeapReport.measure(GeneratorSpec.builder()
+                .fanOut(INodeType.MODULE, 2, 2)
+                .fanOut(INodeType.NAMESPACE, 4, 4)
+                .fanOut(INodeType.FILE, 50, 50)
+                .fanOut(INodeType.TYPE, 2, 2)
+                .fanOut(INodeType.METHOD, 10, 10)
+                .fanOut(INodeType.FIELD, 3, 3)
+                .fanOut(INodeType.STATEMENT, 2, 2)
+                .interfaceRatio(0)
+                .create());
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(HeapReportTest.class);
+    }
+}
@@ -0,0 +1,306 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.generator;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.INodeType;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.Parameter;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>TreeGeneratorTest</code> contains tests for the class
+ * <code>{@link TreeGenerator}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class TreeGeneratorTest {
+
+    private GeneratorSpec spec;
+
+    /**
+     * Tests that the same seed produces the same tree, and another seed a
+     * different one.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDeterministic() throws Exception
+    {
+        List<String> first = json(new TreeGenerator(spec).generate());
+        TreeGenerator generator = new TreeGenerator(spec);
+        generator.generate();
+
+        Assert.assertEquals(first, json(generator.generate()));
+        Assert.assertNotEquals(first, json(new TreeGenerator(GeneratorSpec.builder()
+                .seed(spec.getSeed() + 1)
+                .depth(2)
+                .fanOut(INodeType.PROJECT, 1, 2)
+                .create()).generate()));
+    }
+
+    /**
+     * Tests that the number of children at every level is within the
+     * configured fan-out.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFanOut() throws Exception
+    {
+        CodeTree tree = new TreeGenerator(spec).generate();
+        ProjectNode root = tree.getProject();
+
+        assertWithin(INodeType.PROJECT, root.getSubProjects().size());
+        for (ProjectNode sub : root.getSubProjects())
+        {
+            assertWithin(INodeType.PROJECT, sub.getSubProjects().size());
+            for (ProjectNode leaf : sub.getSubProjects())
+                Assert.assertTrue(leaf.getSubProjects().isEmpty());
+        }
+        for (FileNode file : tree.getUtils().files())
+            assertWithin(INodeType.TYPE, file.getTypes().size());
+        for (TypeNode type : tree.getUtils().types())
+        {
+            assertWithin(INodeType.METHOD, type.getMethods().size());
+            assertWithin(INodeType.FIELD, type.getFields().size());
+        }
+        for (MethodNode method : tree.getUtils().methods())
+        {
+            if (!method.isAbstract())
+                assertWithin(INodeType.STATEMENT, method.getStatements().size());
+        }
+    }
+
+    /**
+     * Tests that line ranges nest: statements within methods, fields and
+     * methods within types, and types within files.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLines() throws Exception
+    {
+        CodeTree tree = new TreeGenerator(spec).generate();
+
+        for (FileNode file : tree.getUtils().files())
+        {
+            for (TypeNode type : file.getTypes())
+            {
+                Assert.assertTrue(type.getStart() > 0 && type.getEnd() <= file.getLength());
+                Assert.assertSame(type, file.findType(type.getStart()));
+                for (FieldNode field : type.getFields())
+                    Assert.assertTrue(type.containsLine(field.getStart()));
+                for (MethodNode method : type.getMethods())
+                {
+                    Assert.assertTrue(type.containsLine(method.getStart()) && type.containsLine(method.getEnd()));
+                    for (StatementNode stmt : method.getStatements())
+                        Assert.assertTrue(method.containsLine(stmt.getStart()) && method.containsLine(stmt.getEnd()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that imports and parameters refer to generated types, that types
+     * belong to a namespace of their project, and that metrics are present
+     * with the configured density.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRelationships() throws Exception
+    {
+        CodeTree tree = new TreeGenerator(spec).generate();
+        Set<String> types = Sets.newHashSet();
+        for (TypeNode type : tree.getUtils().types())
+            types.add(type.getQIdentifier());
+
+        int imports = 0;
+        for (FileNode file : tree.getUtils().files())
+        {
+            Assert.assertTrue(types.containsAll(file.getImports()));
+            imports += file.getImports().size();
+        }
+        int params = 0;
+        for (MethodNode method : tree.getUtils().methods())
+        {
+            for (Parameter param : method.getParams())
+            {
+                Assert.assertTrue(types.contains(param.getTypeRef()));
+                params++;
+            }
+        }
+        Assert.assertTrue(imports > 0);
+        Assert.assertTrue(params > 0);
+
+        Set<String> inNamespaces = Sets.newHashSet();
+        for (ProjectNode project : tree.getUtils().projects())
+            for (NamespaceNode ns : project.getNamespaces())
+                for (TypeNode type : ns.getTypes())
+                    inNamespaces.add(type.getQIdentifier());
+        Assert.assertEquals(types, inNamespaces);
+
+        for (TypeNode type : tree.getUtils().types())
+            Assert.assertEquals(spec.getMetrics().size(), type.getMetricNames().size());
+        CodeTree sparse = new TreeGenerator(GeneratorSpec.builder().metricDensity(0).create()).generate();
+        for (TypeNode type : sparse.getUtils().types())
+            Assert.assertTrue(type.getMetricNames().isEmpty());
+    }
+
+    /**
+     * Tests that detached kinds are left out without changing the rest of
+     * the tree.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDetached() throws Exception
+    {
+        CodeTree full = new TreeGenerator(spec).generate();
+        CodeTree partial = new TreeGenerator(spec, Sets.newHashSet(INodeType.STATEMENT, INodeType.FIELD))
+                .generate();
+
+        Map<String, Long> counts = HeapReport.count(partial);
+        Assert.assertEquals(0L, (long) counts.get(INodeType.STATEMENT));
+        Assert.assertEquals(0L, (long) counts.get(INodeType.FIELD));
+        Assert.assertEquals(HeapReport.count(full).get(INodeType.METHOD), counts.get(INodeType.METHOD));
+
+        for (MethodNode method : full.getUtils().methods())
+        {
+            MethodNode other = partial.getUtils().findMethod(method.getQIdentifier());
+            Assert.assertEquals(method.getStart(), other.getStart());
+            Assert.assertEquals(method.getMetric("LOC"), other.getMetric("LOC"));
+        }
+    }
+
+    /**
+     * Tests that a spec of a given size generates about that many nodes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testOfSize() throws Exception
+    {
+        long total = 0;
+        for (long count : HeapReport.count(new TreeGenerator(GeneratorSpec.ofSize(10000, 3L)).generate()).values())
+            total += count;
+
+        Assert.assertTrue(total > 8000 && total <= 10000);
+    }
+
+    /**
+     * Asserts that a number of children is within the fan-out of a level.
+     *
+     * @param kind
+     *            Level
+     * @param count
+     *            Number of children
+     */
+    private void assertWithin(String kind, int count)
+    {
+        Assert.assertTrue(kind + ": " + count, count >= spec.getMin(kind) && count <= spec.getMax(kind));
+    }
+
+    /**
+     * Writes a tree as JSON, with the identifiers of statements, which are
+     * allocated globally, masked. Since statements are ordered by their
+     * identifiers, the lines of the JSON are sorted.
+     *
+     * @param tree
+     *            The tree
+     * @return The sorted lines of the JSON
+     */
+    private static List<String> json(CodeTree tree)
+    {
+        List<String> lines = Lists.newArrayList(tree.toJSON()
+                .replaceAll("\"([A-Za-z]+):\\d+\"", "\"$1:#\"")
+                .split("\n"));
+        Collections.sort(lines);
+
+        return lines;
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        spec = GeneratorSpec.builder()
+                .seed(11L)
+                .depth(2)
+                .fanOut(INodeType.PROJECT, 1, 2)
+                .fanOut(INodeType.MODULE, 0, 2)
+                .fanOut(INodeType.FILE, 2, 4)
+                .create();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(TreeGeneratorTest.class);
+    }
+}
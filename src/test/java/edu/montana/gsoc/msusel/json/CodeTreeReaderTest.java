@@ -0,0 +1,228 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>CodeTreeReaderTest</code> contains tests for the class
+ * <code>{@link CodeTreeReader}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class CodeTreeReaderTest {
+
+    private CodeTree fixture;
+
+    private String   json;
+
+    /**
+     * Tests that a written tree is read back to the same document.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        String stmt = fixture.getUtils().findMethod("Class#method").getStatements().get(0).getQIdentifier();
+        String doc = json.replace(stmt, "If:1000");
+        CodeTree tree = new CodeTreeReader().read(new ByteArrayInputStream(doc.getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertEquals(new JsonParser().parse(doc), new JsonParser().parse(tree.toJSON()));
+
+        TypeNode type = tree.getUtils().findType("Class");
+        Assert.assertTrue(type.isAbstract());
+        Assert.assertEquals(1, type.getMethod(60).getStatements().size());
+        Assert.assertEquals(12, tree.getUtils().findFile("/file").getLength());
+        Assert.assertSame(type, tree.getUtils().findNamespace("ns").getTypes().iterator().next());
+    }
+
+    /**
+     * Tests that statements are read back with their identifiers and metrics,
+     * however often the same document is read.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStatementRoundTrip() throws Exception
+    {
+        MethodNode method = fixture.getUtils().findMethod("Class#method");
+        StatementNode stmt = method.getStatements().get(0);
+        stmt.addMetric("LOC", 3.0);
+        String doc = new CodeTreeWriter().toJson(fixture);
+
+        for (int i = 0; i < 2; i++)
+        {
+            CodeTree tree = new CodeTreeReader().read(new StringReader(doc));
+            StatementNode read = tree.getUtils().findMethod("Class#method").getStatements().get(0);
+
+            Assert.assertEquals(stmt.getQIdentifier(), read.getQIdentifier());
+            Assert.assertEquals(StatementType.If, read.getStatementType());
+            Assert.assertEquals(3.0, read.getMetric("LOC"), 0.0);
+            Assert.assertEquals(60, read.getStart());
+            Assert.assertEquals(62, read.getEnd());
+            Assert.assertEquals(new JsonParser().parse(doc), new JsonParser().parse(tree.toJSON()));
+        }
+
+        Assert.assertNotEquals(stmt.getQIdentifier(),
+                StatementNode.builder(StatementType.If).create().getQIdentifier());
+    }
+
+    /**
+     * Tests that files are handed over in document order and that rejected
+     * files are left out of the tree.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFilter() throws Exception
+    {
+        List<String> seen = Lists.newArrayList();
+        CodeTree tree = new CodeTreeReader().read(new StringReader(json), file -> {
+            seen.add(file.getQIdentifier());
+            return file.getTypes().isEmpty();
+        });
+
+        Assert.assertEquals(Lists.newArrayList("/module/file", "/file"), seen);
+        Assert.assertNull(tree.getUtils().findFile("/file"));
+        Assert.assertNotNull(tree.getUtils().findFile("/module/file"));
+        Assert.assertTrue(tree.getUtils().findNamespace("ns").getTypes().isEmpty());
+    }
+
+    /**
+     * Tests that streamed files are complete when handed over.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStream() throws Exception
+    {
+        List<FileNode> files = Lists.newArrayList();
+        new CodeTreeReader().stream(new StringReader(json), files::add);
+
+        Assert.assertEquals(2, files.size());
+        FileNode file = files.get(1);
+        Assert.assertEquals("project", file.getParentID());
+        Assert.assertEquals(3.0, file.getMetric("LOC"), 0.0001);
+        Assert.assertNotNull(file.getMethod(70));
+        Assert.assertNotNull(file.getField(25));
+        Assert.assertEquals(Sets.newHashSet("java.util.List"), file.getImports());
+    }
+
+    /**
+     * Tests that a node without a qualified identifier is rejected.
+     *
+     * @throws Exception
+     */
+    @Test(expected = JsonParseException.class)
+    public void testMissingIdentifier() throws Exception
+    {
+        new CodeTreeReader().read(new StringReader("{\"project\": {\"files\": {\"f\": {\"name\": \"f\"}}}}"));
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        TypeNode type = TypeNode.builder("Class", "Class")
+                .range(1, 100)
+                .isAbstract()
+                .metric("LOC", 1.0)
+                .method(MethodNode.builder("method", "Class#method")
+                        .range(50, 100)
+                        .isStatic()
+                        .metric("LOC", 2.0)
+                        .statement(StatementNode.builder(StatementType.If).range(60, 62).create())
+                        .create())
+                .field(FieldNode.builder("field", "Class#field").range(25, 25).create())
+                .create();
+
+        ProjectNode pn = ProjectNode.builder("project")
+                .metric("LOC", 4.0)
+                .module(ModuleNode.builder("module").file(FileNode.builder("/module/file").create()).create())
+                .file(FileNode.builder("/file").type(type).length(12).imports("java.util.List").metric("LOC", 3.0)
+                        .create())
+                .namespace(NamespaceNode.builder("ns").type(type).create())
+                .create();
+
+        fixture = new CodeTree();
+        fixture.setProject(pn);
+        json = new CodeTreeWriter().toJson(fixture);
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(CodeTreeReaderTest.class);
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>CodeTreeWriterTest</code> contains tests for the class
+ * <code>{@link CodeTreeWriter}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class CodeTreeWriterTest {
+
+    private CodeTree fixture;
+
+    /**
+     * Tests that compact output written to a stream can be read back by the
+     * deserializers.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CodeTreeWriter().write(fixture, out);
+        String json = new String(out.toByteArray(), StandardCharsets.UTF_8);
+
+        Assert.assertFalse(json.contains("\n"));
+
+        CodeTree tree = CodeTree.createFromJson(json);
+        Assert.assertEquals("project", tree.getProject().getQIdentifier());
+        Assert.assertEquals(4.0, tree.getProject().getMetric("LOC"), 0.0001);
+
+        TypeNode type = tree.getUtils().findType("Class");
+        Assert.assertNotNull(type);
+        Assert.assertEquals(100, type.getEnd());
+        Assert.assertEquals(1.0, type.getMetric("LOC"), 0.0001);
+        Assert.assertNotNull(tree.getUtils().findMethod("Class#method"));
+        Assert.assertNotNull(type.getField(25));
+        Assert.assertNotNull(tree.getUtils().findModule("module"));
+        Assert.assertNotNull(tree.getUtils().findFile("/module/file"));
+    }
+
+    /**
+     * Tests that pretty and compact output hold the same document.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testModes() throws Exception
+    {
+        String pretty = new CodeTreeWriter(true).toJson(fixture);
+        String compact = new CodeTreeWriter(false).toJson(fixture);
+
+        Assert.assertTrue(pretty.contains("\n  \"project\": {"));
+        Assert.assertTrue(pretty.length() > compact.length());
+        Assert.assertEquals(new JsonParser().parse(compact), new JsonParser().parse(pretty));
+        Assert.assertEquals(pretty, fixture.toJSON());
+
+        StringWriter out = new StringWriter();
+        fixture.toJSON(out);
+        Assert.assertEquals(compact, out.toString());
+    }
+
+    /**
+     * Tests that identifiers written straight from their symbols are escaped
+     * like other strings.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEscapedIdentifiers() throws Exception
+    {
+        String qid = "/a \"b\"\\c\td\u0001é\u2028\uD83D\uDE00";
+        fixture.getProject().addFile(FileNode.builder(qid).parent("project").create());
+
+        String json = new CodeTreeWriter().toJson(fixture);
+        Assert.assertEquals(new JsonParser().parse(NodeAdapters.gson().toJson(fixture)), new JsonParser().parse(json));
+        Assert.assertEquals(qid, CodeTree.createFromJson(json).getUtils().findFile(qid).getQIdentifier());
+        Assert.assertEquals(new JsonParser().parse(json),
+                new JsonParser().parse(new CodeTreeWriter(true).toJson(fixture)));
+    }
+
+    /**
+     * Tests the layout of individual nodes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNodes() throws Exception
+    {
+        JsonObject file = new JsonParser().parse(new CodeTreeWriter().toJson(fixture.getUtils().findFile("/file")))
+                .getAsJsonObject();
+
+        Assert.assertEquals("/file", file.get("qIdentifier").getAsString());
+        Assert.assertEquals("project", file.get("parentID").getAsString());
+        Assert.assertTrue(file.getAsJsonObject("types").has("Class"));
+        Assert.assertFalse(file.has("LOG"));
+
+        JsonObject method = file.getAsJsonObject("types").getAsJsonObject("Class").getAsJsonObject("methods")
+                .getAsJsonObject("Class#method");
+        Assert.assertTrue(method.get("constructor").getAsBoolean());
+        Assert.assertEquals(50, method.get("start").getAsInt());
+        Assert.assertEquals(2.0, method.getAsJsonObject("metrics").get("LOC").getAsDouble(), 0.0001);
+
+        JsonObject ns = new JsonParser().parse(fixture.getProject().toJSON()).getAsJsonObject()
+                .getAsJsonObject("namespaces").getAsJsonObject("ns");
+        Assert.assertEquals(1, ns.getAsJsonArray("types").size());
+
+        FileNode read = FileNode.createFromJson(fixture.getUtils().findFile("/file").toJSON());
+        Assert.assertNotNull(read.getType("Class"));
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        TypeNode type = TypeNode.builder("Class", "Class")
+                .range(1, 100)
+                .metric("LOC", 1.0)
+                .method(MethodNode.builder("method", "Class#method").range(50, 100).constructor().metric("LOC", 2.0)
+                        .create())
+                .field(FieldNode.builder("field", "Class#field").range(25, 25).create())
+                .create();
+
+        ProjectNode pn = ProjectNode.builder("project")
+                .metric("LOC", 4.0)
+                .file(FileNode.builder("/file").type(type).create())
+                .module(ModuleNode.builder("module").file(FileNode.builder("/module/file").create()).create())
+                .namespace(NamespaceNode.builder("ns").type(type).create())
+                .create();
+
+        fixture = new CodeTree();
+        fixture.setProject(pn);
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(CodeTreeWriterTest.class);
+    }
+}
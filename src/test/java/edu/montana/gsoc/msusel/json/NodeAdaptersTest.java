@@ -0,0 +1,224 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.json;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>NodeAdaptersTest</code> contains tests for the class
+ * <code>{@link NodeAdapters}</code> and the adapters it registers.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class NodeAdaptersTest {
+
+    private CodeTree fixture;
+
+    /**
+     * Tests that the shared instance is cached.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testShared() throws Exception
+    {
+        Assert.assertSame(NodeAdapters.gson(), NodeAdapters.gson());
+    }
+
+    /**
+     * Tests that a tree round-trips through the shared instance.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTree() throws Exception
+    {
+        Gson gson = NodeAdapters.gson();
+        String json = gson.toJson(fixture);
+        Assert.assertEquals(new JsonParser().parse(new CodeTreeWriter().toJson(fixture)), new JsonParser().parse(json));
+
+        CodeTree tree = gson.fromJson(json, CodeTree.class);
+        TypeNode type = tree.getUtils().findType("Class");
+        Assert.assertTrue(type.isInterface());
+        Assert.assertSame(type, tree.getUtils().findNamespace("ns").getTypes().iterator().next());
+        Assert.assertNotNull(tree.getUtils().findMethod("Class#method"));
+        Assert.assertEquals("project", CodeTree.createFromJson(json).getProject().getQIdentifier());
+    }
+
+    /**
+     * Tests that each kind of node round-trips on its own.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNodes() throws Exception
+    {
+        Gson gson = NodeAdapters.gson();
+        FileNode file = fixture.getUtils().findFile("/file");
+        TypeNode type = fixture.getUtils().findType("Class");
+        MethodNode method = fixture.getUtils().findMethod("Class#method");
+
+        FileNode readFile = gson.fromJson(gson.toJson(file), FileNode.class);
+        Assert.assertEquals(file.getQIdentifier(), readFile.getQIdentifier());
+        Assert.assertEquals(7, readFile.getLength());
+
+        TypeNode readType = gson.fromJson(gson.toJson(type), TypeNode.class);
+        Assert.assertEquals(1, readType.getMethods().size());
+        Assert.assertEquals(1, readType.getFields().size());
+
+        MethodNode readMethod = gson.fromJson(gson.toJson(method), MethodNode.class);
+        Assert.assertEquals(3.0, readMethod.getMetric("LOC"), 0.0001);
+        Assert.assertEquals(StatementType.While, readMethod.getStatements().get(0).getStatementType());
+
+        FieldNode field = type.getFields().iterator().next();
+        Assert.assertEquals(25, gson.fromJson(gson.toJson(field), FieldNode.class).getStart());
+
+        StatementNode stmt = method.getStatements().get(0);
+        Assert.assertEquals(52, gson.fromJson(gson.toJson(stmt), StatementNode.class).getEnd());
+
+        ModuleNode module = fixture.getUtils().findModule("module");
+        Assert.assertEquals(1, gson.fromJson(gson.toJson(module), ModuleNode.class).getFiles().size());
+
+        NamespaceNode ns = fixture.getUtils().findNamespace("ns");
+        Assert.assertEquals(1, gson.fromJson(gson.toJson(ns), NamespaceNode.class).getTypes().size());
+
+        Assert.assertEquals("project", gson.fromJson(gson.toJson(fixture.getProject()), ProjectNode.class)
+                .getQIdentifier());
+    }
+
+    /**
+     * Tests that statements keep their identifiers and metrics across
+     * repeated loads of the same document.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStatementRoundTrip() throws Exception
+    {
+        StatementNode stmt = fixture.getUtils().findMethod("Class#method").getStatements().get(0);
+        stmt.addMetric("LOC", 2.0);
+        String json = fixture.toJSON();
+
+        for (int i = 0; i < 2; i++)
+        {
+            CodeTree tree = CodeTree.createFromJson(json);
+            StatementNode read = tree.getUtils().findMethod("Class#method").getStatements().get(0);
+            Assert.assertEquals(stmt.getQIdentifier(), read.getQIdentifier());
+            Assert.assertEquals(2.0, read.getMetric("LOC"), 0.0001);
+        }
+        Assert.assertNotEquals(stmt.getQIdentifier(),
+                StatementNode.builder(StatementType.While).create().getQIdentifier());
+    }
+
+    /**
+     * Tests that nulls are handled and that the adapters can be registered
+     * with a caller's builder.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRegister() throws Exception
+    {
+        Gson gson = NodeAdapters.register(new GsonBuilder().serializeNulls()).create();
+
+        Assert.assertEquals("null", gson.toJson(null, FileNode.class));
+        Assert.assertNull(gson.fromJson("null", TypeNode.class));
+        Assert.assertEquals("Class", gson.fromJson(gson.toJson(fixture), CodeTree.class).getUtils()
+                .findType("Class").getName());
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        TypeNode type = TypeNode.builder("Class", "Class")
+                .range(1, 100)
+                .isInterface()
+                .method(MethodNode.builder("method", "Class#method")
+                        .range(50, 60)
+                        .metric("LOC", 3.0)
+                        .statement(StatementNode.builder(StatementType.While).range(51, 52).create())
+                        .create())
+                .field(FieldNode.builder("field", "Class#field").range(25).create())
+                .create();
+
+        ProjectNode pn = ProjectNode.builder("project")
+                .file(FileNode.builder("/file").type(type).length(7).create())
+                .module(ModuleNode.builder("module").file(FileNode.builder("/module/file").create()).create())
+                .namespace(NamespaceNode.builder("ns").type(type).create())
+                .create();
+
+        fixture = new CodeTree();
+        fixture.setProject(pn);
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(NodeAdaptersTest.class);
+    }
+}
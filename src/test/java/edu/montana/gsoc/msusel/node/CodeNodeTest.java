@@ -479,6 +479,61 @@ public class CodeNodeTest {
         }
     }
 
+    /**
+     * Run the void setRange(int, int) method test.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSetRange_1() throws Exception
+    {
+        fixture.setRange(1001, 2000);
+
+        Assert.assertEquals(1001, fixture.getStart());
+        Assert.assertEquals(2000, fixture.getEnd());
+    }
+
+    /**
+     * Run the void setRange(int, int) method test.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSetRange_2() throws Exception
+    {
+        try
+        {
+            fixture.setRange(200, 150);
+            Assert.fail();
+        }
+        catch (final IllegalArgumentException e)
+        {
+        }
+
+        Assert.assertEquals(100, fixture.getStart());
+        Assert.assertEquals(1000, fixture.getEnd());
+    }
+
+    /**
+     * Run the void setRange(int, int) method test.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSetRange_3() throws Exception
+    {
+        try
+        {
+            fixture.setRange(0, 150);
+            Assert.fail();
+        }
+        catch (final IllegalArgumentException e)
+        {
+        }
+
+        Assert.assertEquals(100, fixture.getStart());
+    }
+
     /**
      * Perform pre-test initialization.
      *
@@ -0,0 +1,230 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.node;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * The class <code>LineIndexTest</code> contains tests for the class
+ * <code>{@link LineIndex}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class LineIndexTest {
+
+    private FileNode fixture;
+
+    /**
+     * Tests that the innermost of several nested nodes is found.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFindNested() throws Exception
+    {
+        LineIndex<TypeNode> index = new LineIndex<>(fixture.getTypes());
+
+        Assert.assertNull(index.find(5));
+        Assert.assertEquals("Outer", index.find(10).getName());
+        Assert.assertEquals("Inner", index.find(20).getName());
+        Assert.assertEquals("Deep", index.find(25).getName());
+        Assert.assertEquals("Inner", index.find(28).getName());
+        Assert.assertEquals("Outer", index.find(35).getName());
+        Assert.assertEquals("Second", index.find(60).getName());
+        Assert.assertNull(index.find(80));
+        Assert.assertEquals(4, index.size());
+    }
+
+    /**
+     * Tests that overlapping, non-nested ranges still resolve.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFindOverlapping() throws Exception
+    {
+        TypeNode a = TypeNode.builder("A", "A").range(1, 20).create();
+        TypeNode b = TypeNode.builder("B", "B").range(10, 30).create();
+        LineIndex<TypeNode> index = new LineIndex<>(Lists.newArrayList(a, b));
+
+        Assert.assertSame(a, index.find(5));
+        Assert.assertSame(b, index.find(15));
+        Assert.assertSame(b, index.find(25));
+        Assert.assertNull(index.find(31));
+    }
+
+    /**
+     * Tests the file and type lookups which are backed by the index.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFileLookups() throws Exception
+    {
+        Assert.assertEquals("Inner", fixture.getType(21));
+        Assert.assertEquals("Deep", fixture.findType(25).getQIdentifier());
+        Assert.assertEquals("Outer#outer", fixture.getMethod(12));
+        Assert.assertEquals("Inner#inner", fixture.getMethod(22));
+        Assert.assertEquals("", fixture.getMethod(40));
+        Assert.assertEquals("Outer#field", fixture.getField(11));
+        Assert.assertEquals("", fixture.getField(12));
+        Assert.assertEquals("Outer#outer", fixture.findType(12).findMethod(12).getQIdentifier());
+    }
+
+    /**
+     * Tests that the indices are invalidated when children are added, removed
+     * or moved.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testInvalidation() throws Exception
+    {
+        Assert.assertEquals("Second", fixture.getType(60));
+
+        TypeNode second = fixture.findType(60);
+        fixture.removeType(second);
+        Assert.assertEquals("", fixture.getType(60));
+
+        fixture.addType(TypeNode.builder("Third", "Third").range(55, 65).create());
+        Assert.assertEquals("Third", fixture.getType(60));
+
+        TypeNode outer = fixture.findType(10);
+        outer.addMethod(MethodNode.builder("late", "Outer#late").range(36, 38).create());
+        Assert.assertEquals("Outer#late", fixture.getMethod(37));
+        Assert.assertEquals("Outer#late", outer.getMethod(37).getQIdentifier());
+
+        outer.getMethod(37).setRange(39, 39);
+        Assert.assertEquals("", fixture.getMethod(37));
+        Assert.assertNull(outer.getMethod(37));
+        Assert.assertEquals("Outer#late", fixture.getMethod(39));
+    }
+
+    /**
+     * Tests that a batch of unsorted, repeated lines resolves to the same
+     * entities as individual lookups.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testResolve() throws Exception
+    {
+        int[] lines = { 60, 22, 5, 11, 22, 25, 35, 12, 80, 28 };
+        CodeNode[] nodes = fixture.resolve(lines);
+
+        Assert.assertEquals(lines.length, nodes.length);
+        Assert.assertEquals("Second", nodes[0].getQIdentifier());
+        Assert.assertEquals("Inner#inner", nodes[1].getQIdentifier());
+        Assert.assertNull(nodes[2]);
+        Assert.assertEquals("Outer#field", nodes[3].getQIdentifier());
+        Assert.assertSame(nodes[1], nodes[4]);
+        Assert.assertEquals("Deep", nodes[5].getQIdentifier());
+        Assert.assertEquals("Outer", nodes[6].getQIdentifier());
+        Assert.assertEquals("Outer#outer", nodes[7].getQIdentifier());
+        Assert.assertNull(nodes[8]);
+        Assert.assertEquals("Inner", nodes[9].getQIdentifier());
+
+        TypeNode[] types = fixture.resolveTypes(lines);
+        MethodNode[] methods = fixture.resolveMethods(lines);
+        for (int i = 0; i < lines.length; i++)
+        {
+            Assert.assertSame(fixture.findType(lines[i]), types[i]);
+            Assert.assertEquals(fixture.getMethod(lines[i]), methods[i] == null ? "" : methods[i].getQIdentifier());
+        }
+    }
+
+    /**
+     * Tests that the sweep agrees with single lookups for overlapping ranges.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFindAllOverlapping() throws Exception
+    {
+        TypeNode a = TypeNode.builder("A", "A").range(1, 20).create();
+        TypeNode b = TypeNode.builder("B", "B").range(10, 30).create();
+        TypeNode c = TypeNode.builder("C", "C").range(12, 14).create();
+        LineIndex<TypeNode> index = new LineIndex<>(Lists.newArrayList(a, b, c));
+
+        int[] lines = { 31, 25, 13, 15, 5, 1, 30 };
+        TypeNode[] out = new TypeNode[lines.length];
+        index.findAll(lines, out);
+        for (int i = 0; i < lines.length; i++)
+            Assert.assertSame(index.find(lines[i]), out[i]);
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = FileNode.builder("file")
+                .length(100)
+                .type(TypeNode.builder("Outer", "Outer").range(10, 40)
+                        .field(FieldNode.builder("field", "Outer#field").range(11, 11).create())
+                        .method(MethodNode.builder("outer", "Outer#outer").range(12, 14).create())
+                        .create())
+                .type(TypeNode.builder("Inner", "Inner").range(20, 30)
+                        .method(MethodNode.builder("inner", "Inner#inner").range(21, 23).create())
+                        .create())
+                .type(TypeNode.builder("Deep", "Deep").range(24, 26).create())
+                .type(TypeNode.builder("Second", "Second").range(50, 70).create())
+                .create();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(LineIndexTest.class);
+    }
+}
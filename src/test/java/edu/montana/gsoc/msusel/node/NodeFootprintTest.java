@@ -0,0 +1,273 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.node;
+
+import java.lang.reflect.Modifier;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import com.google.common.collect.ImmutableSet;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.util.MetricValues;
+
+/**
+ * The class <code>NodeFootprintTest</code> contains regression tests for the
+ * memory retained by individual nodes, measured with JOL.
+ * <p>
+ * The byte budgets assume a 64-bit VM with compressed references, and are
+ * skipped on others.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class NodeFootprintTest {
+
+    /**
+     * Largest shallow size of a statement node
+     */
+    private static final int STATEMENT_SIZE   = 80;
+    /**
+     * Size of a symbol holding the local part of an identifier
+     */
+    private static final int SYMBOL_SIZE      = 32;
+    /**
+     * Largest size retained by a statement node, besides its identifier's
+     * prefix and its type, whose name it shares: the node, its symbol, its
+     * metric values and their two shared empty arrays
+     */
+    private static final int STATEMENT_BUDGET = STATEMENT_SIZE + SYMBOL_SIZE + 24 + 2 * 16;
+    /**
+     * Largest shallow size of a method node
+     */
+    private static final int METHOD_SIZE      = 96;
+    /**
+     * Largest size retained by a method node without statements or
+     * parameters, besides its name and its identifier's prefix: the node, its
+     * symbol, its metric values, their two shared empty arrays and the shared
+     * empty statement map
+     */
+    private static final int METHOD_BUDGET    = METHOD_SIZE + SYMBOL_SIZE + 24 + 2 * 16 + 24;
+
+    private StatementNode    statement;
+
+    private MethodNode       method;
+
+    /**
+     * Tests that no node class overrides finalize, which would place each of
+     * its instances on the finalizer queue.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNoFinalizers() throws Exception
+    {
+        for (Class<?> type : nodeTypes())
+        {
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass())
+            {
+                try
+                {
+                    c.getDeclaredMethod("finalize");
+                    Assert.fail(c.getSimpleName() + " overrides finalize");
+                }
+                catch (NoSuchMethodException e)
+                {
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that nodes share a single logger.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStaticLogger() throws Exception
+    {
+        Assert.assertTrue(Modifier.isStatic(AbstractNode.class.getDeclaredField("LOG").getModifiers()));
+    }
+
+    /**
+     * Tests that an empty statement retains no collections.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStatementGraph() throws Exception
+    {
+        Set<Class<?>> classes = GraphLayout.parseInstance(statement).getClasses();
+
+        Assert.assertTrue(classes.contains(MetricValues.class));
+        for (Class<?> c : classes)
+        {
+            Assert.assertFalse(c.getName(), c.getName().startsWith("java.util.")
+                    || c.getName().startsWith("com.google.common."));
+        }
+    }
+
+    /**
+     * Tests that a method without statements or parameters retains no
+     * collection of its own.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEmptyMethodGraph() throws Exception
+    {
+        for (Class<?> c : GraphLayout.parseInstance(method).getClasses())
+        {
+            Assert.assertFalse(c.getName(), c.getName().startsWith("java.util.")
+                    && !c.getName().startsWith("java.util.Collections$Empty")
+                    || c.getName().startsWith("com.google.common."));
+        }
+    }
+
+    /**
+     * Tests the size retained by a statement.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStatementSize() throws Exception
+    {
+        assumeCompressedReferences();
+
+        Assert.assertTrue(ClassLayout.parseClass(StatementNode.class).instanceSize() <= STATEMENT_SIZE);
+        Assert.assertTrue(retained(statement, statement.getSymbol().getParent(), statement.getStatementType()) <= STATEMENT_BUDGET);
+    }
+
+    /**
+     * Tests the size retained by a method without statements or parameters.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMethodSize() throws Exception
+    {
+        assumeCompressedReferences();
+
+        Assert.assertTrue(ClassLayout.parseClass(MethodNode.class).instanceSize() <= METHOD_SIZE);
+        Assert.assertTrue(retained(method, method.getSymbol().getParent(), method.getName()) <= METHOD_BUDGET);
+    }
+
+    /**
+     * Tests that adding statements allocates the statement map only once.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStatementsAdded() throws Exception
+    {
+        method.addStatement(statement);
+        method.addStatement(StatementNode.builder(StatementType.While).range(4).create());
+
+        Assert.assertEquals(2, method.getStatements().size());
+        Assert.assertSame(statement, method.getStatement(statement.getQIdentifier()));
+        Assert.assertEquals(1, GraphLayout.parseInstance(method).getClassCounts().count(java.util.HashMap.class));
+    }
+
+    /**
+     * Skips the calling test unless references are compressed in this VM.
+     */
+    private static void assumeCompressedReferences()
+    {
+        Assume.assumeTrue(VM.current().sizeOfField("java.lang.Object") == 4);
+    }
+
+    /**
+     * Measures the bytes retained by the given node, excluding the given
+     * objects it refers to and everything reachable from them.
+     *
+     * @param node
+     *            The node to measure
+     * @param excluded
+     *            Objects referenced by the node that are not attributed to it
+     * @return The number of bytes retained
+     */
+    private static long retained(Object node, Object... excluded)
+    {
+        long size = GraphLayout.parseInstance(node).totalSize();
+        for (Object o : excluded)
+            size -= GraphLayout.parseInstance(o).totalSize();
+
+        return size;
+    }
+
+    /**
+     * @return The concrete node classes
+     */
+    private static Set<Class<?>> nodeTypes()
+    {
+        return ImmutableSet.of(ProjectNode.class, ModuleNode.class, NamespaceNode.class, FileNode.class,
+                TypeNode.class, MethodNode.class, FieldNode.class, StatementNode.class);
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        statement = StatementNode.builder(StatementType.Expression).range(3).create();
+        method = MethodNode.builder("foo", "pkg.A#foo").range(2, 5).create();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(NodeFootprintTest.class);
+    }
+}
@@ -99,12 +99,29 @@ public class StatementNodeTest {
     }
 
     /**
-     * Test method for {@link edu.montana.gsoc.msusel.node.StatementNode#setNextIDNum(long)}.
+     * Test method for {@link edu.montana.gsoc.msusel.node.MethodNode#addStatement(StatementNode)}.
      */
     @Test
-    public final void testSetNextIDNum()
+    public final void testAssignIdentifier()
     {
-        fail("Not yet implemented"); // TODO
+        MethodNode method = MethodNode.builder("a", "pkg.A#a").range(1, 10).create();
+        StatementNode first = StatementNode.builder(StatementType.If).range(2, 3).create();
+        StatementNode second = StatementNode.builder(StatementType.If).range(4, 5).create();
+        StatementNode restored = StatementNode.builder(StatementType.For, "For:7").range(6, 7).create();
+
+        method.addStatement(first);
+        method.addStatement(second);
+        method.addStatement(restored);
+
+        assertEquals("pkg.A#a/If:0", first.getQIdentifier());
+        assertEquals("pkg.A#a/If:1", second.getQIdentifier());
+        assertEquals("For:7", restored.getQIdentifier());
+        assertEquals(3, method.getStatements().size());
+        assertSame(second, method.getStatement("pkg.A#a/If:1"));
+
+        method.addStatement(first);
+        assertEquals("pkg.A#a/If:0", first.getQIdentifier());
+        assertEquals(3, method.getStatements().size());
     }
 
 }
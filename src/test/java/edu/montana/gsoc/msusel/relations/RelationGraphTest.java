@@ -0,0 +1,261 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.relations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>RelationGraphTest</code> contains tests for the classes
+ * <code>{@link RelationGraph}</code> and <code>{@link RelationIndex}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class RelationGraphTest {
+
+    private RelationGraph fixture;
+
+    /**
+     * Tests forward and reverse lookups of added relationships.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAdd() throws Exception
+    {
+        Assert.assertTrue(fixture.add(1, 2, RelationshipType.Dependency));
+        Assert.assertTrue(fixture.add(1, 3, RelationshipType.Dependency));
+        Assert.assertTrue(fixture.add(4, 2, RelationshipType.Dependency));
+        Assert.assertTrue(fixture.add(1, 2, RelationshipType.Association));
+        Assert.assertFalse(fixture.add(1, 2, RelationshipType.Dependency));
+
+        Assert.assertEquals(4, fixture.size());
+        Assert.assertEquals(3, fixture.size(RelationshipType.Dependency));
+        Assert.assertArrayEquals(new int[] { 2, 3 }, sorted(fixture.targets(1, RelationshipType.Dependency)));
+        Assert.assertArrayEquals(new int[] { 1, 4 }, sorted(fixture.sources(2, RelationshipType.Dependency)));
+        Assert.assertArrayEquals(new int[] { 1 }, fixture.sources(2, RelationshipType.Association));
+        Assert.assertArrayEquals(new int[0], fixture.targets(2, RelationshipType.Dependency));
+        Assert.assertArrayEquals(new int[0], fixture.targets(100, RelationshipType.Realization));
+        Assert.assertEquals(2, fixture.outDegree(1, RelationshipType.Dependency));
+        Assert.assertEquals(2, fixture.inDegree(2, RelationshipType.Dependency));
+        Assert.assertTrue(fixture.contains(4, 2, RelationshipType.Dependency));
+        Assert.assertFalse(fixture.contains(2, 4, RelationshipType.Dependency));
+        Assert.assertFalse(fixture.contains(4, 2, RelationshipType.Generalization));
+    }
+
+    /**
+     * Tests that relationships need valid ends and a type.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddInvalid() throws Exception
+    {
+        fixture.add(-1, 2, RelationshipType.Dependency);
+    }
+
+    /**
+     * Tests removal of single relationships and of all relationships of a
+     * node.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRemove() throws Exception
+    {
+        fixture.add(1, 2, RelationshipType.Dependency);
+        fixture.add(1, 3, RelationshipType.Dependency);
+        fixture.add(3, 1, RelationshipType.Generalization);
+        fixture.add(2, 3, RelationshipType.Realization);
+
+        Assert.assertTrue(fixture.remove(1, 2, RelationshipType.Dependency));
+        Assert.assertFalse(fixture.remove(1, 2, RelationshipType.Dependency));
+        Assert.assertFalse(fixture.remove(1, 3, null));
+        Assert.assertArrayEquals(new int[] { 3 }, fixture.targets(1, RelationshipType.Dependency));
+        Assert.assertArrayEquals(new int[0], fixture.sources(2, RelationshipType.Dependency));
+
+        fixture.removeNode(1);
+        Assert.assertEquals(1, fixture.size());
+        Assert.assertArrayEquals(new int[0], fixture.sources(3, RelationshipType.Dependency));
+        Assert.assertArrayEquals(new int[0], fixture.targets(3, RelationshipType.Generalization));
+        Assert.assertTrue(fixture.contains(2, 3, RelationshipType.Realization));
+
+        fixture.clear();
+        Assert.assertEquals(0, fixture.size());
+    }
+
+    /**
+     * Tests that a compacted index matches the graph it was taken from, and
+     * is not affected by later changes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCompact() throws Exception
+    {
+        Random rand = new Random(7L);
+        int nodes = 500;
+        for (int i = 0; i < 20000; i++)
+        {
+            RelationshipType type = RelationshipType.values()[rand.nextInt(4)];
+            int source = rand.nextInt(nodes);
+            int dest = rand.nextInt(nodes);
+            fixture.add(source, dest, type);
+            if (rand.nextInt(5) == 0)
+                fixture.remove(dest, source, type);
+        }
+
+        RelationIndex index = fixture.compact();
+        Assert.assertEquals(fixture.size(), index.size());
+        for (RelationshipType type : RelationshipType.values())
+        {
+            Assert.assertEquals(fixture.size(type), index.size(type));
+            for (int node = 0; node < nodes; node++)
+            {
+                Assert.assertArrayEquals(sorted(fixture.targets(node, type)), index.targets(node, type));
+                Assert.assertArrayEquals(sorted(fixture.sources(node, type)), index.sources(node, type));
+                Assert.assertEquals(fixture.outDegree(node, type), index.outDegree(node, type));
+                Assert.assertEquals(fixture.inDegree(node, type), index.inDegree(node, type));
+            }
+        }
+
+        int[] targets = index.targets(0, RelationshipType.Dependency);
+        for (int dest : targets)
+        {
+            Assert.assertTrue(index.contains(0, dest, RelationshipType.Dependency));
+        }
+        List<Integer> visited = Lists.newArrayList();
+        index.forEachTarget(0, RelationshipType.Dependency, visited::add);
+        Assert.assertEquals(targets.length, visited.size());
+
+        fixture.removeNode(0);
+        Assert.assertArrayEquals(targets, index.targets(0, RelationshipType.Dependency));
+        Assert.assertArrayEquals(new int[0], index.targets(nodes + 10, RelationshipType.Dependency));
+        Assert.assertFalse(index.contains(-1, 0, RelationshipType.Dependency));
+    }
+
+    /**
+     * Tests the graph of a tree, keyed by the ids of its nodes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTree() throws Exception
+    {
+        TypeNode a = TypeNode.builder("A", "pkg.A").range(1, 20).create();
+        TypeNode b = TypeNode.builder("B", "pkg.B").range(1, 10).create();
+        CodeTree tree = new CodeTree();
+        tree.setProject(ProjectNode.builder("project")
+                .file(FileNode.builder("src/A.java").parent("project").length(20).type(a).create())
+                .file(FileNode.builder("src/B.java").parent("project").length(10).type(b).create()).create());
+
+        RelationGraph graph = tree.getRelations();
+        Assert.assertTrue(graph.add(new Relationship(a, b, RelationshipType.Association)));
+        Assert.assertTrue(graph.add(b, a, RelationshipType.Dependency));
+
+        List<Relationship> outgoing = graph.getOutgoing(a);
+        Assert.assertEquals(1, outgoing.size());
+        Assert.assertSame(b, outgoing.get(0).getDest());
+        Assert.assertEquals(RelationshipType.Association, outgoing.get(0).getType());
+        Assert.assertSame(b, graph.getIncoming(a).get(0).getSource());
+
+        tree.getProject().removeFile("src/B.java");
+        Assert.assertEquals(0, graph.size());
+        Assert.assertTrue(graph.getOutgoing(a).isEmpty());
+    }
+
+    /**
+     * Tests that nodes outside of a tree cannot be related.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddDetached() throws Exception
+    {
+        fixture.add(TypeNode.builder("A", "pkg.A").create(), TypeNode.builder("B", "pkg.B").create(),
+                RelationshipType.Dependency);
+    }
+
+    /**
+     * @param ids
+     *            Node ids
+     * @return The ids, sorted
+     */
+    private static int[] sorted(int[] ids)
+    {
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = new RelationGraph();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(RelationGraphTest.class);
+    }
+}
@@ -0,0 +1,266 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.CodeNode;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>MappedSnapshotTest</code> contains tests for the class
+ * <code>{@link MappedSnapshot}</code> and its flyweights.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MappedSnapshotTest {
+
+    private CodeTree fixture;
+
+    private Path     file;
+
+    /**
+     * Tests that the mapped tree mirrors the saved one.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBrowse() throws Exception
+    {
+        MappedSnapshot snapshot = MappedSnapshot.open(save(fixture));
+        MappedProject project = snapshot.getProject();
+
+        assertSame(fixture.getProject(), project);
+        Assert.assertEquals(1, project.getModules().size());
+        Assert.assertEquals(1, project.getFiles().size());
+        Assert.assertEquals(Sets.newHashSet("java.util.List"), project.getFiles().get(0).getImports());
+        Assert.assertEquals(12, project.getFiles().get(0).getLength());
+        Assert.assertEquals(4.0, project.getMetric("LOC"), 0.0);
+        Assert.assertNull(project.getMetric("NOM"));
+        Assert.assertNull(project.getParentID());
+    }
+
+    /**
+     * Tests lookups of types and lines.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFind() throws Exception
+    {
+        MappedSnapshot snapshot = MappedSnapshot.open(save(fixture));
+
+        MappedType type = snapshot.findType("pkg.Class");
+        Assert.assertTrue(type.isAbstract());
+        Assert.assertFalse(type.isInterface());
+        Assert.assertEquals("/src/Class.java", type.getParentID());
+        Assert.assertNull(snapshot.findType("pkg.Missing"));
+        Assert.assertNull(snapshot.findType("other.Lone"));
+
+        Assert.assertEquals(type, snapshot.getProject().getFiles().get(0).findType(40));
+        Assert.assertEquals(type, snapshot.getProject().getNamespaces().get(0).getTypes().get(0));
+        Assert.assertEquals("other.Lone",
+                snapshot.getProject().getModules().get(0).getNamespaces().get(0).getTypes().get(0).getQIdentifier());
+
+        MappedMethod method = type.findMethod(60);
+        Assert.assertEquals("pkg.Class#method", method.getQIdentifier());
+        Assert.assertTrue(method.isStatic());
+        Assert.assertFalse(method.isConstructor());
+        Assert.assertEquals(StatementType.For, method.getStatements().get(0).getStatementType());
+        Assert.assertNull(type.findMethod(150));
+    }
+
+    /**
+     * Tests that an empty tree maps to no project.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEmpty() throws Exception
+    {
+        MappedSnapshot snapshot = MappedSnapshot.open(save(new CodeTree()));
+
+        Assert.assertNull(snapshot.getProject());
+        Assert.assertNull(snapshot.findType("pkg.Class"));
+    }
+
+    /**
+     * Tests that a file which is not a snapshot is rejected.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IOException.class)
+    public void testCorrupt() throws Exception
+    {
+        byte[] data = Files.readAllBytes(save(fixture));
+        data[data.length - 10] ^= 0x7F;
+        Files.write(file, data);
+
+        MappedSnapshot.open(file);
+    }
+
+    /**
+     * Asserts that a flyweight mirrors a node and its contents.
+     *
+     * @param node
+     *            The node
+     * @param mapped
+     *            The flyweight
+     */
+    private void assertSame(AbstractNode node, MappedNode mapped)
+    {
+        Assert.assertEquals(node.getType(), mapped.getType());
+        Assert.assertEquals(node.getQIdentifier(), mapped.getQIdentifier());
+        Assert.assertEquals(node.getName(), mapped.getName());
+        Assert.assertEquals(node.getParentID(), mapped.getParentID());
+        Assert.assertEquals(node.getMetricNames(), mapped.getMetricNames());
+        for (String metric : node.getMetricNames())
+        {
+            Assert.assertEquals(node.getMetric(metric), mapped.getMetric(metric));
+        }
+        if (node instanceof CodeNode)
+        {
+            Assert.assertEquals(((CodeNode) node).getStart(), ((MappedCodeNode) mapped).getStart());
+            Assert.assertEquals(((CodeNode) node).getEnd(), ((MappedCodeNode) mapped).getEnd());
+        }
+
+        List<AbstractNode> children = Lists.newArrayList(node.getChildren());
+        List<? extends MappedNode> mappedChildren = mapped.getChildren();
+        Assert.assertEquals(children.size(), mappedChildren.size());
+        for (AbstractNode child : children)
+        {
+            MappedNode match = null;
+            for (MappedNode candidate : mappedChildren)
+            {
+                if (candidate.getQIdentifier().equals(child.getQIdentifier()))
+                    match = candidate;
+            }
+            Assert.assertNotNull(child.getQIdentifier(), match);
+            assertSame(child, match);
+        }
+    }
+
+    /**
+     * @param tree
+     *            The tree
+     * @return The file to which the tree was saved
+     * @throws IOException
+     */
+    private Path save(CodeTree tree) throws IOException
+    {
+        try (OutputStream out = Files.newOutputStream(file))
+        {
+            tree.save(out);
+        }
+
+        return file;
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        TypeNode type = TypeNode.builder("Class", "pkg.Class")
+                .range(1, 100)
+                .isAbstract()
+                .metric("LOC", -0.5)
+                .method(MethodNode.builder("method", "pkg.Class#method")
+                        .range(50, 100)
+                        .isStatic()
+                        .metric("LOC", 2.0)
+                        .statement(StatementNode.builder(StatementType.For).range(60, 64).create())
+                        .create())
+                .method(MethodNode.builder("Class", "pkg.Class#Class").range(20, 30).constructor().create())
+                .field(FieldNode.builder("field", "pkg.Class#field").range(25, 25).create())
+                .create();
+
+        ProjectNode pn = ProjectNode.builder("project")
+                .metric("LOC", 4.0)
+                .module(ModuleNode.builder("module").file(FileNode.builder("/module/File.java").create())
+                        .namespace(NamespaceNode.builder("other")
+                                .type(TypeNode.builder("Lone", "other.Lone").range(3, 9).create()).create())
+                        .create())
+                .file(FileNode.builder("/src/Class.java").type(type).length(12).imports("java.util.List")
+                        .create())
+                .namespace(NamespaceNode.builder("pkg").type(type).create())
+                .create();
+
+        fixture = new CodeTree();
+        fixture.setProject(pn);
+        file = Files.createTempFile("codetree", ".snapshot");
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(MappedSnapshotTest.class);
+    }
+}
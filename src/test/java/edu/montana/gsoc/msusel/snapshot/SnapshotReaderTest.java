@@ -0,0 +1,239 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonParser;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.json.CodeTreeReader;
+import edu.montana.gsoc.msusel.node.FieldNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>SnapshotReaderTest</code> contains tests for the classes
+ * <code>{@link SnapshotReader}</code> and <code>{@link SnapshotWriter}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class SnapshotReaderTest {
+
+    private CodeTree fixture;
+
+    /**
+     * Tests that a snapshot holds the same tree as a JSON round-trip.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        CodeTree loaded = CodeTree.load(new ByteArrayInputStream(save(fixture)));
+        CodeTree viaJson = new CodeTreeReader().read(new StringReader(fixture.toJSON()));
+
+        Assert.assertEquals(new JsonParser().parse(viaJson.toJSON()), new JsonParser().parse(loaded.toJSON()));
+        Assert.assertEquals(new JsonParser().parse(fixture.toJSON()), new JsonParser().parse(loaded.toJSON()));
+
+        TypeNode type = loaded.getUtils().findType("pkg.Class");
+        Assert.assertTrue(type.isAbstract());
+        Assert.assertSame(type, loaded.getUtils().findNamespace("pkg").getTypes().iterator().next());
+        Assert.assertEquals(-0.5, type.getMetric("LOC"), 0.0);
+        Assert.assertEquals(12, loaded.getUtils().findFile("/src/Class.java").getLength());
+        Assert.assertEquals("module", loaded.getUtils().findModule("module").getName());
+    }
+
+    /**
+     * Tests that statements are restored.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStatements() throws Exception
+    {
+        MethodNode method = fixture.getUtils().findMethod("pkg.Class#method");
+        method.addStatement(StatementNode.builder(StatementType.For).range(60, 64).create());
+
+        CodeTree loaded = CodeTree.load(new ByteArrayInputStream(save(fixture)));
+
+        StatementNode stmt = loaded.getUtils().findMethod("pkg.Class#method").getStatements().get(0);
+        Assert.assertEquals(StatementType.For, stmt.getStatementType());
+        Assert.assertEquals(60, stmt.getStart());
+        Assert.assertEquals(64, stmt.getEnd());
+    }
+
+    /**
+     * Tests that statements keep their identifiers and metrics verbatim, no
+     * matter how often the snapshot is loaded.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStatementIdentity() throws Exception
+    {
+        MethodNode method = fixture.getUtils().findMethod("pkg.Class#method");
+        StatementNode stmt = StatementNode.builder(StatementType.If).range(70, 72).metric("LOC", 3.0).create();
+        method.addStatement(stmt);
+        byte[] data = save(fixture);
+
+        for (int i = 0; i < 2; i++)
+        {
+            CodeTree loaded = CodeTree.load(new ByteArrayInputStream(data));
+            StatementNode read = loaded.getUtils().findMethod("pkg.Class#method").getStatements().get(0);
+            Assert.assertEquals(stmt.getQIdentifier(), read.getQIdentifier());
+            Assert.assertEquals(3.0, read.getMetric("LOC"), 0.0);
+            Assert.assertEquals(new JsonParser().parse(fixture.toJSON()), new JsonParser().parse(loaded.toJSON()));
+        }
+        Assert.assertNotEquals(stmt.getQIdentifier(),
+                StatementNode.builder(StatementType.If).create().getQIdentifier());
+    }
+
+    /**
+     * Tests that an empty tree round-trips.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEmpty() throws Exception
+    {
+        Assert.assertNull(CodeTree.load(new ByteArrayInputStream(save(new CodeTree()))).getProject());
+    }
+
+    /**
+     * Tests that data which is not a snapshot is rejected.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IOException.class)
+    public void testBadMagic() throws Exception
+    {
+        CodeTree.load(new ByteArrayInputStream(new byte[] { '{', '}', 0, 0, 0 }));
+    }
+
+    /**
+     * Tests that a truncated snapshot is rejected.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IOException.class)
+    public void testTruncated() throws Exception
+    {
+        byte[] data = save(fixture);
+        byte[] cut = new byte[data.length - 3];
+        System.arraycopy(data, 0, cut, 0, cut.length);
+        CodeTree.load(new ByteArrayInputStream(cut));
+    }
+
+    /**
+     * @param tree
+     *            The tree
+     * @return The snapshot of the given tree
+     * @throws IOException
+     */
+    private byte[] save(CodeTree tree) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tree.save(out);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        TypeNode type = TypeNode.builder("Class", "pkg.Class")
+                .range(1, 100)
+                .isAbstract()
+                .metric("LOC", -0.5)
+                .method(MethodNode.builder("method", "pkg.Class#method")
+                        .range(50, 100)
+                        .isStatic()
+                        .metric("LOC", 2.0)
+                        .create())
+                .method(MethodNode.builder("Class", "pkg.Class#Class").range(20, 30).constructor().create())
+                .field(FieldNode.builder("field", "pkg.Class#field").range(25, 25).create())
+                .create();
+
+        ProjectNode pn = ProjectNode.builder("project")
+                .metric("LOC", 4.0)
+                .module(ModuleNode.builder("module").file(FileNode.builder("/module/File.java").create())
+                        .namespace(NamespaceNode.builder("other")
+                                .type(TypeNode.builder("Lone", "other.Lone").range(3, 9).create()).create())
+                        .create())
+                .file(FileNode.builder("/src/Class.java").type(type).length(12).imports("java.util.List")
+                        .create())
+                .namespace(NamespaceNode.builder("pkg").type(type).create())
+                .create();
+
+        fixture = new CodeTree();
+        fixture.setProject(pn);
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(SnapshotReaderTest.class);
+    }
+}
@@ -0,0 +1,364 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.generator.GeneratorSpec;
+import edu.montana.gsoc.msusel.generator.TreeGenerator;
+import edu.montana.gsoc.msusel.node.CodeNode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.INodeType;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+import edu.montana.gsoc.msusel.util.MetricKey;
+import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+
+/**
+ * The class <code>NodeStoreTest</code> contains tests for the class
+ * <code>{@link NodeStore}</code> and its flyweights.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class NodeStoreTest {
+
+    private NodeStore fixture;
+
+    /**
+     * Tests that records are linked to their parents and siblings.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAdd() throws Exception
+    {
+        int project = fixture.add(INodeType.PROJECT, "project", "project", -1, 0, 0);
+        int file = fixture.add(INodeType.FILE, "src/A.java", "A.java", project, 0, 0);
+        int type = fixture.add(INodeType.TYPE, "pkg.A", "A", file, 1, 20);
+        int foo = fixture.add(INodeType.METHOD, "pkg.A#foo", "foo", type, 2, 5);
+        int bar = fixture.add(INodeType.METHOD, "pkg.A#bar", null, type, 7, 9);
+
+        Assert.assertEquals(5, fixture.size());
+        Assert.assertEquals(-1, fixture.parent(project));
+        Assert.assertEquals(type, fixture.parent(foo));
+        Assert.assertEquals(foo, fixture.firstChild(type));
+        Assert.assertEquals(bar, fixture.nextSibling(foo));
+        Assert.assertEquals(-1, fixture.nextSibling(bar));
+        Assert.assertEquals(-1, fixture.firstChild(bar));
+
+        StoredNode node = fixture.node(foo);
+        Assert.assertEquals(INodeType.METHOD, node.getType());
+        Assert.assertEquals("pkg.A#foo", node.getQIdentifier());
+        Assert.assertEquals("foo", node.getName());
+        Assert.assertEquals("pkg.A", node.getParentID());
+        Assert.assertEquals(2, node.getStart());
+        Assert.assertEquals(5, node.getEnd());
+        Assert.assertTrue(node.containsLine(5));
+        Assert.assertFalse(node.containsLine(6));
+        Assert.assertEquals("pkg.A#foo", node.getSymbol().toString());
+        Assert.assertNull(fixture.node(bar).getName());
+        Assert.assertFalse(fixture.root().hasParent());
+        Assert.assertNull(fixture.root().getParentID());
+    }
+
+    /**
+     * Tests that records cannot be added under a missing parent.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddMissingParent() throws Exception
+    {
+        fixture.add(INodeType.PROJECT, "project", "project", 0, 0, 0);
+    }
+
+    /**
+     * Tests that records of unknown types are rejected.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddUnknownType() throws Exception
+    {
+        fixture.add("CLASS", "pkg.A", "A", -1, 0, 0);
+    }
+
+    /**
+     * Tests walking the store with a single flyweight.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNavigate() throws Exception
+    {
+        int type = fixture.add(INodeType.TYPE, "pkg.A", "A", -1, 1, 20);
+        fixture.add(INodeType.METHOD, "pkg.A#foo", "foo", type, 2, 5);
+        fixture.add(INodeType.METHOD, "pkg.A#bar", "bar", type, 7, 9);
+
+        StoredNode node = fixture.flyweight();
+        Assert.assertEquals(-1, node.getId());
+        Assert.assertSame(node, node.moveTo(type));
+        Assert.assertFalse(node.toParent());
+        Assert.assertTrue(node.toFirstChild());
+        Assert.assertEquals("pkg.A#foo", node.getQIdentifier());
+        Assert.assertTrue(node.toNextSibling());
+        Assert.assertEquals("pkg.A#bar", node.getQIdentifier());
+        Assert.assertFalse(node.toNextSibling());
+        Assert.assertFalse(node.toFirstChild());
+        Assert.assertEquals(fixture.node(2), node);
+        Assert.assertTrue(node.toParent());
+        Assert.assertEquals(fixture.root(), node);
+        Assert.assertEquals(fixture.root().hashCode(), node.hashCode());
+
+        Assert.assertEquals(Lists.newArrayList(fixture.node(1), fixture.node(2)), node.getChildren());
+        Assert.assertEquals(node, fixture.node(1).getParent());
+        Assert.assertNull(node.getParent());
+    }
+
+    /**
+     * Tests metric slots.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMetrics() throws Exception
+    {
+        MetricKey loc = MetricNameRegistry.getInstance().keyOrRegister("LOC");
+        MetricKey nom = MetricNameRegistry.getInstance().keyOrRegister("NOM");
+        fixture = new NodeStore(1);
+        StoredNode node = fixture.node(fixture.add(INodeType.TYPE, "pkg.A", "A", -1, 1, 20));
+
+        Assert.assertFalse(node.hasMetric(loc));
+        Assert.assertNull(node.getMetric("LOC"));
+        Assert.assertTrue(Double.isNaN(node.getMetric(loc)));
+
+        node.addMetric(loc, 20.0);
+        node.incrementMetric(loc, 2.0);
+        node.addMetric(loc, Double.NaN);
+        Assert.assertEquals(22.0, node.getMetric("LOC"), 0.0);
+        Assert.assertEquals(Sets.newHashSet("LOC"), node.getMetricNames());
+
+        Assert.assertFalse(node.hasMetric(nom));
+        try
+        {
+            node.addMetric(nom, 1.0);
+            Assert.fail("Expected no slot to be left");
+        }
+        catch (IllegalStateException e)
+        {
+            Assert.assertFalse(node.hasMetric(nom));
+        }
+    }
+
+    /**
+     * Tests lookups by qualified identifier.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFind() throws Exception
+    {
+        int root = fixture.add(INodeType.PROJECT, "project", "project", -1, 0, 0);
+        for (int i = 1; i < 5000; i++)
+        {
+            fixture.add(INodeType.TYPE, "pkg.T" + i + "é", "T" + i, root, i, i);
+        }
+
+        Assert.assertEquals(0, fixture.find("project"));
+        Assert.assertEquals(1234, fixture.find("pkg.T1234é"));
+        Assert.assertEquals(4999, fixture.find("pkg.T4999é"));
+        Assert.assertEquals(-1, fixture.find("pkg.T1234"));
+        Assert.assertEquals(-1, fixture.find(null));
+    }
+
+    /**
+     * Tests that records and strings spill over into new chunks.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testChunks() throws Exception
+    {
+        int count = (1 << NodeStore.CHUNK_BITS) * 2 + 10;
+        String big = Strings.repeat("x", StringArea.CHUNK + 10);
+
+        int root = fixture.add(INodeType.PROJECT, "project", big, -1, 0, 0);
+        for (int i = 1; i < count; i++)
+        {
+            fixture.add(INodeType.STATEMENT, "Expression:" + i, "Expression", root, i, i);
+        }
+
+        Assert.assertEquals(count, fixture.size());
+        Assert.assertEquals(big, fixture.name(root));
+        Assert.assertEquals("Expression:" + (count - 1), fixture.qIdentifier(count - 1));
+        Assert.assertEquals(count - 1, fixture.start(count - 1));
+        Assert.assertEquals(count - 1, fixture.find("Expression:" + (count - 1)));
+        Assert.assertTrue(fixture.offHeapSize() > StringArea.CHUNK * 2L);
+    }
+
+    /**
+     * Tests that a copied tree mirrors the original, parents first.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCopyOf() throws Exception
+    {
+        CodeTree tree = new TreeGenerator(GeneratorSpec.ofSize(2000, 7L)).generate();
+        fixture = NodeStore.copyOf(tree, 16);
+
+        List<AbstractNode> nodes = Lists.newArrayList();
+        collect(tree.getProject(), nodes);
+        Assert.assertEquals(nodes.size(), fixture.size());
+
+        StoredNode stored = fixture.flyweight();
+        for (int i = 0; i < nodes.size(); i++)
+        {
+            AbstractNode node = nodes.get(i);
+            stored.moveTo(i);
+
+            Assert.assertEquals(node.getType(), stored.getType());
+            Assert.assertEquals(node.getQIdentifier(), stored.getQIdentifier());
+            Assert.assertEquals(node.getName(), stored.getName());
+            Assert.assertEquals(node.getMetricNames(), stored.getMetricNames());
+            for (String metric : node.getMetricNames())
+            {
+                Assert.assertEquals(node.getMetric(metric), stored.getMetric(metric));
+            }
+            if (node instanceof CodeNode)
+            {
+                Assert.assertEquals(((CodeNode) node).getStart(), stored.getStart());
+                Assert.assertEquals(((CodeNode) node).getEnd(), stored.getEnd());
+            }
+        }
+    }
+
+    /**
+     * Tests that identifiers copied from symbols are encoded as UTF-8, like
+     * identifiers added as strings.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCopyOfEncoding() throws Exception
+    {
+        TypeNode type = TypeNode.builder("Ünï", "pkg.Ünï").range(1, 10)
+                .method(MethodNode.builder("\uD83D\uDE00", "pkg.Ünï#\uD83D\uDE00").range(2, 3).create())
+                .method(MethodNode.builder("b\uD83D", "pkg.Ünï#b\uD83D").range(4, 5).create()).create();
+        CodeTree tree = new CodeTree();
+        tree.setProject(ProjectNode.builder("project").file(FileNode.builder("src/Ünï.java").type(type).create())
+                .create());
+        fixture = NodeStore.copyOf(tree, 4);
+
+        List<AbstractNode> nodes = Lists.newArrayList();
+        collect(tree.getProject(), nodes);
+        StoredNode stored = fixture.flyweight();
+        for (int i = 0; i < nodes.size(); i++)
+        {
+            String qid = nodes.get(i).getQIdentifier();
+            Assert.assertEquals(i, fixture.find(qid));
+            Assert.assertEquals(new String(qid.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8),
+                    stored.moveTo(i).getQIdentifier());
+        }
+    }
+
+    /**
+     * Tests that stored nodes can be neither cloned nor reparented.
+     *
+     * @throws Exception
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCloneNoChildren() throws Exception
+    {
+        fixture.node(fixture.add(INodeType.TYPE, "pkg.A", "A", -1, 1, 20)).cloneNoChildren();
+    }
+
+    /**
+     * Collects a node and its children, parents first.
+     *
+     * @param node
+     *            The node
+     * @param nodes
+     *            The nodes collected so far
+     */
+    private static void collect(AbstractNode node, List<AbstractNode> nodes)
+    {
+        nodes.add(node);
+        for (AbstractNode child : node.getChildren())
+        {
+            collect(child, nodes);
+        }
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = new NodeStore();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(NodeStoreTest.class);
+    }
+}
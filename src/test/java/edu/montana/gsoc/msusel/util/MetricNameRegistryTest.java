@@ -0,0 +1,165 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import edu.montana.gsoc.msusel.node.MethodNode;
+
+/**
+ * The class <code>MetricNameRegistryTest</code> contains tests for the class
+ * <code>{@link MetricNameRegistry}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MetricNameRegistryTest {
+
+    private MetricNameRegistry fixture;
+
+    /**
+     * Tests that aliases resolve to the key of their acronym and that
+     * re-registering an acronym keeps its key.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testKeys() throws Exception
+    {
+        MetricKey key = fixture.register("RegistryNOM", "RegistryNumMethods");
+
+        Assert.assertEquals("RegistryNOM", key.getAcronym());
+        Assert.assertSame(key, fixture.key("RegistryNumMethods"));
+        Assert.assertSame(key, fixture.key(key.getId()));
+        Assert.assertSame(key, fixture.register("RegistryNOM"));
+        Assert.assertSame(key, fixture.keyOrRegister("RegistryNumMethods"));
+        Assert.assertEquals("RegistryNOM", fixture.lookup("RegistryNumMethods"));
+        Assert.assertNull(fixture.key("RegistryMissing"));
+        Assert.assertNull(fixture.key((String) null));
+        Assert.assertNull(fixture.register(""));
+    }
+
+    /**
+     * Tests that registering the same names from many threads at once hands
+     * out a single key per acronym.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentRegistration() throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Callable<MetricKey>> tasks = Lists.newArrayList();
+            for (int i = 0; i < 64; i++)
+            {
+                final String name = "Concurrent" + (i % 4);
+                tasks.add(() -> fixture.keyOrRegister(name));
+            }
+
+            List<Future<MetricKey>> keys = pool.invokeAll(tasks);
+            for (int i = 0; i < keys.size(); i++)
+            {
+                Assert.assertSame(fixture.key("Concurrent" + (i % 4)), keys.get(i).get());
+                Assert.assertEquals("Concurrent" + (i % 4), fixture.name(keys.get(i).get().getId()));
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that nodes accept keys in place of metric names.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNodeKeys() throws Exception
+    {
+        MetricKey loc = fixture.key("CountLineCode");
+        MethodNode method = MethodNode.builder("m", "T#m").create();
+
+        Assert.assertFalse(method.hasMetric(loc));
+        Assert.assertTrue(Double.isNaN(method.getMetric(loc)));
+
+        method.addMetric(loc, 3.0);
+        method.incrementMetric(loc, 4.0);
+        method.addMetric((MetricKey) null, 1.0);
+
+        Assert.assertTrue(method.hasMetric(loc));
+        Assert.assertEquals(7.0, method.getMetric(loc), 0.0001);
+        Assert.assertEquals(7.0, method.getMetric("LOC"), 0.0001);
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = MetricNameRegistry.getInstance();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(MetricNameRegistryTest.class);
+    }
+}
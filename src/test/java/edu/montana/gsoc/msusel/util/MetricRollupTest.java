@@ -0,0 +1,221 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.NamespaceNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>MetricRollupTest</code> contains tests for the class
+ * <code>{@link MetricRollup}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MetricRollupTest {
+
+    private CodeTree      fixture;
+    private NamespaceNode namespace;
+
+    /**
+     * Tests that sums, means, extrema and counts are written at every level
+     * above the methods.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRollup() throws Exception
+    {
+        new MetricRollup(RollupSpec.sum("CC"), RollupSpec.mean("CC").as("AVG_CC"), RollupSpec.max("CC").as("MAX_CC"),
+                RollupSpec.min("CC").as("MIN_CC"), RollupSpec.count("CC").as("NOM")).rollup(fixture);
+        CodeTreeUtils utils = fixture.getUtils();
+
+        TypeNode type1 = utils.findType("path1.namespace.Type1");
+        Assert.assertEquals(3.0, type1.getMetric("CC"), 0.0001);
+        Assert.assertEquals(1.5, type1.getMetric("AVG_CC"), 0.0001);
+        Assert.assertEquals(2.0, type1.getMetric("NOM"), 0.0001);
+
+        FileNode path2 = utils.findFile("path2");
+        Assert.assertEquals(10.0, path2.getMetric("CC"), 0.0001);
+        Assert.assertEquals(10.0, path2.getMetric("MAX_CC"), 0.0001);
+
+        ModuleNode module = utils.findModule("module");
+        Assert.assertEquals(10.0, module.getMetric("CC"), 0.0001);
+
+        ProjectNode project = fixture.getProject();
+        Assert.assertEquals(13.0, project.getMetric("CC"), 0.0001);
+        Assert.assertEquals(13.0 / 3.0, project.getMetric("AVG_CC"), 0.0001);
+        Assert.assertEquals(10.0, project.getMetric("MAX_CC"), 0.0001);
+        Assert.assertEquals(1.0, project.getMetric("MIN_CC"), 0.0001);
+        Assert.assertEquals(3.0, project.getMetric("NOM"), 0.0001);
+
+        Assert.assertEquals(0.0, utils.findType("path1.namespace.Type3").getMetric("NOM"), 0.0001);
+        Assert.assertFalse(utils.findType("path1.namespace.Type3").hasMetric("AVG_CC"));
+        Assert.assertEquals(2.0, utils.findMethod("path1.namespace.Type1#method2").getMetric("CC"), 0.0001);
+    }
+
+    /**
+     * Tests that namespaces receive the aggregate of their types without
+     * counting towards the containing project twice.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNamespaces() throws Exception
+    {
+        new MetricRollup(RollupSpec.sum("CC"), RollupSpec.count("CC").as("NOM")).rollup(fixture);
+
+        Assert.assertEquals(13.0, namespace.getMetric("CC"), 0.0001);
+        Assert.assertEquals(3.0, namespace.getMetric("NOM"), 0.0001);
+        Assert.assertEquals(13.0, fixture.getProject().getMetric("CC"), 0.0001);
+    }
+
+    /**
+     * Tests that specs may read from nodes other than methods.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTypeSource() throws Exception
+    {
+        new MetricRollup(RollupSpec.count("CC").from(TypeNode.class).as("NOC")).rollup(fixture);
+
+        Assert.assertFalse(fixture.getUtils().findType("path1.namespace.Type1").hasMetric("NOC"));
+        Assert.assertEquals(0.0, fixture.getProject().getMetric("NOC"), 0.0001);
+
+        fixture.getUtils().findType("path1.namespace.Type1").addMetric("CC", 3.0);
+        new MetricRollup(RollupSpec.count("CC").from(TypeNode.class).as("NOC")).rollup(fixture);
+        Assert.assertEquals(1.0, fixture.getProject().getMetric("NOC"), 0.0001);
+    }
+
+    /**
+     * Tests that a dedicated pool produces the same results and that specs
+     * reading from kinds outside of the hierarchy are rejected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPool() throws Exception
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            new MetricRollup(pool, Lists.newArrayList(RollupSpec.sum("CC"))).rollup(fixture);
+            Assert.assertEquals(13.0, fixture.getProject().getMetric("CC"), 0.0001);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        try
+        {
+            new MetricRollup(RollupSpec.sum("CC").from(NamespaceNode.class));
+            Assert.fail("Namespaces cannot be a source");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = new CodeTree();
+        MetricNameRegistry.getInstance().register("CC");
+
+        TypeNode type1 = TypeNode.builder("Type1", "path1.namespace.Type1")
+                .range(100, 150)
+                .method(MethodNode.builder("method1", "path1.namespace.Type1#method1").range(110, 120)
+                        .metric("CC", 1.0).create())
+                .method(MethodNode.builder("method2", "path1.namespace.Type1#method2").range(121, 150)
+                        .metric("CC", 2.0).create())
+                .create();
+        TypeNode type2 = TypeNode.builder("Type2", "path2.namespace.Type2")
+                .range(100, 150)
+                .method(MethodNode.builder("method1", "path2.namespace.Type2#method1").range(110, 150)
+                        .metric("CC", 10.0).create())
+                .create();
+        TypeNode type3 = TypeNode.builder("Type3", "path1.namespace.Type3").range(160, 170).create();
+
+        namespace = NamespaceNode.builder("namespace").type(type1).type(type2).type(type3).create();
+
+        ModuleNode module = ModuleNode.builder("module")
+                .file(FileNode.builder("path2").type(type2).create())
+                .create();
+
+        ProjectNode pn = ProjectNode.builder("project")
+                .file(FileNode.builder("path1").type(type1).type(type3).create())
+                .project(ProjectNode.builder("subproject").module(module).create())
+                .namespace(namespace)
+                .create();
+        fixture.setProject(pn);
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(MetricRollupTest.class);
+    }
+}
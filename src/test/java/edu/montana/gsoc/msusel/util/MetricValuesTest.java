@@ -0,0 +1,171 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.montana.gsoc.msusel.node.MethodNode;
+
+/**
+ * The class <code>MetricValuesTest</code> contains tests for the class
+ * <code>{@link MetricValues}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class MetricValuesTest {
+
+    private MetricValues fixture;
+
+    /**
+     * Tests that values are kept in id order regardless of insertion order.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPut() throws Exception
+    {
+        fixture.put(7, 7.0);
+        fixture.put(2, 2.0);
+        fixture.put(5, 5.0);
+        fixture.put(0, 0.5);
+        fixture.put(5, 6.0);
+        fixture.put(-1, 1.0);
+
+        Assert.assertEquals(4, fixture.size());
+        Assert.assertEquals(0, fixture.idAt(0));
+        Assert.assertEquals(2, fixture.idAt(1));
+        Assert.assertEquals(5, fixture.idAt(2));
+        Assert.assertEquals(7, fixture.idAt(3));
+        Assert.assertEquals(6.0, fixture.get(5), 0.0001);
+        Assert.assertTrue(fixture.has(2));
+        Assert.assertFalse(fixture.has(3));
+        Assert.assertTrue(Double.isNaN(fixture.get(3)));
+        Assert.assertTrue(Double.isNaN(fixture.get(-1)));
+    }
+
+    /**
+     * Tests that increments start from the increment itself.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAdd() throws Exception
+    {
+        fixture.add(3, 1.5);
+        fixture.add(3, 2.0);
+
+        Assert.assertEquals(1, fixture.size());
+        Assert.assertEquals(3.5, fixture.get(3), 0.0001);
+    }
+
+    /**
+     * Tests that aliases share an id and that nodes are reachable through
+     * both the name and the id of a metric.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNodeAccess() throws Exception
+    {
+        MetricNameRegistry registry = MetricNameRegistry.getInstance();
+        int loc = registry.id("LOC");
+
+        Assert.assertEquals(loc, registry.id("LoC"));
+        Assert.assertEquals(loc, registry.id("CountLineCode"));
+        Assert.assertEquals("LOC", registry.name(loc));
+        Assert.assertEquals(-1, registry.id("NotRegistered"));
+
+        MethodNode method = MethodNode.builder("m", "T#m").create();
+        method.addMetric("LoC", 10.0);
+        method.incrementMetric(loc, 2.0);
+        method.incrementMetric("NotRegistered", 2.0);
+
+        Assert.assertTrue(method.hasMetric(loc));
+        Assert.assertEquals(12.0, method.getMetric(loc), 0.0001);
+        Assert.assertEquals(12.0, method.getMetric("CountLineCode"), 0.0001);
+        Assert.assertEquals(1, method.getMetricNames().size());
+        Assert.assertTrue(method.getMetricNames().contains("LOC"));
+    }
+
+    /**
+     * Tests that values are written to and read from JSON as a map of names.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testJson() throws Exception
+    {
+        MetricNameRegistry registry = MetricNameRegistry.getInstance();
+        fixture.put(registry.id("LOC"), 42.0);
+
+        MetricValues.Adapter adapter = new MetricValues.Adapter();
+        String json = adapter.toJson(fixture);
+        Assert.assertEquals("{\"LOC\":42.0}", json);
+
+        MetricValues read = adapter.fromJson("{\"LOC\":42.0,\"JsonOnly\":1.0}");
+        Assert.assertEquals(42.0, read.get(registry.id("LOC")), 0.0001);
+        Assert.assertEquals(1.0, read.get(registry.id("JsonOnly")), 0.0001);
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = new MetricValues();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(MetricValuesTest.class);
+    }
+}
@@ -0,0 +1,361 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import edu.montana.gsoc.msusel.AbstractNode;
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.INode;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.Parameter;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>NodeIdsTest</code> contains tests for the class
+ * <code>{@link NodeIds}</code> and for the ids it assigns to the nodes of a
+ * tree.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class NodeIdsTest {
+
+    private NodeIds fixture;
+
+    /**
+     * Tests registration, lookup and release across bucket boundaries.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRegister() throws Exception
+    {
+        INode[] nodes = new INode[5000];
+        for (int i = 0; i < nodes.length; i++)
+        {
+            nodes[i] = FileNode.builder("f" + i).create();
+            Assert.assertEquals(i, fixture.register(nodes[i]));
+        }
+
+        Assert.assertEquals(nodes.length, fixture.bound());
+        Assert.assertEquals(nodes.length, fixture.size());
+        for (int i = 0; i < nodes.length; i++)
+            Assert.assertSame(nodes[i], fixture.get(i));
+        Assert.assertNull(fixture.get(-1));
+        Assert.assertNull(fixture.get(nodes.length));
+
+        fixture.release(1024, nodes[0]);
+        Assert.assertSame(nodes[1024], fixture.get(1024));
+        fixture.release(1024, nodes[1024]);
+        Assert.assertNull(fixture.get(1024));
+        Assert.assertEquals(nodes.length - 1, fixture.size());
+        Assert.assertEquals(1024, fixture.register(nodes[1024]));
+        Assert.assertEquals(nodes.length, fixture.bound());
+
+        fixture.clear();
+        Assert.assertEquals(0, fixture.bound());
+        Assert.assertNull(fixture.get(0));
+        Assert.assertEquals(0, fixture.register(nodes[0]));
+    }
+
+    /**
+     * Tests that ids registered from several threads are dense and distinct.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentRegister() throws Exception
+    {
+        final int threads = 8;
+        final int count = 10000;
+        INode node = FileNode.builder("f").create();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Callable<BitSet>> calls = Lists.newArrayList();
+            for (int t = 0; t < threads; t++)
+            {
+                calls.add(() -> {
+                    BitSet ids = new BitSet();
+                    for (int i = 0; i < count; i++)
+                        ids.set(fixture.register(node));
+                    return ids;
+                });
+            }
+
+            BitSet all = new BitSet();
+            for (Future<BitSet> result : executor.invokeAll(calls))
+            {
+                BitSet ids = result.get();
+                Assert.assertFalse(all.intersects(ids));
+                all.or(ids);
+            }
+            Assert.assertEquals(threads * count, all.cardinality());
+            Assert.assertEquals(threads * count, all.nextClearBit(0));
+            for (int i = 0; i < threads * count; i++)
+                Assert.assertSame(node, fixture.get(i));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that every node of a tree has a distinct id which leads back to
+     * it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTreeIds() throws Exception
+    {
+        CodeTree tree = tree();
+        NodeIds ids = tree.getIndex().getIds();
+
+        List<AbstractNode> nodes = Lists.newArrayList();
+        collect(tree.getProject(), nodes);
+
+        BitSet seen = new BitSet();
+        for (AbstractNode node : nodes)
+        {
+            Assert.assertTrue(node.getId() >= 0 && node.getId() < ids.bound());
+            Assert.assertFalse(seen.get(node.getId()));
+            seen.set(node.getId());
+            Assert.assertSame(node, tree.getNode(node.getId()));
+        }
+        Assert.assertEquals(nodes.size(), ids.size());
+        Assert.assertEquals(-1, FileNode.builder("detached").create().getId());
+    }
+
+    /**
+     * Tests that removed nodes release their ids, and that added nodes reuse
+     * them.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRemoveAndAdd() throws Exception
+    {
+        CodeTree tree = tree();
+        FileNode file = tree.getProject().getFile("src/A.java");
+        TypeNode type = file.getType("pkg.A");
+        int fileId = file.getId();
+        int typeId = type.getId();
+        int bound = tree.getIndex().getIds().bound();
+
+        tree.getProject().removeFile("src/A.java");
+        Assert.assertEquals(-1, file.getId());
+        Assert.assertEquals(-1, type.getId());
+        Assert.assertNull(tree.getNode(fileId));
+        Assert.assertNull(tree.getNode(typeId));
+
+        tree.getProject().addFile(file);
+        Assert.assertTrue(file.getId() < bound);
+        Assert.assertTrue(type.getId() < bound);
+        Assert.assertSame(type, tree.getNode(type.getId()));
+        Assert.assertEquals(bound, tree.getIndex().getIds().bound());
+    }
+
+    /**
+     * Tests that ids released and registered from several threads are
+     * handed out to one node at a time and stay dense.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentReuse() throws Exception
+    {
+        final int threads = 8;
+        final int count = 10000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Callable<Void>> calls = Lists.newArrayList();
+            for (int t = 0; t < threads; t++)
+            {
+                calls.add(() -> {
+                    INode node = FileNode.builder("f").create();
+                    for (int i = 0; i < count; i++)
+                    {
+                        int id = fixture.register(node);
+                        Assert.assertSame(node, fixture.get(id));
+                        fixture.release(id, node);
+                    }
+                    return null;
+                });
+            }
+
+            for (Future<Void> result : executor.invokeAll(calls))
+                result.get();
+            Assert.assertEquals(0, fixture.size());
+            Assert.assertTrue(fixture.bound() <= threads);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that replacing the root of a tree keeps the ids of nodes already
+     * part of it and reuses the ids of the others.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReplaceRoot() throws Exception
+    {
+        CodeTree tree = tree();
+        ProjectNode root = tree.getProject();
+        MethodNode method = tree.getIndex().getMethod("pkg.A#foo");
+        int id = method.getId();
+        int bound = tree.getIndex().getIds().bound();
+
+        tree.setProject(root);
+        Assert.assertEquals(id, method.getId());
+        Assert.assertSame(method, tree.getNode(id));
+
+        for (int i = 0; i < 3; i++)
+        {
+            tree.setProject(tree().getProject());
+            Assert.assertEquals(-1, method.getId());
+            Assert.assertEquals(bound, tree.getIndex().getIds().bound());
+            Assert.assertEquals(bound, tree.getIndex().getIds().size());
+        }
+    }
+
+    /**
+     * Tests that renaming a method keeps its id and moves it to its new key.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRename() throws Exception
+    {
+        CodeTree tree = tree();
+        TypeNode type = tree.getIndex().getType("pkg.A");
+        MethodNode method = tree.getIndex().getMethod("pkg.A#foo");
+        int id = method.getId();
+
+        method.addParameter(new Parameter("i", "int"));
+
+        Assert.assertEquals(id, method.getId());
+        Assert.assertSame(method, tree.getNode(id));
+        Assert.assertSame(method, tree.getIndex().getMethod(method.getQIdentifier()));
+        Assert.assertSame(method, type.getMethod(method.getName()));
+        Assert.assertEquals(2, type.getMethods().size());
+        Assert.assertTrue(type.getMethods().contains(method));
+    }
+
+    /**
+     * Collects the given node and all nodes it contains.
+     *
+     * @param node
+     *            The node
+     * @param nodes
+     *            List receiving the nodes
+     */
+    private static void collect(AbstractNode node, List<AbstractNode> nodes)
+    {
+        nodes.add(node);
+        for (AbstractNode child : node.getChildren())
+            collect(child, nodes);
+    }
+
+    /**
+     * @return A tree of two files with one type each
+     */
+    private static CodeTree tree()
+    {
+        TypeNode a = TypeNode.builder("A", "pkg.A").range(1, 20)
+                .method(MethodNode.builder("foo", "pkg.A#foo").range(2, 5)
+                        .statement(StatementNode.builder(StatementType.Expression).range(3).create()).create())
+                .method(MethodNode.builder("bar", "pkg.A#bar").range(7, 9).create()).create();
+        TypeNode b = TypeNode.builder("B", "pkg.B").range(1, 10).create();
+
+        CodeTree tree = new CodeTree();
+        tree.setProject(ProjectNode.builder("project")
+                .file(FileNode.builder("src/A.java").parent("project").length(20).type(a).create())
+                .file(FileNode.builder("src/B.java").parent("project").length(10).type(b).create()).create());
+
+        return tree;
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = new NodeIds();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(NodeIdsTest.class);
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.INodeType;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ModuleNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>NodeIndexTest</code> contains tests for the class
+ * <code>{@link NodeIndex}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class NodeIndexTest {
+
+    private CodeTree fixture;
+
+    /**
+     * Tests that nodes present when the tree is created can be found.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFindExisting() throws Exception
+    {
+        CodeTreeUtils utils = fixture.getUtils();
+
+        Assert.assertNotNull(utils.findProject("project"));
+        Assert.assertNotNull(utils.findProject("subproject"));
+        Assert.assertNotNull(utils.findModule("module"));
+        Assert.assertNotNull(utils.findFile("path1"));
+        Assert.assertNotNull(utils.findFile("path2"));
+        Assert.assertNotNull(utils.getFile("path2"));
+        Assert.assertNotNull(utils.findType("path1.namespace.Type1"));
+        Assert.assertNotNull(utils.findMethod("path1.namespace.Type1#method1"));
+        Assert.assertNull(utils.findMethod("path1.namespace.Type1#method2"));
+        Assert.assertNull(utils.findType("missing"));
+    }
+
+    /**
+     * Tests that nodes are found by the symbols for their identifiers.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFindBySymbol() throws Exception
+    {
+        NodeIndex index = fixture.getIndex();
+        CodeTreeUtils utils = fixture.getUtils();
+
+        Assert.assertSame(utils.findType("path1.namespace.Type1"),
+                index.getNode(INodeType.TYPE, Symbol.parse("path1.namespace.Type1")));
+        Assert.assertSame(utils.findMethod("path1.namespace.Type1#method1"),
+                index.getNode(INodeType.METHOD, Symbol.key("path1.namespace.Type1#method1")));
+        Assert.assertSame(utils.findFile("path1"), index.getNode(INodeType.FILE, Symbol.parse("path1")));
+        Assert.assertNull(index.getNode(INodeType.METHOD, Symbol.parse("path1.namespace.Type1")));
+        Assert.assertNull(index.getNode(INodeType.FIELD, Symbol.parse("path1.namespace.Type1")));
+        Assert.assertNull(index.getNode(null, Symbol.parse("path1")));
+        Assert.assertNull(index.getNode(INodeType.FILE, null));
+    }
+
+    /**
+     * Tests that nodes added after the index was created are found.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFindAdded() throws Exception
+    {
+        CodeTreeUtils utils = fixture.getUtils();
+        TypeNode type = utils.findType("path1.namespace.Type1");
+
+        type.addMethod(MethodNode.builder("method3", "path1.namespace.Type1#method3").range(105, 108).create());
+        Assert.assertNotNull(utils.findMethod("path1.namespace.Type1#method3"));
+
+        FileNode file = FileNode.builder("path3")
+                .type(TypeNode.builder("Type3", "path3.namespace.Type3").range(1, 10).create())
+                .create();
+        utils.findProject("subproject").addFile(file);
+
+        Assert.assertSame(file, utils.findFile("path3"));
+        Assert.assertNotNull(utils.findType("path3.namespace.Type3"));
+        Assert.assertSame(file, utils.findParent(utils.findType("path3.namespace.Type3")));
+    }
+
+    /**
+     * Tests that removed nodes, along with their children, are no longer
+     * found.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFindRemoved() throws Exception
+    {
+        CodeTreeUtils utils = fixture.getUtils();
+
+        utils.removeFile("path1");
+        Assert.assertNull(utils.findFile("path1"));
+        Assert.assertNull(utils.findType("path1.namespace.Type1"));
+        Assert.assertNull(utils.findMethod("path1.namespace.Type1#method1"));
+
+        fixture.getProject().removeSubProject("subproject");
+        Assert.assertNull(utils.findProject("subproject"));
+        Assert.assertNull(utils.findModule("module"));
+        Assert.assertNull(utils.findFile("path2"));
+    }
+
+    /**
+     * Tests that replacing the root project replaces the index contents.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSetProject() throws Exception
+    {
+        CodeTreeUtils utils = fixture.getUtils();
+
+        fixture.setProject("other");
+        Assert.assertNotNull(utils.findProject("other"));
+        Assert.assertNull(utils.findProject("project"));
+        Assert.assertNull(utils.findFile("path1"));
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = new CodeTree();
+
+        ModuleNode module = ModuleNode.builder("module")
+                .file(
+                        FileNode.builder("path2")
+                                .type(
+                                        TypeNode.builder("Type2", "path2.namespace.Type2")
+                                                .range(100, 150)
+                                                .create())
+                                .create())
+                .create();
+
+        ProjectNode pn = ProjectNode.builder("project")
+                .file(
+                        FileNode.builder("path1")
+                                .type(
+                                        TypeNode.builder("Type1", "path1.namespace.Type1")
+                                                .range(100, 150)
+                                                .method(
+                                                        MethodNode.builder("method1", "path1.namespace.Type1#method1")
+                                                                .range(110, 150)
+                                                                .create())
+                                                .create())
+                                .create())
+                .project(ProjectNode.builder("subproject").module(module).create())
+                .create();
+        fixture.setProject(pn);
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(NodeIndexTest.class);
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.StatementNode;
+import edu.montana.gsoc.msusel.node.StatementType;
+import edu.montana.gsoc.msusel.node.TypeNode;
+
+/**
+ * The class <code>SymbolTest</code> contains tests for the classes
+ * <code>{@link Symbol}</code> and <code>{@link SymbolTable}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class SymbolTest {
+
+    private SymbolTable fixture;
+
+    /**
+     * Tests that parsed symbols print as the identifiers they were parsed
+     * from and hash like them.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParse() throws Exception
+    {
+        String[] ids = { "pkg.A#foo(int, String)", "src/main/A.java", "Expression:12", "Expression:012", "a", ".a",
+                "a.", "a..b", "pkg.A$B#<init>" };
+        for (String id : ids)
+        {
+            Symbol symbol = Symbol.parse(id);
+            Assert.assertEquals(id, symbol.toString());
+            Assert.assertEquals(id.hashCode(), symbol.hashCode());
+            Assert.assertEquals(id.length(), symbol.length());
+            Assert.assertTrue(symbol.matches(id));
+            Assert.assertFalse(symbol.matches(id + "x"));
+        }
+    }
+
+    /**
+     * Tests that symbols append the identifiers they spell.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAppendTo() throws Exception
+    {
+        String[] ids = { "pkg.A#foo(int, String)", "Expression:12", "Expression:012", "a..b", "pkg.A#a/If:0" };
+        for (String id : ids)
+        {
+            StringBuilder out = new StringBuilder("x");
+            Symbol.parse(id).appendTo(out);
+            Assert.assertEquals("x" + id, out.toString());
+        }
+
+        StringBuilder out = new StringBuilder();
+        Symbol.parse("pkg.A").child('#', "7").appendTo(out);
+        Assert.assertEquals("pkg.A#7", out.toString());
+    }
+
+    /**
+     * Tests that an empty identifier cannot be parsed.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseEmpty() throws Exception
+    {
+        Symbol.parse("");
+    }
+
+    /**
+     * Tests the structure of a parsed symbol.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStructure() throws Exception
+    {
+        String name = "foo";
+        Symbol symbol = Symbol.parse("pkg.A#foo", name);
+
+        Assert.assertSame(name, symbol.getName());
+        Assert.assertEquals('#', symbol.getSeparator());
+        Assert.assertEquals("pkg.A", symbol.getParent().toString());
+        Assert.assertEquals('.', symbol.getParent().getSeparator());
+        Assert.assertEquals("pkg", symbol.getParent().getParent().toString());
+        Assert.assertNull(symbol.getParent().getParent().getParent());
+
+        Symbol statement = Symbol.parse("Expression:12");
+        Assert.assertEquals("12", statement.getName());
+        Assert.assertEquals(':', statement.getSeparator());
+    }
+
+    /**
+     * Tests that keys, parsed symbols and derived children are equal when
+     * they spell the same identifier.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEquals() throws Exception
+    {
+        Symbol parsed = Symbol.parse("pkg.A#foo");
+        Symbol child = Symbol.parse("pkg.A").child('#', "foo");
+        Symbol key = Symbol.key("pkg.A#foo");
+
+        Assert.assertEquals(parsed, child);
+        Assert.assertEquals(parsed, key);
+        Assert.assertEquals(key, parsed);
+        Assert.assertEquals(key, child);
+        Assert.assertEquals(parsed.hashCode(), key.hashCode());
+        Assert.assertEquals(child.hashCode(), key.hashCode());
+
+        Assert.assertNotEquals(parsed, Symbol.parse("pkg.A#bar"));
+        Assert.assertNotEquals(parsed, Symbol.parse("pkg.B#foo"));
+        Assert.assertNotEquals(Symbol.parse("Expression:12"), Symbol.parse("Expression:012"));
+        Assert.assertEquals(Symbol.parse("Expression:12"), Symbol.key("Expression:12"));
+    }
+
+    /**
+     * Tests that interning shares prefixes between symbols.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testIntern() throws Exception
+    {
+        Symbol foo = Symbol.parse("pkg.A#foo");
+        Symbol bar = Symbol.parse("pkg.A#bar");
+
+        fixture.share(foo);
+        fixture.share(bar);
+
+        Assert.assertSame(foo.getParent(), bar.getParent());
+        Assert.assertSame(foo.getParent(), fixture.find("pkg.A"));
+        Assert.assertSame(fixture.find("pkg"), foo.getParent().getParent());
+        Assert.assertNull(fixture.find("pkg.A#foo"));
+        Assert.assertEquals(2, fixture.size());
+
+        Symbol a = Symbol.parse("pkg.A");
+        Assert.assertSame(foo.getParent(), fixture.intern(a));
+        Assert.assertNull(fixture.intern(null));
+
+        fixture.clear();
+        Assert.assertEquals(0, fixture.size());
+        Assert.assertNull(fixture.find("pkg.A"));
+    }
+
+    /**
+     * Tests that the nodes of a tree share the symbols of their parents.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTreeSharing() throws Exception
+    {
+        TypeNode type = TypeNode.builder("A", "pkg.A").range(1, 20)
+                .method(MethodNode.builder("foo", "pkg.A#foo").range(2, 5)
+                        .statement(StatementNode.builder(StatementType.Expression).range(3).create()).create())
+                .method(MethodNode.builder("bar", "pkg.A#bar").range(7, 9).create()).create();
+
+        CodeTree tree = new CodeTree();
+        tree.setProject(ProjectNode.builder("project")
+                .file(FileNode.builder("src/A.java").parent("project").length(20).type(type).create()).create());
+
+        TypeNode a = tree.getIndex().getType("pkg.A");
+        MethodNode foo = tree.getIndex().getMethod("pkg.A#foo");
+        MethodNode bar = tree.getIndex().getMethod("pkg.A#bar");
+
+        Assert.assertSame(a.getSymbol(), foo.getSymbol().getParent());
+        Assert.assertSame(a.getSymbol(), bar.getSymbol().getParent());
+        Assert.assertSame(a.getSymbol(), tree.getIndex().getSymbols().find("pkg.A"));
+        Assert.assertEquals("pkg.A", foo.getParentID());
+    }
+
+    /**
+     * Tests that symbols are written to and read from json as strings.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAdapter() throws Exception
+    {
+        Gson gson = new Gson();
+        Symbol.Adapter adapter = new Symbol.Adapter();
+
+        String json = adapter.toJson(Symbol.parse("pkg.A#foo"));
+        Assert.assertEquals(gson.toJson("pkg.A#foo"), json);
+        Assert.assertEquals(Symbol.parse("pkg.A#foo"), adapter.fromJson(json));
+        Assert.assertNull(adapter.fromJson("null"));
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        fixture = new SymbolTable();
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(SymbolTest.class);
+    }
+}
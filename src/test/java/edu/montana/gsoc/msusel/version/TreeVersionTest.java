@@ -0,0 +1,216 @@
+/**
+ * The MIT License (MIT)
+ *
+ * MSUSEL CodeTree
+ * Copyright (c) 2015-2017 Montana State University, Gianforte School of Computing,
+ * Software Engineering Laboratory
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package edu.montana.gsoc.msusel.version;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.montana.gsoc.msusel.CodeTree;
+import edu.montana.gsoc.msusel.node.FileNode;
+import edu.montana.gsoc.msusel.node.MethodNode;
+import edu.montana.gsoc.msusel.node.ProjectNode;
+import edu.montana.gsoc.msusel.node.TypeNode;
+import edu.montana.gsoc.msusel.util.MetricNameRegistry;
+
+/**
+ * The class <code>TreeVersionTest</code> contains tests for the class
+ * <code>{@link TreeVersion}</code>.
+ *
+ * @author Isaac Griffith
+ * @version 1.1.1
+ */
+public class TreeVersionTest {
+
+    private CodeTree fixture;
+
+    /**
+     * Tests that publishing an unchanged tree shares the whole version.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnchanged() throws Exception
+    {
+        Assert.assertNull(fixture.getVersion());
+
+        TreeVersion first = fixture.publish();
+        TreeVersion second = fixture.publish();
+
+        Assert.assertSame(second, fixture.getVersion());
+        Assert.assertSame(first.getRoot(), second.getRoot());
+        Assert.assertEquals(fixture.getFingerprint(), first.getFingerprint());
+    }
+
+    /**
+     * Tests that a change copies only the path to the changed node.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSharing() throws Exception
+    {
+        TreeVersion first = fixture.publish();
+        fixture.getIndex().getMethod("pkg.A#foo").addMetric("LOC", 5.0);
+        TreeVersion second = fixture.publish();
+
+        Assert.assertNotSame(first.getRoot(), second.getRoot());
+        Assert.assertNotSame(first.find("src/A.java"), second.find("src/A.java"));
+        Assert.assertNotSame(first.find("pkg.A"), second.find("pkg.A"));
+        Assert.assertNotSame(first.find("pkg.A#foo"), second.find("pkg.A#foo"));
+
+        Assert.assertSame(first.find("pkg.A#bar"), second.find("pkg.A#bar"));
+        Assert.assertSame(first.find("src/B.java"), second.find("src/B.java"));
+        Assert.assertSame(first.find("pkg.B"), second.find("pkg.B"));
+
+        Assert.assertEquals(fixture.getFingerprint(), second.getFingerprint());
+        Assert.assertNotEquals(first.getFingerprint(), second.getFingerprint());
+    }
+
+    /**
+     * Tests that a version is not affected by later changes to the tree.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testIsolation() throws Exception
+    {
+        TreeVersion version = fixture.publish();
+        long fingerprint = version.getFingerprint();
+        int size = version.size();
+
+        MethodNode foo = fixture.getIndex().getMethod("pkg.A#foo");
+        foo.addMetric("LOC", 5.0);
+        foo.addMetric("NOS", 3.0);
+        fixture.getIndex().getType("pkg.A").addMethod(MethodNode.builder("baz", "pkg.A#baz").range(9, 10).create());
+
+        VersionNode old = version.find("pkg.A#foo");
+        Assert.assertEquals(4.0, old.getMetric("LOC"), 0.001);
+        Assert.assertFalse(old.hasMetric("NOS"));
+        Assert.assertNull(version.find("pkg.A#baz"));
+        Assert.assertEquals(size, version.size());
+        Assert.assertEquals(fingerprint, version.getFingerprint());
+
+        TreeVersion next = fixture.publish();
+        Assert.assertEquals(3.0, next.find("pkg.A#foo").getMetric("NOS"), 0.001);
+        Assert.assertNotNull(next.find("pkg.A#baz"));
+        Assert.assertEquals(size + 1, next.size());
+    }
+
+    /**
+     * Tests that extracting a branch shares the subtree of the node.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExtract() throws Exception
+    {
+        TreeVersion version = fixture.publish();
+        TreeVersion branch = version.extract("pkg.A");
+
+        Assert.assertSame(version.find("pkg.A"), branch.find("pkg.A"));
+        Assert.assertSame(version.find("pkg.A#foo"), branch.find("pkg.A#foo"));
+        Assert.assertNotNull(branch.find("src/A.java"));
+        Assert.assertNull(branch.find("src/B.java"));
+        Assert.assertNull(branch.find("pkg.B"));
+        Assert.assertEquals("project", branch.getRoot().getQIdentifier());
+
+        Assert.assertNull(version.extract("pkg.Missing"));
+    }
+
+    /**
+     * Tests the content captured by a version.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testContent() throws Exception
+    {
+        TreeVersion version = fixture.publish();
+
+        VersionNode type = version.find("pkg.A");
+        Assert.assertEquals("A", type.getName());
+        Assert.assertEquals(1, type.getStart());
+        Assert.assertEquals(20, type.getEnd());
+        Assert.assertTrue(type.containsLine(7));
+        Assert.assertEquals(2, type.getChildren().size());
+        Assert.assertSame(version.find("pkg.A#foo"), type.getChild("pkg.A#foo"));
+        Assert.assertSame(version.find("src/A.java"), version.getParent(type));
+        Assert.assertNull(version.getParent(version.getRoot()));
+
+        Assert.assertEquals(20, version.find("src/A.java").getLength());
+        Assert.assertEquals(8, version.size());
+        Assert.assertEquals(0, new TreeVersion(null).size());
+        Assert.assertEquals(0, new CodeTree().publish().getFingerprint());
+    }
+
+    /**
+     * Perform pre-test initialization.
+     *
+     * @throws Exception
+     *             if the initialization fails for some reason
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        MetricNameRegistry.getInstance().keyOrRegister("NOS");
+
+        TypeNode a = TypeNode.builder("A", "pkg.A").range(1, 20)
+                .method(MethodNode.builder("foo", "pkg.A#foo").range(2, 5).metric("LOC", 4.0).create())
+                .method(MethodNode.builder("bar", "pkg.A#bar").range(7, 9).create()).create();
+        TypeNode b = TypeNode.builder("B", "pkg.B").range(1, 10)
+                .method(MethodNode.builder("run", "pkg.B#run").range(2, 4).create()).create();
+
+        fixture = new CodeTree();
+        fixture.setProject(ProjectNode.builder("project")
+                .file(FileNode.builder("src/A.java").parent("project").length(20).type(a).create())
+                .file(FileNode.builder("src/B.java").parent("project").length(10).type(b).create()).create());
+    }
+
+    /**
+     * Perform post-test clean-up.
+     *
+     * @throws Exception
+     *             if the clean-up fails for some reason
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        // Add additional tear down code here
+    }
+
+    /**
+     * Launch the test.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(final String[] args)
+    {
+        new org.junit.runner.JUnitCore().run(TreeVersionTest.class);
+    }
+}